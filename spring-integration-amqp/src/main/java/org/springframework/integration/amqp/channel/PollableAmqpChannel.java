@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,25 +16,50 @@
 
 package org.springframework.integration.amqp.channel;
 
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.ShutdownSignalException;
+
+import org.springframework.amqp.AmqpIOException;
 import org.springframework.amqp.core.AmqpAdmin;
 import org.springframework.amqp.core.AmqpTemplate;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.RabbitUtils;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.integration.Message;
 import org.springframework.integration.core.PollableChannel;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 
 /**
  * A {@link PollableChannel} implementation that is backed by an AMQP Queue.
  * Messages will be sent to the default (no-name) exchange with that Queue's
  * name as the routing key.
- * 
+ * <p>
+ * By default, each receive issues a synchronous 'basic.get'. If a
+ * {@link #setPrefetchCount(int) prefetchCount} is set, a long-lived consumer is
+ * used instead: the broker sends up to prefetchCount messages ahead of the calls
+ * to receive, which take them from a local buffer, waiting up to the receive
+ * timeout, and the messages are acknowledged in batches of
+ * {@link #setTxSize(int) txSize}.
+ *
  * @author Mark Fisher
  * @since 2.1
  */
-public class PollableAmqpChannel extends AbstractAmqpChannel implements PollableChannel {
+public class PollableAmqpChannel extends AbstractAmqpChannel implements PollableChannel, DisposableBean {
 
 	private final String channelName;
 
@@ -42,6 +67,16 @@ public class PollableAmqpChannel extends AbstractAmqpChannel implements Pollable
 
 	private volatile AmqpAdmin amqpAdmin;
 
+	private volatile int prefetchCount;
+
+	private volatile int txSize = 1;
+
+	private volatile MessagePropertiesConverter messagePropertiesConverter = new DefaultMessagePropertiesConverter();
+
+	private volatile PrefetchingConsumer consumer;
+
+	private final Object consumerMonitor = new Object();
+
 
 	public PollableAmqpChannel(String channelName, AmqpTemplate amqpTemplate) {
 		super(amqpTemplate);
@@ -68,12 +103,50 @@ public class PollableAmqpChannel extends AbstractAmqpChannel implements Pollable
 		this.amqpAdmin = amqpAdmin;
 	}
 
+	/**
+	 * Set the number of unacknowledged messages the broker sends to this channel ahead
+	 * of the calls to receive ('basic.qos'). When greater than 0, a long-lived consumer,
+	 * created by the first receive, delivers the messages to a local buffer; receive
+	 * then waits up to its timeout for a message, without a broker round trip per message.
+	 * The messages in the buffer are returned to the queue if the channel is destroyed.
+	 * Requires a {@link RabbitTemplate} that is not 'channelTransacted', and cannot be used
+	 * when receiving within a Rabbit transaction (for example, from a transactional poller),
+	 * since the prefetched messages are not received in the transaction.
+	 * Default 0: each receive issues a 'basic.get'.
+	 * @since 3.0
+	 */
+	public void setPrefetchCount(int prefetchCount) {
+		Assert.isTrue(prefetchCount >= 0, "'prefetchCount' cannot be negative");
+		this.prefetchCount = prefetchCount;
+	}
+
+	/**
+	 * When a {@link #setPrefetchCount(int) prefetchCount} is set, the number of received
+	 * messages that are acknowledged with a single 'basic.ack'. The received messages are
+	 * also acknowledged whenever the local buffer is empty, so that acknowledgments are not
+	 * held back while waiting for more messages. Default 1.
+	 * @since 3.0
+	 */
+	public void setTxSize(int txSize) {
+		Assert.isTrue(txSize > 0, "'txSize' must be greater than 0");
+		this.txSize = txSize;
+	}
+
+	/**
+	 * Set the converter used to map the properties of prefetched messages.
+	 * @since 3.0
+	 */
+	public void setMessagePropertiesConverter(MessagePropertiesConverter messagePropertiesConverter) {
+		Assert.notNull(messagePropertiesConverter, "'messagePropertiesConverter' must not be null");
+		this.messagePropertiesConverter = messagePropertiesConverter;
+	}
+
 	@Override
 	protected void onInit() throws Exception {
 		AmqpTemplate amqpTemplate = this.getAmqpTemplate();
 		if (this.queueName == null) {
 			if (this.amqpAdmin == null && amqpTemplate instanceof RabbitTemplate) {
-				this.amqpAdmin = new RabbitAdmin(((RabbitTemplate) amqpTemplate).getConnectionFactory());				
+				this.amqpAdmin = new RabbitAdmin(((RabbitTemplate) amqpTemplate).getConnectionFactory());
 			}
 			Assert.notNull(this.amqpAdmin,
 					"If no queueName is configured explicitly, an AmqpAdmin instance must be provided, " +
@@ -81,6 +154,12 @@ public class PollableAmqpChannel extends AbstractAmqpChannel implements Pollable
 			this.queueName = this.channelName;
 			this.amqpAdmin.declareQueue(new Queue(this.queueName));
 		}
+		if (this.prefetchCount > 0) {
+			Assert.isInstanceOf(RabbitTemplate.class, amqpTemplate,
+					"A RabbitTemplate is required when a 'prefetchCount' is set");
+			Assert.isTrue(!((RabbitTemplate) amqpTemplate).isChannelTransacted(),
+					"A 'prefetchCount' cannot be used with a transacted channel ('channelTransacted')");
+		}
 	}
 
 	@Override
@@ -89,10 +168,45 @@ public class PollableAmqpChannel extends AbstractAmqpChannel implements Pollable
 	}
 
 	public Message<?> receive() {
+		if (this.prefetchCount > 0) {
+			return this.receive(-1);
+		}
 		if (!this.getInterceptors().preReceive(this)) {
  			return null;
  		}
 		Object object = this.getAmqpTemplate().receiveAndConvert(this.queueName);
+		return this.postReceive(object);
+	}
+
+	/**
+	 * Receive a message; if a {@link #setPrefetchCount(int) prefetchCount} is set,
+	 * wait up to the timeout (indefinitely if negative) for a message to be
+	 * delivered. Otherwise, the timeout is ignored.
+	 */
+	public Message<?> receive(long timeout) {
+		if (this.prefetchCount <= 0) {
+			if (logger.isInfoEnabled()) {
+				logger.info("Calling receive with a timeout value on PollableAmqpChannel. " +
+						"The timeout will be ignored since no receive timeout is supported.");
+			}
+			return this.receive();
+		}
+		RabbitTemplate rabbitTemplate = (RabbitTemplate) this.getAmqpTemplate();
+		Assert.state(!TransactionSynchronizationManager.hasResource(rabbitTemplate.getConnectionFactory()),
+				"A 'prefetchCount' cannot be used when receiving within a Rabbit transaction; " +
+				"the prefetched messages are not received in the transaction");
+		if (!this.getInterceptors().preReceive(this)) {
+			return null;
+		}
+		org.springframework.amqp.core.Message amqpMessage = this.getConsumer().nextMessage(timeout);
+		if (amqpMessage == null) {
+			return null;
+		}
+		Object object = rabbitTemplate.getMessageConverter().fromMessage(amqpMessage);
+		return this.postReceive(object);
+	}
+
+	private Message<?> postReceive(Object object) {
 		if (object == null) {
 			return null;
 		}
@@ -106,12 +220,164 @@ public class PollableAmqpChannel extends AbstractAmqpChannel implements Pollable
 		return this.getInterceptors().postReceive(replyMessage, this) ;
 	}
 
-	public Message<?> receive(long timeout) {
-		if (logger.isInfoEnabled()) {
-			logger.info("Calling receive with a timeout value on PollableAmqpChannel. " +
-					"The timeout will be ignored since no receive timeout is supported.");
+	private PrefetchingConsumer getConsumer() {
+		synchronized (this.consumerMonitor) {
+			if (this.consumer == null || !this.consumer.isActive()) {
+				if (this.consumer != null) {
+					this.consumer.stop();
+				}
+				Connection connection = ((RabbitTemplate) this.getAmqpTemplate()).getConnectionFactory()
+						.createConnection();
+				Channel channel = connection.createChannel(false);
+				PrefetchingConsumer consumer = new PrefetchingConsumer(connection, channel);
+				try {
+					channel.basicQos(this.prefetchCount);
+					channel.basicConsume(this.queueName, false, consumer);
+				}
+				catch (IOException e) {
+					consumer.stop();
+					throw new AmqpIOException(e);
+				}
+				if (logger.isDebugEnabled()) {
+					logger.debug("Started prefetching consumer on queue '" + this.queueName + "'");
+				}
+				this.consumer = consumer;
+			}
+			return this.consumer;
 		}
-		return this.receive();
+	}
+
+	/**
+	 * Stop the prefetching consumer, if any; messages that have been prefetched,
+	 * but not received, are returned to the queue.
+	 */
+	public void destroy() {
+		synchronized (this.consumerMonitor) {
+			if (this.consumer != null) {
+				this.consumer.stop();
+				this.consumer = null;
+			}
+		}
+	}
+
+
+	/**
+	 * A long-lived consumer that buffers the deliveries, and acknowledges them
+	 * when they have been received, every txSize messages.
+	 */
+	private class PrefetchingConsumer extends DefaultConsumer {
+
+		private final Connection connection;
+
+		private final BlockingQueue<org.springframework.amqp.core.Message> deliveries =
+				new LinkedBlockingQueue<org.springframework.amqp.core.Message>();
+
+		private volatile boolean active = true;
+
+		private long lastDeliveryTag;
+
+		private int unacked;
+
+		private PrefetchingConsumer(Connection connection, Channel channel) {
+			super(channel);
+			this.connection = connection;
+		}
+
+		private boolean isActive() {
+			return this.active && this.getChannel().isOpen();
+		}
+
+		@Override
+		public void handleDelivery(String consumerTag, Envelope envelope, BasicProperties properties, byte[] body) {
+			this.deliveries.add(new org.springframework.amqp.core.Message(body,
+					messagePropertiesConverter.toMessageProperties(properties, envelope, "UTF-8")));
+		}
+
+		@Override
+		public void handleCancel(String consumerTag) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Prefetching consumer on queue '" + queueName + "' was cancelled by the broker");
+			}
+			this.active = false;
+		}
+
+		@Override
+		public void handleShutdownSignal(String consumerTag, ShutdownSignalException sig) {
+			if (this.active && logger.isDebugEnabled()) {
+				logger.debug("Prefetching consumer on queue '" + queueName + "' was shut down: " + sig.getMessage());
+			}
+			this.active = false;
+		}
+
+		private org.springframework.amqp.core.Message nextMessage(long timeout) {
+			org.springframework.amqp.core.Message message;
+			try {
+				if (timeout > 0) {
+					message = this.deliveries.poll(timeout, TimeUnit.MILLISECONDS);
+				}
+				else if (timeout == 0) {
+					message = this.deliveries.poll();
+				}
+				else {
+					message = this.deliveries.take();
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+			if (message != null) {
+				this.acknowledge(message.getMessageProperties().getDeliveryTag());
+			}
+			return message;
+		}
+
+		private synchronized void acknowledge(long deliveryTag) {
+			this.lastDeliveryTag = Math.max(this.lastDeliveryTag, deliveryTag);
+			if (++this.unacked >= txSize || this.deliveries.isEmpty()) {
+				this.ackReceived();
+			}
+		}
+
+		/**
+		 * Acknowledge all the messages received so far with a single 'basic.ack';
+		 * if the channel has failed, they will be redelivered.
+		 */
+		private synchronized void ackReceived() {
+			if (this.unacked == 0) {
+				return;
+			}
+			try {
+				this.getChannel().basicAck(this.lastDeliveryTag, true);
+			}
+			catch (Exception e) {
+				this.active = false;
+				if (logger.isWarnEnabled()) {
+					logger.warn("Failed to acknowledge " + this.unacked + " message(s) on queue '"
+							+ queueName + "'; they will be redelivered", e);
+				}
+			}
+			this.unacked = 0;
+		}
+
+		private void stop() {
+			this.active = false;
+			if (this.getChannel().isOpen()) {
+				this.ackReceived();
+			}
+			this.deliveries.clear();
+			// physically close the channel (rather than return it to a cache) so that the prefetched messages are requeued
+			RabbitUtils.setPhysicalCloseRequired(true);
+			try {
+				RabbitUtils.closeMessageConsumer(this.getChannel(), this.getConsumerTag(), false);
+				RabbitUtils.closeChannel(this.getChannel());
+				RabbitUtils.closeConnection(this.connection);
+			}
+			finally {
+				RabbitUtils.setPhysicalCloseRequired(false);
+			}
+		}
+
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -330,6 +330,15 @@ public class AmqpChannelFactoryBean extends AbstractFactoryBean<AbstractAmqpChan
 			if (StringUtils.hasText(this.queueName)) {
 				pollable.setQueueName(this.queueName);
 			}
+			if (this.prefetchCount != null) {
+				pollable.setPrefetchCount(this.prefetchCount);
+			}
+			if (this.txSize != null) {
+				pollable.setTxSize(this.txSize);
+			}
+			if (this.messagePropertiesConverter != null) {
+				pollable.setMessagePropertiesConverter(this.messagePropertiesConverter);
+			}
 			this.channel = pollable;
 		}
 		if (!CollectionUtils.isEmpty(this.interceptors)) {
@@ -54,6 +54,12 @@ public class AmqpChannelParser extends AbstractChannelParser {
 			this.setMaxSubscribersProperty(parserContext, builder, element, IntegrationNamespaceUtils.DEFAULT_MAX_BROADCAST_SUBSCRIBERS_PROPERTY_NAME);
 		}
 
+		if ("false".equals(messageDriven) && StringUtils.hasText(element.getAttribute("prefetch-count"))
+				&& "true".equals(element.getAttribute("channel-transacted"))) {
+			parserContext.getReaderContext().error("The 'prefetch-count' attribute of a channel that is not " +
+					"message-driven cannot be combined with channel-transacted=\"true\".", element);
+		}
+
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "acknowledge-mode");
 		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "advice-chain");
 		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "amqp-admin");
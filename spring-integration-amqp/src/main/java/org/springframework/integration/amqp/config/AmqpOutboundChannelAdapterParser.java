@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -55,6 +55,9 @@ public class AmqpOutboundChannelAdapterParser extends AbstractOutboundChannelAda
 		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "confirm-ack-channel");
 		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "confirm-nack-channel");
 		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "return-channel");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "max-unconfirmed");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "confirm-timeout");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "wait-for-confirm");
 
 		return builder.getBeanDefinition();
 	}
@@ -19,6 +19,8 @@ import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.core.AmqpTemplate;
 import org.springframework.amqp.core.MessagePostProcessor;
 import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.rabbit.core.RabbitTemplate.ReturnCallback;
 import org.springframework.amqp.rabbit.support.CorrelationData;
@@ -30,12 +32,16 @@ import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
+import org.springframework.integration.MessageDeliveryException;
+import org.springframework.integration.MessageTimeoutException;
 import org.springframework.integration.amqp.AmqpHeaders;
+import org.springframework.integration.amqp.outbound.PublisherConfirmTracker.PendingPublish;
 import org.springframework.integration.amqp.support.AmqpHeaderMapper;
 import org.springframework.integration.amqp.support.DefaultAmqpHeaderMapper;
 import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
 import org.springframework.integration.handler.ExpressionEvaluatingMessageProcessor;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.util.Assert;
 
 /**
@@ -81,6 +87,14 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler
 
 	private volatile MessageChannel returnChannel;
 
+	private volatile int maxUnconfirmed;
+
+	private volatile long confirmTimeout = 10000;
+
+	private volatile boolean waitForConfirm;
+
+	private volatile PublisherConfirmTracker confirmTracker;
+
 	@Override
 	protected void onInit() {
 		super.onInit();
@@ -114,6 +128,18 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler
 				this.correlationDataGenerator.setBeanFactory(beanFactory);
 			}
 		}
+		if (this.maxUnconfirmed > 0 || this.waitForConfirm) {
+			Assert.state(!this.expectReply, "Publisher confirm tracking does not apply to a gateway");
+			Assert.isTrue(amqpTemplate instanceof RabbitTemplate, "RabbitTemplate implementation is required for publisher confirms");
+			ConnectionFactory connectionFactory = ((RabbitTemplate) this.amqpTemplate).getConnectionFactory();
+			if (connectionFactory instanceof CachingConnectionFactory) {
+				// otherwise no confirms arrive, and senders would wait for them until they time out
+				Assert.isTrue(((CachingConnectionFactory) connectionFactory).isPublisherConfirms(),
+						"Publisher confirm tracking requires a connection factory with 'publisherConfirms' enabled");
+			}
+			this.confirmTracker = new PublisherConfirmTracker(this.maxUnconfirmed);
+			((RabbitTemplate) this.amqpTemplate).setConfirmCallback(this);
+		}
 		if (this.returnChannel != null) {
 			Assert.isTrue(amqpTemplate instanceof RabbitTemplate, "RabbitTemplate implementation is required for publisher returns");
 			(		(RabbitTemplate) this.amqpTemplate).setReturnCallback(this);
@@ -168,6 +194,100 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler
 		this.returnChannel = returnChannel;
 	}
 
+	/**
+	 * Set the maximum number of sent messages for which no publisher confirm has been
+	 * received yet. When the limit is reached, senders wait for confirms to arrive (up to
+	 * the {@link #setConfirmTimeout(long) confirmTimeout}) before sending, so a slow broker
+	 * slows down the flow instead of letting unconfirmed messages accumulate. Requires a
+	 * connection factory with publisher confirms enabled. Default 0 (no limit).
+	 * @since 3.0
+	 */
+	public void setMaxUnconfirmed(int maxUnconfirmed) {
+		Assert.isTrue(maxUnconfirmed >= 0, "'maxUnconfirmed' cannot be negative");
+		this.maxUnconfirmed = maxUnconfirmed;
+	}
+
+	/**
+	 * Set the time in milliseconds to wait for a publisher confirm, when waiting for
+	 * a {@link #setMaxUnconfirmed(int) permit} to send or for the
+	 * {@link #setWaitForConfirm(boolean) confirm of a message}. Messages that have not
+	 * been confirmed within this time are considered not confirmed: they are sent to the
+	 * 'confirmNackChannel' (if they have correlation data) and are no longer counted as
+	 * unconfirmed. A negative value means wait indefinitely. Default 10 seconds.
+	 * @since 3.0
+	 */
+	public void setConfirmTimeout(long confirmTimeout) {
+		this.confirmTimeout = confirmTimeout;
+	}
+
+	/**
+	 * When true, the sending thread waits for the publisher confirm of each message,
+	 * so that the send only returns once the broker has confirmed the message; a
+	 * {@link MessageDeliveryException} is thrown if the broker nacks it, and a
+	 * {@link MessageTimeoutException} if no confirm is received within the
+	 * {@link #setConfirmTimeout(long) confirmTimeout}. Concurrent senders are released
+	 * together when the broker confirms them with a single (multiple) ack. Requires a
+	 * connection factory with publisher confirms enabled. Default false.
+	 * @since 3.0
+	 */
+	public void setWaitForConfirm(boolean waitForConfirm) {
+		this.waitForConfirm = waitForConfirm;
+	}
+
+	/**
+	 * @return the number of sent messages waiting for their publisher confirm.
+	 * @since 3.0
+	 */
+	@ManagedAttribute
+	public int getUnconfirmedCount() {
+		return this.confirmTracker != null ? this.confirmTracker.getUnconfirmedCount() : 0;
+	}
+
+	/**
+	 * @return the number of positive publisher confirms received.
+	 * @since 3.0
+	 */
+	@ManagedAttribute
+	public long getConfirmAckCount() {
+		return this.confirmTracker != null ? this.confirmTracker.getAckCount() : 0;
+	}
+
+	/**
+	 * @return the number of negative publisher confirms received.
+	 * @since 3.0
+	 */
+	@ManagedAttribute
+	public long getConfirmNackCount() {
+		return this.confirmTracker != null ? this.confirmTracker.getNackCount() : 0;
+	}
+
+	/**
+	 * @return the number of messages not confirmed within the confirm timeout.
+	 * @since 3.0
+	 */
+	@ManagedAttribute
+	public long getConfirmTimeoutCount() {
+		return this.confirmTracker != null ? this.confirmTracker.getTimeoutCount() : 0;
+	}
+
+	/**
+	 * @return the mean time in milliseconds between sending a message and receiving its confirm.
+	 * @since 3.0
+	 */
+	@ManagedAttribute
+	public double getMeanConfirmLatency() {
+		return this.confirmTracker != null ? this.confirmTracker.getMeanLatency() : 0;
+	}
+
+	/**
+	 * @return the maximum time in milliseconds between sending a message and receiving its confirm.
+	 * @since 3.0
+	 */
+	@ManagedAttribute
+	public long getMaxConfirmLatency() {
+		return this.confirmTracker != null ? this.confirmTracker.getMaxLatency() : 0;
+	}
+
 	@Override
 	public String getComponentType() {
 		return expectReply ? "amqp:outbound-gateway" : "amqp:outbound-channel-adapter";
@@ -178,8 +298,9 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler
 		String exchangeName = this.exchangeName;
 		String routingKey = this.routingKey;
 		CorrelationData correlationData = null;
+		Object userCorrelationData = null;
 		if (this.correlationDataGenerator != null) {
-			Object userCorrelationData = this.correlationDataGenerator
+			userCorrelationData = this.correlationDataGenerator
 					.processMessage(requestMessage);
 			if (userCorrelationData != null) {
 				if (userCorrelationData instanceof CorrelationData) {
@@ -199,6 +320,10 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler
 		if (this.expectReply) {
 			return this.sendAndReceive(exchangeName, routingKey, requestMessage);
 		}
+		else if (this.confirmTracker != null) {
+			this.sendTracked(exchangeName, routingKey, requestMessage, userCorrelationData);
+			return null;
+		}
 		else {
 			this.send(exchangeName, routingKey, requestMessage, correlationData);
 			return null;
@@ -230,6 +355,76 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler
 		}
 	}
 
+	private void sendTracked(String exchangeName, String routingKey, Message<?> requestMessage,
+			Object userCorrelationData) {
+		this.acquirePermit(requestMessage);
+		String id = this.confirmTracker.nextId();
+		PendingPublish pendingPublish = this.confirmTracker.track(id, userCorrelationData, this.waitForConfirm);
+		try {
+			this.send(exchangeName, routingKey, requestMessage, new CorrelationDataWrapper(id, userCorrelationData));
+		}
+		catch (RuntimeException e) {
+			this.confirmTracker.cancel(id);
+			throw e;
+		}
+		if (this.waitForConfirm) {
+			boolean confirmed;
+			try {
+				confirmed = pendingPublish.await(this.confirmTimeout);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				this.expire(id);
+				throw new MessageDeliveryException(requestMessage, "Interrupted while waiting for publisher confirm");
+			}
+			if (!confirmed && this.expire(id)) {
+				throw new MessageTimeoutException(requestMessage,
+						"No publisher confirm received within " + this.confirmTimeout + "ms");
+			}
+			if (!pendingPublish.isAck()) {
+				throw new MessageDeliveryException(requestMessage, "Publisher confirm nack received");
+			}
+		}
+	}
+
+	/**
+	 * Wait until the number of unconfirmed messages is below the limit; if it is not
+	 * within the confirm timeout, give up on the messages that have not been confirmed
+	 * for longer than that (for example, because their channel was closed) and try once more.
+	 */
+	private void acquirePermit(Message<?> requestMessage) {
+		if (this.confirmTracker.tryAcquire()) {
+			return;
+		}
+		try {
+			if (this.confirmTracker.tryAcquire(this.confirmTimeout)) {
+				return;
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MessageDeliveryException(requestMessage, "Interrupted while waiting for publisher confirms");
+		}
+		// also discards them from the template
+		((RabbitTemplate) this.amqpTemplate).getUnconfirmed(this.confirmTimeout);
+		for (PendingPublish expired : this.confirmTracker.expireOlderThan(this.confirmTimeout)) {
+			this.sendConfirm(expired.getUserData(), false);
+		}
+		if (!this.confirmTracker.tryAcquire()) {
+			throw new MessageTimeoutException(requestMessage, "Timed out waiting for publisher confirms; "
+					+ this.confirmTracker.getUnconfirmedCount() + " messages are unconfirmed");
+		}
+	}
+
+	private boolean expire(String id) {
+		PendingPublish expired = this.confirmTracker.expire(id);
+		if (expired != null) {
+			this.sendConfirm(expired.getUserData(), false);
+			return true;
+		}
+		return false;
+	}
+
 	private Message<?> sendAndReceive(String exchangeName, String routingKey, Message<?> requestMessage) {
 		Assert.isTrue(amqpTemplate instanceof RabbitTemplate, "RabbitTemplate implementation is required for send and receive");
 		MessageConverter converter = ((RabbitTemplate) this.amqpTemplate).getMessageConverter();
@@ -253,6 +448,21 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler
 		Object userCorrelationData = correlationData;
 		if (correlationData instanceof CorrelationDataWrapper) {
 			userCorrelationData = ((CorrelationDataWrapper) correlationData).getUserData();
+			if (this.confirmTracker != null && this.confirmTracker.confirm(correlationData.getId(), ack) == null) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Late publisher confirm " + (ack ? "ack" : "nack") + " ignored for "
+							+ userCorrelationData + "; it was already reported as not confirmed");
+				}
+				return;
+			}
+		}
+		this.sendConfirm(userCorrelationData, ack);
+	}
+
+	private void sendConfirm(Object userCorrelationData, boolean ack) {
+		if (userCorrelationData == null) {
+			// messages without correlation data do not generate confirm messages
+			return;
 		}
 		Message<Object> confirmMessage = MessageBuilder.withPayload(userCorrelationData)
 				.setHeader(AmqpHeaders.PUBLISH_CONFIRM, ack)
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.amqp.outbound;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the messages published by an {@link AmqpOutboundEndpoint} until their
+ * publisher confirms arrive. Optionally bounds the number of unconfirmed
+ * messages (senders wait for a permit), lets senders wait for their own
+ * confirm, and keeps confirm statistics.
+ * <p>
+ * The broker may confirm many messages with one 'multiple' ack; the
+ * RabbitTemplate reports each of them separately, and each is handled here
+ * in constant time, releasing all the senders waiting on that batch.
+ *
+ * @since 3.0
+ */
+class PublisherConfirmTracker {
+
+	private final ConcurrentMap<String, PendingPublish> pending = new ConcurrentHashMap<String, PendingPublish>();
+
+	private final Semaphore permits;
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final AtomicLong ackCount = new AtomicLong();
+
+	private final AtomicLong nackCount = new AtomicLong();
+
+	private final AtomicLong timeoutCount = new AtomicLong();
+
+	private final AtomicLong totalLatency = new AtomicLong();
+
+	private final AtomicLong maxLatency = new AtomicLong();
+
+
+	/**
+	 * @param maxUnconfirmed the maximum number of unconfirmed messages; 0 for no limit.
+	 */
+	PublisherConfirmTracker(int maxUnconfirmed) {
+		this.permits = maxUnconfirmed > 0 ? new Semaphore(maxUnconfirmed) : null;
+	}
+
+
+	/**
+	 * Return a unique correlation id for the next published message.
+	 */
+	String nextId() {
+		return Long.toString(this.sequence.incrementAndGet());
+	}
+
+	/**
+	 * Obtain a permit to publish, without waiting.
+	 */
+	boolean tryAcquire() {
+		return this.permits == null || this.permits.tryAcquire();
+	}
+
+	/**
+	 * Obtain a permit to publish, waiting up to the timeout (indefinitely if negative).
+	 */
+	boolean tryAcquire(long timeout) throws InterruptedException {
+		if (this.permits == null) {
+			return true;
+		}
+		if (timeout < 0) {
+			this.permits.acquire();
+			return true;
+		}
+		return this.permits.tryAcquire(timeout, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Start tracking a message that is about to be published, for which a permit
+	 * has been obtained.
+	 */
+	PendingPublish track(String id, Object userData, boolean wait) {
+		PendingPublish pendingPublish = new PendingPublish(userData, wait);
+		this.pending.put(id, pendingPublish);
+		return pendingPublish;
+	}
+
+	/**
+	 * Stop tracking a message that could not be published.
+	 */
+	void cancel(String id) {
+		if (this.pending.remove(id) != null) {
+			this.release();
+		}
+	}
+
+	/**
+	 * Record the confirm for a message.
+	 * @return the pending publish, or null if the message is not tracked (for
+	 * example, because it has timed out).
+	 */
+	PendingPublish confirm(String id, boolean ack) {
+		PendingPublish pendingPublish = this.pending.remove(id);
+		if (pendingPublish == null) {
+			return null;
+		}
+		long latency = System.currentTimeMillis() - pendingPublish.timestamp;
+		this.totalLatency.addAndGet(latency);
+		long max = this.maxLatency.get();
+		while (latency > max && !this.maxLatency.compareAndSet(max, latency)) {
+			max = this.maxLatency.get();
+		}
+		(ack ? this.ackCount : this.nackCount).incrementAndGet();
+		this.release();
+		pendingPublish.complete(ack);
+		return pendingPublish;
+	}
+
+	/**
+	 * Stop waiting for the confirm of a message; it is considered not confirmed.
+	 * @return the pending publish, or null if it was confirmed in the meantime.
+	 */
+	PendingPublish expire(String id) {
+		PendingPublish pendingPublish = this.pending.remove(id);
+		if (pendingPublish == null) {
+			return null;
+		}
+		this.timeoutCount.incrementAndGet();
+		this.release();
+		pendingPublish.complete(false);
+		return pendingPublish;
+	}
+
+	/**
+	 * Stop waiting for the confirms of the messages published more than maxAge
+	 * milliseconds ago; they are considered not confirmed.
+	 */
+	List<PendingPublish> expireOlderThan(long maxAge) {
+		List<PendingPublish> expired = new ArrayList<PendingPublish>();
+		long threshold = System.currentTimeMillis() - maxAge;
+		for (Entry<String, PendingPublish> entry : this.pending.entrySet()) {
+			if (entry.getValue().timestamp <= threshold) {
+				PendingPublish pendingPublish = this.expire(entry.getKey());
+				if (pendingPublish != null) {
+					expired.add(pendingPublish);
+				}
+			}
+		}
+		return expired;
+	}
+
+	private void release() {
+		if (this.permits != null) {
+			this.permits.release();
+		}
+	}
+
+	int getUnconfirmedCount() {
+		return this.pending.size();
+	}
+
+	long getAckCount() {
+		return this.ackCount.get();
+	}
+
+	long getNackCount() {
+		return this.nackCount.get();
+	}
+
+	long getTimeoutCount() {
+		return this.timeoutCount.get();
+	}
+
+	double getMeanLatency() {
+		long count = this.ackCount.get() + this.nackCount.get();
+		return count == 0 ? 0 : (double) this.totalLatency.get() / count;
+	}
+
+	long getMaxLatency() {
+		return this.maxLatency.get();
+	}
+
+
+	/**
+	 * A message waiting for its confirm.
+	 */
+	static class PendingPublish {
+
+		private final long timestamp = System.currentTimeMillis();
+
+		private final Object userData;
+
+		private final CountDownLatch latch;
+
+		private volatile boolean ack;
+
+		private PendingPublish(Object userData, boolean wait) {
+			this.userData = userData;
+			this.latch = wait ? new CountDownLatch(1) : null;
+		}
+
+		private void complete(boolean ack) {
+			this.ack = ack;
+			if (this.latch != null) {
+				this.latch.countDown();
+			}
+		}
+
+		/**
+		 * Wait for the confirm; return true if it was received within the timeout
+		 * (indefinitely if negative).
+		 */
+		boolean await(long timeout) throws InterruptedException {
+			if (timeout < 0) {
+				this.latch.await();
+				return true;
+			}
+			return this.latch.await(timeout, TimeUnit.MILLISECONDS);
+		}
+
+		boolean isAck() {
+			return this.ack;
+		}
+
+		Object getUserData() {
+			return this.userData;
+		}
+
+	}
+
+}
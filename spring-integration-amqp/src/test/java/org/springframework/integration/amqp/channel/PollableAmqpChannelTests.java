@@ -0,0 +1,225 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.amqp.channel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.integration.Message;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.ShutdownSignalException;
+
+/**
+ * Uses a mock broker connection, capturing the consumer registered by the
+ * channel and delivering messages to it as the broker would.
+ *
+ * @since 3.0
+ */
+public class PollableAmqpChannelTests {
+
+	private final Channel rabbitChannel = mock(Channel.class);
+
+	private final Connection connection = mock(Connection.class);
+
+	private final List<Consumer> consumers = new ArrayList<Consumer>();
+
+	private final ScheduledExecutorService exec = Executors.newSingleThreadScheduledExecutor();
+
+	private final ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+
+	private PollableAmqpChannel channel;
+
+	@Before
+	public void setUp() throws Exception {
+		when(this.connectionFactory.createConnection()).thenReturn(this.connection);
+		when(this.connection.createChannel(anyBoolean())).thenReturn(this.rabbitChannel);
+		when(this.rabbitChannel.isOpen()).thenReturn(true);
+		doAnswer(new Answer<String>() {
+			public String answer(InvocationOnMock invocation) throws Throwable {
+				Consumer consumer = (Consumer) invocation.getArguments()[2];
+				consumers.add(consumer);
+				consumer.handleConsumeOk("tag" + consumers.size());
+				return "tag" + consumers.size();
+			}
+		}).when(this.rabbitChannel).basicConsume(anyString(), anyBoolean(), any(Consumer.class));
+		this.channel = new PollableAmqpChannel("test", new RabbitTemplate(this.connectionFactory));
+		this.channel.setQueueName("test.queue");
+		this.channel.setPrefetchCount(10);
+		this.channel.setTxSize(3);
+		this.channel.setBeanName("test");
+		this.channel.afterPropertiesSet();
+	}
+
+	@After
+	public void tearDown() {
+		this.channel.destroy();
+		this.exec.shutdownNow();
+	}
+
+	@Test
+	public void testPrefetchAndBatchedAcks() throws Exception {
+		assertNull(this.channel.receive(0));
+		verify(this.rabbitChannel).basicQos(10);
+		verify(this.rabbitChannel).basicConsume(eq("test.queue"), eq(false), any(Consumer.class));
+		for (int i = 1; i <= 5; i++) {
+			this.deliver(i);
+		}
+		for (int i = 1; i <= 3; i++) {
+			assertEquals("foo" + i, this.channel.receive(0).getPayload());
+		}
+		verify(this.rabbitChannel).basicAck(3, true);
+		assertEquals("foo4", this.channel.receive(0).getPayload());
+		// the buffer is now empty so the last message is acknowledged without waiting for txSize
+		assertEquals("foo5", this.channel.receive(0).getPayload());
+		verify(this.rabbitChannel).basicAck(5, true);
+		verify(this.rabbitChannel, times(2)).basicAck(anyLong(), anyBoolean());
+		assertNull(this.channel.receive(0));
+		verify(this.connection).createChannel(false);
+	}
+
+	@Test
+	public void testReceiveTimeout() throws Exception {
+		assertNull(this.channel.receive(0));
+		long start = System.currentTimeMillis();
+		assertNull(this.channel.receive(200));
+		assertTrue(System.currentTimeMillis() - start >= 190);
+
+		this.exec.schedule(new Runnable() {
+			public void run() {
+				deliver(1);
+			}
+		}, 100, TimeUnit.MILLISECONDS);
+		Message<?> message = this.channel.receive(10000);
+		assertNotNull(message);
+		assertEquals("foo1", message.getPayload());
+
+		this.exec.schedule(new Runnable() {
+			public void run() {
+				deliver(2);
+			}
+		}, 100, TimeUnit.MILLISECONDS);
+		message = this.channel.receive();
+		assertNotNull(message);
+		assertEquals("foo2", message.getPayload());
+	}
+
+	@Test
+	public void testDestroy() throws Exception {
+		assertNull(this.channel.receive(0));
+		this.deliver(1);
+		this.deliver(2);
+		assertEquals("foo1", this.channel.receive(0).getPayload());
+		verify(this.rabbitChannel, never()).basicAck(anyLong(), anyBoolean());
+		this.channel.destroy();
+		// the received message is acknowledged; the other one is requeued by closing the channel
+		verify(this.rabbitChannel).basicAck(1, true);
+		verify(this.rabbitChannel).basicCancel("tag1");
+		verify(this.rabbitChannel).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testConsumerRecreatedAfterShutdown() throws Exception {
+		assertNull(this.channel.receive(0));
+		this.deliver(1);
+		this.consumers.get(0).handleShutdownSignal("tag1", new ShutdownSignalException(false, false, null, null));
+		this.deliver(2);
+		// the unacknowledged messages are redelivered by the broker to the new consumer
+		assertNull(this.channel.receive(0));
+		assertEquals(2, this.consumers.size());
+		this.deliver(1);
+		assertEquals("foo1", this.channel.receive(0).getPayload());
+	}
+
+	@Test
+	public void testTransactedTemplateRejected() {
+		RabbitTemplate template = new RabbitTemplate(this.connectionFactory);
+		template.setChannelTransacted(true);
+		PollableAmqpChannel channel = new PollableAmqpChannel("transacted", template);
+		channel.setQueueName("test.queue");
+		channel.setPrefetchCount(10);
+		try {
+			channel.afterPropertiesSet();
+			fail("expected exception");
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("A 'prefetchCount' cannot be used with a transacted channel ('channelTransacted')",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void testReceiveInTransactionRejected() throws Exception {
+		TransactionSynchronizationManager.bindResource(this.connectionFactory, new Object());
+		try {
+			this.channel.receive(0);
+			fail("expected exception");
+		}
+		catch (IllegalStateException e) {
+			assertTrue(e.getMessage().startsWith("A 'prefetchCount' cannot be used when receiving within"));
+		}
+		finally {
+			TransactionSynchronizationManager.unbindResource(this.connectionFactory);
+		}
+		verify(this.rabbitChannel, never()).basicConsume(anyString(), anyBoolean(), any(Consumer.class));
+	}
+
+	private void deliver(int tag) {
+		AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder().contentType("text/plain").build();
+		try {
+			this.consumers.get(this.consumers.size() - 1).handleDelivery("tag" + this.consumers.size(),
+					new Envelope(tag, false, "", "test.queue"), properties, ("foo" + tag).getBytes());
+		}
+		catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
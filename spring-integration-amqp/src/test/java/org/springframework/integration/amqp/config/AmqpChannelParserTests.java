@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,14 +17,19 @@
 package org.springframework.integration.amqp.config;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.List;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.parsing.BeanDefinitionParsingException;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
 import org.springframework.integration.MessageChannel;
+import org.springframework.integration.amqp.channel.PollableAmqpChannel;
 import org.springframework.integration.channel.interceptor.ChannelInterceptorAdapter;
 import org.springframework.integration.test.util.TestUtils;
 import org.springframework.test.context.ContextConfiguration;
@@ -59,6 +64,25 @@ public class AmqpChannelParserTests {
 				TestUtils.getPropertyValue(channel, "dispatcher"), "maxSubscribers", Integer.class).intValue());
 	}
 
+	@Test
+	public void pollableWithPrefetch() {
+		MessageChannel channel = context.getBean("pollableWithPrefetch", MessageChannel.class);
+		assertEquals(PollableAmqpChannel.class, channel.getClass());
+		assertEquals(10, TestUtils.getPropertyValue(channel, "prefetchCount"));
+		assertEquals(5, TestUtils.getPropertyValue(channel, "txSize"));
+	}
+
+	@Test
+	public void pollableWithPrefetchAndTransactedChannel() {
+		try {
+			new ClassPathXmlApplicationContext("AmqpChannelParserTests-prefetchTransacted-fail-context.xml", this.getClass());
+			fail("Exception expected");
+		}
+		catch (BeanDefinitionParsingException e) {
+			assertTrue(e.getMessage().startsWith("Configuration problem: The 'prefetch-count' attribute"));
+		}
+	}
+
 
 	private static class TestInterceptor extends ChannelInterceptorAdapter {
 	}
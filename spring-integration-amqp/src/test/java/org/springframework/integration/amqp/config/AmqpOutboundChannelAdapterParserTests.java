@@ -171,6 +171,36 @@ public class AmqpOutboundChannelAdapterParserTests {
 		assertEquals(Boolean.TRUE, ack.getHeaders().get(AmqpHeaders.PUBLISH_CONFIRM));
 	}
 
+	@Test
+	public void withConfirmTracking() throws Exception {
+		Object eventDrivenConsumer = context.getBean("withConfirmTracking");
+		AmqpOutboundEndpoint endpoint = TestUtils.getPropertyValue(eventDrivenConsumer, "handler", AmqpOutboundEndpoint.class);
+		assertEquals(3, TestUtils.getPropertyValue(endpoint, "maxUnconfirmed"));
+		assertEquals(5000L, TestUtils.getPropertyValue(endpoint, "confirmTimeout"));
+		assertEquals(Boolean.FALSE, TestUtils.getPropertyValue(endpoint, "waitForConfirm"));
+
+		ConnectionFactory connectionFactory = context.getBean(ConnectionFactory.class);
+		Connection mockConnection = mock(Connection.class);
+		Channel mockChannel = mock(Channel.class);
+		when(mockChannel.getNextPublishSeqNo()).thenReturn(1L, 2L, 3L);
+		when(connectionFactory.createConnection()).thenReturn(mockConnection);
+		PublisherCallbackChannelImpl publisherCallbackChannel = new PublisherCallbackChannelImpl(mockChannel);
+		when(mockConnection.createChannel(false)).thenReturn(publisherCallbackChannel);
+
+		MessageChannel requestChannel = context.getBean("trackingRequestChannel", MessageChannel.class);
+		requestChannel.send(new GenericMessage<String>("foo"));
+		requestChannel.send(new GenericMessage<String>("bar"));
+		requestChannel.send(new GenericMessage<String>("baz"));
+		assertEquals(3, endpoint.getUnconfirmedCount());
+		publisherCallbackChannel.handleAck(2, true);
+		PollableChannel ackChannel = context.getBean("trackingAckChannel", PollableChannel.class);
+		assertEquals("foo", ackChannel.receive(1000).getPayload());
+		assertEquals("bar", ackChannel.receive(1000).getPayload());
+		assertNull(ackChannel.receive(0));
+		assertEquals(1, endpoint.getUnconfirmedCount());
+		assertEquals(2, endpoint.getConfirmAckCount());
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Test
 	public void amqpOutboundChannelAdapterWithinChain() {
@@ -17,13 +17,25 @@
 package org.springframework.integration.amqp.outbound;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
@@ -31,10 +43,15 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.rabbit.support.CorrelationData;
+import org.springframework.integration.MessageDeliveryException;
 import org.springframework.integration.MessageHeaders;
+import org.springframework.integration.MessageTimeoutException;
+import org.springframework.integration.amqp.AmqpHeaders;
+import org.springframework.integration.channel.QueueChannel;
 import org.springframework.integration.support.MessageBuilder;
 
 /**
@@ -91,6 +108,179 @@ public class OutboundEndpointTests {
 		assertEquals("bar", amqpMessage.get().getMessageProperties().getContentType());
 	}
 
+	@Test
+	public void testMaxUnconfirmed() throws Exception {
+		TrackingFixture fixture = new TrackingFixture();
+		fixture.endpoint.setMaxUnconfirmed(2);
+		fixture.endpoint.setConfirmTimeout(500);
+		fixture.endpoint.afterPropertiesSet();
+		ExecutorService exec = Executors.newSingleThreadExecutor();
+		try {
+			fixture.send("foo");
+			fixture.send("bar");
+			assertEquals(2, fixture.endpoint.getUnconfirmedCount());
+			Future<?> future = exec.submit(fixture.sender("baz"));
+			try {
+				future.get(100, TimeUnit.MILLISECONDS);
+				fail("Expected the send to wait for a confirm");
+			}
+			catch (TimeoutException e) {
+			}
+			// a multiple ack reported by the template as one confirm per message
+			fixture.endpoint.confirm(fixture.sent.take(), true);
+			fixture.endpoint.confirm(fixture.sent.take(), true);
+			future.get(10, TimeUnit.SECONDS);
+			assertEquals("foo", fixture.acks.receive(0).getPayload());
+			assertEquals("bar", fixture.acks.receive(0).getPayload());
+			assertEquals(2, fixture.endpoint.getConfirmAckCount());
+			assertEquals(1, fixture.endpoint.getUnconfirmedCount());
+
+			// when no confirms arrive within the timeout, the oldest messages are given up on
+			fixture.send("qux");
+			long start = System.currentTimeMillis();
+			fixture.send("fiz");
+			assertTrue(System.currentTimeMillis() - start >= 450);
+			org.springframework.integration.Message<?> nack = fixture.nacks.receive(0);
+			assertEquals("baz", nack.getPayload());
+			assertEquals(Boolean.FALSE, nack.getHeaders().get(AmqpHeaders.PUBLISH_CONFIRM));
+			assertTrue(fixture.endpoint.getConfirmTimeoutCount() >= 1);
+
+			// late confirms for expired messages are ignored
+			fixture.endpoint.confirm(fixture.sent.take(), true);
+			assertNull(fixture.acks.receive(0));
+			assertEquals(2, fixture.endpoint.getConfirmAckCount());
+		}
+		finally {
+			exec.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testWaitForConfirm() throws Exception {
+		TrackingFixture fixture = new TrackingFixture();
+		fixture.endpoint.setWaitForConfirm(true);
+		fixture.endpoint.setConfirmTimeout(500);
+		fixture.endpoint.afterPropertiesSet();
+		ExecutorService exec = Executors.newFixedThreadPool(3);
+		try {
+			Future<?> foo = exec.submit(fixture.sender("foo"));
+			Future<?> bar = exec.submit(fixture.sender("bar"));
+			CorrelationData first = fixture.sent.poll(10, TimeUnit.SECONDS);
+			CorrelationData second = fixture.sent.poll(10, TimeUnit.SECONDS);
+			assertNotNull(second);
+			Thread.sleep(50);
+			assertFalse(foo.isDone());
+			assertFalse(bar.isDone());
+			// both senders are released by the confirms of one multiple ack
+			fixture.endpoint.confirm(first, true);
+			fixture.endpoint.confirm(second, true);
+			foo.get(10, TimeUnit.SECONDS);
+			bar.get(10, TimeUnit.SECONDS);
+			assertEquals(2, fixture.endpoint.getConfirmAckCount());
+			assertTrue(fixture.endpoint.getMaxConfirmLatency() >= 50);
+			assertTrue(fixture.endpoint.getMeanConfirmLatency() >= 50);
+
+			Future<?> baz = exec.submit(fixture.sender("baz"));
+			fixture.endpoint.confirm(fixture.sent.poll(10, TimeUnit.SECONDS), false);
+			try {
+				baz.get(10, TimeUnit.SECONDS);
+				fail("Expected MessageDeliveryException");
+			}
+			catch (java.util.concurrent.ExecutionException e) {
+				assertTrue(e.getCause() instanceof MessageDeliveryException);
+			}
+			assertEquals("baz", fixture.nacks.receive(0).getPayload());
+			assertEquals(1, fixture.endpoint.getConfirmNackCount());
+
+			try {
+				fixture.send("qux");
+				fail("Expected MessageTimeoutException");
+			}
+			catch (MessageTimeoutException e) {
+			}
+			assertEquals("qux", fixture.nacks.receive(0).getPayload());
+			assertEquals(1, fixture.endpoint.getConfirmTimeoutCount());
+			assertEquals(0, fixture.endpoint.getUnconfirmedCount());
+		}
+		finally {
+			exec.shutdownNow();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testConfirmTrackingNotAllowedOnGateway() {
+		AmqpOutboundEndpoint endpoint = new AmqpOutboundEndpoint(new RabbitTemplate(mock(ConnectionFactory.class)));
+		endpoint.setExpectReply(true);
+		endpoint.setWaitForConfirm(true);
+		endpoint.afterPropertiesSet();
+	}
+
+	@Test
+	public void testConfirmTrackingRequiresPublisherConfirms() {
+		CachingConnectionFactory connectionFactory = new CachingConnectionFactory();
+		AmqpOutboundEndpoint endpoint = new AmqpOutboundEndpoint(new RabbitTemplate(connectionFactory));
+		endpoint.setMaxUnconfirmed(10);
+		try {
+			endpoint.afterPropertiesSet();
+			fail("expected exception");
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Publisher confirm tracking requires a connection factory with 'publisherConfirms' enabled",
+					e.getMessage());
+		}
+		connectionFactory.setPublisherConfirms(true);
+		endpoint = new AmqpOutboundEndpoint(new RabbitTemplate(connectionFactory));
+		endpoint.setMaxUnconfirmed(10);
+		endpoint.afterPropertiesSet();
+	}
+
+	/**
+	 * An endpoint whose template captures the correlation data of the sent messages,
+	 * so the tests can confirm them as the broker would.
+	 */
+	private static class TrackingFixture {
+
+		private final BlockingQueue<CorrelationData> sent = new LinkedBlockingQueue<CorrelationData>();
+
+		private final QueueChannel acks = new QueueChannel();
+
+		private final QueueChannel nacks = new QueueChannel();
+
+		private final AmqpOutboundEndpoint endpoint;
+
+		private TrackingFixture() {
+			RabbitTemplate amqpTemplate = spy(new RabbitTemplate(mock(ConnectionFactory.class)));
+			doAnswer(new Answer<Object>() {
+
+				@Override
+				public Object answer(InvocationOnMock invocation) throws Throwable {
+					sent.add((CorrelationData) invocation.getArguments()[3]);
+					return null;
+				}
+			}).when(amqpTemplate).send(anyString(), anyString(), any(Message.class),
+					any(CorrelationData.class));
+			this.endpoint = new AmqpOutboundEndpoint(amqpTemplate);
+			this.endpoint.setConfirmCorrelationExpression("payload");
+			this.endpoint.setConfirmAckChannel(this.acks);
+			this.endpoint.setConfirmNackChannel(this.nacks);
+		}
+
+		private void send(String payload) {
+			this.endpoint.handleMessage(MessageBuilder.withPayload(payload).build());
+		}
+
+		private Callable<Object> sender(final String payload) {
+			return new Callable<Object>() {
+
+				public Object call() throws Exception {
+					send(payload);
+					return null;
+				}
+			};
+		}
+
+	}
+
 	/**
 	 * Increase method visibility
 	 */
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.aggregator.AggregatingMessageHandler;
+import org.springframework.integration.aggregator.DefaultAggregatingMessageGroupProcessor;
+import org.springframework.integration.aggregator.ResequencingMessageGroupProcessor;
+import org.springframework.integration.aggregator.ResequencingMessageHandler;
+import org.springframework.integration.channel.NullChannel;
+import org.springframework.integration.store.SimpleMessageStore;
+import org.springframework.integration.support.MessageBuilder;
+
+/**
+ * Aggregation and resequencing of complete sequences with an in-memory store; one
+ * operation is a whole group of {@link #groupSize} messages, including building
+ * the messages' sequence headers.
+ *
+ * @since 3.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class AggregatorBenchmarks {
+
+	@Param({"10", "100"})
+	public int groupSize;
+
+	private AggregatingMessageHandler aggregator;
+
+	private ResequencingMessageHandler resequencer;
+
+	private long correlationId;
+
+	@Setup
+	public void setUp() throws Exception {
+		this.aggregator = new AggregatingMessageHandler(new DefaultAggregatingMessageGroupProcessor(),
+				new SimpleMessageStore());
+		this.aggregator.setExpireGroupsUponCompletion(true);
+		this.aggregator.setOutputChannel(new NullChannel());
+		this.aggregator.afterPropertiesSet();
+
+		this.resequencer = new ResequencingMessageHandler(new ResequencingMessageGroupProcessor(),
+				new SimpleMessageStore());
+		this.resequencer.setOutputChannel(new NullChannel());
+		this.resequencer.afterPropertiesSet();
+	}
+
+	@Benchmark
+	public void aggregate() {
+		long correlationId = this.correlationId++;
+		for (int i = 1; i <= this.groupSize; i++) {
+			this.aggregator.handleMessage(this.sequenceMessage(correlationId, i));
+		}
+	}
+
+	/**
+	 * The messages arrive in reverse order, so the whole group is held until
+	 * the first one arrives.
+	 */
+	@Benchmark
+	public void resequence() {
+		long correlationId = this.correlationId++;
+		for (int i = this.groupSize; i > 0; i--) {
+			this.resequencer.handleMessage(this.sequenceMessage(correlationId, i));
+		}
+	}
+
+	private Message<?> sequenceMessage(long correlationId, int sequenceNumber) {
+		return MessageBuilder.withPayload(sequenceNumber)
+				.setCorrelationId(correlationId)
+				.setSequenceNumber(sequenceNumber)
+				.setSequenceSize(this.groupSize)
+				.build();
+	}
+
+}
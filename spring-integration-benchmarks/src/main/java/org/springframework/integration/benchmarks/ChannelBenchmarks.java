@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.MessagingException;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.integration.channel.PublishSubscribeChannel;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.core.MessageHandler;
+import org.springframework.integration.message.GenericMessage;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Send (and receive) throughput of the standard channels, with subscribers
+ * that do no work.
+ *
+ * @since 3.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ChannelBenchmarks {
+
+	private static final int EXECUTOR_BATCH_SIZE = 1000;
+
+	private final Message<String> message = new GenericMessage<String>("foo");
+
+	private DirectChannel directChannel;
+
+	private QueueChannel queueChannel;
+
+	private PublishSubscribeChannel publishSubscribeChannel;
+
+	private ExecutorChannel executorChannel;
+
+	private ThreadPoolTaskExecutor executor;
+
+	private volatile CountDownLatch executorLatch;
+
+	@Setup
+	public void setUp() {
+		this.directChannel = new DirectChannel();
+		this.directChannel.subscribe(new CountingMessageHandler());
+
+		this.queueChannel = new QueueChannel();
+
+		this.publishSubscribeChannel = new PublishSubscribeChannel();
+		for (int i = 0; i < 3; i++) {
+			this.publishSubscribeChannel.subscribe(new CountingMessageHandler());
+		}
+
+		this.executor = new ThreadPoolTaskExecutor();
+		this.executor.setCorePoolSize(2);
+		this.executor.afterPropertiesSet();
+		this.executorChannel = new ExecutorChannel(this.executor);
+		this.executorChannel.subscribe(new MessageHandler() {
+			public void handleMessage(Message<?> message) throws MessagingException {
+				executorLatch.countDown();
+			}
+		});
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.executor.shutdown();
+	}
+
+	@Benchmark
+	public boolean directChannel() {
+		return this.directChannel.send(this.message);
+	}
+
+	@Benchmark
+	public Message<?> queueChannel() {
+		this.queueChannel.send(this.message);
+		return this.queueChannel.receive(0);
+	}
+
+	@Benchmark
+	public boolean publishSubscribeChannel() {
+		return this.publishSubscribeChannel.send(this.message);
+	}
+
+	/**
+	 * Includes the hand-off to, and the execution on, the executor threads.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(EXECUTOR_BATCH_SIZE)
+	public void executorChannel() throws InterruptedException {
+		this.executorLatch = new CountDownLatch(EXECUTOR_BATCH_SIZE);
+		for (int i = 0; i < EXECUTOR_BATCH_SIZE; i++) {
+			this.executorChannel.send(this.message);
+		}
+		this.executorLatch.await();
+	}
+
+}
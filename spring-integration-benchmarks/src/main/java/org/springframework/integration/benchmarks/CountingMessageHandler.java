@@ -0,0 +1,41 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.MessagingException;
+import org.springframework.integration.core.MessageHandler;
+
+/**
+ * A subscriber that only counts the messages it receives, so that a benchmark
+ * measures the infrastructure rather than the handler.
+ *
+ * @since 3.0
+ */
+class CountingMessageHandler implements MessageHandler {
+
+	private long count;
+
+	public void handleMessage(Message<?> message) throws MessagingException {
+		this.count++;
+	}
+
+	long getCount() {
+		return this.count;
+	}
+
+}
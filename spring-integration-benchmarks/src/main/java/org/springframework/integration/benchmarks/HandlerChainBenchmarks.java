@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.channel.NullChannel;
+import org.springframework.integration.core.MessageHandler;
+import org.springframework.integration.core.MessageSelector;
+import org.springframework.integration.filter.MessageFilter;
+import org.springframework.integration.handler.MessageHandlerChain;
+import org.springframework.integration.message.GenericMessage;
+import org.springframework.integration.transformer.AbstractTransformer;
+import org.springframework.integration.transformer.MessageTransformingHandler;
+
+/**
+ * A {@link MessageHandlerChain} of alternating filters and transformers, showing
+ * the per-handler overhead of a chain.
+ *
+ * @since 3.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class HandlerChainBenchmarks {
+
+	@Param({"2", "10"})
+	public int handlers;
+
+	private final Message<String> message = new GenericMessage<String>("foo");
+
+	private MessageHandlerChain chain;
+
+	@Setup
+	public void setUp() throws Exception {
+		List<MessageHandler> chainHandlers = new ArrayList<MessageHandler>();
+		for (int i = 0; i < this.handlers; i++) {
+			if (i % 2 == 0) {
+				chainHandlers.add(new MessageFilter(new MessageSelector() {
+					public boolean accept(Message<?> message) {
+						return message.getPayload() != null;
+					}
+				}));
+			}
+			else {
+				chainHandlers.add(new MessageTransformingHandler(new AbstractTransformer() {
+					@Override
+					protected Object doTransform(Message<?> message) throws Exception {
+						return message;
+					}
+				}));
+			}
+		}
+		this.chain = new MessageHandlerChain();
+		this.chain.setHandlers(chainHandlers);
+		this.chain.setOutputChannel(new NullChannel());
+		this.chain.afterPropertiesSet();
+	}
+
+	@Benchmark
+	public void chain() {
+		this.chain.handleMessage(this.message);
+	}
+
+}
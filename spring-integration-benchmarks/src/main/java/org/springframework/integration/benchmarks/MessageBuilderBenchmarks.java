@@ -0,0 +1,94 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageHeaders;
+import org.springframework.integration.message.GenericMessage;
+import org.springframework.integration.support.MessageBuilder;
+
+/**
+ * Message and header creation; every message sent through a flow pays these costs,
+ * often several times (each transformer or header enricher creates a new message).
+ *
+ * @since 3.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class MessageBuilderBenchmarks {
+
+	private Message<String> message;
+
+	private Map<String, Object> headers;
+
+	@Setup
+	public void setUp() {
+		this.message = MessageBuilder.withPayload("foo").setHeader("bar", "baz").build();
+		this.headers = new HashMap<String, Object>();
+		this.headers.put("bar", "baz");
+		this.headers.put("qux", 42);
+	}
+
+	@Benchmark
+	public Message<?> withPayload() {
+		return MessageBuilder.withPayload("foo").build();
+	}
+
+	@Benchmark
+	public Message<?> withPayloadAndHeaders() {
+		return MessageBuilder.withPayload("foo")
+				.setHeader("bar", "baz")
+				.setHeader("qux", 42)
+				.setCorrelationId("fiz")
+				.build();
+	}
+
+	@Benchmark
+	public Message<?> fromMessage() {
+		return MessageBuilder.fromMessage(this.message).setHeader("qux", 42).build();
+	}
+
+	@Benchmark
+	public Message<?> genericMessage() {
+		return new GenericMessage<String>("foo", this.headers);
+	}
+
+	@Benchmark
+	public MessageHeaders messageHeaders() {
+		return new MessageHeaders(this.headers);
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.jdbc.JdbcMessageStore;
+import org.springframework.integration.message.GenericMessage;
+import org.springframework.integration.store.MessageGroupStore;
+import org.springframework.integration.store.MessageStore;
+import org.springframework.integration.store.SimpleMessageStore;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Message and message group operations of the in-memory store and of the JDBC
+ * store on an embedded H2 database; the JDBC numbers show the store's own overhead
+ * (serialization, statements) rather than that of a real database server.
+ *
+ * @since 3.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class MessageStoreBenchmarks {
+
+	private static final int GROUP_SIZE = 10;
+
+	@Param({"simple", "jdbc"})
+	public String storeType;
+
+	private MessageStore messageStore;
+
+	private MessageGroupStore messageGroupStore;
+
+	private EmbeddedDatabase database;
+
+	private SingleConnectionDataSource dataSource;
+
+	private long groupId;
+
+	@Setup
+	public void setUp() throws Exception {
+		if ("simple".equals(this.storeType)) {
+			SimpleMessageStore store = new SimpleMessageStore();
+			this.messageStore = store;
+			this.messageGroupStore = store;
+		}
+		else if ("jdbc".equals(this.storeType)) {
+			this.database = new EmbeddedDatabaseBuilder()
+					.setType(EmbeddedDatabaseType.H2)
+					.addScript("classpath:/org/springframework/integration/jdbc/schema-h2.sql")
+					.build();
+			// the embedded database opens a connection per statement; reuse one, as a pool would
+			this.dataSource = new SingleConnectionDataSource(this.database.getConnection(), true);
+			JdbcMessageStore store = new JdbcMessageStore(this.dataSource);
+			store.afterPropertiesSet();
+			this.messageStore = store;
+			this.messageGroupStore = store;
+		}
+		else {
+			throw new IllegalArgumentException("Unknown store type: " + this.storeType);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (this.database != null) {
+			this.dataSource.destroy();
+			this.database.shutdown();
+		}
+	}
+
+	/**
+	 * Store, retrieve and remove one message.
+	 */
+	@Benchmark
+	public Message<?> message() {
+		Message<?> message = this.messageStore.addMessage(new GenericMessage<String>("foo"));
+		this.messageStore.getMessage(message.getHeaders().getId());
+		return this.messageStore.removeMessage(message.getHeaders().getId());
+	}
+
+	/**
+	 * Build a group of {@value #GROUP_SIZE} messages, retrieve it and remove it, as a
+	 * correlating handler does.
+	 */
+	@Benchmark
+	public int messageGroup() {
+		Object groupId = this.groupId++;
+		for (int i = 0; i < GROUP_SIZE; i++) {
+			this.messageGroupStore.addMessageToGroup(groupId, new GenericMessage<Integer>(i));
+		}
+		int size = this.messageGroupStore.getMessageGroup(groupId).size();
+		this.messageGroupStore.removeMessageGroup(groupId);
+		return size;
+	}
+
+}
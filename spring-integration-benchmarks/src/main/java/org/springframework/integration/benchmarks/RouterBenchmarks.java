@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageChannel;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.router.AbstractMappingMessageRouter;
+import org.springframework.integration.router.ExpressionEvaluatingRouter;
+import org.springframework.integration.router.HeaderValueRouter;
+import org.springframework.integration.router.PayloadTypeRouter;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.support.channel.ChannelResolver;
+
+/**
+ * Routing a message to one of two channels, by header value, payload type and
+ * SpEL expression, resolving channel names through a map.
+ *
+ * @since 3.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class RouterBenchmarks {
+
+	private final Message<String> message = MessageBuilder.withPayload("foo").setHeader("type", "foo").build();
+
+	private HeaderValueRouter headerValueRouter;
+
+	private PayloadTypeRouter payloadTypeRouter;
+
+	private ExpressionEvaluatingRouter expressionRouter;
+
+	@Setup
+	public void setUp() {
+		final Map<String, MessageChannel> channels = new HashMap<String, MessageChannel>();
+		for (String name : new String[] {"fooChannel", "barChannel"}) {
+			DirectChannel channel = new DirectChannel();
+			channel.subscribe(new CountingMessageHandler());
+			channels.put(name, channel);
+		}
+		ChannelResolver channelResolver = new ChannelResolver() {
+			public MessageChannel resolveChannelName(String channelName) {
+				return channels.get(channelName);
+			}
+		};
+
+		this.headerValueRouter = new HeaderValueRouter("type");
+		this.initRouter(this.headerValueRouter, channelResolver, "foo", "bar");
+
+		this.payloadTypeRouter = new PayloadTypeRouter();
+		this.initRouter(this.payloadTypeRouter, channelResolver, String.class.getName(), Integer.class.getName());
+
+		this.expressionRouter = new ExpressionEvaluatingRouter(
+				new SpelExpressionParser().parseExpression("headers.type"));
+		this.initRouter(this.expressionRouter, channelResolver, "foo", "bar");
+	}
+
+	private void initRouter(AbstractMappingMessageRouter router, ChannelResolver channelResolver,
+			String fooKey, String barKey) {
+		router.setChannelResolver(channelResolver);
+		router.setChannelMapping(fooKey, "fooChannel");
+		router.setChannelMapping(barKey, "barChannel");
+		router.afterPropertiesSet();
+	}
+
+	@Benchmark
+	public void headerValueRouter() {
+		this.headerValueRouter.handleMessage(this.message);
+	}
+
+	@Benchmark
+	public void payloadTypeRouter() {
+		this.payloadTypeRouter.handleMessage(this.message);
+	}
+
+	@Benchmark
+	public void expressionRouter() {
+		this.expressionRouter.handleMessage(this.message);
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.integration.Message;
+import org.springframework.integration.channel.NullChannel;
+import org.springframework.integration.handler.ExpressionEvaluatingMessageProcessor;
+import org.springframework.integration.handler.ServiceActivatingHandler;
+import org.springframework.integration.message.GenericMessage;
+
+/**
+ * The same service invoked as a POJO method (by name and with the payload
+ * parameter resolved by the method invoker) and as a SpEL expression.
+ *
+ * @since 3.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ServiceActivatorBenchmarks {
+
+	private final Message<String> message = new GenericMessage<String>("foo");
+
+	private ServiceActivatingHandler pojoHandler;
+
+	private ServiceActivatingHandler expressionHandler;
+
+	@Setup
+	public void setUp() throws Exception {
+		this.pojoHandler = new ServiceActivatingHandler(new Service(), "upperCase");
+		this.pojoHandler.setOutputChannel(new NullChannel());
+		this.pojoHandler.afterPropertiesSet();
+
+		this.expressionHandler = new ServiceActivatingHandler(new ExpressionEvaluatingMessageProcessor<Object>(
+				new SpelExpressionParser().parseExpression("payload.toUpperCase()")));
+		this.expressionHandler.setOutputChannel(new NullChannel());
+		this.expressionHandler.afterPropertiesSet();
+	}
+
+	@Benchmark
+	public void pojo() {
+		this.pojoHandler.handleMessage(this.message);
+	}
+
+	@Benchmark
+	public void expression() {
+		this.expressionHandler.handleMessage(this.message);
+	}
+
+	public static class Service {
+
+		public String upperCase(String payload) {
+			return payload.toUpperCase();
+		}
+
+	}
+
+}
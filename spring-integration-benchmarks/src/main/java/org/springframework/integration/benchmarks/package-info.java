@@ -0,0 +1,4 @@
+/**
+ * JMH benchmarks for the messaging hot paths; run them with {@code ./gradlew jmh}.
+ */
+package org.springframework.integration.benchmarks;
@@ -37,8 +37,9 @@ import org.springframework.integration.store.MessageStore;
 import org.springframework.integration.store.SimpleMessageGroup;
 import org.springframework.integration.store.SimpleMessageStore;
 import org.springframework.integration.util.DefaultLockRegistry;
+import org.springframework.integration.util.DefaultUUIDKeyStrategy;
 import org.springframework.integration.util.LockRegistry;
-import org.springframework.integration.util.UUIDConverter;
+import org.springframework.integration.util.UUIDKeyStrategy;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
@@ -92,6 +93,8 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageH
 
 	private boolean lockRegistrySet = false;
 
+	private volatile UUIDKeyStrategy keyStrategy = new DefaultUUIDKeyStrategy();
+
 	private volatile long minimumTimeoutForEmptyGroups;
 
 	public AbstractCorrelatingMessageHandler(MessageGroupProcessor processor, MessageGroupStore store,
@@ -123,6 +126,19 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageH
 		this.lockRegistrySet = true;
 	}
 
+	/**
+	 * Set the strategy used to derive lock keys from correlation keys. It must derive
+	 * the same key from a correlation key as from the group ids of groups returned by
+	 * the message store; for example, when using a JDBC message store it must be the
+	 * strategy used by that store. Default {@link DefaultUUIDKeyStrategy}.
+	 * @param keyStrategy the key strategy.
+	 * @since 3.0
+	 */
+	public void setKeyStrategy(UUIDKeyStrategy keyStrategy) {
+		Assert.notNull(keyStrategy, "'keyStrategy' must not be null");
+		this.keyStrategy = keyStrategy;
+	}
+
 	public void setMessageStore(MessageGroupStore store) {
 		this.messageStore = store;
 		store.registerMessageGroupExpiryCallback(new MessageGroupCallback() {
@@ -215,7 +231,7 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageH
 		}
 
 		// TODO: INT-1117 - make the lock global?
-		Lock lock = this.lockRegistry.obtain(UUIDConverter.getUUID(correlationKey).toString());
+		Lock lock = this.lockRegistry.obtain(this.keyStrategy.getUUID(correlationKey).toString());
 
 		lock.lockInterruptibly();
 		try {
@@ -261,8 +277,8 @@ public abstract class AbstractCorrelatingMessageHandler extends AbstractMessageH
 	private void forceComplete(MessageGroup group) {
 
 		Object correlationKey = group.getGroupId();
-		// UUIDConverter is no-op if already converted
-		Lock lock = this.lockRegistry.obtain(UUIDConverter.getUUID(correlationKey).toString());
+		// the key strategy is a no-op if already converted
+		Lock lock = this.lockRegistry.obtain(this.keyStrategy.getUUID(correlationKey).toString());
 		boolean removeGroup = true;
 		try {
 			lock.lockInterruptibly();
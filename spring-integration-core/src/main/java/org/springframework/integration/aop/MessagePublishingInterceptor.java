@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,7 +29,6 @@ import org.springframework.core.LocalVariableTableParameterNameDiscoverer;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.Expression;
-import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.ParseException;
 import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
@@ -37,6 +36,7 @@ import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
 import org.springframework.integration.core.MessagingTemplate;
+import org.springframework.integration.expression.ExpressionCache;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.support.channel.ChannelResolver;
 import org.springframework.util.Assert;
@@ -57,7 +57,8 @@ public class MessagePublishingInterceptor implements MethodInterceptor {
 
 	private volatile PublisherMetadataSource metadataSource;
 
-	private final ExpressionParser parser = new SpelExpressionParser(new SpelParserConfiguration(true, true));
+	private final ExpressionCache expressionCache =
+			new ExpressionCache(new SpelExpressionParser(new SpelParserConfiguration(true, true)));
 
 	private volatile ChannelResolver channelResolver;
 
@@ -83,6 +84,13 @@ public class MessagePublishingInterceptor implements MethodInterceptor {
 		this.channelResolver = channelResolver;
 	}
 
+	/**
+	 * @return the cache of the parsed payload and header expressions.
+	 */
+	public ExpressionCache getExpressionCache() {
+		return this.expressionCache;
+	}
+
 	public final Object invoke(final MethodInvocation invocation) throws Throwable {
 		Assert.notNull(this.metadataSource, "PublisherMetadataSource is required.");
 		final StandardEvaluationContext context = new StandardEvaluationContext();
@@ -126,7 +134,7 @@ public class MessagePublishingInterceptor implements MethodInterceptor {
 		if (!StringUtils.hasText(payloadExpressionString)) {
 			payloadExpressionString = "#" + PublisherMetadataSource.RETURN_VALUE_VARIABLE_NAME;
 		}
-		Expression expression = this.parser.parseExpression(payloadExpressionString);
+		Expression expression = this.expressionCache.getExpression(payloadExpressionString);
 		Object result = expression.getValue(context);
 		if (result != null) {
 			MessageBuilder<?> builder = (result instanceof Message<?>)
@@ -161,7 +169,7 @@ public class MessagePublishingInterceptor implements MethodInterceptor {
 			for (Map.Entry<String, String> headerExpressionEntry : headerExpressionMap.entrySet()) {
 				String headerExpression = headerExpressionEntry.getValue();
 				if (StringUtils.hasText(headerExpression)) {
-					Expression expression = this.parser.parseExpression(headerExpression);
+					Expression expression = this.expressionCache.getExpression(headerExpression);
 					Object result = expression.getValue(context);
 					if (result != null) {
 						headers.put(headerExpressionEntry.getKey(), result);
@@ -32,6 +32,7 @@ import org.springframework.integration.MessageHeaders;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
+import org.springframework.integration.support.channel.CachingChannelResolver;
 import org.springframework.integration.support.channel.ChannelResolutionException;
 import org.springframework.integration.support.channel.ChannelResolver;
 import org.springframework.integration.support.converter.MessageConverter;
@@ -95,7 +96,7 @@ public class MessagingTemplate implements MessagingOperations, BeanFactoryAware,
 	 * Set the {@link ChannelResolver} that is to be used to resolve
 	 * {@link MessageChannel} references for this template.
 	 * <p>When running within an application context, the default resolver is a
-	 * {@link BeanFactoryChannelResolver}.
+	 * {@link BeanFactoryChannelResolver}, decorated by a {@link CachingChannelResolver}.
 	 */
 	public void setChannelResolver(ChannelResolver channelResolver) {
 		Assert.notNull(channelResolver, "'channelResolver' must not be null");
@@ -132,7 +133,7 @@ public class MessagingTemplate implements MessagingOperations, BeanFactoryAware,
 
 	public void setBeanFactory(BeanFactory beanFactory) {
 		if (this.channelResolver == null && beanFactory != null) {
-			this.channelResolver = new BeanFactoryChannelResolver(beanFactory);
+			this.channelResolver = new CachingChannelResolver(new BeanFactoryChannelResolver(beanFactory));
 		}
 	}
 
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.expression;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.ParseException;
+import org.springframework.util.Assert;
+
+/**
+ * A bounded, thread-safe cache of parsed {@link Expression}s, keyed by the expression
+ * string, for components that are given expression strings at runtime rather than
+ * at configuration time. Parsed expressions are thread-safe, so a cache can be shared
+ * by any number of components that use the same {@link ExpressionParser}.
+ * <p>
+ * When the cache is full, an arbitrary entry is evicted to make room for a new one;
+ * the hit and miss counts can be used to determine whether the capacity is sufficient.
+ *
+ * @since 3.0
+ */
+public class ExpressionCache {
+
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	private final ConcurrentMap<String, Expression> expressions = new ConcurrentHashMap<String, Expression>();
+
+	private final ExpressionParser parser;
+
+	private final int capacity;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+
+	public ExpressionCache(ExpressionParser parser) {
+		this(parser, DEFAULT_CAPACITY);
+	}
+
+	public ExpressionCache(ExpressionParser parser, int capacity) {
+		Assert.notNull(parser, "'parser' must not be null");
+		Assert.isTrue(capacity > 0, "'capacity' must be greater than 0");
+		this.parser = parser;
+		this.capacity = capacity;
+	}
+
+
+	/**
+	 * Return the parsed expression, parsing it (and adding it to the cache) if necessary.
+	 * @param expressionString the expression.
+	 * @return the parsed expression.
+	 * @throws ParseException if the expression cannot be parsed.
+	 */
+	public Expression getExpression(String expressionString) throws ParseException {
+		Expression expression = this.expressions.get(expressionString);
+		if (expression != null) {
+			this.hits.incrementAndGet();
+			return expression;
+		}
+		this.misses.incrementAndGet();
+		expression = this.parser.parseExpression(expressionString);
+		if (this.expressions.size() >= this.capacity) {
+			Iterator<String> iterator = this.expressions.keySet().iterator();
+			if (iterator.hasNext()) {
+				iterator.next();
+				iterator.remove();
+			}
+		}
+		this.expressions.put(expressionString, expression);
+		return expression;
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	public int getSize() {
+		return this.expressions.size();
+	}
+
+	/**
+	 * @return the number of times an expression was found in the cache.
+	 */
+	public long getHitCount() {
+		return this.hits.get();
+	}
+
+	/**
+	 * @return the number of times an expression had to be parsed.
+	 */
+	public long getMissCount() {
+		return this.misses.get();
+	}
+
+	/**
+	 * Remove all the expressions and reset the statistics.
+	 */
+	public void clear() {
+		this.expressions.clear();
+		this.hits.set(0);
+		this.misses.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return "ExpressionCache [size=" + this.getSize() + ", capacity=" + this.capacity + ", hits="
+				+ this.getHitCount() + ", misses=" + this.getMissCount() + "]";
+	}
+
+}
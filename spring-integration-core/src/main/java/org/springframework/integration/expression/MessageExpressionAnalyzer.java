@@ -0,0 +1,474 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.expression;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.context.expression.MapAccessor;
+import org.springframework.core.convert.Property;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.EvaluationException;
+import org.springframework.expression.Expression;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.TypedValue;
+import org.springframework.expression.common.ExpressionUtils;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.CompoundExpression;
+import org.springframework.expression.spel.ast.Indexer;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.ast.StringLiteral;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
+import org.springframework.integration.Message;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Analyzes SpEL expressions that are evaluated against a {@link Message} and, for the
+ * common shapes that only navigate the message, such as {@code payload}, {@code payload.foo},
+ * {@code payload.customer.name}, {@code payload['key']}, {@code headers.correlationId} or
+ * {@code headers['foo']}, returns an {@link Expression} that resolves the value directly,
+ * using the getter, public field or map entry that SpEL would use (cached per target class),
+ * without interpreting the expression.
+ * <p>
+ * The result is the same as that of the SpEL expression, to which evaluation falls back
+ * whenever the direct path does not apply: the root object is not a {@link Message}, the
+ * evaluation context has property accessors other than the standard reflective accessor and
+ * the {@link MapAccessor}, a value along the path is null, or a property cannot be resolved
+ * (in which case SpEL reports the error). Only the evaluation methods that take an
+ * {@link EvaluationContext} and a root object use the direct path.
+ *
+ * @since 3.0
+ */
+public abstract class MessageExpressionAnalyzer {
+
+	private static final GetterResolver getterResolver = new GetterResolver();
+
+	/**
+	 * Return an expression that resolves the value directly if the expression has one of
+	 * the supported shapes, otherwise the expression itself.
+	 * @param expression the expression.
+	 * @return the (possibly) optimized expression.
+	 */
+	public static Expression analyze(Expression expression) {
+		if (!(expression instanceof SpelExpression)) {
+			return expression;
+		}
+		List<Step> steps = parse(((SpelExpression) expression).getAST());
+		if (steps == null) {
+			return expression;
+		}
+		return new DirectAccessMessageExpression(expression, steps.toArray(new Step[steps.size()]));
+	}
+
+	/**
+	 * @return true if the expression was optimized by {@link #analyze(Expression)}.
+	 */
+	public static boolean isOptimized(Expression expression) {
+		return expression instanceof DirectAccessMessageExpression;
+	}
+
+	private static List<Step> parse(SpelNode ast) {
+		SpelNode[] nodes;
+		if (ast instanceof PropertyOrFieldReference) {
+			nodes = new SpelNode[] { ast };
+		}
+		else if (ast instanceof CompoundExpression) {
+			nodes = new SpelNode[ast.getChildCount()];
+			for (int i = 0; i < nodes.length; i++) {
+				nodes[i] = ast.getChild(i);
+			}
+		}
+		else {
+			return null;
+		}
+		if (!(nodes[0] instanceof PropertyOrFieldReference) || ((PropertyOrFieldReference) nodes[0]).isNullSafe()) {
+			return null;
+		}
+		String root = ((PropertyOrFieldReference) nodes[0]).getName();
+		if (!"payload".equals(root) && !"headers".equals(root)) {
+			return null;
+		}
+		List<Step> steps = new ArrayList<Step>();
+		steps.add(new RootStep("headers".equals(root)));
+		for (int i = 1; i < nodes.length; i++) {
+			SpelNode node = nodes[i];
+			if (node instanceof PropertyOrFieldReference && !((PropertyOrFieldReference) node).isNullSafe()) {
+				steps.add(new PropertyStep(((PropertyOrFieldReference) node).getName()));
+			}
+			else if (node instanceof Indexer && node.getChildCount() == 1) {
+				SpelNode index = node.getChild(0);
+				if (index instanceof StringLiteral) {
+					steps.add(new MapKeyStep((String) ((StringLiteral) index).getLiteralValue().getValue()));
+				}
+				else if (index instanceof PropertyOrFieldReference) {
+					// SpEL uses the name as the key when indexing a Map
+					steps.add(new MapKeyStep(((PropertyOrFieldReference) index).getName()));
+				}
+				else {
+					return null;
+				}
+			}
+			else {
+				return null;
+			}
+		}
+		return steps;
+	}
+
+
+	/**
+	 * An {@link Expression} that resolves its value directly if possible, and delegates
+	 * to the SpEL expression otherwise.
+	 */
+	private static class DirectAccessMessageExpression implements Expression {
+
+		private final Expression delegate;
+
+		private final Step[] steps;
+
+		DirectAccessMessageExpression(Expression delegate, Step[] steps) {
+			this.delegate = delegate;
+			this.steps = steps;
+		}
+
+		public Object getValue(EvaluationContext context, Object rootObject) throws EvaluationException {
+			TypedValue value = this.resolve(context, rootObject);
+			if (value == null) {
+				return this.delegate.getValue(context, rootObject);
+			}
+			return value.getValue();
+		}
+
+		public <T> T getValue(EvaluationContext context, Object rootObject, Class<T> desiredResultType)
+				throws EvaluationException {
+			TypedValue value = this.resolve(context, rootObject);
+			if (value == null) {
+				return this.delegate.getValue(context, rootObject, desiredResultType);
+			}
+			return ExpressionUtils.convertTypedValue(context, value, desiredResultType);
+		}
+
+		/**
+		 * @return the value, or null if it cannot be resolved directly.
+		 */
+		private TypedValue resolve(EvaluationContext context, Object rootObject) {
+			if (!(rootObject instanceof Message) || rootObject instanceof Map) {
+				return null;
+			}
+			List<PropertyAccessor> accessors = context.getPropertyAccessors();
+			for (PropertyAccessor accessor : accessors) {
+				Class<?> accessorClass = accessor.getClass();
+				if (accessorClass != MapAccessor.class && accessorClass != ReflectivePropertyAccessor.class) {
+					return null;
+				}
+			}
+			TypedValue value = new TypedValue(rootObject);
+			for (Step step : this.steps) {
+				if (value.getValue() == null) {
+					return null;
+				}
+				value = step.apply(value, accessors);
+				if (value == null) {
+					return null;
+				}
+			}
+			return value;
+		}
+
+		public String getExpressionString() {
+			return this.delegate.getExpressionString();
+		}
+
+		public Object getValue() throws EvaluationException {
+			return this.delegate.getValue();
+		}
+
+		public Object getValue(Object rootObject) throws EvaluationException {
+			return this.delegate.getValue(rootObject);
+		}
+
+		public <T> T getValue(Class<T> desiredResultType) throws EvaluationException {
+			return this.delegate.getValue(desiredResultType);
+		}
+
+		public <T> T getValue(Object rootObject, Class<T> desiredResultType) throws EvaluationException {
+			return this.delegate.getValue(rootObject, desiredResultType);
+		}
+
+		public Object getValue(EvaluationContext context) throws EvaluationException {
+			return this.delegate.getValue(context);
+		}
+
+		public <T> T getValue(EvaluationContext context, Class<T> desiredResultType) throws EvaluationException {
+			return this.delegate.getValue(context, desiredResultType);
+		}
+
+		@SuppressWarnings("rawtypes")
+		public Class getValueType() throws EvaluationException {
+			return this.delegate.getValueType();
+		}
+
+		@SuppressWarnings("rawtypes")
+		public Class getValueType(Object rootObject) throws EvaluationException {
+			return this.delegate.getValueType(rootObject);
+		}
+
+		@SuppressWarnings("rawtypes")
+		public Class getValueType(EvaluationContext context) throws EvaluationException {
+			return this.delegate.getValueType(context);
+		}
+
+		@SuppressWarnings("rawtypes")
+		public Class getValueType(EvaluationContext context, Object rootObject) throws EvaluationException {
+			return this.delegate.getValueType(context, rootObject);
+		}
+
+		public TypeDescriptor getValueTypeDescriptor() throws EvaluationException {
+			return this.delegate.getValueTypeDescriptor();
+		}
+
+		public TypeDescriptor getValueTypeDescriptor(Object rootObject) throws EvaluationException {
+			return this.delegate.getValueTypeDescriptor(rootObject);
+		}
+
+		public TypeDescriptor getValueTypeDescriptor(EvaluationContext context) throws EvaluationException {
+			return this.delegate.getValueTypeDescriptor(context);
+		}
+
+		public TypeDescriptor getValueTypeDescriptor(EvaluationContext context, Object rootObject)
+				throws EvaluationException {
+			return this.delegate.getValueTypeDescriptor(context, rootObject);
+		}
+
+		public boolean isWritable(EvaluationContext context) throws EvaluationException {
+			return this.delegate.isWritable(context);
+		}
+
+		public boolean isWritable(EvaluationContext context, Object rootObject) throws EvaluationException {
+			return this.delegate.isWritable(context, rootObject);
+		}
+
+		public boolean isWritable(Object rootObject) throws EvaluationException {
+			return this.delegate.isWritable(rootObject);
+		}
+
+		public void setValue(EvaluationContext context, Object value) throws EvaluationException {
+			this.delegate.setValue(context, value);
+		}
+
+		public void setValue(Object rootObject, Object value) throws EvaluationException {
+			this.delegate.setValue(rootObject, value);
+		}
+
+		public void setValue(EvaluationContext context, Object rootObject, Object value) throws EvaluationException {
+			this.delegate.setValue(context, rootObject, value);
+		}
+
+		@Override
+		public String toString() {
+			return this.delegate.toString();
+		}
+
+	}
+
+
+	private interface Step {
+
+		/**
+		 * @return the resolved value, or null if it cannot be resolved directly.
+		 */
+		TypedValue apply(TypedValue target, List<PropertyAccessor> accessors);
+
+	}
+
+
+	private static class RootStep implements Step {
+
+		private final boolean headers;
+
+		RootStep(boolean headers) {
+			this.headers = headers;
+		}
+
+		public TypedValue apply(TypedValue target, List<PropertyAccessor> accessors) {
+			Message<?> message = (Message<?>) target.getValue();
+			return new TypedValue(this.headers ? message.getHeaders() : message.getPayload());
+		}
+
+	}
+
+
+	/**
+	 * A property, resolved by the accessors in the same order as SpEL.
+	 */
+	private static class PropertyStep implements Step {
+
+		private static final Member NONE = new Member(null, null, null);
+
+		private final String name;
+
+		private final ConcurrentMap<Class<?>, Member> members = new ConcurrentHashMap<Class<?>, Member>();
+
+		PropertyStep(String name) {
+			this.name = name;
+		}
+
+		public TypedValue apply(TypedValue target, List<PropertyAccessor> accessors) {
+			Object object = target.getValue();
+			if (object instanceof Class) {
+				// SpEL resolves static members
+				return null;
+			}
+			for (PropertyAccessor accessor : accessors) {
+				if (accessor instanceof MapAccessor) {
+					if (object instanceof Map && ((Map<?, ?>) object).containsKey(this.name)) {
+						return new TypedValue(((Map<?, ?>) object).get(this.name));
+					}
+				}
+				else {
+					TypedValue value = this.read(object);
+					if (value != null) {
+						return value;
+					}
+				}
+			}
+			return null;
+		}
+
+		private TypedValue read(Object object) {
+			Class<?> type = object.getClass();
+			if (type.isArray() && "length".equals(this.name)) {
+				return new TypedValue(Array.getLength(object));
+			}
+			Member member = this.members.get(type);
+			if (member == null) {
+				member = this.resolve(type);
+				this.members.put(type, member);
+			}
+			if (member == NONE) {
+				return null;
+			}
+			try {
+				Object value = member.method != null ? member.method.invoke(object) : member.field.get(object);
+				if (member.typeDescriptor == null) {
+					return new TypedValue(value);
+				}
+				return new TypedValue(value, member.typeDescriptor.narrow(value));
+			}
+			catch (InvocationTargetException e) {
+				throw new EvaluationException("Failed to read property '" + this.name + "'", e.getTargetException());
+			}
+			catch (Exception e) {
+				throw new EvaluationException("Failed to read property '" + this.name + "'", e);
+			}
+		}
+
+		private Member resolve(Class<?> type) {
+			Method method = getterResolver.getter(this.name, type);
+			if (method != null) {
+				ReflectionUtils.makeAccessible(method);
+				return new Member(method, null, new TypeDescriptor(new Property(type, method, null)));
+			}
+			Field field = getterResolver.field(this.name, type);
+			if (field != null) {
+				ReflectionUtils.makeAccessible(field);
+				return new Member(null, field, new TypeDescriptor(field));
+			}
+			return NONE;
+		}
+
+	}
+
+
+	/**
+	 * The getter or field used to read a property, and its type; the type is only retained
+	 * if it has information (element types or annotations) that the value's class does not.
+	 */
+	private static class Member {
+
+		private final Method method;
+
+		private final Field field;
+
+		private final TypeDescriptor typeDescriptor;
+
+		Member(Method method, Field field, TypeDescriptor typeDescriptor) {
+			this.method = method;
+			this.field = field;
+			if (typeDescriptor != null && !typeDescriptor.isCollection() && !typeDescriptor.isMap()
+					&& !typeDescriptor.isArray() && typeDescriptor.getAnnotations().length == 0) {
+				this.typeDescriptor = null;
+			}
+			else {
+				this.typeDescriptor = typeDescriptor;
+			}
+		}
+
+	}
+
+
+	/**
+	 * A map entry ({@code [key]}); other indexed types are left to SpEL.
+	 */
+	private static class MapKeyStep implements Step {
+
+		private final String key;
+
+		MapKeyStep(String key) {
+			this.key = key;
+		}
+
+		public TypedValue apply(TypedValue target, List<PropertyAccessor> accessors) {
+			if (!(target.getValue() instanceof Map)) {
+				return null;
+			}
+			TypeDescriptor keyType = target.getTypeDescriptor().getMapKeyTypeDescriptor();
+			if (keyType != null && !keyType.getType().isAssignableFrom(String.class)) {
+				// SpEL would convert the key
+				return null;
+			}
+			return new TypedValue(((Map<?, ?>) target.getValue()).get(this.key));
+		}
+
+	}
+
+
+	/**
+	 * Exposes the getter and field resolution rules of the {@link ReflectivePropertyAccessor}.
+	 */
+	private static class GetterResolver extends ReflectivePropertyAccessor {
+
+		Method getter(String name, Class<?> type) {
+			return this.findGetterForProperty(name, type, false);
+		}
+
+		Field field(String name, Class<?> type) {
+			return this.findField(name, type, false);
+		}
+
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -96,6 +96,8 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint implements Trackab
 
 	private volatile AsyncTaskExecutor asyncExecutor = new SimpleAsyncTaskExecutor();
 
+	private volatile boolean nonBlockingFutures;
+
 	private volatile boolean initialized;
 
 	private final Object initializationMonitor = new Object();
@@ -195,6 +197,17 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint implements Trackab
 				: new TaskExecutorAdapter(executor);
 	}
 
+	/**
+	 * When true, methods with a {@link Future} return type do not use the async executor;
+	 * the request is sent on the caller's thread and a {@link ListenableReplyFuture} is
+	 * returned immediately. The future is completed by the reply message itself, so no
+	 * thread is parked while waiting for the reply; reply timeouts are enforced by the
+	 * task scheduler. Default false.
+	 */
+	public void setNonBlockingFutures(boolean nonBlockingFutures) {
+		this.nonBlockingFutures = nonBlockingFutures;
+	}
+
 	public void setTypeConverter(TypeConverter typeConverter) {
 		Assert.notNull(typeConverter, "typeConverter must not be null");
 		this.typeConverter = typeConverter;
@@ -255,11 +268,37 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint implements Trackab
 
 	public Object invoke(final MethodInvocation invocation) throws Throwable {
 		if (Future.class.isAssignableFrom(invocation.getMethod().getReturnType())) {
+			if (this.nonBlockingFutures && invocation.getArguments().length > 0) {
+				return this.doInvokeNonBlocking(invocation);
+			}
 			return this.asyncExecutor.submit(new AsyncInvocationTask(invocation));
 		}
 		return this.doInvoke(invocation);
 	}
 
+	private Object doInvokeNonBlocking(MethodInvocation invocation) throws Exception {
+		if (!this.initialized) {
+			this.afterPropertiesSet();
+		}
+		final Method method = invocation.getMethod();
+		MethodInvocationGateway gateway = this.gatewayMap.get(method);
+		ListenableReplyFuture<?> gatewayFuture = hasFutureParameterizedWithMessage(method)
+				? gateway.sendAndReceiveMessageAsync(invocation.getArguments())
+				: gateway.sendAndReceiveAsync(invocation.getArguments());
+		final ListenableReplyFuture<Object> future = new ListenableReplyFuture<Object>();
+		gatewayFuture.addCallback(new ReplyCallback<Object>() {
+
+			public void onReply(Object reply) {
+				future.set(reply);
+			}
+
+			public void onFailure(Throwable t) {
+				future.setException(findExceptionCause(t, method));
+			}
+		});
+		return future;
+	}
+
 	private Object doInvoke(MethodInvocation invocation) throws Throwable {
 		Method method = invocation.getMethod();
 		if (AopUtils.isToStringMethod(method)) {
@@ -314,23 +353,27 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint implements Trackab
 	}
 
 	private void rethrowExceptionCauseIfPossible(Throwable originalException, Method method) throws Throwable {
+		throw findExceptionCause(originalException, method);
+	}
+
+	private static Throwable findExceptionCause(Throwable originalException, Method method) {
 		Class<?>[] exceptionTypes = method.getExceptionTypes();
 		Throwable t = originalException;
 		while (t != null) {
 			for (Class<?> exceptionType : exceptionTypes) {
 				if (exceptionType.isAssignableFrom(t.getClass())) {
-					throw t;
+					return t;
 				}
 			}
 			if (t instanceof RuntimeException
 					&& !(t instanceof MessagingException)
 					&& !(t instanceof UndeclaredThrowableException)
 					&& !(t instanceof IllegalStateException && ("Unexpected exception thrown").equals(t.getMessage()))) {
-				throw t;
+				return t;
 			}
 			t = t.getCause();
 		}
-		throw originalException;
+		return originalException;
 	}
 
 	private MethodInvocationGateway createGatewayForMethod(Method method) {
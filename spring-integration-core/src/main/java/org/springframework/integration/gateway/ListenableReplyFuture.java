@@ -0,0 +1,181 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.gateway;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.util.Assert;
+
+/**
+ * A {@link Future} that is completed by the arrival of a reply message rather than
+ * by a thread blocked waiting for it. {@link ReplyCallback}s may be registered to
+ * be notified on completion; a callback added after completion is invoked immediately
+ * on the calling thread.
+ *
+ * @since 3.0
+ */
+public class ListenableReplyFuture<T> implements Future<T> {
+
+	private static final Log logger = LogFactory.getLog(ListenableReplyFuture.class);
+
+	private final CountDownLatch latch = new CountDownLatch(1);
+
+	private final Object monitor = new Object();
+
+	private final List<ReplyCallback<? super T>> callbacks = new ArrayList<ReplyCallback<? super T>>();
+
+	private volatile T reply;
+
+	private volatile Throwable failure;
+
+	private volatile boolean done;
+
+	private volatile boolean cancelled;
+
+
+	/**
+	 * Register a callback to be invoked when this future completes.
+	 */
+	public void addCallback(ReplyCallback<? super T> callback) {
+		Assert.notNull(callback, "'callback' must not be null");
+		synchronized (this.monitor) {
+			if (!this.done) {
+				this.callbacks.add(callback);
+				return;
+			}
+		}
+		this.notifyCallback(callback);
+	}
+
+	/**
+	 * Complete this future with the supplied reply.
+	 * @return true if this call completed the future, false if it was already complete.
+	 */
+	public boolean set(T reply) {
+		synchronized (this.monitor) {
+			if (this.done) {
+				return false;
+			}
+			this.reply = reply;
+			this.done = true;
+		}
+		this.complete();
+		return true;
+	}
+
+	/**
+	 * Complete this future exceptionally.
+	 * @return true if this call completed the future, false if it was already complete.
+	 */
+	public boolean setException(Throwable failure) {
+		Assert.notNull(failure, "'failure' must not be null");
+		synchronized (this.monitor) {
+			if (this.done) {
+				return false;
+			}
+			this.failure = failure;
+			this.done = true;
+		}
+		this.complete();
+		return true;
+	}
+
+	/**
+	 * Cancel this future; a reply arriving later is discarded. Registered callbacks
+	 * are notified with a {@link CancellationException}. Since no thread is associated
+	 * with the request, the 'mayInterruptIfRunning' argument is ignored.
+	 */
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		synchronized (this.monitor) {
+			if (this.done) {
+				return false;
+			}
+			this.cancelled = true;
+			this.failure = new CancellationException("Reply future cancelled");
+			this.done = true;
+		}
+		this.complete();
+		return true;
+	}
+
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+
+	public boolean isDone() {
+		return this.done;
+	}
+
+	public T get() throws InterruptedException, ExecutionException {
+		this.latch.await();
+		return this.getResult();
+	}
+
+	public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		if (!this.latch.await(timeout, unit)) {
+			throw new TimeoutException("No reply within " + timeout + " " + unit);
+		}
+		return this.getResult();
+	}
+
+	private T getResult() throws ExecutionException {
+		if (this.cancelled) {
+			throw (CancellationException) this.failure;
+		}
+		if (this.failure != null) {
+			throw new ExecutionException(this.failure);
+		}
+		return this.reply;
+	}
+
+	private void complete() {
+		this.latch.countDown();
+		List<ReplyCallback<? super T>> callbacksToNotify;
+		synchronized (this.monitor) {
+			callbacksToNotify = new ArrayList<ReplyCallback<? super T>>(this.callbacks);
+			this.callbacks.clear();
+		}
+		for (ReplyCallback<? super T> callback : callbacksToNotify) {
+			this.notifyCallback(callback);
+		}
+	}
+
+	private void notifyCallback(ReplyCallback<? super T> callback) {
+		try {
+			if (this.failure != null) {
+				callback.onFailure(this.failure);
+			}
+			else {
+				callback.onReply(this.reply);
+			}
+		}
+		catch (RuntimeException e) {
+			logger.error("ReplyCallback threw an exception", e);
+		}
+	}
+
+}
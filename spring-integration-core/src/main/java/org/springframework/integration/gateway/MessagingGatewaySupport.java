@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,14 @@
 
 package org.springframework.integration.gateway;
 
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
+import org.springframework.integration.MessageHeaders;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.core.MessageHandler;
 import org.springframework.integration.core.MessagingTemplate;
@@ -34,6 +40,9 @@ import org.springframework.integration.mapping.OutboundMessageMapper;
 import org.springframework.integration.message.ErrorMessage;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.support.converter.SimpleMessageConverter;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.Assert;
 
 /**
@@ -41,6 +50,12 @@ import org.springframework.util.Assert;
  * {@link MessageChannel}s for sending, receiving, or request-reply operations.
  * Exposes setters for configuring request and reply {@link MessageChannel}s as
  * well as the timeout values for sending and receiving Messages.
+ * <p>
+ * In addition to the blocking request-reply operations, subclasses may use
+ * {@link #sendAndReceiveAsync(Object)} and {@link #sendAndReceiveMessageAsync(Object)};
+ * these return a {@link ListenableReplyFuture} that is completed by the reply message
+ * itself, so no thread is parked while the downstream flow is processing the request.
+ * Reply timeouts for those operations are enforced by the {@link TaskScheduler}.
  * 
  * @author Mark Fisher
  */
@@ -72,6 +87,8 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint implement
 
 	private final Object replyMessageCorrelatorMonitor = new Object();
 
+	private volatile TaskScheduler replyTimeoutScheduler;
+
 
 	public MessagingGatewaySupport() {
 		MessagingTemplate template = new MessagingTemplate();
@@ -242,32 +259,101 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint implement
 		}
 
 		if (error != null) {
-			if (this.errorChannel != null) {
-				Message<?> errorMessage = new ErrorMessage(error);
-				Message<?> errorFlowReply = null;
-				try {
-					errorFlowReply = this.messagingTemplate.sendAndReceive(this.errorChannel, errorMessage);
-				}
-				catch (Exception errorFlowFailure) {
-					throw new MessagingException(errorMessage, "failure occurred in error-handling flow", errorFlowFailure);
-				}
-				if (shouldConvert) {
-					Object result = (errorFlowReply != null) ? errorFlowReply.getPayload() : null;
-					if (result instanceof Throwable) {
-						this.rethrow((Throwable) result, "error flow returned Exception");
-					}
-					return result;
-				}
-				if (errorFlowReply != null && errorFlowReply.getPayload() instanceof Throwable) {
-					this.rethrow((Throwable) errorFlowReply.getPayload(), "error flow returned an Error Message");
+			return this.handleSendAndReceiveError(error, shouldConvert);
+		}
+		return reply;
+	}
+
+	private Object handleSendAndReceiveError(Throwable error, boolean shouldConvert) {
+		if (this.errorChannel != null) {
+			Message<?> errorMessage = new ErrorMessage(error);
+			Message<?> errorFlowReply = null;
+			try {
+				errorFlowReply = this.messagingTemplate.sendAndReceive(this.errorChannel, errorMessage);
+			}
+			catch (Exception errorFlowFailure) {
+				throw new MessagingException(errorMessage, "failure occurred in error-handling flow", errorFlowFailure);
+			}
+			if (shouldConvert) {
+				Object result = (errorFlowReply != null) ? errorFlowReply.getPayload() : null;
+				if (result instanceof Throwable) {
+					this.rethrow((Throwable) result, "error flow returned Exception");
 				}
-				return errorFlowReply;
+				return result;
 			}
-			else { // no errorChannel so we'll propagate
-				this.rethrow(error, "gateway received checked Exception");
+			if (errorFlowReply != null && errorFlowReply.getPayload() instanceof Throwable) {
+				this.rethrow((Throwable) errorFlowReply.getPayload(), "error flow returned an Error Message");
 			}
+			return errorFlowReply;
 		}
-		return reply;
+		else { // no errorChannel so we'll propagate
+			this.rethrow(error, "gateway received checked Exception");
+		}
+		return null;
+	}
+
+	/**
+	 * Send the request and return immediately; the returned future is completed
+	 * with the converted reply (or null if no reply arrives within the reply timeout).
+	 * The calling thread is never parked waiting for the reply.
+	 */
+	protected ListenableReplyFuture<Object> sendAndReceiveAsync(Object object) {
+		return this.doSendAndReceiveAsync(object, true);
+	}
+
+	/**
+	 * Send the request and return immediately; the returned future is completed
+	 * with the reply message (or null if no reply arrives within the reply timeout).
+	 * The calling thread is never parked waiting for the reply.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	protected ListenableReplyFuture<Message<?>> sendAndReceiveMessageAsync(Object object) {
+		return (ListenableReplyFuture) this.doSendAndReceiveAsync(object, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	private ListenableReplyFuture<Object> doSendAndReceiveAsync(Object object, boolean shouldConvert) {
+		this.initializeIfNecessary();
+		Assert.notNull(object, "request must not be null");
+		if (this.requestChannel == null) {
+			throw new MessagingException("No request channel available. Cannot send request message.");
+		}
+		if (this.replyChannel != null && this.replyMessageCorrelator == null) {
+			this.registerReplyMessageCorrelator();
+		}
+		ListenableReplyFuture<Object> future = new ListenableReplyFuture<Object>();
+		AsyncReplyChannel replyChannel = new AsyncReplyChannel(future, shouldConvert);
+		try {
+			Message<?> requestMessage = (object instanceof Message<?>)
+					? (Message<?>) object : this.requestMapper.toMessage(object);
+			requestMessage = this.historyWritingPostProcessor.postProcessMessage(requestMessage);
+			replyChannel.originalReplyChannelHeader = requestMessage.getHeaders().getReplyChannel();
+			replyChannel.originalErrorChannelHeader = requestMessage.getHeaders().getErrorChannel();
+			requestMessage = MessageBuilder.fromMessage(requestMessage)
+					.setReplyChannel(replyChannel)
+					.setErrorChannel(replyChannel)
+					.build();
+			if (this.replyTimeout >= 0) {
+				replyChannel.scheduleTimeout(this.getReplyTimeoutScheduler(), this.replyTimeout);
+			}
+			this.messagingTemplate.send(this.requestChannel, requestMessage);
+		}
+		catch (Exception e) {
+			logger.warn("failure occurred in gateway sendAndReceive", e);
+			replyChannel.fail(e);
+		}
+		return future;
+	}
+
+	private TaskScheduler getReplyTimeoutScheduler() {
+		TaskScheduler scheduler = this.getTaskScheduler();
+		if (scheduler != null) {
+			return scheduler;
+		}
+		if (this.replyTimeoutScheduler == null) {
+			this.replyTimeoutScheduler = SharedReplyTimeoutScheduler.INSTANCE;
+		}
+		return this.replyTimeoutScheduler;
 	}
 
 	private void rethrow(Throwable t, String description) {
@@ -318,6 +404,118 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint implement
 	}
 
 
+	/**
+	 * Temporary reply (and error) channel for an asynchronous request; completes
+	 * the future when the first reply or error message arrives, or when the reply
+	 * timeout expires, whichever comes first.
+	 */
+	private class AsyncReplyChannel implements MessageChannel {
+
+		private final ListenableReplyFuture<Object> future;
+
+		private final boolean shouldConvert;
+
+		private final AtomicBoolean replied = new AtomicBoolean();
+
+		private volatile Object originalReplyChannelHeader;
+
+		private volatile Object originalErrorChannelHeader;
+
+		private volatile ScheduledFuture<?> timeoutTask;
+
+		private AsyncReplyChannel(ListenableReplyFuture<Object> future, boolean shouldConvert) {
+			this.future = future;
+			this.shouldConvert = shouldConvert;
+		}
+
+		private void scheduleTimeout(TaskScheduler scheduler, long timeout) {
+			this.timeoutTask = scheduler.schedule(new Runnable() {
+				public void run() {
+					if (replied.compareAndSet(false, true)) {
+						future.set(null);
+					}
+				}
+			}, new Date(System.currentTimeMillis() + timeout));
+		}
+
+		private void fail(Throwable error) {
+			if (!this.replied.compareAndSet(false, true)) {
+				return;
+			}
+			this.cancelTimeout();
+			try {
+				this.future.set(handleSendAndReceiveError(error, this.shouldConvert));
+			}
+			catch (Throwable t) {
+				this.future.setException(t);
+			}
+		}
+
+		private void cancelTimeout() {
+			ScheduledFuture<?> timeoutTask = this.timeoutTask;
+			if (timeoutTask != null) {
+				timeoutTask.cancel(false);
+			}
+		}
+
+		public boolean send(Message<?> message) {
+			return this.send(message, -1);
+		}
+
+		public boolean send(Message<?> message, long timeout) {
+			if (this.future.isDone() || !this.replied.compareAndSet(false, true)) {
+				if (logger.isWarnEnabled()) {
+					logger.warn("Reply message being sent, but the request has already "
+							+ (this.future.isCancelled() ? "been cancelled" : "timed out or received a reply")
+							+ ":" + message);
+				}
+				return true;
+			}
+			this.cancelTimeout();
+			try {
+				Message<?> reply = MessageBuilder.fromMessage(message)
+						.setHeader(MessageHeaders.REPLY_CHANNEL, this.originalReplyChannelHeader)
+						.setHeader(MessageHeaders.ERROR_CHANNEL, this.originalErrorChannelHeader)
+						.build();
+				Object result = reply;
+				Throwable error = null;
+				if (this.shouldConvert) {
+					result = messageConverter.fromMessage(reply);
+					if (result instanceof Throwable) {
+						error = (Throwable) result;
+					}
+				}
+				else if (reply instanceof ErrorMessage) {
+					error = ((ErrorMessage) reply).getPayload();
+				}
+				if (error != null) {
+					result = handleSendAndReceiveError(error, this.shouldConvert);
+				}
+				this.future.set(result);
+			}
+			catch (Throwable t) {
+				this.future.setException(t);
+			}
+			return true;
+		}
+	}
+
+
+	/**
+	 * Fallback timer for asynchronous reply timeouts when no 'taskScheduler' bean is available.
+	 */
+	private static class SharedReplyTimeoutScheduler {
+
+		private static final TaskScheduler INSTANCE;
+
+		static {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("gateway-reply-timeout-");
+			threadFactory.setDaemon(true);
+			INSTANCE = new ConcurrentTaskScheduler(Executors.newSingleThreadScheduledExecutor(threadFactory));
+		}
+	}
+
+
 	private static class DefaultRequestMapper implements InboundMessageMapper<Object> {
 
 		public Message<?> toMessage(Object object) throws Exception {
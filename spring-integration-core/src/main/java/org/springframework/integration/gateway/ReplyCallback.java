@@ -0,0 +1,41 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.gateway;
+
+/**
+ * Callback registered with a {@link ListenableReplyFuture}; invoked once the
+ * reply to an asynchronous gateway request is available (or the request failed).
+ * <p>
+ * Callbacks are invoked on the thread that completes the future - typically the
+ * thread that sent the reply message - so implementations should not block.
+ *
+ * @since 3.0
+ */
+public interface ReplyCallback<T> {
+
+	/**
+	 * Invoked with the reply; the reply is null if no reply was received within
+	 * the gateway's reply timeout.
+	 */
+	void onReply(T reply);
+
+	/**
+	 * Invoked if the request could not be sent, or the downstream flow failed.
+	 */
+	void onFailure(Throwable t);
+
+}
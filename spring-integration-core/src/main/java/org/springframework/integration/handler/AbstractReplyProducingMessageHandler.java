@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -156,6 +156,19 @@ public abstract class AbstractReplyProducingMessageHandler extends AbstractMessa
 		return this.advisedRequestHandler.handleRequestMessage(message);
 	}
 
+	/**
+	 * Handle a result that became available after {@link #handleRequestMessage(Message)}
+	 * returned null, for example in an I/O completion callback. The result is processed
+	 * as if it had been returned by that method; note that any advice chain has already
+	 * completed by the time this method is invoked.
+	 * @param result the result.
+	 * @param requestHeaders the headers of the request message.
+	 * @since 3.0
+	 */
+	protected void handleAsyncResult(Object result, MessageHeaders requestHeaders) {
+		this.handleResult(result, requestHeaders);
+	}
+
 	private void handleResult(Object result, MessageHeaders requestHeaders) {
 		if (result instanceof Iterable<?> && this.shouldSplitReply((Iterable<?>) result)) {
 			for (Object o : (Iterable<?>) result) {
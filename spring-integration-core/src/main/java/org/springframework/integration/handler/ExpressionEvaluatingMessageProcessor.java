@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,11 +19,14 @@ package org.springframework.integration.handler;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ParseException;
 import org.springframework.integration.Message;
+import org.springframework.integration.expression.MessageExpressionAnalyzer;
 import org.springframework.util.Assert;
 
 /**
  * A {@link MessageProcessor} implementation that evaluates a SpEL expression
  * with the Message itself as the root object within the evaluation context.
+ * Expressions that only navigate the Message (e.g. {@code payload.foo} or
+ * {@code headers['foo']}) are resolved directly; see {@link MessageExpressionAnalyzer}.
  * 
  * @author Mark Fisher
  * @since 2.0
@@ -50,7 +53,7 @@ public class ExpressionEvaluatingMessageProcessor<T> extends AbstractMessageProc
 	public ExpressionEvaluatingMessageProcessor(Expression expression, Class<T> expectedType) {
 		Assert.notNull(expression, "The expression must not be null");
 		try {
-			this.expression = expression;
+			this.expression = MessageExpressionAnalyzer.analyze(expression);
 			this.expectedType = expectedType;
 		}
 		catch (ParseException e) {
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.mapping;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.util.Assert;
+import org.springframework.util.PatternMatchUtils;
+
+/**
+ * Case-insensitive matcher for header names against a set of simple patterns
+ * (e.g. "foo", "foo*", "*foo", "*"), with the same semantics as applying
+ * {@link PatternMatchUtils#simpleMatch(String, String)} to the lower-cased pattern
+ * and header name.
+ * <p>
+ * The patterns are compiled once: plain names go into a hash set, "prefix*" and
+ * "*suffix" patterns are matched with {@link String#startsWith(String)} and
+ * {@link String#endsWith(String)}; only more complex patterns fall back to
+ * {@link PatternMatchUtils}. Symbolic patterns (such as
+ * {@link AbstractHeaderMapper#STANDARD_REQUEST_HEADER_NAME_PATTERN}) may be
+ * expanded to the list of names they represent.
+ * <p>
+ * Decisions are cached per header name, up to a configurable number of names,
+ * so that mapping the same headers repeatedly does not allocate.
+ *
+ * @since 3.0
+ */
+public class HeaderNameMatcher {
+
+	public static final int DEFAULT_CACHE_SIZE = 1024;
+
+	private final Set<String> names = new HashSet<String>();
+
+	private final List<String> prefixes = new ArrayList<String>();
+
+	private final List<String> suffixes = new ArrayList<String>();
+
+	private final List<String> complexPatterns = new ArrayList<String>();
+
+	private final boolean matchAll;
+
+	private final boolean empty;
+
+	private final Map<String, Boolean> decisions = new ConcurrentHashMap<String, Boolean>();
+
+	private final int cacheSize;
+
+	public HeaderNameMatcher(Collection<String> patterns) {
+		this(patterns, Collections.<String, Collection<String>>emptyMap(), DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * @param patterns the header name patterns.
+	 * @param symbolicPatterns patterns (matched case-sensitively) that, in addition to their
+	 * literal value, stand for the supplied header names.
+	 * @param cacheSize the maximum number of header names for which the decision is cached.
+	 */
+	public HeaderNameMatcher(Collection<String> patterns, Map<String, ? extends Collection<String>> symbolicPatterns,
+			int cacheSize) {
+		Assert.notNull(symbolicPatterns, "'symbolicPatterns' must not be null");
+		Assert.isTrue(cacheSize >= 0, "'cacheSize' must not be negative");
+		this.cacheSize = cacheSize;
+		boolean matchAll = false;
+		if (patterns != null) {
+			for (String pattern : patterns) {
+				if (pattern == null) {
+					continue;
+				}
+				Collection<String> expansion = symbolicPatterns.get(pattern);
+				if (expansion != null) {
+					for (String name : expansion) {
+						this.names.add(name.toLowerCase());
+					}
+				}
+				matchAll |= this.compile(pattern.toLowerCase());
+			}
+		}
+		this.matchAll = matchAll;
+		this.empty = !matchAll && this.names.isEmpty() && this.prefixes.isEmpty()
+				&& this.suffixes.isEmpty() && this.complexPatterns.isEmpty();
+	}
+
+	/**
+	 * @return true if the pattern matches every name.
+	 */
+	private boolean compile(String pattern) {
+		int firstStar = pattern.indexOf('*');
+		if (firstStar == -1) {
+			this.names.add(pattern);
+			return false;
+		}
+		int lastStar = pattern.lastIndexOf('*');
+		if (pattern.length() == 1) {
+			return true;
+		}
+		if (firstStar == lastStar) {
+			if (firstStar == pattern.length() - 1) {
+				this.prefixes.add(pattern.substring(0, firstStar));
+				return false;
+			}
+			else if (firstStar == 0) {
+				this.suffixes.add(pattern.substring(1));
+				return false;
+			}
+		}
+		this.complexPatterns.add(pattern);
+		return false;
+	}
+
+	/**
+	 * @param headerName the header name.
+	 * @return true if the header name matches any of the patterns.
+	 */
+	public boolean matches(String headerName) {
+		if (headerName == null || this.empty) {
+			return false;
+		}
+		if (this.matchAll) {
+			return true;
+		}
+		Boolean decision = this.decisions.get(headerName);
+		if (decision == null) {
+			decision = this.doMatch(headerName.toLowerCase());
+			if (this.decisions.size() < this.cacheSize) {
+				this.decisions.put(headerName, decision);
+			}
+		}
+		return decision;
+	}
+
+	private boolean doMatch(String name) {
+		if (this.names.contains(name)) {
+			return true;
+		}
+		for (String prefix : this.prefixes) {
+			if (name.startsWith(prefix)) {
+				return true;
+			}
+		}
+		for (String suffix : this.suffixes) {
+			if (name.endsWith(suffix)) {
+				return true;
+			}
+		}
+		for (String pattern : this.complexPatterns) {
+			if (PatternMatchUtils.simpleMatch(pattern, name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,10 +25,13 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
+import org.springframework.integration.support.channel.CachingChannelResolver;
 import org.springframework.integration.support.channel.ChannelResolutionException;
 import org.springframework.integration.support.channel.ChannelResolver;
 import org.springframework.jmx.export.annotation.ManagedOperation;
@@ -38,6 +41,11 @@ import org.springframework.util.StringUtils;
 /**
  * Base class for all Message Routers that support mapping from arbitrary String values
  * to Message Channel names.
+ * <p>
+ * By default, channel names are resolved by a {@link CachingChannelResolver}; the channels
+ * resolved for each String channel key are also cached. The caches are invalidated when the
+ * channel mappings, prefix or suffix change, and when a {@link ContextRefreshedEvent} is
+ * received.
  * 
  * @author Mark Fisher
  * @author Oleg Zhurakousky
@@ -45,10 +53,15 @@ import org.springframework.util.StringUtils;
  * @author Gary Russell
  * @since 2.1
  */
-public abstract class AbstractMappingMessageRouter extends AbstractMessageRouter implements MappingMessageRouterManagement {
+public abstract class AbstractMappingMessageRouter extends AbstractMessageRouter implements MappingMessageRouterManagement,
+		ApplicationListener<ContextRefreshedEvent> {
+
+	private static final int MAX_CACHED_CHANNEL_KEYS = 1024;
 
 	private volatile Map<String, String> channelMappings = new ConcurrentHashMap<String, String>();
 
+	private volatile Map<String, List<MessageChannel>> resolvedChannels = new ConcurrentHashMap<String, List<MessageChannel>>();
+
 	private volatile ChannelResolver channelResolver;
 
 	private volatile String prefix;
@@ -67,6 +80,7 @@ public abstract class AbstractMappingMessageRouter extends AbstractMessageRouter
 		Map<String, String> newChannelMappings = new ConcurrentHashMap<String, String>();
 		newChannelMappings.putAll(channelMappings);
 		this.channelMappings = newChannelMappings;
+		this.clearResolvedChannels();
 		if (logger.isDebugEnabled()) {
 			logger.debug("Channel mappings:" + oldChannelMappings
 					+ " replaced with:" + newChannelMappings);
@@ -75,13 +89,16 @@ public abstract class AbstractMappingMessageRouter extends AbstractMessageRouter
 
 	/**
 	 * Specify the {@link ChannelResolver} strategy to use.
-	 * The default is a BeanFactoryChannelResolver.
+	 * The default is a BeanFactoryChannelResolver, decorated by a {@link CachingChannelResolver}.
+	 * The channels resolved for each channel key are only cached when the resolver is a
+	 * {@link CachingChannelResolver}.
 	 * This is considered an infrastructural configuration option and
 	 * as of 2.1 has been deprecated as a configuration-driven attribute.
 	 */
 	public void setChannelResolver(ChannelResolver channelResolver) {
 		Assert.notNull(channelResolver, "'channelResolver' must not be null");
 		this.channelResolver = channelResolver;
+		this.clearResolvedChannels();
 	}
 
 	/**
@@ -89,6 +106,7 @@ public abstract class AbstractMappingMessageRouter extends AbstractMessageRouter
 	 */
 	public void setPrefix(String prefix) {
 		this.prefix = prefix;
+		this.clearResolvedChannels();
 	}
 
 	/**
@@ -96,6 +114,7 @@ public abstract class AbstractMappingMessageRouter extends AbstractMessageRouter
 	 */
 	public void setSuffix(String suffix) {
 		this.suffix = suffix;
+		this.clearResolvedChannels();
 	}
 
 	/**
@@ -104,6 +123,7 @@ public abstract class AbstractMappingMessageRouter extends AbstractMessageRouter
 	 */
 	public void setResolutionRequired(boolean resolutionRequired) {
 		this.resolutionRequired = resolutionRequired;
+		this.clearResolvedChannels();
 	}
 
 	/**
@@ -120,6 +140,7 @@ public abstract class AbstractMappingMessageRouter extends AbstractMessageRouter
 	@ManagedOperation
 	public void setChannelMapping(String key, String channelName) {
 		this.channelMappings.put(key, channelName);
+		this.clearResolvedChannels();
 	}
 
 	/**
@@ -128,13 +149,25 @@ public abstract class AbstractMappingMessageRouter extends AbstractMessageRouter
 	@ManagedOperation
 	public void removeChannelMapping(String key) {
 		this.channelMappings.remove(key);
+		this.clearResolvedChannels();
+	}
+
+	/**
+	 * Invalidates cached channel resolutions, since the refreshed context may
+	 * define different channels.
+	 */
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		if (this.channelResolver instanceof CachingChannelResolver) {
+			((CachingChannelResolver) this.channelResolver).clearCache();
+		}
+		this.clearResolvedChannels();
 	}
 
 	@Override
 	public void onInit() {
 		BeanFactory beanFactory = this.getBeanFactory();
 		if (this.channelResolver == null && beanFactory != null) {
-			this.channelResolver = new BeanFactoryChannelResolver(beanFactory);
+			this.channelResolver = new CachingChannelResolver(new BeanFactoryChannelResolver(beanFactory));
 		}
 	}
 
@@ -175,9 +208,27 @@ public abstract class AbstractMappingMessageRouter extends AbstractMessageRouter
 	}
 
 	private void addChannelFromString(Collection<MessageChannel> channels, String channelKey, Message<?> message) {
+		if (!(this.channelResolver instanceof CachingChannelResolver)) {
+			resolveChannelsFromString(channels, channelKey, message);
+			return;
+		}
+		Map<String, List<MessageChannel>> resolvedChannels = this.resolvedChannels;
+		List<MessageChannel> resolved = resolvedChannels.get(channelKey);
+		if (resolved == null) {
+			resolved = new ArrayList<MessageChannel>();
+			resolveChannelsFromString(resolved, channelKey, message);
+			// keys with unresolvable names are cached too, until the mappings change or the context is refreshed
+			if (resolvedChannels.size() < MAX_CACHED_CHANNEL_KEYS) {
+				resolvedChannels.put(channelKey, resolved);
+			}
+		}
+		channels.addAll(resolved);
+	}
+
+	private void resolveChannelsFromString(Collection<MessageChannel> channels, String channelKey, Message<?> message) {
 		if (channelKey.indexOf(',') != -1) {
 			for (String name : StringUtils.tokenizeToStringArray(channelKey, ",")) {
-				addChannelFromString(channels, name, message);
+				resolveChannelsFromString(channels, name, message);
 			}
 			return;
 		}
@@ -200,6 +251,10 @@ public abstract class AbstractMappingMessageRouter extends AbstractMessageRouter
 		}
 	}
 
+	private void clearResolvedChannels() {
+		this.resolvedChannels = new ConcurrentHashMap<String, List<MessageChannel>>();
+	}
+
 	private void addToCollection(Collection<MessageChannel> channels, Collection<?> channelKeys, Message<?> message) {
 		if (channelKeys == null) {
 			return;
@@ -0,0 +1,495 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store.metadata;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.integration.MessagingException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+/**
+ * {@link MetadataStore} that keeps its entries in memory and persists each update by
+ * appending a record to a log file, rather than rewriting all the entries. Records are
+ * buffered and written (and forced to disk) together, at most {@link #setFlushInterval(long)
+ * flushInterval} milliseconds after the update; with {@link #setWaitForFlush(boolean)
+ * waitForFlush}, {@link #put(String, String)} returns only when its record is on disk,
+ * records from concurrent callers sharing a single disk sync.
+ * <p>
+ * When the log has grown to {@link #setCompactionFactor(int) compactionFactor} times the
+ * size of the current entries, it is compacted by writing the current entries to a new
+ * file which then replaces the log; if the store is stopped (or fails) after the new file
+ * is complete, but before it has replaced the log, the replacement is completed when the
+ * store is started. Each record has a checksum; a partially written record at the end of
+ * the log (after a crash) is discarded when the store is started.
+ * <p>
+ * The file is named 'metadata-store.log', in the {@link #setBaseDirectory(String) base
+ * directory}. If it does not exist, entries are imported from the 'metadata-store.properties'
+ * file written by a {@link PropertiesPersistingMetadataStore}, if present.
+ *
+ * @since 3.0
+ */
+public class AppendOnlyLogMetadataStore implements MetadataStore, InitializingBean, DisposableBean {
+
+	public static final long DEFAULT_FLUSH_INTERVAL = 100;
+
+	public static final int DEFAULT_COMPACTION_FACTOR = 4;
+
+	private static final String LOG_FILE_NAME = "metadata-store.log";
+
+	private static final String COMPACTING_SUFFIX = ".compacting";
+
+	private static final String COMPACTED_SUFFIX = ".compacted";
+
+	private static final String PROPERTIES_FILE_NAME = "metadata-store.properties";
+
+	private static final long MIN_COMPACTION_SIZE = 1024 * 1024;
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final Map<String, String> metadata = new ConcurrentHashMap<String, String>();
+
+	private final Object appendMonitor = new Object();
+
+	private final Object flushMonitor = new Object();
+
+	private volatile String baseDirectory = System.getProperty("java.io.tmpdir") + "/spring-integration/";
+
+	private volatile long flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+	private volatile boolean waitForFlush;
+
+	private volatile int compactionFactor = DEFAULT_COMPACTION_FACTOR;
+
+	private volatile File file;
+
+	private volatile RandomAccessFile log;
+
+	private volatile ScheduledExecutorService flusher;
+
+	private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+	private long appendedSequence;
+
+	private long flushedSequence;
+
+	private long logSize;
+
+	private long liveSize;
+
+	private boolean compactionPending;
+
+
+	public void setBaseDirectory(String baseDirectory) {
+		Assert.hasText(baseDirectory, "'baseDirectory' must be non-empty");
+		this.baseDirectory = baseDirectory;
+	}
+
+	/**
+	 * The maximum time (milliseconds) an update is buffered before it is written to
+	 * the log and forced to disk. Default {@value #DEFAULT_FLUSH_INTERVAL}.
+	 */
+	public void setFlushInterval(long flushInterval) {
+		Assert.isTrue(flushInterval > 0, "'flushInterval' must be greater than 0");
+		this.flushInterval = flushInterval;
+	}
+
+	/**
+	 * When true, {@link #put(String, String)} does not return until the update has
+	 * been written and forced to disk. Default false.
+	 */
+	public void setWaitForFlush(boolean waitForFlush) {
+		this.waitForFlush = waitForFlush;
+	}
+
+	/**
+	 * The log is compacted when it is this many times the size that the current entries
+	 * would occupy (and at least 1MB). Default {@value #DEFAULT_COMPACTION_FACTOR}.
+	 */
+	public void setCompactionFactor(int compactionFactor) {
+		Assert.isTrue(compactionFactor > 1, "'compactionFactor' must be greater than 1");
+		this.compactionFactor = compactionFactor;
+	}
+
+	public void afterPropertiesSet() throws Exception {
+		File baseDir = new File(this.baseDirectory);
+		baseDir.mkdirs();
+		this.file = new File(baseDir, LOG_FILE_NAME);
+		// the compacted file was not complete
+		new File(baseDir, LOG_FILE_NAME + COMPACTING_SUFFIX).delete();
+		File compacted = new File(baseDir, LOG_FILE_NAME + COMPACTED_SUFFIX);
+		if (compacted.exists()) {
+			// the compacted file did not replace the log
+			this.replaceLog(compacted);
+		}
+		boolean imported = false;
+		if (!this.file.exists()) {
+			File properties = new File(baseDir, PROPERTIES_FILE_NAME);
+			if (properties.exists()) {
+				this.importProperties(properties);
+				imported = true;
+			}
+		}
+		if (this.log == null) {
+			try {
+				this.log = new RandomAccessFile(this.file, "rw");
+			}
+			catch (Exception e) {
+				throw new IllegalArgumentException("Failed to create metadata-store file '"
+						+ this.file.getAbsolutePath() + "'", e);
+			}
+		}
+		this.loadMetadata();
+		if (imported) {
+			this.compact();
+		}
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("metadata-store-flush-");
+		threadFactory.setDaemon(true);
+		this.flusher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		this.flusher.scheduleWithFixedDelay(new Runnable() {
+
+			public void run() {
+				try {
+					flush();
+				}
+				catch (Exception e) {
+					logger.error("Failed to flush metadata-store updates", e);
+				}
+			}
+		}, this.flushInterval, this.flushInterval, TimeUnit.MILLISECONDS);
+	}
+
+	public void put(String key, String value) {
+		Assert.notNull(key, "'key' must not be null");
+		Assert.notNull(value, "'value' must not be null");
+		byte[] record = toRecord(key, value);
+		long sequence;
+		synchronized (this.appendMonitor) {
+			String previous = this.metadata.put(key, value);
+			this.pending.write(record, 0, record.length);
+			this.liveSize += record.length;
+			if (previous != null) {
+				this.liveSize -= toRecord(key, previous).length;
+			}
+			sequence = ++this.appendedSequence;
+		}
+		if (this.waitForFlush) {
+			try {
+				this.flush(sequence);
+			}
+			catch (IOException e) {
+				throw new MessagingException("Failed to write metadata-store file '"
+						+ this.file.getAbsolutePath() + "'", e);
+			}
+		}
+	}
+
+	public String get(String key) {
+		return this.metadata.get(key);
+	}
+
+	/**
+	 * Write and force to disk any updates that have not yet been written, compacting the
+	 * log if necessary.
+	 */
+	public void flush() throws IOException {
+		long sequence;
+		synchronized (this.appendMonitor) {
+			sequence = this.appendedSequence;
+		}
+		this.flush(sequence);
+	}
+
+	public void destroy() throws Exception {
+		if (this.flusher != null) {
+			this.flusher.shutdown();
+			this.flusher.awaitTermination(10, TimeUnit.SECONDS);
+		}
+		synchronized (this.flushMonitor) {
+			this.flush();
+			this.log.close();
+		}
+	}
+
+	private void flush(long sequence) throws IOException {
+		synchronized (this.flushMonitor) {
+			if (this.flushedSequence >= sequence) {
+				// written by another caller
+				return;
+			}
+			ByteArrayOutputStream records;
+			long flushed;
+			synchronized (this.appendMonitor) {
+				records = this.pending;
+				flushed = this.appendedSequence;
+				this.pending = new ByteArrayOutputStream();
+			}
+			boolean written = false;
+			try {
+				if (this.compactionPending) {
+					this.compact();
+				}
+				if (records.size() > 0) {
+					FileChannel channel = this.log.getChannel();
+					ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+					while (buffer.hasRemaining()) {
+						channel.write(buffer, this.logSize + buffer.position());
+					}
+					channel.force(false);
+					this.logSize += records.size();
+				}
+				written = true;
+			}
+			finally {
+				if (!written) {
+					// keep the records, ahead of the later ones, for the next flush
+					synchronized (this.appendMonitor) {
+						byte[] later = this.pending.toByteArray();
+						records.write(later, 0, later.length);
+						this.pending = records;
+					}
+				}
+			}
+			this.flushedSequence = flushed;
+			if (this.needsCompaction()) {
+				try {
+					this.compact();
+				}
+				catch (IOException e) {
+					// the records have been written; the compaction is attempted again by a later flush
+					logger.warn("Failed to compact metadata-store file '" + this.file.getAbsolutePath() + "'", e);
+				}
+			}
+		}
+	}
+
+	private boolean needsCompaction() {
+		long liveSize;
+		synchronized (this.appendMonitor) {
+			liveSize = this.liveSize;
+		}
+		return this.logSize > MIN_COMPACTION_SIZE && this.logSize > liveSize * this.compactionFactor;
+	}
+
+	/**
+	 * Replace the log with one containing only the current entries; must be called
+	 * while holding the flush monitor. Updates made while the entries are being
+	 * written are pending, and will be appended to the new log. If the log could not
+	 * be replaced, the replacement is attempted again before the next records are
+	 * written, since the log might be partly overwritten.
+	 */
+	private void compact() throws IOException {
+		long start = System.currentTimeMillis();
+		long oldSize = this.logSize;
+		File compacted = new File(this.file.getParentFile(), LOG_FILE_NAME + COMPACTED_SUFFIX);
+		if (!compacted.exists()) {
+			this.writeCompacted(compacted);
+		}
+		this.replaceLog(compacted);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Compacted metadata-store log from " + oldSize + " to " + this.logSize + " bytes in "
+					+ (System.currentTimeMillis() - start) + "ms");
+		}
+	}
+
+	/**
+	 * Write the current entries to a new file, which is renamed to the compacted file
+	 * once it is complete; the log is not changed.
+	 */
+	private void writeCompacted(File compacted) throws IOException {
+		File compacting = new File(this.file.getParentFile(), LOG_FILE_NAME + COMPACTING_SUFFIX);
+		RandomAccessFile newLog = new RandomAccessFile(compacting, "rw");
+		try {
+			newLog.setLength(0);
+			ByteArrayOutputStream records = new ByteArrayOutputStream();
+			FileChannel channel = newLog.getChannel();
+			for (Map.Entry<String, String> entry : this.metadata.entrySet()) {
+				byte[] record = toRecord(entry.getKey(), entry.getValue());
+				records.write(record, 0, record.length);
+				if (records.size() > 64 * 1024) {
+					write(channel, records);
+				}
+			}
+			write(channel, records);
+			channel.force(true);
+		}
+		catch (IOException e) {
+			newLog.close();
+			compacting.delete();
+			throw e;
+		}
+		newLog.close();
+		if (!compacting.renameTo(compacted)) {
+			compacting.delete();
+			throw new IOException("Failed to rename '" + compacting.getAbsolutePath() + "'");
+		}
+	}
+
+	/**
+	 * Replace the log with the compacted file, and (re)open the log. A failure leaves
+	 * the compacted file in place, so that the replacement can be completed later.
+	 */
+	private void replaceLog(File compacted) throws IOException {
+		long size = compacted.length();
+		this.compactionPending = true;
+		if (this.log != null) {
+			this.log.close();
+		}
+		boolean renamed = compacted.renameTo(this.file);
+		this.log = new RandomAccessFile(this.file, "rw");
+		if (!renamed) {
+			// renaming over an existing file is not supported on all platforms
+			FileInputStream input = new FileInputStream(compacted);
+			try {
+				FileChannel channel = this.log.getChannel();
+				long position = 0;
+				while (position < size) {
+					position += channel.transferFrom(input.getChannel(), position, size - position);
+				}
+				this.log.setLength(size);
+				channel.force(true);
+			}
+			finally {
+				input.close();
+			}
+			if (!compacted.delete()) {
+				throw new IOException("Failed to delete '" + compacted.getAbsolutePath() + "'");
+			}
+		}
+		this.logSize = size;
+		this.compactionPending = false;
+	}
+
+	private static void write(FileChannel channel, ByteArrayOutputStream records) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		records.reset();
+	}
+
+	private void loadMetadata() throws IOException {
+		DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)));
+		long validSize = 0;
+		try {
+			CRC32 crc = new CRC32();
+			while (true) {
+				String key;
+				String value;
+				try {
+					int keyLength = input.readInt();
+					int valueLength = input.readInt();
+					if (keyLength < 0 || valueLength < 0 || keyLength + valueLength > this.file.length()) {
+						break;
+					}
+					byte[] keyBytes = new byte[keyLength];
+					byte[] valueBytes = new byte[valueLength];
+					input.readFully(keyBytes);
+					input.readFully(valueBytes);
+					int checksum = input.readInt();
+					crc.reset();
+					crc.update(keyBytes);
+					crc.update(valueBytes);
+					if ((int) crc.getValue() != checksum) {
+						break;
+					}
+					key = new String(keyBytes, "UTF-8");
+					value = new String(valueBytes, "UTF-8");
+					validSize += 12 + keyLength + valueLength;
+				}
+				catch (EOFException e) {
+					break;
+				}
+				String previous = this.metadata.put(key, value);
+				this.liveSize += toRecord(key, value).length;
+				if (previous != null) {
+					this.liveSize -= toRecord(key, previous).length;
+				}
+			}
+		}
+		finally {
+			input.close();
+		}
+		if (validSize < this.log.length()) {
+			logger.warn("Discarding " + (this.log.length() - validSize) + " bytes of incomplete records from '"
+					+ this.file.getAbsolutePath() + "'");
+			this.log.setLength(validSize);
+		}
+		this.logSize = validSize;
+	}
+
+	private void importProperties(File properties) {
+		try {
+			Properties imported = PropertiesLoaderUtils.loadProperties(new FileSystemResource(properties));
+			for (String key : imported.stringPropertyNames()) {
+				String value = imported.getProperty(key);
+				this.metadata.put(key, value);
+				this.liveSize += toRecord(key, value).length;
+			}
+		}
+		catch (Exception e) {
+			// not fatal for the functionality of the component
+			logger.warn("Failed to import metadata from '" + properties.getAbsolutePath() + "'", e);
+		}
+	}
+
+	private static byte[] toRecord(String key, String value) {
+		try {
+			byte[] keyBytes = key.getBytes("UTF-8");
+			byte[] valueBytes = value.getBytes("UTF-8");
+			CRC32 crc = new CRC32();
+			crc.update(keyBytes);
+			crc.update(valueBytes);
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(12 + keyBytes.length + valueBytes.length);
+			DataOutputStream output = new DataOutputStream(bytes);
+			output.writeInt(keyBytes.length);
+			output.writeInt(valueBytes.length);
+			output.write(keyBytes);
+			output.write(valueBytes);
+			output.writeInt((int) crc.getValue());
+			return bytes.toByteArray();
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
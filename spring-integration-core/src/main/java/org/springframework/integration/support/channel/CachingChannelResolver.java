@@ -0,0 +1,81 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.support.channel;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.integration.MessageChannel;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ChannelResolver} decorator that caches the channels resolved by its
+ * delegate, avoiding a (synchronized) bean factory lookup for each resolution.
+ * Failures are not cached, so a channel that is registered after a failed attempt
+ * to resolve its name is found on the next attempt.
+ * <p>
+ * The cache holds up to a configurable number of names, after which further names
+ * are resolved by the delegate each time. It is cleared by {@link #clearCache()}
+ * and when a {@link ContextRefreshedEvent} is received.
+ *
+ * @since 3.0
+ */
+public class CachingChannelResolver implements ChannelResolver, ApplicationListener<ContextRefreshedEvent> {
+
+	public static final int DEFAULT_CACHE_SIZE = 1024;
+
+	private final ChannelResolver delegate;
+
+	private final int cacheSize;
+
+	private final Map<String, MessageChannel> cache = new ConcurrentHashMap<String, MessageChannel>();
+
+
+	public CachingChannelResolver(ChannelResolver delegate) {
+		this(delegate, DEFAULT_CACHE_SIZE);
+	}
+
+	public CachingChannelResolver(ChannelResolver delegate, int cacheSize) {
+		Assert.notNull(delegate, "'delegate' must not be null");
+		Assert.isTrue(cacheSize >= 0, "'cacheSize' must not be negative");
+		this.delegate = delegate;
+		this.cacheSize = cacheSize;
+	}
+
+
+	public MessageChannel resolveChannelName(String channelName) {
+		MessageChannel channel = this.cache.get(channelName);
+		if (channel == null) {
+			channel = this.delegate.resolveChannelName(channelName);
+			if (channel != null && this.cache.size() < this.cacheSize) {
+				this.cache.put(channelName, channel);
+			}
+		}
+		return channel;
+	}
+
+	public void clearCache() {
+		this.cache.clear();
+	}
+
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		this.clearCache();
+	}
+
+}
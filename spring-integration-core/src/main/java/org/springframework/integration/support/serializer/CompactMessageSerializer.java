@@ -0,0 +1,490 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.support.serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageHeaders;
+import org.springframework.integration.history.MessageHistory;
+import org.springframework.integration.message.ErrorMessage;
+import org.springframework.integration.message.GenericMessage;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * A {@link Serializer} and {@link Deserializer} for {@link Message}s, using a compact
+ * binary format instead of Java serialization. It can be used with the JDBC message
+ * stores (<code>serializer</code> and <code>deserializer</code> properties); message
+ * stores that do not accept a {@link Serializer} and {@link Deserializer}, such as the
+ * Redis and Gemfire stores, cannot use it.
+ * <p>
+ * The format starts with a marker byte and a format version. The id and timestamp are
+ * written as raw values; the names of other well-known headers are written as a single
+ * byte. {@link String}s, primitive wrappers, byte arrays, {@link UUID}s and lists of
+ * such values are written natively, as payloads or header values. Other types are written
+ * by a {@link ValueCodec} registered for the exact class of the value, if any, otherwise
+ * with Java serialization. As with Java serialization of messages, header values that
+ * cannot be written are not included.
+ * <p>
+ * {@link GenericMessage}s and {@link ErrorMessage}s are written in this format; other
+ * message types are written with Java serialization. Messages written with Java
+ * serialization (for example by previous versions) are also read, so an existing store
+ * can be migrated to this format without conversion.
+ *
+ * @since 3.0
+ */
+public class CompactMessageSerializer implements Serializer<Message<?>>, Deserializer<Message<?>> {
+
+	private static final Log logger = LogFactory.getLog(CompactMessageSerializer.class);
+
+	public static final int FORMAT_VERSION = 1;
+
+	private static final int MARKER = 0xC5;
+
+	private static final int JAVA_SERIALIZATION_MAGIC = 0xAC;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/*
+	 * Well-known header names, identified by their (index + 1). The list may only be
+	 * extended; the position of a name is part of the format.
+	 */
+	private static final List<String> WELL_KNOWN_HEADERS = Arrays.asList(MessageHeaders.CORRELATION_ID,
+			MessageHeaders.REPLY_CHANNEL, MessageHeaders.ERROR_CHANNEL, MessageHeaders.EXPIRATION_DATE,
+			MessageHeaders.PRIORITY, MessageHeaders.SEQUENCE_NUMBER, MessageHeaders.SEQUENCE_SIZE,
+			MessageHeaders.SEQUENCE_DETAILS, MessageHeaders.CONTENT_TYPE, MessageHeaders.POSTPROCESS_RESULT,
+			MessageHistory.HEADER_NAME);
+
+	private static final Map<String, Integer> WELL_KNOWN_HEADER_TOKENS = new HashMap<String, Integer>();
+
+	static {
+		for (int i = 0; i < WELL_KNOWN_HEADERS.size(); i++) {
+			WELL_KNOWN_HEADER_TOKENS.put(WELL_KNOWN_HEADERS.get(i), i + 1);
+		}
+	}
+
+	private static final int CUSTOM_HEADER = 0;
+
+	private static final int GENERIC_MESSAGE = 0;
+
+	private static final int ERROR_MESSAGE = 1;
+
+	private static final int SERIALIZED_MESSAGE = 2;
+
+	private static final int NULL = 0;
+
+	private static final int STRING = 1;
+
+	private static final int INTEGER = 2;
+
+	private static final int LONG = 3;
+
+	private static final int BOOLEAN = 4;
+
+	private static final int BYTES = 5;
+
+	private static final int UUID_VALUE = 6;
+
+	private static final int DOUBLE = 7;
+
+	private static final int FLOAT = 8;
+
+	private static final int SHORT = 9;
+
+	private static final int BYTE = 10;
+
+	private static final int CHARACTER = 11;
+
+	private static final int LIST = 12;
+
+	private static final int CODEC = 13;
+
+	private static final int SERIALIZED = 14;
+
+	private static final Class<?> ARRAYS_LIST_CLASS = Arrays.asList().getClass();
+
+	private static final Field HEADERS_FIELD = ReflectionUtils.findField(MessageHeaders.class, "headers");
+
+	static {
+		ReflectionUtils.makeAccessible(HEADERS_FIELD);
+	}
+
+	private final Map<Class<?>, ValueCodec<?>> codecsByType = new ConcurrentHashMap<Class<?>, ValueCodec<?>>();
+
+	private final Map<String, ValueCodec<?>> codecsByName = new ConcurrentHashMap<String, ValueCodec<?>>();
+
+
+	/**
+	 * Register a codec for values of the supplied type (subclasses are not included).
+	 * The same codec must be registered when reading messages containing such values.
+	 * @param type the type.
+	 * @param codec the codec.
+	 */
+	public <T> void registerCodec(Class<T> type, ValueCodec<T> codec) {
+		Assert.notNull(type, "'type' must not be null");
+		Assert.notNull(codec, "'codec' must not be null");
+		this.codecsByType.put(type, codec);
+		this.codecsByName.put(type.getName(), codec);
+	}
+
+	/**
+	 * @param codecs codecs, keyed by the type of value they write.
+	 * @see #registerCodec(Class, ValueCodec)
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void setCodecs(Map<Class<?>, ValueCodec<?>> codecs) {
+		Assert.notNull(codecs, "'codecs' must not be null");
+		for (Entry<Class<?>, ValueCodec<?>> entry : codecs.entrySet()) {
+			this.registerCodec((Class) entry.getKey(), (ValueCodec) entry.getValue());
+		}
+	}
+
+	public void serialize(Message<?> message, OutputStream outputStream) throws IOException {
+		Assert.notNull(message, "'message' must not be null");
+		DataOutputStream out = new DataOutputStream(outputStream);
+		out.writeByte(MARKER);
+		out.writeByte(FORMAT_VERSION);
+		Class<?> messageClass = message.getClass();
+		if (messageClass != GenericMessage.class && messageClass != ErrorMessage.class) {
+			out.writeByte(SERIALIZED_MESSAGE);
+			this.writeSerialized(message, out);
+			out.flush();
+			return;
+		}
+		out.writeByte(messageClass == GenericMessage.class ? GENERIC_MESSAGE : ERROR_MESSAGE);
+		MessageHeaders headers = message.getHeaders();
+		UUID id = headers.getId();
+		out.writeLong(id.getMostSignificantBits());
+		out.writeLong(id.getLeastSignificantBits());
+		out.writeLong(headers.getTimestamp());
+		List<Entry<String, Object>> entries = new ArrayList<Entry<String, Object>>(headers.size());
+		for (Entry<String, Object> entry : headers.entrySet()) {
+			String name = entry.getKey();
+			if (MessageHeaders.ID.equals(name) || MessageHeaders.TIMESTAMP.equals(name)) {
+				continue;
+			}
+			if (this.isWritable(entry.getValue())) {
+				entries.add(entry);
+			}
+			else if (logger.isInfoEnabled()) {
+				logger.info("removing non-serializable header: " + name);
+			}
+		}
+		writeVarInt(entries.size(), out);
+		for (Entry<String, Object> entry : entries) {
+			Integer token = WELL_KNOWN_HEADER_TOKENS.get(entry.getKey());
+			if (token != null) {
+				out.writeByte(token);
+			}
+			else {
+				out.writeByte(CUSTOM_HEADER);
+				writeString(entry.getKey(), out);
+			}
+			this.writeValue(entry.getValue(), out);
+		}
+		this.writeValue(message.getPayload(), out);
+		out.flush();
+	}
+
+	public Message<?> deserialize(InputStream inputStream) throws IOException {
+		PushbackInputStream pushbackInputStream = new PushbackInputStream(inputStream);
+		int first = pushbackInputStream.read();
+		if (first == JAVA_SERIALIZATION_MAGIC) {
+			pushbackInputStream.unread(first);
+			return (Message<?>) readSerialized(pushbackInputStream);
+		}
+		if (first != MARKER) {
+			throw new IOException("Not a serialized message; unexpected first byte: " + first);
+		}
+		DataInputStream in = new DataInputStream(pushbackInputStream);
+		int version = in.readUnsignedByte();
+		if (version > FORMAT_VERSION) {
+			throw new IOException("Unsupported message format version: " + version);
+		}
+		int messageType = in.readUnsignedByte();
+		if (messageType == SERIALIZED_MESSAGE) {
+			return (Message<?>) this.readSerializedValue(in);
+		}
+		UUID id = new UUID(in.readLong(), in.readLong());
+		long timestamp = in.readLong();
+		int headerCount = readVarInt(in);
+		Map<String, Object> headers = new HashMap<String, Object>(headerCount + 2);
+		for (int i = 0; i < headerCount; i++) {
+			int token = in.readUnsignedByte();
+			String name;
+			if (token == CUSTOM_HEADER) {
+				name = readString(in);
+			}
+			else if (token <= WELL_KNOWN_HEADERS.size()) {
+				name = WELL_KNOWN_HEADERS.get(token - 1);
+			}
+			else {
+				throw new IOException("Unknown header token: " + token);
+			}
+			headers.put(name, this.readValue(in));
+		}
+		Object payload = this.readValue(in);
+		Message<?> message;
+		if (messageType == ERROR_MESSAGE) {
+			message = new ErrorMessage((Throwable) payload, headers);
+		}
+		else if (messageType == GENERIC_MESSAGE) {
+			message = new GenericMessage<Object>(payload, headers);
+		}
+		else {
+			throw new IOException("Unknown message type: " + messageType);
+		}
+		// ID and TIMESTAMP are immutable through MessageHeaders
+		@SuppressWarnings("unchecked")
+		Map<String, Object> innerMap = (Map<String, Object>) ReflectionUtils.getField(HEADERS_FIELD,
+				message.getHeaders());
+		innerMap.put(MessageHeaders.ID, id);
+		innerMap.put(MessageHeaders.TIMESTAMP, timestamp);
+		return message;
+	}
+
+	private boolean isWritable(Object value) {
+		if (value == null || value instanceof Serializable) {
+			return true;
+		}
+		return this.codecsByType.containsKey(value.getClass());
+	}
+
+	@SuppressWarnings("unchecked")
+	private void writeValue(Object value, DataOutputStream out) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL);
+			return;
+		}
+		Class<?> type = value.getClass();
+		if (type == String.class) {
+			out.writeByte(STRING);
+			writeString((String) value, out);
+		}
+		else if (type == Integer.class) {
+			out.writeByte(INTEGER);
+			out.writeInt((Integer) value);
+		}
+		else if (type == Long.class) {
+			out.writeByte(LONG);
+			out.writeLong((Long) value);
+		}
+		else if (type == Boolean.class) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		}
+		else if (type == byte[].class) {
+			out.writeByte(BYTES);
+			byte[] bytes = (byte[]) value;
+			writeVarInt(bytes.length, out);
+			out.write(bytes);
+		}
+		else if (type == UUID.class) {
+			out.writeByte(UUID_VALUE);
+			out.writeLong(((UUID) value).getMostSignificantBits());
+			out.writeLong(((UUID) value).getLeastSignificantBits());
+		}
+		else if (type == Double.class) {
+			out.writeByte(DOUBLE);
+			out.writeDouble((Double) value);
+		}
+		else if (type == Float.class) {
+			out.writeByte(FLOAT);
+			out.writeFloat((Float) value);
+		}
+		else if (type == Short.class) {
+			out.writeByte(SHORT);
+			out.writeShort((Short) value);
+		}
+		else if (type == Byte.class) {
+			out.writeByte(BYTE);
+			out.writeByte((Byte) value);
+		}
+		else if (type == Character.class) {
+			out.writeByte(CHARACTER);
+			out.writeChar((Character) value);
+		}
+		else if ((type == ArrayList.class || type == ARRAYS_LIST_CLASS) && this.isWritableList((List<?>) value)) {
+			out.writeByte(LIST);
+			List<?> list = (List<?>) value;
+			writeVarInt(list.size(), out);
+			for (Object element : list) {
+				this.writeValue(element, out);
+			}
+		}
+		else {
+			ValueCodec<Object> codec = (ValueCodec<Object>) this.codecsByType.get(type);
+			if (codec != null) {
+				out.writeByte(CODEC);
+				writeString(type.getName(), out);
+				codec.encode(value, out);
+			}
+			else {
+				out.writeByte(SERIALIZED);
+				this.writeSerialized(value, out);
+			}
+		}
+	}
+
+	private boolean isWritableList(List<?> list) {
+		for (Object element : list) {
+			if (!this.isWritable(element)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Object readValue(DataInputStream in) throws IOException {
+		int type = in.readUnsignedByte();
+		switch (type) {
+			case NULL:
+				return null;
+			case STRING:
+				return readString(in);
+			case INTEGER:
+				return in.readInt();
+			case LONG:
+				return in.readLong();
+			case BOOLEAN:
+				return in.readBoolean();
+			case BYTES:
+				byte[] bytes = new byte[readVarInt(in)];
+				in.readFully(bytes);
+				return bytes;
+			case UUID_VALUE:
+				return new UUID(in.readLong(), in.readLong());
+			case DOUBLE:
+				return in.readDouble();
+			case FLOAT:
+				return in.readFloat();
+			case SHORT:
+				return in.readShort();
+			case BYTE:
+				return in.readByte();
+			case CHARACTER:
+				return in.readChar();
+			case LIST:
+				int size = readVarInt(in);
+				List<Object> list = new ArrayList<Object>(size);
+				for (int i = 0; i < size; i++) {
+					list.add(this.readValue(in));
+				}
+				return list;
+			case CODEC:
+				String typeName = readString(in);
+				ValueCodec<?> codec = this.codecsByName.get(typeName);
+				if (codec == null) {
+					throw new IOException("No codec registered for type: " + typeName);
+				}
+				return codec.decode(in);
+			case SERIALIZED:
+				return this.readSerializedValue(in);
+			default:
+				throw new IOException("Unknown value type: " + type);
+		}
+	}
+
+	private void writeSerialized(Object value, DataOutputStream out) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream objectOutputStream = new ObjectOutputStream(bytes);
+		objectOutputStream.writeObject(value);
+		objectOutputStream.flush();
+		writeVarInt(bytes.size(), out);
+		bytes.writeTo(out);
+	}
+
+	private Object readSerializedValue(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[readVarInt(in)];
+		in.readFully(bytes);
+		return readSerialized(new ByteArrayInputStream(bytes));
+	}
+
+	private static Object readSerialized(InputStream inputStream) throws IOException {
+		ObjectInputStream objectInputStream = new ObjectInputStream(inputStream);
+		try {
+			return objectInputStream.readObject();
+		}
+		catch (ClassNotFoundException e) {
+			throw new IOException("Failed to deserialize object type", e);
+		}
+	}
+
+	private static void writeString(String string, DataOutput out) throws IOException {
+		byte[] bytes = string.getBytes(UTF8);
+		writeVarInt(bytes.length, out);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		byte[] bytes = new byte[readVarInt(in)];
+		in.readFully(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	private static void writeVarInt(int value, DataOutput out) throws IOException {
+		while ((value & ~0x7f) != 0) {
+			out.writeByte((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static int readVarInt(DataInput in) throws IOException {
+		int value = 0;
+		int shift = 0;
+		int b;
+		do {
+			if (shift > 28) {
+				throw new IOException("Malformed length");
+			}
+			b = in.readUnsignedByte();
+			value |= (b & 0x7f) << shift;
+			shift += 7;
+		}
+		while ((b & 0x80) != 0);
+		return value;
+	}
+
+}
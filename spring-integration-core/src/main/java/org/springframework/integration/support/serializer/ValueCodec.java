@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.support.serializer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Strategy for writing and reading values of a particular type (payloads and
+ * header values) with the {@link CompactMessageSerializer}.
+ *
+ * @param <T> the type of value.
+ *
+ * @since 3.0
+ */
+public interface ValueCodec<T> {
+
+	/**
+	 * Write the value.
+	 * @param value the value (not null).
+	 * @param out the output.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	void encode(T value, DataOutput out) throws IOException;
+
+	/**
+	 * Read a value written by {@link #encode(Object, DataOutput)}.
+	 * @param in the input.
+	 * @return the value.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	T decode(DataInput in) throws IOException;
+
+}
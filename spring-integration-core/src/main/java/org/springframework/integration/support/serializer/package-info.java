@@ -0,0 +1,4 @@
+/**
+ * Provides classes supporting the serialization of messages.
+ */
+package org.springframework.integration.support.serializer;
\ No newline at end of file
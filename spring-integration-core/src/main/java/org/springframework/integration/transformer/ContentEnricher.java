@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,6 +31,7 @@ import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
 import org.springframework.integration.MessageHandlingException;
+import org.springframework.integration.expression.MessageExpressionAnalyzer;
 import org.springframework.integration.gateway.MessagingGatewaySupport;
 import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
 import org.springframework.integration.support.MessageBuilder;
@@ -86,7 +87,7 @@ public class ContentEnricher extends AbstractReplyProducingMessageHandler implem
 				Expression value = entry.getValue();
 				Assert.notNull(key, "propertyExpressions key must not be null");
 				Assert.notNull(value, "propertyExpressions value must not be null");
-				this.propertyExpressions.put(parser.parseExpression(key), value);
+				this.propertyExpressions.put(parser.parseExpression(key), MessageExpressionAnalyzer.analyze(value));
 			}
 		}
 	}
@@ -157,7 +158,7 @@ public class ContentEnricher extends AbstractReplyProducingMessageHandler implem
 	 *
 	 */
 	public void setRequestPayloadExpression(Expression requestPayloadExpression) {
-		this.requestPayloadExpression = requestPayloadExpression;
+		this.requestPayloadExpression = MessageExpressionAnalyzer.analyze(requestPayloadExpression);
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  * 
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -24,11 +24,11 @@ import org.springframework.core.convert.ConversionService;
 import org.springframework.expression.BeanResolver;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.Expression;
-import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageHandlingException;
+import org.springframework.integration.expression.ExpressionCache;
 
 /**
  * @author Mark Fisher
@@ -38,13 +38,13 @@ import org.springframework.integration.MessageHandlingException;
  * @since 2.0
  */
 public abstract class AbstractExpressionEvaluator implements BeanFactoryAware {
-	
+
+	private static final ExpressionCache expressionCache = new ExpressionCache(new SpelExpressionParser());
+
 	private final Log logger = LogFactory.getLog(this.getClass());
 
 	private final StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
 
-	private final ExpressionParser expressionParser = new SpelExpressionParser();
-
 	private final BeanFactoryTypeConverter typeConverter = new BeanFactoryTypeConverter();
 
 	private volatile BeanResolver beanResolver;
@@ -77,6 +77,14 @@ public abstract class AbstractExpressionEvaluator implements BeanFactoryAware {
 		}
 	}
 
+	/**
+	 * Return the cache of the expressions parsed by {@link #evaluateExpression(String, Object, Class)},
+	 * shared by all evaluators; it can be used to monitor the hit and miss counts.
+	 */
+	public static ExpressionCache getExpressionCache() {
+		return expressionCache;
+	}
+
 	protected StandardEvaluationContext getEvaluationContext() {
 		return this.evaluationContext;
 	}
@@ -107,7 +115,7 @@ public abstract class AbstractExpressionEvaluator implements BeanFactoryAware {
 	}
 
 	protected <T> T evaluateExpression(String expression, Object input, Class<T> expectedType) {
-		return this.expressionParser.parseExpression(expression).getValue(this.evaluationContext, input, expectedType);
+		return expressionCache.getExpression(expression).getValue(this.evaluationContext, input, expectedType);
 	}
 
 	protected Object evaluateExpression(Expression expression, Object input) {
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import java.util.UUID;
+
+/**
+ * {@link UUIDKeyStrategy} that uses {@link UUIDConverter#getUUID(Object)}; keys are
+ * derived using an MD5 hash of the String representation of Strings and primitive
+ * wrappers, or of the serialized form of other objects. This strategy must be used
+ * with keys that were persisted before 3.0.
+ *
+ * @since 3.0
+ */
+public class DefaultUUIDKeyStrategy implements UUIDKeyStrategy {
+
+	public UUID getUUID(Object key) {
+		return UUIDConverter.getUUID(key);
+	}
+
+}
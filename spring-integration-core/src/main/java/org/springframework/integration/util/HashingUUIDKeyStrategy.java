@@ -0,0 +1,211 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * {@link UUIDKeyStrategy} that derives keys with a fast, non-cryptographic 128-bit
+ * hash (MurmurHash3, x64 variant) instead of the MD5 hash and Java serialization
+ * used by the {@link DefaultUUIDKeyStrategy}. If the key is
+ * <ul>
+ * <li>null: returns null</li>
+ * <li>a UUID: returns the key unchanged</li>
+ * <li>a String in the canonical UUID form: returns the parsed UUID</li>
+ * <li>any other String: returns the hash of its characters</li>
+ * <li>a primitive wrapper: returns the hash of its String representation</li>
+ * <li>an Enum: returns the hash of its class and constant names</li>
+ * <li>a byte array: returns the hash of its content</li>
+ * <li>Serializable: returns the hash of its serialized form</li>
+ * </ul>
+ * The UUIDs are different to those derived by the {@link DefaultUUIDKeyStrategy}, so
+ * this strategy must not be used where keys derived by that strategy have been persisted.
+ * They are stable across JVMs.
+ *
+ * @since 3.0
+ */
+public class HashingUUIDKeyStrategy implements UUIDKeyStrategy {
+
+	private static final int STRING_SEED = 1;
+
+	private static final int ENUM_SEED = 2;
+
+	private static final int BYTES_SEED = 3;
+
+	private static final int SERIALIZED_SEED = 4;
+
+	public UUID getUUID(Object key) {
+		if (key == null) {
+			return null;
+		}
+		if (key instanceof UUID) {
+			return (UUID) key;
+		}
+		if (key instanceof String) {
+			String string = (String) key;
+			UUID uuid = UUIDConverter.parseCanonical(string);
+			if (uuid != null) {
+				return uuid;
+			}
+			return hash(STRING_SEED, string);
+		}
+		if (ClassUtils.isPrimitiveOrWrapper(key.getClass())) {
+			return hash(STRING_SEED, key.toString());
+		}
+		if (key instanceof Enum<?>) {
+			Enum<?> constant = (Enum<?>) key;
+			return hash(ENUM_SEED, constant.getDeclaringClass().getName() + "." + constant.name());
+		}
+		if (key instanceof byte[]) {
+			return hash(BYTES_SEED, (byte[]) key);
+		}
+		if (!(key instanceof Serializable)) {
+			throw new IllegalArgumentException("Could not derive a key from object of type: " + key.getClass());
+		}
+		return hash(SERIALIZED_SEED, UUIDConverter.serialize(key));
+	}
+
+	private static UUID hash(int seed, String string) {
+		Murmur3 murmur = new Murmur3(seed);
+		int length = string.length();
+		int blocks = length / 8;
+		for (int i = 0; i < blocks; i++) {
+			int offset = i * 8;
+			murmur.block(chars(string, offset, 4), chars(string, offset + 4, 4));
+		}
+		int offset = blocks * 8;
+		int remaining = length - offset;
+		if (remaining > 0) {
+			long k1 = chars(string, offset, Math.min(remaining, 4));
+			long k2 = remaining > 4 ? chars(string, offset + 4, remaining - 4) : 0;
+			murmur.tail(k1, k2);
+		}
+		return murmur.finish(length * 2);
+	}
+
+	/**
+	 * Pack up to 4 chars (little endian) into a long.
+	 */
+	private static long chars(String string, int offset, int count) {
+		long result = 0;
+		for (int i = 0; i < count; i++) {
+			result |= ((long) string.charAt(offset + i)) << (16 * i);
+		}
+		return result;
+	}
+
+	private static UUID hash(int seed, byte[] bytes) {
+		Murmur3 murmur = new Murmur3(seed);
+		int length = bytes.length;
+		int blocks = length / 16;
+		for (int i = 0; i < blocks; i++) {
+			int offset = i * 16;
+			murmur.block(bytes(bytes, offset, 8), bytes(bytes, offset + 8, 8));
+		}
+		int offset = blocks * 16;
+		int remaining = length - offset;
+		if (remaining > 0) {
+			long k1 = bytes(bytes, offset, Math.min(remaining, 8));
+			long k2 = remaining > 8 ? bytes(bytes, offset + 8, remaining - 8) : 0;
+			murmur.tail(k1, k2);
+		}
+		return murmur.finish(length);
+	}
+
+	/**
+	 * Pack up to 8 bytes (little endian) into a long.
+	 */
+	private static long bytes(byte[] bytes, int offset, int count) {
+		long result = 0;
+		for (int i = 0; i < count; i++) {
+			result |= ((long) bytes[offset + i] & 0xff) << (8 * i);
+		}
+		return result;
+	}
+
+
+	private static class Murmur3 {
+
+		private static final long C1 = 0x87c37b91114253d5L;
+
+		private static final long C2 = 0x4cf5ad432745937fL;
+
+		private long h1;
+
+		private long h2;
+
+		private Murmur3(int seed) {
+			this.h1 = seed;
+			this.h2 = seed;
+		}
+
+		private void block(long k1, long k2) {
+			this.h1 ^= mixK1(k1);
+			this.h1 = Long.rotateLeft(this.h1, 27);
+			this.h1 += this.h2;
+			this.h1 = this.h1 * 5 + 0x52dce729;
+			this.h2 ^= mixK2(k2);
+			this.h2 = Long.rotateLeft(this.h2, 31);
+			this.h2 += this.h1;
+			this.h2 = this.h2 * 5 + 0x38495ab5;
+		}
+
+		private void tail(long k1, long k2) {
+			this.h1 ^= mixK1(k1);
+			this.h2 ^= mixK2(k2);
+		}
+
+		private UUID finish(int length) {
+			this.h1 ^= length;
+			this.h2 ^= length;
+			this.h1 += this.h2;
+			this.h2 += this.h1;
+			this.h1 = fmix(this.h1);
+			this.h2 = fmix(this.h2);
+			this.h1 += this.h2;
+			this.h2 += this.h1;
+			return new UUID(this.h1, this.h2);
+		}
+
+		private static long mixK1(long k1) {
+			k1 *= C1;
+			k1 = Long.rotateLeft(k1, 31);
+			k1 *= C2;
+			return k1;
+		}
+
+		private static long mixK2(long k2) {
+			k2 *= C2;
+			k2 = Long.rotateLeft(k2, 33);
+			k2 *= C1;
+			return k2;
+		}
+
+		private static long fmix(long k) {
+			k ^= k >>> 33;
+			k *= 0xff51afd7ed558ccdL;
+			k ^= k >>> 33;
+			k *= 0xc4ceb9fe1a85ec53L;
+			k ^= k >>> 33;
+			return k;
+		}
+	}
+
+}
@@ -218,6 +218,22 @@ public class SimplePool<T> implements Pool<T> {
 		}
 	}
 
+	/**
+	 * Removes an item obtained from the pool instead of returning it, for example
+	 * because it cannot be reused; a subsequent getItem() will create a new instance.
+	 * @since 3.0
+	 */
+	public synchronized void removeItem(T item) {
+		Assert.isTrue(this.allocated.contains(item), "You can only remove items that were obtained from the pool");
+		doRemoveItem(item);
+		if (this.poolSize.get() > this.targetPoolSize.get()) {
+			this.poolSize.decrementAndGet();
+		}
+		else {
+			this.permits.release();
+		}
+	}
+
 	public synchronized void removeAllIdleItems() {
 		T item;
 		while ((item = this.available.poll()) != null) {
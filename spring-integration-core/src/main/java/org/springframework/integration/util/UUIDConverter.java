@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,6 +27,10 @@ import org.springframework.util.ClassUtils;
 
 /**
  * Utility to help generate UUID instances from generic objects.
+ * <p>
+ * This is the algorithm used by the {@link DefaultUUIDKeyStrategy}; it must not be
+ * changed, because keys derived with it may have been persisted (for example by the
+ * JDBC message stores). See {@link HashingUUIDKeyStrategy} for a faster alternative.
  * 
  * @author Dave Syer
  */
@@ -72,17 +76,26 @@ public class UUIDConverter implements Converter<Object, UUID> {
 			return (UUID) input;
 		}
 		if (input instanceof String) {
-			try {
-				return UUID.fromString((String) input);
+			String string = (String) input;
+			UUID uuid = parseCanonical(string);
+			if (uuid != null) {
+				return uuid;
 			}
-			catch (Exception e) {
+			if (isPossibleUUID(string)) {
+				// UUID.fromString() also accepts non-canonical forms, such as "1-2-3-4-5"
 				try {
-					return UUID.nameUUIDFromBytes(((String) input).getBytes(DEFAULT_CHARSET));
+					return UUID.fromString(string);
 				}
-				catch (UnsupportedEncodingException ex) {
-					throw new IllegalStateException("Cannot convert String using charset=" + DEFAULT_CHARSET, ex);
+				catch (IllegalArgumentException e) {
+					// fall through
 				}
 			}
+			try {
+				return UUID.nameUUIDFromBytes(string.getBytes(DEFAULT_CHARSET));
+			}
+			catch (UnsupportedEncodingException ex) {
+				throw new IllegalStateException("Cannot convert String using charset=" + DEFAULT_CHARSET, ex);
+			}
 		}
 		if (ClassUtils.isPrimitiveOrWrapper(input.getClass())) {
 			try {
@@ -96,7 +109,52 @@ public class UUIDConverter implements Converter<Object, UUID> {
 		return UUID.nameUUIDFromBytes(bytes);
 	}
 
-	private static byte[] serialize(Object object) {
+	/**
+	 * Parse a UUID in its canonical (36 character) form, without throwing an
+	 * exception if the string is not a UUID.
+	 * @param string the string.
+	 * @return the UUID, or null if the string is not a UUID in canonical form.
+	 */
+	static UUID parseCanonical(String string) {
+		if (string.length() != 36 || string.charAt(8) != '-' || string.charAt(13) != '-'
+				|| string.charAt(18) != '-' || string.charAt(23) != '-') {
+			return null;
+		}
+		long mostSigBits = 0;
+		long leastSigBits = 0;
+		for (int i = 0; i < 36; i++) {
+			if (i == 8 || i == 13 || i == 18 || i == 23) {
+				continue;
+			}
+			int digit = Character.digit(string.charAt(i), 16);
+			if (digit < 0) {
+				return null;
+			}
+			if (i < 19) {
+				mostSigBits = (mostSigBits << 4) | digit;
+			}
+			else {
+				leastSigBits = (leastSigBits << 4) | digit;
+			}
+		}
+		return new UUID(mostSigBits, leastSigBits);
+	}
+
+	/**
+	 * @return true if the string has the 5 components that {@link UUID#fromString(String)}
+	 * requires.
+	 */
+	private static boolean isPossibleUUID(String string) {
+		int dashes = 0;
+		for (int i = 0; i < string.length(); i++) {
+			if (string.charAt(i) == '-') {
+				dashes++;
+			}
+		}
+		return dashes == 4;
+	}
+
+	static byte[] serialize(Object object) {
 		if (object == null) {
 			return null;
 		}
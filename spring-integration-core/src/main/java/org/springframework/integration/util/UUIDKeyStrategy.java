@@ -0,0 +1,37 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import java.util.UUID;
+
+/**
+ * Strategy for deriving a {@link UUID} from an arbitrary key, such as a
+ * correlation key or message group id. Implementations must return the same
+ * UUID for equal keys, and for the {@link UUID#toString() String} form of a UUID
+ * they returned.
+ *
+ * @since 3.0
+ */
+public interface UUIDKeyStrategy {
+
+	/**
+	 * @param key the key.
+	 * @return the UUID, or null if the key is null.
+	 */
+	UUID getUUID(Object key);
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.expression;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+/**
+ * @since 3.0
+ *
+ */
+public class ExpressionCacheTests {
+
+	@Test
+	public void testHitsAndMisses() {
+		ExpressionCache cache = new ExpressionCache(new SpelExpressionParser());
+		Expression expression = cache.getExpression("payload.toUpperCase()");
+		assertSame(expression, cache.getExpression("payload.toUpperCase()"));
+		assertEquals("payload.toUpperCase()", expression.getExpressionString());
+		cache.getExpression("headers.foo");
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+		assertEquals(2, cache.getSize());
+		cache.clear();
+		assertEquals(0, cache.getSize());
+		assertEquals(0, cache.getMissCount());
+		assertNotSame(expression, cache.getExpression("payload.toUpperCase()"));
+	}
+
+	@Test
+	public void testBounded() {
+		ExpressionCache cache = new ExpressionCache(new SpelExpressionParser(), 10);
+		for (int i = 0; i < 100; i++) {
+			cache.getExpression("payload + " + i);
+		}
+		assertEquals(10, cache.getSize());
+		assertEquals(100, cache.getMissCount());
+		assertEquals(Integer.valueOf(5), cache.getExpression("2 + 3").getValue());
+	}
+
+	@Test(expected = ParseException.class)
+	public void testInvalidExpressionNotCached() {
+		ExpressionCache cache = new ExpressionCache(new SpelExpressionParser());
+		try {
+			cache.getExpression("payload.");
+		}
+		finally {
+			assertEquals(0, cache.getSize());
+		}
+	}
+
+	@Test
+	public void testConcurrentAccess() throws Exception {
+		final ExpressionCache cache = new ExpressionCache(new SpelExpressionParser(), 5);
+		ExecutorService exec = Executors.newFixedThreadPool(10);
+		final CountDownLatch latch = new CountDownLatch(10);
+		for (int i = 0; i < 10; i++) {
+			exec.execute(new Runnable() {
+
+				public void run() {
+					for (int j = 0; j < 1000; j++) {
+						assertEquals(Integer.valueOf(j % 20), cache.getExpression(Integer.toString(j % 20)).getValue());
+					}
+					latch.countDown();
+				}
+			});
+		}
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		exec.shutdown();
+		assertEquals(10000, cache.getHitCount() + cache.getMissCount());
+		// concurrent misses may briefly overfill the cache by the number of threads
+		assertTrue(cache.getSize() <= 15);
+	}
+
+}
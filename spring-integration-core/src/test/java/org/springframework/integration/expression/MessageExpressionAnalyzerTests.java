@@ -0,0 +1,274 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.expression;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.springframework.expression.AccessException;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.EvaluationException;
+import org.springframework.expression.Expression;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.integration.Message;
+import org.springframework.integration.support.MessageBuilder;
+
+/**
+ * @since 3.0
+ *
+ */
+public class MessageExpressionAnalyzerTests {
+
+	private final SpelExpressionParser parser = new SpelExpressionParser();
+
+	private final StandardEvaluationContext context = ExpressionUtils.createStandardEvaluationContext();
+
+	@Test
+	public void testShapes() {
+		assertOptimized("payload", true);
+		assertOptimized("headers", true);
+		assertOptimized("payload.name", true);
+		assertOptimized("payload.address.city", true);
+		assertOptimized("headers.correlationId", true);
+		assertOptimized("headers['foo']", true);
+		assertOptimized("headers[foo]", true);
+		assertOptimized("headers.foo", true);
+		assertOptimized("payload['foo'].bar", true);
+		assertOptimized("payload.toUpperCase()", false);
+		assertOptimized("payload?.name", false);
+		assertOptimized("payload.name + 'x'", false);
+		assertOptimized("headers[#key]", false);
+		assertOptimized("payload.items[0]", false);
+		assertOptimized("@bean.foo", false);
+		assertOptimized("foo", false);
+		assertOptimized("'payload'", false);
+	}
+
+	@Test
+	public void testSameResultsAsSpel() {
+		Customer customer = new Customer("Bill", new Address("London"));
+		Message<?> message = MessageBuilder.withPayload(customer).setHeader("foo", "bar")
+				.setCorrelationId("corr").setHeader("number", "42").build();
+		assertSameResult("payload", message);
+		assertSameResult("headers", message);
+		assertSameResult("payload.name", message);
+		assertSameResult("payload.address", message);
+		assertSameResult("payload.address.city", message);
+		assertSameResult("payload.active", message);
+		assertSameResult("payload.nickName", message);
+		assertSameResult("headers.correlationId", message);
+		assertSameResult("headers.id", message);
+		assertSameResult("headers.timestamp", message);
+		assertSameResult("headers['foo']", message);
+		assertSameResult("headers[foo]", message);
+		assertSameResult("headers.foo", message);
+		assertSameResult("headers['missing']", message);
+
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("empty", "key wins over isEmpty()");
+		map.put("nested", Collections.singletonMap("bar", "baz"));
+		Message<?> mapMessage = MessageBuilder.withPayload(map).build();
+		assertSameResult("payload.empty", mapMessage);
+		assertSameResult("payload.nested.bar", mapMessage);
+		assertSameResult("payload['nested']['bar']", mapMessage);
+
+		assertSameResult("payload.length", MessageBuilder.withPayload(new byte[] { 1, 2, 3 }).build());
+		assertSameResult("payload.bytes", MessageBuilder.withPayload("foo").build());
+	}
+
+	@Test
+	public void testConversion() {
+		Message<?> message = MessageBuilder.withPayload(new Customer("Bill", null)).setHeader("number", "42").build();
+		Expression expression = MessageExpressionAnalyzer.analyze(parser.parseExpression("headers.number"));
+		assertEquals(Integer.valueOf(42), expression.getValue(context, message, Integer.class));
+		expression = MessageExpressionAnalyzer.analyze(parser.parseExpression("payload.active"));
+		assertEquals("true", expression.getValue(context, message, String.class));
+	}
+
+	@Test
+	public void testFallbackErrors() {
+		Message<?> message = MessageBuilder.withPayload(new Customer("Bill", null)).build();
+		assertSameFailure("payload.address.city", message);
+		assertSameFailure("payload.missing", message);
+		assertSameFailure("headers.missing", message);
+		assertSameFailure("payload['foo']", message);
+		assertSameFailure("payload.size", MessageBuilder.withPayload(new HashMap<String, Object>()).build());
+	}
+
+	@Test
+	public void testNotMessage() {
+		Expression expression = MessageExpressionAnalyzer.analyze(parser.parseExpression("payload"));
+		assertEquals("foo", expression.getValue(context, Collections.singletonMap("payload", "foo")));
+		expression = MessageExpressionAnalyzer.analyze(parser.parseExpression("payload.name"));
+		assertEquals("bar", expression.getValue(context, Collections.singletonMap("payload", new Customer("bar", null)),
+				String.class));
+	}
+
+	@Test
+	public void testCustomAccessorHonored() {
+		StandardEvaluationContext custom = ExpressionUtils.createStandardEvaluationContext();
+		custom.addPropertyAccessor(new PropertyAccessor() {
+
+			@SuppressWarnings("rawtypes")
+			public Class[] getSpecificTargetClasses() {
+				return new Class[] { Customer.class };
+			}
+
+			public boolean canRead(EvaluationContext context, Object target, String name) {
+				return true;
+			}
+
+			public TypedValue read(EvaluationContext context, Object target, String name) {
+				return new TypedValue("custom");
+			}
+
+			public boolean canWrite(EvaluationContext context, Object target, String name) {
+				return false;
+			}
+
+			public void write(EvaluationContext context, Object target, String name, Object newValue)
+					throws AccessException {
+			}
+		});
+		Message<?> message = MessageBuilder.withPayload(new Customer("Bill", null)).build();
+		Expression expression = MessageExpressionAnalyzer.analyze(parser.parseExpression("payload.name"));
+		assertEquals("custom", expression.getValue(custom, message));
+		assertEquals("Bill", expression.getValue(context, message));
+	}
+
+	@Test
+	public void testGetterException() {
+		Message<?> message = MessageBuilder.withPayload(new Customer("Bill", null)).build();
+		Expression expression = MessageExpressionAnalyzer.analyze(parser.parseExpression("payload.broken"));
+		try {
+			expression.getValue(context, message);
+			fail("Expected EvaluationException");
+		}
+		catch (EvaluationException e) {
+			assertEquals("broken", e.getCause().getMessage());
+		}
+	}
+
+	private void assertOptimized(String expression, boolean optimized) {
+		assertEquals(expression, optimized,
+				MessageExpressionAnalyzer.isOptimized(MessageExpressionAnalyzer.analyze(parser.parseExpression(expression))));
+	}
+
+	private void assertSameResult(String expressionString, Message<?> message) {
+		Expression spel = parser.parseExpression(expressionString);
+		Expression direct = MessageExpressionAnalyzer.analyze(spel);
+		assertTrue(expressionString, MessageExpressionAnalyzer.isOptimized(direct));
+		Object expected = spel.getValue(context, message);
+		Object actual = direct.getValue(context, message);
+		if (expected instanceof byte[]) {
+			assertEquals(expressionString, new String((byte[]) expected), new String((byte[]) actual));
+		}
+		else {
+			assertEquals(expressionString, expected, actual);
+		}
+		// second time uses the cached accessor
+		Object again = direct.getValue(context, message);
+		if (expected == null) {
+			assertNull(again);
+		}
+		else if (!(expected instanceof byte[])) {
+			assertEquals(expressionString, expected, again);
+		}
+		assertSame(expressionString, spel.getExpressionString(), direct.getExpressionString());
+	}
+
+	private void assertSameFailure(String expressionString, Message<?> message) {
+		Expression spel = parser.parseExpression(expressionString);
+		Expression direct = MessageExpressionAnalyzer.analyze(spel);
+		String expected = null;
+		try {
+			spel.getValue(context, message);
+		}
+		catch (EvaluationException e) {
+			expected = e.getMessage();
+		}
+		try {
+			direct.getValue(context, message);
+			fail("Expected EvaluationException for " + expressionString);
+		}
+		catch (EvaluationException e) {
+			assertEquals(expected, e.getMessage());
+		}
+		assertFalse(expected == null);
+	}
+
+
+	public static class Customer {
+
+		private final String name;
+
+		private final Address address;
+
+		public String nickName = "Billy";
+
+		public Customer(String name, Address address) {
+			this.name = name;
+			this.address = address;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public Address getAddress() {
+			return this.address;
+		}
+
+		public boolean isActive() {
+			return true;
+		}
+
+		public String getBroken() {
+			throw new IllegalStateException("broken");
+		}
+
+	}
+
+
+	public static class Address {
+
+		private final String city;
+
+		public Address(String city) {
+			this.city = city;
+		}
+
+		public String getCity() {
+			return this.city;
+		}
+
+	}
+
+}
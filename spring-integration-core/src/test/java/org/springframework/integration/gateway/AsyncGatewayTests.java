@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,18 +17,28 @@
 package org.springframework.integration.gateway;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
+import org.springframework.integration.MessagingException;
+import org.springframework.integration.channel.DirectChannel;
 import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.core.MessageHandler;
 import org.springframework.integration.core.PollableChannel;
 import org.springframework.integration.message.GenericMessage;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 /**
  * @author Mark Fisher
@@ -99,14 +109,122 @@ public class AsyncGatewayTests {
 		assertEquals("foobar", result);
 	}
 
+	@Test
+	public void nonBlockingFutureWithPayloadReturned() throws Exception {
+		QueueChannel requestChannel = new QueueChannel();
+		// reply only once the callback is registered, so that it is invoked by the replying thread
+		CountDownLatch callbackAdded = new CountDownLatch(1);
+		startResponder(requestChannel, callbackAdded);
+		TestEchoService service = this.createNonBlockingGateway(requestChannel, -1);
+		Future<String> f = service.returnString("foo");
+		assertTrue(f instanceof ListenableReplyFuture);
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicReference<Object> callbackReply = new AtomicReference<Object>();
+		final AtomicReference<Thread> callbackThread = new AtomicReference<Thread>();
+		((ListenableReplyFuture<String>) f).addCallback(new ReplyCallback<String>() {
+
+			public void onReply(String reply) {
+				callbackReply.set(reply);
+				callbackThread.set(Thread.currentThread());
+				latch.countDown();
+			}
+
+			public void onFailure(Throwable t) {
+			}
+		});
+		callbackAdded.countDown();
+		assertEquals("foobar", f.get(10, TimeUnit.SECONDS));
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals("foobar", callbackReply.get());
+		assertTrue(callbackThread.get() != Thread.currentThread());
+	}
+
+	@Test
+	public void nonBlockingFutureWithMessageReturned() throws Exception {
+		QueueChannel requestChannel = new QueueChannel();
+		startResponder(requestChannel);
+		TestEchoService service = this.createNonBlockingGateway(requestChannel, -1);
+		Future<Message<?>> f = service.returnMessage("foo");
+		Message<?> result = f.get(1000, TimeUnit.MILLISECONDS);
+		assertEquals("foobar", result.getPayload());
+		assertNull(result.getHeaders().getReplyChannel());
+	}
+
+	@Test
+	public void nonBlockingFutureTimesOut() throws Exception {
+		QueueChannel requestChannel = new QueueChannel();
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.afterPropertiesSet();
+		GatewayProxyFactoryBean proxyFactory = new GatewayProxyFactoryBean();
+		proxyFactory.setDefaultRequestChannel(requestChannel);
+		proxyFactory.setServiceInterface(TestEchoService.class);
+		proxyFactory.setDefaultReplyTimeout(100);
+		proxyFactory.setNonBlockingFutures(true);
+		proxyFactory.setTaskScheduler(scheduler);
+		proxyFactory.setBeanName("testGateway");
+		proxyFactory.afterPropertiesSet();
+		TestEchoService service = (TestEchoService) proxyFactory.getObject();
+		Future<String> f = service.returnString("foo");
+		assertNull(f.get(10, TimeUnit.SECONDS));
+		// a late reply is discarded
+		Message<?> request = requestChannel.receive(0);
+		assertTrue(((MessageChannel) request.getHeaders().getReplyChannel()).send(new GenericMessage<String>("late")));
+		assertNull(f.get());
+		scheduler.destroy();
+	}
+
+	@Test
+	public void nonBlockingFutureFailure() throws Exception {
+		DirectChannel requestChannel = new DirectChannel();
+		final RuntimeException exception = new IllegalArgumentException("bad request");
+		requestChannel.subscribe(new MessageHandler() {
+			public void handleMessage(Message<?> message) throws MessagingException {
+				throw exception;
+			}
+		});
+		TestEchoService service = this.createNonBlockingGateway(requestChannel, 1000);
+		Future<String> f = service.returnString("foo");
+		assertTrue(f.isDone());
+		try {
+			f.get();
+			fail("Expected ExecutionException");
+		}
+		catch (ExecutionException e) {
+			assertSame(exception, e.getCause());
+		}
+	}
+
+	private TestEchoService createNonBlockingGateway(MessageChannel requestChannel, long replyTimeout) throws Exception {
+		GatewayProxyFactoryBean proxyFactory = new GatewayProxyFactoryBean();
+		proxyFactory.setDefaultRequestChannel(requestChannel);
+		proxyFactory.setServiceInterface(TestEchoService.class);
+		proxyFactory.setDefaultReplyTimeout(replyTimeout);
+		proxyFactory.setNonBlockingFutures(true);
+		proxyFactory.setBeanName("testGateway");
+		proxyFactory.afterPropertiesSet();
+		return (TestEchoService) proxyFactory.getObject();
+	}
+
 
 	private static void startResponder(final PollableChannel requestChannel) {
+		startResponder(requestChannel, null);
+	}
+
+	/**
+	 * Reply after 200ms or, if a latch is provided, when it is counted down.
+	 */
+	private static void startResponder(final PollableChannel requestChannel, final CountDownLatch replyLatch) {
 		new Thread(new Runnable() {
 			public void run() {
 				Message<?> input = requestChannel.receive();
 				GenericMessage<String> reply = new GenericMessage<String>(input.getPayload() + "bar");
 				try {
-					Thread.sleep(200);
+					if (replyLatch != null) {
+						replyLatch.await(10, TimeUnit.SECONDS);
+					}
+					else {
+						Thread.sleep(200);
+					}
 				}
 				catch (InterruptedException e) {
 					Thread.currentThread().interrupt();
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.mapping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.springframework.beans.DirectFieldAccessor;
+
+/**
+ * @since 3.0
+ */
+public class HeaderNameMatcherTests {
+
+	@Test
+	public void testPatterns() {
+		HeaderNameMatcher matcher = new HeaderNameMatcher(Arrays.asList("foo", "Bar*", "*Baz", "a*b*c", "*x*"));
+		assertTrue(matcher.matches("foo"));
+		assertTrue(matcher.matches("FOO"));
+		assertFalse(matcher.matches("foo1"));
+		assertTrue(matcher.matches("bar"));
+		assertTrue(matcher.matches("barQux"));
+		assertFalse(matcher.matches("qbar"));
+		assertTrue(matcher.matches("baz"));
+		assertTrue(matcher.matches("quxBAZ"));
+		assertFalse(matcher.matches("baz1"));
+		assertTrue(matcher.matches("aQbQc"));
+		assertFalse(matcher.matches("aQbQd"));
+		assertTrue(matcher.matches("qXq"));
+		assertFalse(matcher.matches("qq"));
+		assertFalse(matcher.matches(null));
+	}
+
+	@Test
+	public void testMatchAllAndEmpty() {
+		assertTrue(new HeaderNameMatcher(Arrays.asList("foo", "*")).matches("anything"));
+		assertFalse(new HeaderNameMatcher(Collections.<String>emptyList()).matches("anything"));
+		assertFalse(new HeaderNameMatcher(null).matches("anything"));
+	}
+
+	@Test
+	public void testSymbolicPatterns() {
+		Map<String, List<String>> symbolic = new HashMap<String, List<String>>();
+		symbolic.put("STANDARD", Arrays.asList("contentType", "priority"));
+		HeaderNameMatcher matcher = new HeaderNameMatcher(Arrays.asList("STANDARD", "foo"), symbolic, 10);
+		assertTrue(matcher.matches("CONTENTTYPE"));
+		assertTrue(matcher.matches("priority"));
+		assertTrue(matcher.matches("foo"));
+		assertTrue(matcher.matches("standard"));
+		assertFalse(matcher.matches("bar"));
+		matcher = new HeaderNameMatcher(Arrays.asList("standard"), symbolic, 10);
+		assertFalse(matcher.matches("priority"));
+	}
+
+	@Test
+	public void testCacheIsBounded() {
+		Map<String, List<String>> symbolic = Collections.emptyMap();
+		HeaderNameMatcher matcher = new HeaderNameMatcher(Arrays.asList("foo*"), symbolic, 2);
+		for (int i = 0; i < 10; i++) {
+			assertTrue(matcher.matches("foo" + i));
+			assertTrue(matcher.matches("foo" + i));
+			assertFalse(matcher.matches("bar" + i));
+		}
+		@SuppressWarnings("unchecked")
+		Map<String, Boolean> decisions = (Map<String, Boolean>) new DirectFieldAccessor(matcher)
+				.getPropertyValue("decisions");
+		assertEquals(2, decisions.size());
+	}
+
+}
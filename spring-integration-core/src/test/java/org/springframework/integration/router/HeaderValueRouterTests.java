@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,18 +16,25 @@
 
 package org.springframework.integration.router;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
 import org.springframework.beans.factory.support.ManagedMap;
 import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.support.StaticApplicationContext;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
 import org.springframework.integration.channel.QueueChannel;
 import org.springframework.integration.core.MessageHandler;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
+import org.springframework.integration.support.channel.CachingChannelResolver;
 import org.springframework.integration.support.channel.ChannelResolver;
 
 /**
@@ -185,5 +192,81 @@ public class HeaderValueRouterTests {
 		assertSame(message, result2);
 	}
 
+	@Test
+	public void channelMappingChangesInvalidateCachedResolutions() {
+		StaticApplicationContext context = new StaticApplicationContext();
+		context.registerSingleton("testChannel", QueueChannel.class);
+		context.registerSingleton("newChannel", QueueChannel.class);
+		context.refresh();
+		final BeanFactoryChannelResolver beanFactoryResolver = new BeanFactoryChannelResolver(context);
+		final AtomicInteger lookups = new AtomicInteger();
+		HeaderValueRouter router = new HeaderValueRouter("testHeaderName");
+		router.setChannelResolver(new CachingChannelResolver(new ChannelResolver() {
+			public MessageChannel resolveChannelName(String channelName) {
+				lookups.incrementAndGet();
+				return beanFactoryResolver.resolveChannelName(channelName);
+			}
+		}));
+		router.setBeanFactory(context);
+		router.afterPropertiesSet();
+		QueueChannel testChannel = context.getBean("testChannel", QueueChannel.class);
+		QueueChannel newChannel = context.getBean("newChannel", QueueChannel.class);
+		Message<?> message = MessageBuilder.withPayload("test").setHeader("testHeaderName", "testChannel").build();
+
+		router.handleMessage(message);
+		router.handleMessage(message);
+		assertNotNull(testChannel.receive(0));
+		assertNotNull(testChannel.receive(0));
+		assertEquals(1, lookups.get());
+
+		router.setChannelMapping("testChannel", "newChannel");
+		router.handleMessage(message);
+		assertNotNull(newChannel.receive(0));
+		assertNull(testChannel.receive(0));
+		assertEquals(2, lookups.get());
+
+		router.removeChannelMapping("testChannel");
+		router.handleMessage(message);
+		assertNull(newChannel.receive(0));
+		assertNotNull(testChannel.receive(0));
+	}
+
+	@Test
+	public void failedResolutionIsCachedUntilRefresh() {
+		StaticApplicationContext context = new StaticApplicationContext();
+		context.refresh();
+		final BeanFactoryChannelResolver beanFactoryResolver = new BeanFactoryChannelResolver(context);
+		final AtomicInteger lookups = new AtomicInteger();
+		HeaderValueRouter router = new HeaderValueRouter("testHeaderName");
+		router.setChannelResolver(new CachingChannelResolver(new ChannelResolver() {
+			public MessageChannel resolveChannelName(String channelName) {
+				lookups.incrementAndGet();
+				return beanFactoryResolver.resolveChannelName(channelName);
+			}
+		}));
+		router.setResolutionRequired(false);
+		QueueChannel defaultChannel = new QueueChannel();
+		router.setDefaultOutputChannel(defaultChannel);
+		router.setBeanFactory(context);
+		router.afterPropertiesSet();
+		Message<?> message = MessageBuilder.withPayload("test").setHeader("testHeaderName", "lateChannel").build();
+		router.handleMessage(message);
+		router.handleMessage(message);
+		assertNotNull(defaultChannel.receive(0));
+		assertNotNull(defaultChannel.receive(0));
+		assertEquals(1, lookups.get());
+
+		context.registerSingleton("lateChannel", QueueChannel.class);
+		router.handleMessage(message);
+		assertNotNull(defaultChannel.receive(0));
+		assertEquals(1, lookups.get());
+
+		router.onApplicationEvent(new ContextRefreshedEvent(context));
+		router.handleMessage(message);
+		assertNull(defaultChannel.receive(0));
+		assertNotNull(context.getBean("lateChannel", QueueChannel.class).receive(0));
+		assertEquals(2, lookups.get());
+	}
+
 	
 }
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * @since 3.0
+ *
+ */
+public class AppendOnlyLogMetadataStoreTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testPersistedAcrossRestart() throws Exception {
+		AppendOnlyLogMetadataStore store = this.createStore();
+		store.put("foo", "bar");
+		store.put("baz", "qux");
+		store.put("foo", "bar2");
+		store.destroy();
+		store = this.createStore();
+		assertEquals("bar2", store.get("foo"));
+		assertEquals("qux", store.get("baz"));
+		assertNull(store.get("fiz"));
+		store.destroy();
+	}
+
+	@Test
+	public void testWaitForFlush() throws Exception {
+		final AppendOnlyLogMetadataStore store = this.createStore();
+		store.setWaitForFlush(true);
+		ExecutorService exec = Executors.newFixedThreadPool(10);
+		final CountDownLatch latch = new CountDownLatch(100);
+		for (int i = 0; i < 100; i++) {
+			final int n = i;
+			exec.execute(new Runnable() {
+
+				public void run() {
+					store.put("key" + n, "value" + n);
+					latch.countDown();
+				}
+			});
+		}
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		exec.shutdown();
+		// simulate a crash - read the log without destroying the first store
+		AppendOnlyLogMetadataStore recovered = this.createStore();
+		for (int i = 0; i < 100; i++) {
+			assertEquals("value" + i, recovered.get("key" + i));
+		}
+		recovered.destroy();
+		store.destroy();
+	}
+
+	@Test
+	public void testIncompleteRecordDiscarded() throws Exception {
+		AppendOnlyLogMetadataStore store = this.createStore();
+		store.put("foo", "bar");
+		store.destroy();
+		File log = new File(this.folder.getRoot(), "metadata-store.log");
+		long length = log.length();
+		FileOutputStream out = new FileOutputStream(log, true);
+		out.write(new byte[] { 0, 0, 0, 3, 0, 0, 0, 3, 'b', 'a' });
+		out.close();
+
+		store = this.createStore();
+		assertEquals(length, log.length());
+		assertEquals("bar", store.get("foo"));
+		store.put("baz", "qux");
+		store.destroy();
+		store = this.createStore();
+		assertEquals("bar", store.get("foo"));
+		assertEquals("qux", store.get("baz"));
+		store.destroy();
+	}
+
+	@Test
+	public void testCompaction() throws Exception {
+		// only the explicit flush writes (and compacts) the log
+		AppendOnlyLogMetadataStore store = this.createStore(60000);
+		String value = new String(new char[1000]).replace('\0', 'x');
+		for (int i = 0; i < 3000; i++) {
+			store.put("foo", value + i);
+		}
+		store.flush();
+		File log = new File(this.folder.getRoot(), "metadata-store.log");
+		assertTrue(log.length() < 2000);
+		store.put("bar", "baz");
+		store.destroy();
+		store = this.createStore();
+		assertEquals(value + 2999, store.get("foo"));
+		assertEquals("baz", store.get("bar"));
+		store.destroy();
+	}
+
+	@Test
+	public void testImportProperties() throws Exception {
+		PropertiesPersistingMetadataStore properties = new PropertiesPersistingMetadataStore();
+		properties.setBaseDirectory(this.folder.getRoot().getAbsolutePath());
+		properties.afterPropertiesSet();
+		properties.put("foo", "bar");
+		properties.destroy();
+		AppendOnlyLogMetadataStore store = this.createStore();
+		assertEquals("bar", store.get("foo"));
+		store.destroy();
+		assertTrue(new File(this.folder.getRoot(), "metadata-store.log").length() > 0);
+	}
+
+	@Test
+	public void testLargeImportCompactedOnce() throws Exception {
+		String value = new String(new char[1000]).replace('\0', 'x');
+		Properties properties = new Properties();
+		for (int i = 0; i < 2000; i++) {
+			properties.setProperty("key" + i, value);
+		}
+		FileOutputStream out = new FileOutputStream(new File(this.folder.getRoot(), "metadata-store.properties"));
+		properties.store(out, null);
+		out.close();
+		// only the explicit flush writes the log
+		AppendOnlyLogMetadataStore store = this.createStore(60000);
+		File log = new File(this.folder.getRoot(), "metadata-store.log");
+		long length = log.length();
+		assertTrue(length > 2000 * 1000);
+		store.put("key0", "foo");
+		store.flush();
+		// appended, not compacted
+		assertEquals(length + 12 + 4 + 3, log.length());
+		store.destroy();
+		store = this.createStore();
+		assertEquals("foo", store.get("key0"));
+		assertEquals(value, store.get("key1999"));
+		store.destroy();
+	}
+
+	@Test
+	public void testWriteFailureKeepsRecords() throws Exception {
+		// only the puts write the log
+		AppendOnlyLogMetadataStore store = this.createStore(60000);
+		store.setWaitForFlush(true);
+		store.put("foo", "bar");
+		DirectFieldAccessor accessor = new DirectFieldAccessor(store);
+		RandomAccessFile log = (RandomAccessFile) accessor.getPropertyValue("log");
+		File file = new File(this.folder.getRoot(), "metadata-store.log");
+		RandomAccessFile readOnly = new RandomAccessFile(file, "r");
+		accessor.setPropertyValue("log", readOnly);
+		try {
+			store.put("baz", "qux");
+			fail("Expected exception");
+		}
+		catch (Exception e) {
+			// expected
+		}
+		try {
+			store.flush();
+			fail("Expected exception");
+		}
+		catch (Exception e) {
+			// expected
+		}
+		assertEquals(1L, accessor.getPropertyValue("flushedSequence"));
+		assertEquals(2L, accessor.getPropertyValue("appendedSequence"));
+		readOnly.close();
+		accessor.setPropertyValue("log", log);
+		store.put("fiz", "buz");
+		assertEquals(3L, accessor.getPropertyValue("flushedSequence"));
+		// simulate a crash - read the log without destroying the first store
+		AppendOnlyLogMetadataStore recovered = this.createStore();
+		assertEquals("bar", recovered.get("foo"));
+		assertEquals("qux", recovered.get("baz"));
+		assertEquals("buz", recovered.get("fiz"));
+		recovered.destroy();
+		store.destroy();
+	}
+
+	@Test
+	public void testCompactedFileReplacesLogOnStart() throws Exception {
+		AppendOnlyLogMetadataStore store = this.createStore();
+		store.put("foo", "bar");
+		store.put("baz", "qux");
+		store.destroy();
+		File log = new File(this.folder.getRoot(), "metadata-store.log");
+		File compacted = new File(this.folder.getRoot(), "metadata-store.log.compacted");
+		File compacting = new File(this.folder.getRoot(), "metadata-store.log.compacting");
+		FileCopyUtils.copy(log, compacted);
+		// a partial copy over the log, and an incomplete compaction
+		FileCopyUtils.copy(new byte[] { 0, 0, 0, 3 }, log);
+		FileCopyUtils.copy(new byte[] { 0, 0, 0, 3 }, compacting);
+		store = this.createStore();
+		assertEquals("bar", store.get("foo"));
+		assertEquals("qux", store.get("baz"));
+		assertFalse(compacted.exists());
+		assertFalse(compacting.exists());
+		store.destroy();
+	}
+
+	private AppendOnlyLogMetadataStore createStore() throws Exception {
+		return this.createStore(AppendOnlyLogMetadataStore.DEFAULT_FLUSH_INTERVAL);
+	}
+
+	private AppendOnlyLogMetadataStore createStore(long flushInterval) throws Exception {
+		AppendOnlyLogMetadataStore store = new AppendOnlyLogMetadataStore();
+		store.setBaseDirectory(this.folder.getRoot().getAbsolutePath());
+		store.setFlushInterval(flushInterval);
+		store.setCompactionFactor(2);
+		store.afterPropertiesSet();
+		return store;
+	}
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.support.channel;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.integration.MessageChannel;
+import org.springframework.integration.channel.QueueChannel;
+
+/**
+ * @since 3.0
+ */
+public class CachingChannelResolverTests {
+
+	@Test
+	public void testResolutionIsCached() {
+		ChannelResolver delegate = mock(ChannelResolver.class);
+		QueueChannel channel = new QueueChannel();
+		when(delegate.resolveChannelName("foo")).thenReturn(channel);
+		CachingChannelResolver resolver = new CachingChannelResolver(delegate);
+		assertSame(channel, resolver.resolveChannelName("foo"));
+		assertSame(channel, resolver.resolveChannelName("foo"));
+		verify(delegate, times(1)).resolveChannelName("foo");
+		assertNull(resolver.resolveChannelName("bar"));
+		assertNull(resolver.resolveChannelName("bar"));
+		verify(delegate, times(2)).resolveChannelName("bar");
+
+		resolver.clearCache();
+		assertSame(channel, resolver.resolveChannelName("foo"));
+		verify(delegate, times(2)).resolveChannelName("foo");
+	}
+
+	@Test
+	public void testFailureIsNotCached() {
+		ChannelResolver delegate = mock(ChannelResolver.class);
+		ChannelResolutionException failure = new ChannelResolutionException("no foo");
+		when(delegate.resolveChannelName("foo")).thenThrow(failure);
+		CachingChannelResolver resolver = new CachingChannelResolver(delegate);
+		try {
+			resolver.resolveChannelName("foo");
+			fail("expected exception");
+		}
+		catch (ChannelResolutionException e) {
+			assertSame(failure, e);
+		}
+		try {
+			resolver.resolveChannelName("foo");
+			fail("expected exception");
+		}
+		catch (ChannelResolutionException e) {
+			assertSame(failure, e);
+		}
+		verify(delegate, times(2)).resolveChannelName("foo");
+
+		MessageChannel channel = new QueueChannel();
+		StaticApplicationContext context = new StaticApplicationContext();
+		resolver = new CachingChannelResolver(new BeanFactoryChannelResolver(context));
+		try {
+			resolver.resolveChannelName("bar");
+			fail("expected exception");
+		}
+		catch (ChannelResolutionException e) {
+		}
+		context.getBeanFactory().registerSingleton("bar", channel);
+		assertSame(channel, resolver.resolveChannelName("bar"));
+	}
+
+	@Test
+	public void testCacheIsClearedOnRefresh() {
+		ChannelResolver delegate = mock(ChannelResolver.class);
+		QueueChannel channel = new QueueChannel();
+		when(delegate.resolveChannelName("foo")).thenReturn(channel);
+		CachingChannelResolver resolver = new CachingChannelResolver(delegate);
+		resolver.resolveChannelName("foo");
+		resolver.resolveChannelName("foo");
+		verify(delegate, times(1)).resolveChannelName("foo");
+		resolver.onApplicationEvent(new ContextRefreshedEvent(new StaticApplicationContext()));
+		resolver.resolveChannelName("foo");
+		verify(delegate, times(2)).resolveChannelName("foo");
+	}
+
+	@Test
+	public void testCacheIsBounded() {
+		ChannelResolver delegate = mock(ChannelResolver.class);
+		QueueChannel channel = new QueueChannel();
+		when(delegate.resolveChannelName("foo")).thenReturn(channel);
+		when(delegate.resolveChannelName("bar")).thenReturn(channel);
+		CachingChannelResolver resolver = new CachingChannelResolver(delegate, 1);
+		resolver.resolveChannelName("foo");
+		resolver.resolveChannelName("bar");
+		resolver.resolveChannelName("foo");
+		resolver.resolveChannelName("bar");
+		verify(delegate, times(1)).resolveChannelName("foo");
+		verify(delegate, times(2)).resolveChannelName("bar");
+	}
+
+}
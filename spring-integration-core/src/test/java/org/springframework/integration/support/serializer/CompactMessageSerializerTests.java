@@ -0,0 +1,186 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.support.serializer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import org.springframework.core.serializer.DefaultSerializer;
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageHeaders;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.message.AdviceMessage;
+import org.springframework.integration.message.ErrorMessage;
+import org.springframework.integration.support.MessageBuilder;
+
+/**
+ * @since 3.0
+ */
+public class CompactMessageSerializerTests {
+
+	private final CompactMessageSerializer serializer = new CompactMessageSerializer();
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		Message<String> message = MessageBuilder.withPayload("foo")
+				.setCorrelationId("bar")
+				.setSequenceNumber(2)
+				.setSequenceSize(3)
+				.pushSequenceDetails("baz", 1, 1)
+				.setExpirationDate(123L)
+				.setPriority(4)
+				.setReplyChannelName("replies")
+				.setHeader("string", "qux")
+				.setHeader("int", 1)
+				.setHeader("long", 2L)
+				.setHeader("boolean", true)
+				.setHeader("bytes", new byte[] {1, 2})
+				.setHeader("uuid", UUID.randomUUID())
+				.setHeader("double", 1.5d)
+				.setHeader("float", 2.5f)
+				.setHeader("short", (short) 3)
+				.setHeader("byte", (byte) 4)
+				.setHeader("char", 'c')
+				.setHeader("null", null)
+				.setHeader("date", new Date())
+				.setHeader("été", "été")
+				.build();
+		Message<?> result = this.roundTrip(message);
+		assertEquals(message.getPayload(), result.getPayload());
+		assertEquals(message.getHeaders().getId(), result.getHeaders().getId());
+		assertEquals(message.getHeaders().getTimestamp(), result.getHeaders().getTimestamp());
+		assertEquals(message.getHeaders().size(), result.getHeaders().size());
+		for (String name : message.getHeaders().keySet()) {
+			if (name.equals("bytes")) {
+				assertArrayEquals((byte[]) message.getHeaders().get(name), (byte[]) result.getHeaders().get(name));
+			}
+			else {
+				assertEquals(name, message.getHeaders().get(name), result.getHeaders().get(name));
+				assertSame(name, message.getHeaders().get(name).getClass(), result.getHeaders().get(name).getClass());
+			}
+		}
+		assertEquals(message.getHeaders().get(MessageHeaders.SEQUENCE_DETAILS),
+				result.getHeaders().get(MessageHeaders.SEQUENCE_DETAILS));
+	}
+
+	@Test
+	public void testPayloads() throws Exception {
+		Object[] payloads = new Object[] {1, 2L, "", new Date(), Arrays.asList("foo", 1)};
+		for (Object payload : payloads) {
+			assertEquals(payload, this.roundTrip(MessageBuilder.withPayload(payload).build()).getPayload());
+		}
+		byte[] bytes = new byte[1000];
+		bytes[999] = 1;
+		assertArrayEquals(bytes, (byte[]) this.roundTrip(MessageBuilder.withPayload(bytes).build()).getPayload());
+	}
+
+	@Test
+	public void testErrorAndOtherMessages() throws Exception {
+		Message<?> result = this.roundTrip(new ErrorMessage(new RuntimeException("foo")));
+		assertTrue(result instanceof ErrorMessage);
+		assertEquals("foo", ((ErrorMessage) result).getPayload().getMessage());
+		AdviceMessage adviceMessage = new AdviceMessage("foo", MessageBuilder.withPayload("bar").build());
+		result = this.roundTrip(adviceMessage);
+		assertTrue(result instanceof AdviceMessage);
+		assertEquals(adviceMessage.getHeaders().getId(), result.getHeaders().getId());
+	}
+
+	@Test
+	public void testNonSerializableHeaderRemoved() throws Exception {
+		Message<String> message = MessageBuilder.withPayload("foo").setReplyChannel(new QueueChannel()).build();
+		Message<?> result = this.roundTrip(message);
+		assertNull(result.getHeaders().getReplyChannel());
+		assertEquals(message.getHeaders().getId(), result.getHeaders().getId());
+	}
+
+	@Test
+	public void testCodec() throws Exception {
+		this.serializer.registerCodec(Foo.class, new FooCodec());
+		Message<Foo> message = MessageBuilder.withPayload(new Foo("foo")).setHeader("foo", new Foo("bar")).build();
+		Message<?> result = this.roundTrip(message);
+		assertEquals("foo", ((Foo) result.getPayload()).value);
+		assertEquals("bar", ((Foo) result.getHeaders().get("foo")).value);
+	}
+
+	@Test
+	public void testReadJavaSerializedMessage() throws Exception {
+		Message<String> message = MessageBuilder.withPayload("foo").setHeader("bar", "baz").build();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new DefaultSerializer().serialize(message, out);
+		Message<?> result = this.serializer.deserialize(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(message, result);
+	}
+
+	@Test
+	public void testSmallerThanJavaSerialization() throws Exception {
+		Message<String> message = MessageBuilder.withPayload("foo").setCorrelationId("bar")
+				.setSequenceNumber(1).setSequenceSize(2).setHeader("baz", "qux").build();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new DefaultSerializer().serialize(message, out);
+		int javaSize = out.size();
+		out = new ByteArrayOutputStream();
+		this.serializer.serialize(message, out);
+		assertTrue(out.size() + " " + javaSize, out.size() * 5 < javaSize);
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnknownVersion() throws Exception {
+		this.serializer.deserialize(new ByteArrayInputStream(new byte[] {(byte) 0xc5, 99, 0}));
+	}
+
+	private Message<?> roundTrip(Message<?> message) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		this.serializer.serialize(message, out);
+		return this.serializer.deserialize(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+
+	private static class Foo {
+
+		private final String value;
+
+		private Foo(String value) {
+			this.value = value;
+		}
+	}
+
+	private static class FooCodec implements ValueCodec<Foo> {
+
+		public void encode(Foo value, DataOutput out) throws IOException {
+			out.writeUTF(value.value);
+		}
+
+		public Foo decode(DataInput in) throws IOException {
+			return new Foo(in.readUTF());
+		}
+	}
+
+}
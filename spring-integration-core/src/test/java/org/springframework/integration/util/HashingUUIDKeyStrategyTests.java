@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Test;
+
+/**
+ * @since 3.0
+ */
+public class HashingUUIDKeyStrategyTests {
+
+	private final HashingUUIDKeyStrategy strategy = new HashingUUIDKeyStrategy();
+
+	@Test
+	public void testNullAndUUID() {
+		assertNull(strategy.getUUID(null));
+		UUID uuid = UUID.randomUUID();
+		assertEquals(uuid, strategy.getUUID(uuid));
+		assertEquals(uuid, strategy.getUUID(uuid.toString()));
+		assertEquals(uuid, strategy.getUUID(uuid.toString().toUpperCase()));
+	}
+
+	@Test
+	public void testStableKeys() {
+		// must never change; keys may be persisted
+		assertEquals("3da0ad2e-c452-3e87-de14-c52674ea2cb4", strategy.getUUID("foo").toString());
+		assertEquals(strategy.getUUID("foo"), strategy.getUUID("foo"));
+		assertEquals(strategy.getUUID("1"), strategy.getUUID(1));
+		assertEquals(strategy.getUUID("1"), strategy.getUUID(1L));
+		assertEquals(strategy.getUUID(new byte[] {1, 2, 3}), strategy.getUUID(new byte[] {1, 2, 3}));
+		Date date = new Date();
+		assertEquals(strategy.getUUID(date), strategy.getUUID(new Date(date.getTime())));
+		assertEquals(strategy.getUUID(Thread.State.NEW), strategy.getUUID(Thread.State.NEW));
+	}
+
+	@Test
+	public void testDerivedKeyIsIdempotent() {
+		Object[] keys = new Object[] {"foo", 1, "a much longer key with several blocks", new byte[] {1}, Thread.State.NEW};
+		for (Object key : keys) {
+			UUID uuid = strategy.getUUID(key);
+			assertEquals(uuid, strategy.getUUID(uuid.toString()));
+		}
+	}
+
+	@Test
+	public void testDistinctKeys() {
+		Set<UUID> uuids = new HashSet<UUID>();
+		StringBuilder key = new StringBuilder();
+		for (int i = 0; i < 40; i++) {
+			assertFalse(key.toString(), uuids.contains(strategy.getUUID(key.toString())));
+			uuids.add(strategy.getUUID(key.toString()));
+			key.append('x');
+		}
+		for (int i = 0; i < 10000; i++) {
+			UUID uuid = strategy.getUUID("key" + i);
+			assertFalse(uuids.contains(uuid));
+			uuids.add(uuid);
+		}
+		assertFalse(strategy.getUUID("NEW").equals(strategy.getUUID(Thread.State.NEW)));
+		assertFalse(strategy.getUUID("foo").equals(strategy.getUUID("foo".getBytes())));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNonSerializable() {
+		strategy.getUUID(new Object());
+	}
+
+}
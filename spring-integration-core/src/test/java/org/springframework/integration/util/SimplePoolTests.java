@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -119,6 +119,22 @@ public class SimplePoolTests {
 		assertEquals(2, pool.getAllocatedCount());
 	}
 
+	@Test
+	public void testRemoveItem() {
+		final Set<String> strings = new HashSet<String>();
+		final AtomicBoolean stale = new AtomicBoolean();
+		SimplePool<String> pool = stringPool(1, strings, stale);
+		String s1 = pool.getItem();
+		pool.removeItem(s1);
+		assertFalse(strings.contains(s1));
+		assertEquals(0, pool.getAllocatedCount());
+		// the permit is returned
+		String s2 = pool.getItem();
+		assertNotSame(s1, s2);
+		assertEquals(1, pool.getAllocatedCount());
+		assertEquals(1, pool.getPoolSize());
+	}
+
 	@Test(expected=IllegalArgumentException.class)
 	public void testForeignObject() {
 		final Set<String> strings = new HashSet<String>();
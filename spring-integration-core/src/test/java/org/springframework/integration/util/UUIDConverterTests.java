@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -64,6 +64,17 @@ public class UUIDConverterTests {
 		assertNotNull(UUIDConverter.getUUID(name));
 	}
 
+	@Test
+	public void testConvertNonCanonicalUUIDString() throws Exception {
+		assertEquals(UUID.fromString("1-2-3-4-5"), UUIDConverter.getUUID("1-2-3-4-5"));
+		UUID uuid = UUID.randomUUID();
+		assertEquals(uuid, UUIDConverter.getUUID(uuid.toString().toUpperCase()));
+		assertEquals(UUID.nameUUIDFromBytes("1-2-3-4-x".getBytes("UTF-8")), UUIDConverter.getUUID("1-2-3-4-x"));
+		assertEquals(UUID.nameUUIDFromBytes("1-2-3-4".getBytes("UTF-8")), UUIDConverter.getUUID("1-2-3-4"));
+		String almost = uuid.toString().replace('-', 'x');
+		assertEquals(UUID.nameUUIDFromBytes(almost.getBytes("UTF-8")), UUIDConverter.getUUID(almost));
+	}
+
 	@Test
 	public void testConvertRandomString() throws Exception {
 		UUID uuid = UUIDConverter.getUUID("foo");
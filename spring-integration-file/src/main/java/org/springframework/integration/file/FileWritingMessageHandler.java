@@ -20,6 +20,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 
@@ -48,7 +49,8 @@ import org.springframework.util.FileCopyUtils;
  * A {@link MessageHandler} implementation that writes the Message payload to a
  * file. If the payload is a File object, it will copy the File to the specified
  * destination directory. If the payload is a byte array or String, it will write
- * it directly. Otherwise, the payload type is unsupported, and an Exception
+ * it directly. If the payload is an InputStream, it will be copied to the file
+ * and closed. Otherwise, the payload type is unsupported, and an Exception
  * will be thrown.
  * <p>
  * If the 'deleteSourceFiles' flag is set to true, the original Files will be
@@ -284,6 +286,10 @@ public class FileWritingMessageHandler extends AbstractReplyProducingMessageHand
 					resultFile = this.handleStringMessage(
 							(String) payload, originalFileFromHeader, tempFile, resultFile);
 				}
+				else if (payload instanceof InputStream) {
+					resultFile = this.handleInputStreamMessage(
+							(InputStream) payload, originalFileFromHeader, tempFile, resultFile);
+				}
 				else {
 					throw new IllegalArgumentException(
 							"unsupported Message payload type [" + payload.getClass().getName() + "]");
@@ -373,6 +379,25 @@ public class FileWritingMessageHandler extends AbstractReplyProducingMessageHand
 		return resultFile;
 	}
 
+	private File handleInputStreamMessage(final InputStream sourceStream, File originalFile, File tempFile,
+			final File resultFile) throws IOException {
+		File fileToWriteTo = this.determineFileToWrite(resultFile, tempFile);
+
+		final boolean append = FileExistsMode.APPEND.equals(this.fileExistsMode);
+
+		final FileOutputStream fos = new FileOutputStream(fileToWriteTo, append);
+		WhileLockedProcessor whileLockedProcessor = new WhileLockedProcessor(this.lockRegistry, fileToWriteTo.getAbsolutePath()){
+			@Override
+			protected void whileLocked() throws IOException {
+				FileCopyUtils.copy(sourceStream, fos);
+			}
+
+		};
+		whileLockedProcessor.doWhileLocked();
+		this.cleanUpAfterCopy(fileToWriteTo, resultFile, originalFile);
+		return resultFile;
+	}
+
 	private File handleStringMessage(final String content, File originalFile, File tempFile, final File resultFile) throws IOException {
 		File fileToWriteTo = this.determineFileToWrite(resultFile, tempFile);
 
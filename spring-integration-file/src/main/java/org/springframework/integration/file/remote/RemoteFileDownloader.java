@@ -0,0 +1,313 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.file.remote;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.integration.MessagingException;
+import org.springframework.integration.file.remote.session.CachingSessionFactory;
+import org.springframework.integration.file.remote.session.ResumableSession;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.util.Assert;
+
+/**
+ * Downloads remote files, optionally on several sessions concurrently and resuming
+ * partial downloads left by a previous attempt.
+ * <p>
+ * With a concurrency greater than 1, the calling thread transfers files on the session
+ * it supplies while up to (concurrency - 1) additional workers, running on the
+ * {@link TaskExecutor}, obtain their own session from the {@link SessionFactory}; a
+ * {@link CachingSessionFactory} should be used so that those sessions are reused. The
+ * calling thread does not wait for workers that have not obtained a session by the time
+ * it has completed its own transfers; such a worker (for example, one waiting for a
+ * session from a pool that is smaller than the concurrency) releases its session as
+ * soon as it gets one, without transferring any files. If a worker cannot obtain a
+ * session, the remaining files are transferred by the others. After a failure, no
+ * further transfers are started and the (first) exception is thrown when the transfers
+ * in progress have completed.
+ * <p>
+ * Files are downloaded to a temporary file, which is renamed when complete. When
+ * resuming is enabled, and a temporary file from a failed attempt exists, only the rest
+ * of the remote file is transferred, and appended to it. This requires that the remote
+ * file has not been changed since the failed attempt, and a {@link ResumableSession};
+ * with other sessions, the whole file is transferred again.
+ *
+ * @since 3.0
+ */
+public class RemoteFileDownloader<F> {
+
+	private final Log logger = LogFactory.getLog(this.getClass());
+
+	private final SessionFactory<F> sessionFactory;
+
+	private volatile int concurrency = 1;
+
+	private volatile TaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("remote-file-download-");
+
+	private volatile boolean resume;
+
+	private volatile String temporaryFileSuffix = ".writing";
+
+
+	public RemoteFileDownloader(SessionFactory<F> sessionFactory) {
+		Assert.notNull(sessionFactory, "'sessionFactory' must not be null");
+		this.sessionFactory = sessionFactory;
+	}
+
+
+	/**
+	 * The maximum number of files transferred concurrently; default 1.
+	 */
+	public void setConcurrency(int concurrency) {
+		Assert.isTrue(concurrency > 0, "'concurrency' must be greater than 0");
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * The executor used for the additional workers when the concurrency is greater
+	 * than 1; default {@link SimpleAsyncTaskExecutor}.
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		Assert.notNull(taskExecutor, "'taskExecutor' must not be null");
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Set to true to resume partial downloads; default false.
+	 */
+	public void setResume(boolean resume) {
+		this.resume = resume;
+	}
+
+	public void setTemporaryFileSuffix(String temporaryFileSuffix) {
+		Assert.notNull(temporaryFileSuffix, "'temporaryFileSuffix' must not be null");
+		this.temporaryFileSuffix = temporaryFileSuffix;
+	}
+
+	/**
+	 * Perform the transfers, concurrently if so configured.
+	 * @param session the session used by the calling thread.
+	 * @param transfers the transfers.
+	 * @return the results of the transfers, in the same order.
+	 * @throws IOException the first exception thrown by a transfer.
+	 */
+	public <T> List<T> execute(Session<F> session, final List<? extends TransferCallback<F, T>> transfers)
+			throws IOException {
+		final int size = transfers.size();
+		final AtomicReferenceArray<T> results = new AtomicReferenceArray<T>(size);
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+		final Workers workers = new Workers();
+		int workerCount = Math.min(this.concurrency, size);
+		for (int i = 1; i < workerCount; i++) {
+			try {
+				this.taskExecutor.execute(new Runnable() {
+
+					public void run() {
+						Session<F> workerSession = null;
+						try {
+							workerSession = sessionFactory.getSession();
+						}
+						catch (Exception e) {
+							if (logger.isDebugEnabled()) {
+								logger.debug("Failed to obtain an additional session", e);
+							}
+							return;
+						}
+						try {
+							if (workers.join()) {
+								try {
+									transfer(workerSession, transfers, results, next, failure);
+								}
+								catch (Exception e) {
+									failure.compareAndSet(null, e);
+								}
+								finally {
+									workers.leave();
+								}
+							}
+						}
+						finally {
+							try {
+								workerSession.close();
+							}
+							catch (Exception e) {
+								if (logger.isDebugEnabled()) {
+									logger.debug("failed to close Session", e);
+								}
+							}
+						}
+					}
+				});
+			}
+			catch (RuntimeException e) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Failed to start an additional transfer worker", e);
+				}
+			}
+		}
+		try {
+			this.transfer(session, transfers, results, next, failure);
+		}
+		catch (Exception e) {
+			failure.compareAndSet(null, e);
+		}
+		try {
+			workers.awaitCompletion();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failure.compareAndSet(null, new MessagingException("Interrupted while waiting for transfers", e));
+		}
+		Exception exception = failure.get();
+		if (exception instanceof IOException) {
+			throw (IOException) exception;
+		}
+		else if (exception instanceof RuntimeException) {
+			throw (RuntimeException) exception;
+		}
+		else if (exception != null) {
+			throw new MessagingException("Failure occurred while transferring files", exception);
+		}
+		List<T> resultList = new ArrayList<T>(size);
+		for (int i = 0; i < size; i++) {
+			resultList.add(results.get(i));
+		}
+		return resultList;
+	}
+
+	private <T> void transfer(Session<F> session, List<? extends TransferCallback<F, T>> transfers,
+			AtomicReferenceArray<T> results, AtomicInteger next, AtomicReference<Exception> failure)
+			throws Exception {
+		int index;
+		while (failure.get() == null && (index = next.getAndIncrement()) < transfers.size()) {
+			results.set(index, transfers.get(index).doInSession(session));
+		}
+	}
+
+	/**
+	 * Download a remote file to a temporary file in the local directory, and rename it.
+	 * @param session the session.
+	 * @param remoteFilePath the remote file path.
+	 * @param localFile the local file.
+	 * @param remoteFileSize the size of the remote file, if known, or -1; used to check
+	 * whether a partial download can be resumed.
+	 * @return true if the temporary file was renamed to the local file.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public boolean download(Session<F> session, String remoteFilePath, File localFile, long remoteFileSize)
+			throws IOException {
+		File tempFile = new File(localFile.getAbsolutePath() + this.temporaryFileSuffix);
+		long offset = 0;
+		if (this.resume && session instanceof ResumableSession && tempFile.exists()) {
+			offset = tempFile.length();
+			if (remoteFileSize >= 0 && offset > remoteFileSize) {
+				offset = 0;
+			}
+		}
+		long start = System.currentTimeMillis();
+		if (offset == 0 || remoteFileSize < 0 || offset < remoteFileSize) {
+			FileOutputStream fileOutputStream = new FileOutputStream(tempFile, offset > 0);
+			try {
+				if (offset > 0) {
+					((ResumableSession<F>) session).read(remoteFilePath, fileOutputStream, offset);
+				}
+				else {
+					session.read(remoteFilePath, fileOutputStream);
+				}
+			}
+			catch (Exception e) {
+				if (e instanceof RuntimeException) {
+					throw (RuntimeException) e;
+				}
+				else {
+					throw new MessagingException("Failure occurred while copying from remote to local directory", e);
+				}
+			}
+			finally {
+				try {
+					fileOutputStream.close();
+				}
+				catch (Exception ignored) {
+				}
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+			long bytes = tempFile.length() - offset;
+			logger.debug("Transferred " + remoteFilePath + ": " + bytes + " bytes"
+					+ (offset > 0 ? " (resumed at " + offset + ")" : "") + " in " + elapsed + "ms ("
+					+ (bytes * 1000 / elapsed / 1024) + " KB/s)");
+		}
+		return tempFile.renameTo(localFile);
+	}
+
+
+	/**
+	 * Tracks the workers that are transferring files; the caller only waits for workers
+	 * that obtained a session before it completed its own transfers.
+	 */
+	private static class Workers {
+
+		private int active;
+
+		private boolean completing;
+
+		synchronized boolean join() {
+			if (this.completing) {
+				return false;
+			}
+			this.active++;
+			return true;
+		}
+
+		synchronized void leave() {
+			this.active--;
+			this.notifyAll();
+		}
+
+		synchronized void awaitCompletion() throws InterruptedException {
+			this.completing = true;
+			while (this.active > 0) {
+				this.wait();
+			}
+		}
+	}
+
+
+	/**
+	 * A transfer performed on a session.
+	 */
+	public interface TransferCallback<F, T> {
+
+		T doInSession(Session<F> session) throws IOException;
+
+	}
+
+}
@@ -18,7 +18,6 @@ package org.springframework.integration.file.remote.gateway;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -29,12 +28,15 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.file.FileHeaders;
 import org.springframework.integration.file.filters.FileListFilter;
 import org.springframework.integration.file.remote.AbstractFileInfo;
+import org.springframework.integration.file.remote.RemoteFileDownloader;
+import org.springframework.integration.file.remote.RemoteFileDownloader.TransferCallback;
 import org.springframework.integration.file.remote.RemoteFileUtils;
 import org.springframework.integration.file.remote.session.Session;
 import org.springframework.integration.file.remote.session.SessionFactory;
@@ -170,20 +172,17 @@ public abstract class AbstractRemoteFileOutboundGateway<F> extends AbstractReply
 
 	private volatile boolean autoCreateLocalDirectory = true;
 
-	private volatile String temporaryFileSuffix = ".writing";
-
 	/**
 	 * An {@link FileListFilter} that runs against the <em>remote</em> file system view.
 	 */
 	private volatile FileListFilter<F> filter;
 
+	private final RemoteFileDownloader<F> downloader;
+
 
 	public AbstractRemoteFileOutboundGateway(SessionFactory<F> sessionFactory, String command,
 			String expression) {
-		this.sessionFactory = sessionFactory;
-		this.command = Command.toCommand(command);
-		this.fileNameProcessor = new ExpressionEvaluatingMessageProcessor<String>(
-			new SpelExpressionParser().parseExpression(expression));
+		this(sessionFactory, Command.toCommand(command), expression);
 	}
 
 	public AbstractRemoteFileOutboundGateway(SessionFactory<F> sessionFactory, Command command,
@@ -192,6 +191,7 @@ public abstract class AbstractRemoteFileOutboundGateway<F> extends AbstractReply
 		this.command = command;
 		this.fileNameProcessor = new ExpressionEvaluatingMessageProcessor<String>(
 			new SpelExpressionParser().parseExpression(expression));
+		this.downloader = new RemoteFileDownloader<F>(sessionFactory);
 	}
 
 
@@ -233,7 +233,37 @@ public abstract class AbstractRemoteFileOutboundGateway<F> extends AbstractReply
 	 * @param temporaryFileSuffix the temporaryFileSuffix to set
 	 */
 	public void setTemporaryFileSuffix(String temporaryFileSuffix) {
-		this.temporaryFileSuffix = temporaryFileSuffix;
+		this.downloader.setTemporaryFileSuffix(temporaryFileSuffix);
+	}
+
+	/**
+	 * The maximum number of files transferred concurrently by mget, each on its own
+	 * session; default 1. A {@link org.springframework.integration.file.remote.session.CachingSessionFactory}
+	 * should be used when this is greater than 1.
+	 * @param transferConcurrency the transferConcurrency to set
+	 * @since 3.0
+	 */
+	public void setTransferConcurrency(int transferConcurrency) {
+		this.downloader.setConcurrency(transferConcurrency);
+	}
+
+	/**
+	 * @param taskExecutor the executor used for concurrent mget transfers.
+	 * @since 3.0
+	 * @see RemoteFileDownloader#setTaskExecutor(TaskExecutor)
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		this.downloader.setTaskExecutor(taskExecutor);
+	}
+
+	/**
+	 * Set to true to resume partial downloads (get, mget) left by a failed attempt,
+	 * instead of transferring the whole file again; default false.
+	 * @param resumeTransfers the resumeTransfers to set
+	 * @since 3.0
+	 */
+	public void setResumeTransfers(boolean resumeTransfers) {
+		this.downloader.setResume(resumeTransfers);
 	}
 
 	/**
@@ -468,28 +498,7 @@ public abstract class AbstractRemoteFileOutboundGateway<F> extends AbstractReply
 		}
 		File localFile = new File(this.localDirectory, remoteFilename);
 		if (!localFile.exists()) {
-			String tempFileName = localFile.getAbsolutePath() + this.temporaryFileSuffix;
-			File tempFile = new File(tempFileName);
-			FileOutputStream fileOutputStream = new FileOutputStream(tempFile);
-			try {
-				session.read(remoteFilePath, fileOutputStream);
-			}
-			catch (Exception e) {
-				if (e instanceof RuntimeException){
-					throw (RuntimeException) e;
-				}
-				else {
-					throw new MessagingException("Failure occurred while copying from remote to local directory", e);
-				}
-			}
-			finally {
-				try {
-					fileOutputStream.close();
-				}
-				catch (Exception ignored2) {
-				}
-			}
-			if (!tempFile.renameTo(localFile)) {
+			if (!this.downloader.download(session, remoteFilePath, localFile, -1)) {
 				throw new MessagingException("Failed to rename local file");
 			}
 			if (lsFirst && this.options.contains(Option.PRESERVE_TIMESTAMP)) {
@@ -513,20 +522,27 @@ public abstract class AbstractRemoteFileOutboundGateway<F> extends AbstractReply
 			throw new MessagingException("No files found at " + remoteDirectory
 					+ " with pattern " + remoteFilename);
 		}
-		List<File> files = new ArrayList<File>();
+		List<TransferCallback<F, File>> transfers = new ArrayList<TransferCallback<F, File>>();
 		for (String fileName : fileNames) {
-			File file;
+			final String filePath;
+			final String name;
 			if (fileName.contains(this.remoteFileSeparator) &&
 					fileName.startsWith(remoteDirectory)) { // the server returned the full path
-				file = this.get(session, fileName,
-						fileName.substring(fileName.lastIndexOf(this.remoteFileSeparator)), false);
+				filePath = fileName;
+				name = fileName.substring(fileName.lastIndexOf(this.remoteFileSeparator));
 			}
 			else {
-				file = this.get(session, generateFullPath(remoteDirectory, fileName), fileName, false);
+				filePath = generateFullPath(remoteDirectory, fileName);
+				name = fileName;
 			}
-			files.add(file);
+			transfers.add(new TransferCallback<F, File>() {
+
+				public File doInSession(Session<F> transferSession) throws IOException {
+					return get(transferSession, filePath, name, false);
+				}
+			});
 		}
-		return files;
+		return this.downloader.execute(session, transfers);
 	}
 
 	private String generateFullPath(String remoteDirectory, String remoteFilename) {
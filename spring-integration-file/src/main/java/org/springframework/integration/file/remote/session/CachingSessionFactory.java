@@ -80,7 +80,11 @@ public class CachingSessionFactory<F> implements SessionFactory<F>, DisposableBe
 	}
 
 	public Session<F> getSession() {
-		return new CachedSession(this.pool.getItem());
+		Session<F> session = this.pool.getItem();
+		if (session instanceof ResumableSession) {
+			return new ResumableCachedSession((ResumableSession<F>) session);
+		}
+		return new CachedSession(session);
 	}
 
 	public void destroy() {
@@ -150,4 +154,18 @@ public class CachingSessionFactory<F> implements SessionFactory<F>, DisposableBe
 		}
 	}
 
+	private class ResumableCachedSession extends CachedSession implements ResumableSession<F> {
+
+		private final ResumableSession<F> targetSession;
+
+		private ResumableCachedSession(ResumableSession<F> targetSession) {
+			super(targetSession);
+			this.targetSession = targetSession;
+		}
+
+		public void read(String source, OutputStream os, long offset) throws IOException {
+			this.targetSession.read(source, os, offset);
+		}
+	}
+
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.file.remote.session;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link Session} that can read a remote file starting at an offset, allowing
+ * a partial transfer to be resumed. Sessions that do not implement this interface
+ * are always read from the start of the file.
+ *
+ * @since 3.0
+ */
+public interface ResumableSession<T> extends Session<T> {
+
+	/**
+	 * Read the remote file, starting at the supplied offset.
+	 */
+	void read(String source, OutputStream outputStream, long offset) throws IOException;
+
+}
@@ -17,9 +17,8 @@
 package org.springframework.integration.file.remote.synchronizer;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -28,10 +27,13 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.expression.Expression;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.file.filters.FileListFilter;
+import org.springframework.integration.file.remote.RemoteFileDownloader;
+import org.springframework.integration.file.remote.RemoteFileDownloader.TransferCallback;
 import org.springframework.integration.file.remote.session.Session;
 import org.springframework.integration.file.remote.session.SessionFactory;
 import org.springframework.util.Assert;
@@ -44,6 +46,9 @@ import org.springframework.util.ObjectUtils;
  * The implementation should run through any configured
  * {@link org.springframework.integration.file.filters.FileListFilter}s to
  * ensure the file entry is acceptable.
+ * <p>
+ * Files can be transferred concurrently, on several sessions, and partial
+ * downloads can be resumed; see {@link RemoteFileDownloader}.
  *
  * @author Josh Long
  * @author Mark Fisher
@@ -86,6 +91,8 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 	 */
 	private volatile boolean deleteRemoteFiles;
 
+	private final RemoteFileDownloader<F> downloader;
+
 
 	/**
 	 * Create a synchronizer with the {@link SessionFactory} used to acquire {@link Session} instances.
@@ -93,6 +100,7 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 	public AbstractInboundFileSynchronizer(SessionFactory<F> sessionFactory) {
 		Assert.notNull(sessionFactory, "sessionFactory must not be null");
 		this.sessionFactory = sessionFactory;
+		this.downloader = new RemoteFileDownloader<F>(sessionFactory);
 	}
 
 
@@ -108,6 +116,35 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 
 	public void setTemporaryFileSuffix(String temporaryFileSuffix) {
 		this.temporaryFileSuffix = temporaryFileSuffix;
+		this.downloader.setTemporaryFileSuffix(temporaryFileSuffix);
+	}
+
+	/**
+	 * The maximum number of files transferred concurrently, each on its own
+	 * session; default 1. A {@link org.springframework.integration.file.remote.session.CachingSessionFactory}
+	 * should be used when this is greater than 1.
+	 * @since 3.0
+	 */
+	public void setTransferConcurrency(int transferConcurrency) {
+		this.downloader.setConcurrency(transferConcurrency);
+	}
+
+	/**
+	 * The executor used for concurrent transfers.
+	 * @since 3.0
+	 * @see RemoteFileDownloader#setTaskExecutor(TaskExecutor)
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		this.downloader.setTaskExecutor(taskExecutor);
+	}
+
+	/**
+	 * Set to true to resume partial downloads left by a failed attempt, instead of
+	 * transferring the whole file again; default false.
+	 * @since 3.0
+	 */
+	public void setResumeTransfers(boolean resumeTransfers) {
+		this.downloader.setResume(resumeTransfers);
 	}
 
 	/**
@@ -137,7 +174,7 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 		return temporaryFileSuffix;
 	}
 
-	public void synchronizeToLocalDirectory(File localDirectory) {
+	public void synchronizeToLocalDirectory(final File localDirectory) {
 		Session<F> session = null;
 		try {
 			session = this.sessionFactory.getSession();
@@ -145,11 +182,19 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 			F[] files = session.list(this.remoteDirectory);
 			if (!ObjectUtils.isEmpty(files)) {
 				Collection<F> filteredFiles = this.filterFiles(files);
-				for (F file : filteredFiles) {
+				List<TransferCallback<F, Void>> transfers = new ArrayList<TransferCallback<F, Void>>();
+				for (final F file : filteredFiles) {
 					if (file != null) {
-						this.copyFileToLocalDirectory(this.remoteDirectory, file, localDirectory, session);
+						transfers.add(new TransferCallback<F, Void>() {
+
+							public Void doInSession(Session<F> transferSession) throws IOException {
+								copyFileToLocalDirectory(remoteDirectory, file, localDirectory, transferSession);
+								return null;
+							}
+						});
 					}
 				}
+				this.downloader.execute(session, transfers);
 			}
 		}
 		catch (IOException e) {
@@ -182,37 +227,7 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 
 		File localFile = new File(localDirectory, localFileName);
 		if (!localFile.exists()) {
-			String tempFileName = localFile.getAbsolutePath() + this.temporaryFileSuffix;
-			File tempFile = new File(tempFileName);
-			InputStream inputStream = null;
-			FileOutputStream fileOutputStream = new FileOutputStream(tempFile);
-			try {
-				session.read(remoteFilePath, fileOutputStream);
-			}
-			catch (Exception e) {
-				if (e instanceof RuntimeException){
-					throw (RuntimeException) e;
-				}
-				else {
-					throw new MessagingException("Failure occurred while copying from remote to local directory", e);
-				}
-			}
-			finally {
-				try {
-					if (inputStream != null) {
-						inputStream.close();
-					}
-				}
-				catch (Exception ignored1) {
-				}
-				try {
-					fileOutputStream.close();
-				}
-				catch (Exception ignored2) {
-				}
-			}
-
-			if (tempFile.renameTo(localFile)) {
+			if (this.downloader.download(session, remoteFilePath, localFile, this.getSize(remoteFile))) {
 				if (this.deleteRemoteFiles) {
 					session.remove(remoteFilePath);
 					if (logger.isDebugEnabled()) {
@@ -230,6 +245,15 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 		return remoteFileName;
 	}
 
+	/**
+	 * @return the size of the remote file, or -1 if not known; used when resuming
+	 * partial downloads. The default implementation returns -1.
+	 * @since 3.0
+	 */
+	protected long getSize(F file) {
+		return -1;
+	}
+
 	protected abstract boolean isFile(F file);
 
 	protected abstract String getFilename(F file);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2009 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,10 +26,13 @@ import org.springframework.integration.message.GenericMessage;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.util.FileCopyUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.*;
@@ -104,6 +107,26 @@ public class FileWritingMessageHandlerTests {
 		assertFileContentIsMatching(result);
 	}
 
+	@Test
+	public void inputStreamPayloadCopiedToNewFile() throws Exception {
+		final AtomicBoolean closed = new AtomicBoolean();
+		InputStream stream = new ByteArrayInputStream(SAMPLE_CONTENT.getBytes(DEFAULT_ENCODING)) {
+
+			@Override
+			public void close() throws IOException {
+				closed.set(true);
+				super.close();
+			}
+		};
+		Message<?> message = MessageBuilder.withPayload(stream).build();
+		QueueChannel output = new QueueChannel();
+		handler.setOutputChannel(output);
+		handler.handleMessage(message);
+		Message<?> result = output.receive(0);
+		assertFileContentIsMatching(result);
+		assertTrue(closed.get());
+	}
+
 	@Test
 	public void filePayloadCopiedToNewFile() throws Exception {
 		Message<?> message = MessageBuilder.withPayload(sourceFile).build();
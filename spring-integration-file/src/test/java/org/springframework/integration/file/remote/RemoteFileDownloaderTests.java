@@ -0,0 +1,270 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.file.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.integration.file.remote.RemoteFileDownloader.TransferCallback;
+import org.springframework.integration.file.remote.session.CachingSessionFactory;
+import org.springframework.integration.file.remote.session.ResumableSession;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * @since 3.0
+ */
+@SuppressWarnings("unchecked")
+public class RemoteFileDownloaderTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testConcurrentTransfers() throws Exception {
+		SessionFactory<String> sessionFactory = mock(SessionFactory.class);
+		final AtomicInteger sessions = new AtomicInteger();
+		when(sessionFactory.getSession()).thenAnswer(new Answer<Session<String>>() {
+
+			public Session<String> answer(InvocationOnMock invocation) throws Throwable {
+				sessions.incrementAndGet();
+				return mock(Session.class);
+			}
+		});
+		RemoteFileDownloader<String> downloader = new RemoteFileDownloader<String>(sessionFactory);
+		downloader.setConcurrency(3);
+		final Set<Session<String>> sessionsUsed =
+				Collections.newSetFromMap(new ConcurrentHashMap<Session<String>, Boolean>());
+		final CountDownLatch latch = new CountDownLatch(3);
+		List<TransferCallback<String, Integer>> transfers = new ArrayList<TransferCallback<String, Integer>>();
+		for (int i = 0; i < 10; i++) {
+			final int n = i;
+			transfers.add(new TransferCallback<String, Integer>() {
+
+				public Integer doInSession(Session<String> session) throws IOException {
+					sessionsUsed.add(session);
+					latch.countDown();
+					try {
+						// make sure all workers participate
+						latch.await(10, TimeUnit.SECONDS);
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return n;
+				}
+			});
+		}
+		Session<String> session = mock(Session.class);
+		List<Integer> results = downloader.execute(session, transfers);
+		assertEquals(10, results.size());
+		for (int i = 0; i < 10; i++) {
+			assertEquals(Integer.valueOf(i), results.get(i));
+		}
+		assertEquals(2, sessions.get());
+		assertEquals(3, sessionsUsed.size());
+		assertTrue(sessionsUsed.contains(session));
+		for (Session<String> used : sessionsUsed) {
+			if (used != session) {
+				verify(used).close();
+			}
+		}
+		verify(session, never()).close();
+	}
+
+	@Test(timeout = 10000)
+	public void testConcurrencyGreaterThanPoolSize() throws Exception {
+		SessionFactory<String> sessionFactory = mock(SessionFactory.class);
+		Session<String> targetSession = mock(Session.class);
+		when(targetSession.isOpen()).thenReturn(true);
+		when(sessionFactory.getSession()).thenReturn(targetSession);
+		CachingSessionFactory<String> cachingSessionFactory = new CachingSessionFactory<String>(sessionFactory, 1);
+		RemoteFileDownloader<String> downloader = new RemoteFileDownloader<String>(cachingSessionFactory);
+		downloader.setConcurrency(3);
+		final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+		downloader.setTaskExecutor(new TaskExecutor() {
+
+			public void execute(Runnable task) {
+				Thread thread = new Thread(task);
+				threads.add(thread);
+				thread.start();
+			}
+		});
+		List<TransferCallback<String, Integer>> transfers = new ArrayList<TransferCallback<String, Integer>>();
+		for (int i = 0; i < 5; i++) {
+			final int n = i;
+			transfers.add(new TransferCallback<String, Integer>() {
+
+				public Integer doInSession(Session<String> session) throws IOException {
+					return n;
+				}
+			});
+		}
+		Session<String> session = cachingSessionFactory.getSession();
+		List<Integer> results = downloader.execute(session, transfers);
+		assertEquals(5, results.size());
+		for (int i = 0; i < 5; i++) {
+			assertEquals(Integer.valueOf(i), results.get(i));
+		}
+		session.close();
+		// the workers waiting for the pooled session release it without transferring
+		assertEquals(2, threads.size());
+		for (Thread thread : threads) {
+			thread.join(10000);
+			assertFalse(thread.isAlive());
+		}
+		verify(sessionFactory).getSession();
+		Session<String> another = cachingSessionFactory.getSession();
+		another.close();
+	}
+
+	@Test
+	public void testFailureStopsTransfers() throws Exception {
+		SessionFactory<String> sessionFactory = mock(SessionFactory.class);
+		when(sessionFactory.getSession()).thenThrow(new IllegalStateException("no more sessions"));
+		RemoteFileDownloader<String> downloader = new RemoteFileDownloader<String>(sessionFactory);
+		downloader.setConcurrency(2);
+		final AtomicInteger count = new AtomicInteger();
+		List<TransferCallback<String, Void>> transfers = new ArrayList<TransferCallback<String, Void>>();
+		for (int i = 0; i < 5; i++) {
+			transfers.add(new TransferCallback<String, Void>() {
+
+				public Void doInSession(Session<String> session) throws IOException {
+					if (count.incrementAndGet() == 2) {
+						throw new IOException("foo");
+					}
+					return null;
+				}
+			});
+		}
+		try {
+			downloader.execute(mock(Session.class), transfers);
+			fail("expected exception");
+		}
+		catch (IOException e) {
+			assertEquals("foo", e.getMessage());
+		}
+		// the worker could not get a session; the caller stopped after the failure
+		assertEquals(2, count.get());
+	}
+
+	@Test
+	public void testResume() throws Exception {
+		File localDir = this.folder.newFolder("resume");
+		File localFile = new File(localDir, "foo.txt");
+		File tempFile = new File(localDir, "foo.txt.writing");
+		FileCopyUtils.copy("abc".getBytes(), new FileOutputStream(tempFile));
+		ResumableSession<String> session = mock(ResumableSession.class);
+		doAnswer(new Answer<Void>() {
+
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				assertEquals(3L, invocation.getArguments()[2]);
+				((OutputStream) invocation.getArguments()[1]).write("def".getBytes());
+				return null;
+			}
+		}).when(session).read(anyString(), any(OutputStream.class), any(Long.class));
+		RemoteFileDownloader<String> downloader = new RemoteFileDownloader<String>(mock(SessionFactory.class));
+		downloader.setResume(true);
+		assertTrue(downloader.download(session, "remote/foo.txt", localFile, 6));
+		assertEquals("abcdef", new String(FileCopyUtils.copyToByteArray(localFile)));
+		assertFalse(tempFile.exists());
+		verify(session, never()).read(anyString(), any(OutputStream.class));
+
+		// temp file larger than the remote file - start again
+		FileCopyUtils.copy("abcdefghi".getBytes(), new FileOutputStream(tempFile));
+		doAnswer(new Answer<Void>() {
+
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				((OutputStream) invocation.getArguments()[1]).write("xyz".getBytes());
+				return null;
+			}
+		}).when(session).read(anyString(), any(OutputStream.class));
+		File otherFile = new File(localDir, "bar.txt");
+		downloader.setTemporaryFileSuffix(".tmp");
+		assertTrue(tempFile.renameTo(new File(localDir, "bar.txt.tmp")));
+		assertTrue(downloader.download(session, "remote/bar.txt", otherFile, 3));
+		assertEquals("xyz", new String(FileCopyUtils.copyToByteArray(otherFile)));
+	}
+
+	@Test
+	public void testNoResumeWithoutResumableSession() throws Exception {
+		File localDir = this.folder.newFolder("notresumable");
+		File localFile = new File(localDir, "foo.txt");
+		FileCopyUtils.copy("abc".getBytes(), new FileOutputStream(new File(localDir, "foo.txt.writing")));
+		Session<String> session = mock(Session.class);
+		doAnswer(new Answer<Void>() {
+
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				((OutputStream) invocation.getArguments()[1]).write("abcdef".getBytes());
+				return null;
+			}
+		}).when(session).read(anyString(), any(OutputStream.class));
+		RemoteFileDownloader<String> downloader = new RemoteFileDownloader<String>(mock(SessionFactory.class));
+		downloader.setResume(true);
+		assertTrue(downloader.download(session, "remote/foo.txt", localFile, 6));
+		assertEquals("abcdef", new String(FileCopyUtils.copyToByteArray(localFile)));
+	}
+
+	@Test
+	public void testNoResumeByDefault() throws Exception {
+		File localDir = this.folder.newFolder("noresume");
+		File localFile = new File(localDir, "foo.txt");
+		FileCopyUtils.copy("abc".getBytes(), new FileOutputStream(new File(localDir, "foo.txt.writing")));
+		Session<String> session = mock(Session.class);
+		doAnswer(new Answer<Void>() {
+
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				((OutputStream) invocation.getArguments()[1]).write("xyz".getBytes());
+				return null;
+			}
+		}).when(session).read(anyString(), any(OutputStream.class));
+		RemoteFileDownloader<String> downloader = new RemoteFileDownloader<String>(mock(SessionFactory.class));
+		assertTrue(downloader.download(session, "remote/foo.txt", localFile, -1));
+		assertEquals("xyz", new String(FileCopyUtils.copyToByteArray(localFile)));
+	}
+
+}
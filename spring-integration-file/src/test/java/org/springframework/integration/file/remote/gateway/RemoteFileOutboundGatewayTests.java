@@ -19,7 +19,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -32,8 +34,11 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
@@ -176,6 +181,9 @@ public class RemoteFileOutboundGatewayTests {
 			public void write(InputStream inputStream, String destination)
 					throws IOException {
 			}
+			public void read(String source, OutputStream outputStream, long offset)
+					throws IOException {
+			}
 			public boolean mkdir(String directory) throws IOException {
 				return false;
 			}
@@ -226,6 +234,9 @@ public class RemoteFileOutboundGatewayTests {
 			public void write(InputStream inputStream, String destination)
 					throws IOException {
 			}
+			public void read(String source, OutputStream outputStream, long offset)
+					throws IOException {
+			}
 			public boolean mkdir(String directory) throws IOException {
 				return false;
 			}
@@ -277,6 +288,9 @@ public class RemoteFileOutboundGatewayTests {
 			public void write(InputStream inputStream, String destination)
 					throws IOException {
 			}
+			public void read(String source, OutputStream outputStream, long offset)
+					throws IOException {
+			}
 			public boolean mkdir(String directory) throws IOException {
 				return false;
 			}
@@ -298,6 +312,49 @@ public class RemoteFileOutboundGatewayTests {
 		gw.handleRequestMessage(new GenericMessage<String>("testremote/*"));
 	}
 
+	@Test
+	public void testMGetConcurrent() throws Exception {
+		SessionFactory sessionFactory = mock(SessionFactory.class);
+		TestRemoteFileOutboundGateway gw = new TestRemoteFileOutboundGateway
+			(sessionFactory, "mget", "payload");
+		gw.setLocalDirectory(new File(this.tmpDir));
+		gw.setTransferConcurrency(3);
+		gw.afterPropertiesSet();
+		final String[] names = new String[10];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = "mgetc" + i;
+			new File(this.tmpDir, names[i]).delete();
+		}
+		final Set<String> threads = Collections.synchronizedSet(new HashSet<String>());
+		when(sessionFactory.getSession()).thenAnswer(new Answer<Session>() {
+			public Session answer(InvocationOnMock invocation) throws Throwable {
+				Session session = mock(Session.class);
+				when(session.listNames("testremote/mgetc*")).thenReturn(names);
+				doAnswer(new Answer<Object>() {
+					public Object answer(InvocationOnMock invocation) throws Throwable {
+						threads.add(Thread.currentThread().getName());
+						Thread.sleep(50);
+						((OutputStream) invocation.getArguments()[1]).write("testData".getBytes());
+						return null;
+					}
+				}).when(session).read(anyString(), any(OutputStream.class));
+				return session;
+			}
+		});
+		@SuppressWarnings("unchecked")
+		Message<List<File>> out = (Message<List<File>>) gw
+				.handleRequestMessage(new GenericMessage<String>("testremote/mgetc*"));
+		assertEquals(10, out.getPayload().size());
+		for (int i = 0; i < names.length; i++) {
+			File file = out.getPayload().get(i);
+			assertEquals(names[i], file.getName());
+			assertEquals(8, file.length());
+			file.delete();
+		}
+		assertTrue(threads.size() > 1);
+		verify(sessionFactory, atLeast(2)).getSession();
+	}
+
 	@Test
 	public void testMove() throws Exception {
 		SessionFactory sessionFactory = mock(SessionFactory.class);
@@ -572,6 +629,9 @@ public class RemoteFileOutboundGatewayTests {
 			public void write(InputStream inputStream, String destination)
 					throws IOException {
 			}
+			public void read(String source, OutputStream outputStream, long offset)
+					throws IOException {
+			}
 			public boolean mkdir(String directory) throws IOException {
 				return true;
 			}
@@ -632,6 +692,9 @@ public class RemoteFileOutboundGatewayTests {
 			public void write(InputStream inputStream, String destination)
 					throws IOException {
 			}
+			public void read(String source, OutputStream outputStream, long offset)
+					throws IOException {
+			}
 			public boolean mkdir(String directory) throws IOException {
 				return true;
 			}
@@ -690,6 +753,9 @@ public class RemoteFileOutboundGatewayTests {
 			public void write(InputStream inputStream, String destination)
 					throws IOException {
 			}
+			public void read(String source, OutputStream outputStream, long offset)
+					throws IOException {
+			}
 			public boolean mkdir(String directory) throws IOException {
 				return true;
 			}
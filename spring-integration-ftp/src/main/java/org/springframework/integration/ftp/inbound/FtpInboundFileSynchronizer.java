@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -50,4 +50,9 @@ public class FtpInboundFileSynchronizer extends AbstractInboundFileSynchronizer<
 		return (file != null ? file.getName() : null);
 	}
 
+	@Override
+	protected long getSize(FTPFile file) {
+		return (file != null ? file.getSize() : -1);
+	}
+
 }
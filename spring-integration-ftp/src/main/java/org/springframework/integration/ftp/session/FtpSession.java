@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,6 +24,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.commons.net.ftp.FTPClient;
 import org.apache.commons.net.ftp.FTPFile;
+import org.springframework.integration.file.remote.session.ResumableSession;
 import org.springframework.integration.file.remote.session.Session;
 import org.springframework.util.Assert;
 
@@ -35,7 +36,7 @@ import org.springframework.util.Assert;
  * @author Gary Russell
  * @since 2.0
  */
-public class FtpSession implements Session<FTPFile> {
+public class FtpSession implements ResumableSession<FTPFile> {
 
 	private final Log logger = LogFactory.getLog(this.getClass());
 
@@ -78,6 +79,17 @@ public class FtpSession implements Session<FTPFile> {
 		logger.info("File has been successfully transfered from: " + path);
 	}
 
+	public void read(String path, OutputStream fos, long offset) throws IOException {
+		Assert.isTrue(offset >= 0, "offset must not be negative");
+		this.client.setRestartOffset(offset);
+		try {
+			this.read(path, fos);
+		}
+		finally {
+			this.client.setRestartOffset(0);
+		}
+	}
+
 	public void write(InputStream inputStream, String path) throws IOException {
 		Assert.notNull(inputStream, "inputStream must not be null");
 		Assert.hasText(path, "path must not be null");
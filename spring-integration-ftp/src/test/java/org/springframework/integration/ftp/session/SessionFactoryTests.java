@@ -15,6 +15,8 @@
  */
 package org.springframework.integration.ftp.session;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.util.Random;
 import java.util.concurrent.ExecutorService;
@@ -29,6 +31,7 @@ import org.junit.Test;
 import org.mockito.Mockito;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.file.remote.session.CachingSessionFactory;
+import org.springframework.integration.file.remote.session.ResumableSession;
 import org.springframework.integration.file.remote.session.Session;
 import org.springframework.integration.file.remote.session.SessionFactory;
 import org.springframework.integration.test.util.TestUtils;
@@ -36,6 +39,8 @@ import org.springframework.integration.test.util.TestUtils;
 import static org.junit.Assert.fail;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Oleg Zhurakousky
@@ -135,6 +140,26 @@ public class SessionFactoryTests {
 		Mockito.verify(sessionFactory, Mockito.times(2)).getSession();
 	}
 
+	@Test
+	public void testCachedSessionIsResumableOnlyIfTargetIs() throws Exception{
+		SessionFactory sessionFactory = Mockito.mock(SessionFactory.class);
+		Session session = Mockito.mock(Session.class);
+		ResumableSession resumableSession = Mockito.mock(ResumableSession.class);
+		Mockito.when(sessionFactory.getSession()).thenReturn(session, resumableSession);
+
+		CachingSessionFactory cachingFactory = new CachingSessionFactory(sessionFactory, 2);
+
+		Session s1 = cachingFactory.getSession();
+		Session s2 = cachingFactory.getSession();
+		assertFalse(s1 instanceof ResumableSession);
+		assertTrue(s2 instanceof ResumableSession);
+		OutputStream os = new ByteArrayOutputStream();
+		((ResumableSession) s2).read("foo", os, 3);
+		Mockito.verify(resumableSession).read("foo", os, 3);
+		s1.close();
+		s2.close();
+	}
+
 	@Test (expected=MessagingException.class) // timeout expire
 	public void testSessionWaitExpire() throws Exception{
 		SessionFactory sessionFactory = Mockito.mock(SessionFactory.class);
@@ -24,7 +24,6 @@ import org.springframework.integration.scripting.DefaultScriptVariableGenerator;
 import org.springframework.integration.scripting.ScriptVariableGenerator;
 import org.springframework.scripting.ScriptSource;
 import org.springframework.scripting.groovy.GroovyObjectCustomizer;
-import org.springframework.scripting.groovy.GroovyScriptFactory;
 import org.springframework.scripting.support.StaticScriptSource;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
@@ -39,6 +38,8 @@ import org.springframework.util.CollectionUtils;
  */
 public class GroovyCommandMessageProcessor extends AbstractScriptExecutingMessageProcessor<Object> {
 
+	private final GroovyScriptClassCache scriptClassCache = new GroovyScriptClassCache();
+
 	private volatile GroovyObjectCustomizer customizer;
 
 	private Binding binding;
@@ -88,6 +89,12 @@ public class GroovyCommandMessageProcessor extends AbstractScriptExecutingMessag
 		this.customizer = customizer;
 	}
 
+	@Override
+	public void setBeanClassLoader(ClassLoader classLoader) {
+		super.setBeanClassLoader(classLoader);
+		this.scriptClassCache.setBeanClassLoader(classLoader);
+	}
+
 	@Override
 	protected ScriptSource getScriptSource(Message<?> message) {
 		Object payload = message.getPayload();
@@ -108,14 +115,8 @@ public class GroovyCommandMessageProcessor extends AbstractScriptExecutingMessag
 		if (!CollectionUtils.isEmpty(variables)) {
 			customizerDecorator.setVariables(variables);
 		}
-		GroovyScriptFactory factory = new GroovyScriptFactory(this.getClass().getSimpleName(), customizerDecorator);
-		if (getBeanClassLoader() != null) {
-			factory.setBeanClassLoader(getBeanClassLoader());
-		}
-		if (getBeanFactory() != null) {
-			factory.setBeanFactory(getBeanFactory());
-		}
-		Object result = factory.getScriptedObject(scriptSource, null);
+		Class<?> scriptClass = this.scriptClassCache.getScriptClass(scriptSource);
+		Object result = GroovyScriptClassCache.execute(scriptClass, customizerDecorator);
 		return (result instanceof GString) ? result.toString() : result;
 	}
 
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.groovy;
+
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovyObject;
+import groovy.lang.Script;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codehaus.groovy.control.CompilationFailedException;
+
+import org.springframework.scripting.ScriptCompilationException;
+import org.springframework.scripting.ScriptSource;
+import org.springframework.scripting.groovy.GroovyObjectCustomizer;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Cache of the classes compiled from Groovy scripts, keyed by a hash of the script
+ * content, so that a script is only compiled once, however many times (or from however
+ * many {@link ScriptSource}s) it is executed. Each script is compiled by its own
+ * {@link GroovyClassLoader}, so classes that are no longer cached can be collected.
+ * <p>
+ * The cache holds up to a configurable number of scripts, after which further scripts
+ * are compiled each time they are executed.
+ *
+ * @since 3.0
+ */
+class GroovyScriptClassCache {
+
+	static final int DEFAULT_CACHE_SIZE = 256;
+
+	private final Map<String, Class<?>> scriptClasses = new ConcurrentHashMap<String, Class<?>>();
+
+	private final int cacheSize;
+
+	private volatile ClassLoader beanClassLoader = ClassUtils.getDefaultClassLoader();
+
+
+	GroovyScriptClassCache() {
+		this(DEFAULT_CACHE_SIZE);
+	}
+
+	GroovyScriptClassCache(int cacheSize) {
+		this.cacheSize = cacheSize;
+	}
+
+
+	void setBeanClassLoader(ClassLoader beanClassLoader) {
+		this.beanClassLoader = beanClassLoader;
+	}
+
+	/**
+	 * Obtain the class for the script's current content, compiling it if necessary.
+	 */
+	Class<?> getScriptClass(ScriptSource scriptSource) throws IOException {
+		String script = scriptSource.getScriptAsString();
+		String key = DigestUtils.md5DigestAsHex(script.getBytes("UTF-8"));
+		Class<?> scriptClass = this.scriptClasses.get(key);
+		if (scriptClass == null) {
+			try {
+				scriptClass = new GroovyClassLoader(this.beanClassLoader).parseClass(script,
+						scriptSource.suggestedClassName());
+			}
+			catch (CompilationFailedException e) {
+				throw new ScriptCompilationException(scriptSource, e);
+			}
+			if (this.scriptClasses.size() < this.cacheSize) {
+				this.scriptClasses.put(key, scriptClass);
+			}
+		}
+		return scriptClass;
+	}
+
+	/**
+	 * Create a new instance of the script class, customize it and, if it is a
+	 * {@link Script}, run it; otherwise the instance is returned.
+	 */
+	static Object execute(Class<?> scriptClass, GroovyObjectCustomizer customizer) {
+		GroovyObject goo;
+		try {
+			goo = (GroovyObject) scriptClass.newInstance();
+		}
+		catch (Exception e) {
+			throw new ScriptCompilationException("Could not instantiate Groovy script class: "
+					+ scriptClass.getName(), e);
+		}
+		customizer.customize(goo);
+		if (goo instanceof Script) {
+			return ((Script) goo).run();
+		}
+		return goo;
+	}
+
+}
@@ -19,22 +19,30 @@ package org.springframework.integration.groovy;
 import groovy.lang.GString;
 
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
-import org.springframework.beans.BeansException;
-import org.springframework.beans.factory.BeanClassLoaderAware;
-import org.springframework.beans.factory.BeanFactory;
-import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.integration.Message;
 import org.springframework.integration.scripting.AbstractScriptExecutingMessageProcessor;
 import org.springframework.integration.scripting.ScriptVariableGenerator;
 import org.springframework.scripting.ScriptSource;
 import org.springframework.scripting.groovy.GroovyObjectCustomizer;
-import org.springframework.scripting.groovy.GroovyScriptFactory;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
 /**
+ * Executes a Groovy script. The class compiled from the script is cached and a new
+ * instance, with its own binding, is created for each execution, so the script can be
+ * executed concurrently. The script is recompiled when the {@link ScriptSource} reports
+ * that it has been modified; by default, this happens on the calling thread, but if a
+ * {@link #setRefreshExecutor(Executor) refreshExecutor} is provided, the script is
+ * recompiled in the background and the previous version is executed until the
+ * compilation is complete.
+ *
  * @author Dave Syer
  * @author Mark Fisher
  * @author Oleg Zhurakousky
@@ -43,13 +51,22 @@ import org.springframework.util.CollectionUtils;
  */
 public class GroovyScriptExecutingMessageProcessor extends AbstractScriptExecutingMessageProcessor<Object> implements InitializingBean {
 
-	private final GroovyScriptFactory scriptFactory;
+	private final Log logger = LogFactory.getLog(this.getClass());
+
+	private final GroovyScriptClassCache scriptClassCache = new GroovyScriptClassCache();
 
-	private final VariableBindingGroovyObjectCustomizerDecorator
-			customizerDecorator = new VariableBindingGroovyObjectCustomizerDecorator();
+	private final Object refreshMonitor = new Object();
+
+	private final AtomicBoolean refreshing = new AtomicBoolean();
 
 	private volatile ScriptSource scriptSource;
 
+	private volatile GroovyObjectCustomizer customizer;
+
+	private volatile Executor refreshExecutor;
+
+	private volatile Class<?> scriptClass;
+
 
 	/**
 	 * Create a processor for the given {@link ScriptSource} that will use a
@@ -58,7 +75,6 @@ public class GroovyScriptExecutingMessageProcessor extends AbstractScriptExecuti
 	public GroovyScriptExecutingMessageProcessor(ScriptSource scriptSource) {
 		super();
 		this.scriptSource = scriptSource;
-		this.scriptFactory = new GroovyScriptFactory(this.getClass().getSimpleName(), this.customizerDecorator);
 	}
 
 	/**
@@ -68,7 +84,6 @@ public class GroovyScriptExecutingMessageProcessor extends AbstractScriptExecuti
 	public GroovyScriptExecutingMessageProcessor(ScriptSource scriptSource, ScriptVariableGenerator scriptVariableGenerator) {
 		super(scriptVariableGenerator);
 		this.scriptSource = scriptSource;
-		this.scriptFactory = new GroovyScriptFactory(this.getClass().getSimpleName(), this.customizerDecorator);
 	}
 
 
@@ -76,7 +91,17 @@ public class GroovyScriptExecutingMessageProcessor extends AbstractScriptExecuti
 	 * Sets a {@link GroovyObjectCustomizer} for this processor.
 	 */
 	public void setCustomizer(GroovyObjectCustomizer customizer) {
-		this.customizerDecorator.setCustomizer(customizer);
+		this.customizer = customizer;
+	}
+
+	/**
+	 * Sets an {@link Executor} used to recompile the script when it has been modified;
+	 * scripts are then executed using the previously compiled version until the
+	 * compilation is complete, rather than waiting for it.
+	 * @since 3.0
+	 */
+	public void setRefreshExecutor(Executor refreshExecutor) {
+		this.refreshExecutor = refreshExecutor;
 	}
 
 	@Override
@@ -87,22 +112,61 @@ public class GroovyScriptExecutingMessageProcessor extends AbstractScriptExecuti
 	@Override
 	protected Object executeScript(ScriptSource scriptSource, Map<String, Object> variables) throws Exception {
 		Assert.notNull(scriptSource, "scriptSource must not be null");
-		synchronized (this) {
-			if (!CollectionUtils.isEmpty(variables)) {
-				this.customizerDecorator.setVariables(variables);
+		Class<?> scriptClass = this.scriptClass;
+		if (scriptClass == null || scriptSource.isModified()) {
+			if (scriptClass != null && this.refreshExecutor != null) {
+				this.refreshInBackground(scriptSource);
 			}
-			Object result = this.scriptFactory.getScriptedObject(scriptSource, null);
-			return (result instanceof GString) ? result.toString() : result;
+			else {
+				scriptClass = this.refresh(scriptSource);
+			}
+		}
+		VariableBindingGroovyObjectCustomizerDecorator customizerDecorator = new VariableBindingGroovyObjectCustomizerDecorator();
+		customizerDecorator.setCustomizer(this.customizer);
+		if (!CollectionUtils.isEmpty(variables)) {
+			customizerDecorator.setVariables(variables);
+		}
+		Object result = GroovyScriptClassCache.execute(scriptClass, customizerDecorator);
+		return (result instanceof GString) ? result.toString() : result;
+	}
+
+	private Class<?> refresh(ScriptSource scriptSource) throws Exception {
+		synchronized (this.refreshMonitor) {
+			this.scriptClass = this.scriptClassCache.getScriptClass(scriptSource);
+			return this.scriptClass;
+		}
+	}
+
+	private void refreshInBackground(final ScriptSource scriptSource) {
+		if (!this.refreshing.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			this.refreshExecutor.execute(new Runnable() {
+
+				public void run() {
+					try {
+						refresh(scriptSource);
+					}
+					catch (Exception e) {
+						logger.error("Failed to recompile the modified script; the previous version will be used", e);
+					}
+					finally {
+						refreshing.set(false);
+					}
+				}
+			});
+		}
+		catch (RuntimeException e) {
+			this.refreshing.set(false);
+			throw e;
 		}
 	}
 
 	@Override
 	public void afterPropertiesSet() throws Exception {
 		if (getBeanClassLoader() != null) {
-			this.scriptFactory.setBeanClassLoader(getBeanClassLoader());
-		}
-		if (getBeanFactory() != null) {
-			this.scriptFactory.setBeanFactory(getBeanFactory());
+			this.scriptClassCache.setBeanClassLoader(getBeanClassLoader());
 		}
 	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,13 +18,21 @@ package org.springframework.integration.groovy;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -176,6 +184,61 @@ public class GroovyScriptExecutingMessageProcessorTests {
 		assertEquals("payload is 'hello'", result.toString());
 	}
 
+	@Test
+	public void testRefreshInBackground() throws Exception {
+		String script = "return \"payload is $payload, header is $headers.testHeader\"";
+		Message<?> message = MessageBuilder.withPayload("foo").setHeader("testHeader", "bar").build();
+		TestResource resource = new TestResource(script, "simpleTest");
+		ScriptSource scriptSource = new RefreshableResourceScriptSource(resource, 0);
+		GroovyScriptExecutingMessageProcessor processor = new GroovyScriptExecutingMessageProcessor(scriptSource);
+		final AtomicReference<Runnable> refresh = new AtomicReference<Runnable>();
+		processor.setRefreshExecutor(new Executor() {
+
+			public void execute(Runnable command) {
+				assertTrue(refresh.compareAndSet(null, command));
+			}
+		});
+		Object result = processor.processMessage(message);
+		assertEquals("payload is foo, header is bar", result.toString());
+		Thread.sleep(20L);
+		resource.setScript("return \"payload is $payload\"");
+		// the previous version is used until the script is recompiled
+		result = processor.processMessage(message);
+		assertEquals("payload is foo, header is bar", result.toString());
+		assertNotNull(refresh.get());
+		refresh.get().run();
+		result = processor.processMessage(message);
+		assertEquals("payload is foo", result.toString());
+	}
+
+	@Test
+	public void testConcurrentExecution() throws Exception {
+		ScriptSource scriptSource = new ResourceScriptSource(new TestResource("Thread.yield(); payload * 2", "concurrent"));
+		final MessageProcessor<Object> processor = new GroovyScriptExecutingMessageProcessor(scriptSource);
+		int threads = 4;
+		final CountDownLatch latch = new CountDownLatch(threads);
+		final AtomicInteger failures = new AtomicInteger();
+		ExecutorService exec = Executors.newFixedThreadPool(threads);
+		for (int i = 0; i < threads; i++) {
+			final int payload = i;
+			exec.execute(new Runnable() {
+
+				public void run() {
+					Message<?> message = MessageBuilder.withPayload(payload).build();
+					for (int j = 0; j < 1000; j++) {
+						if (!Integer.valueOf(payload * 2).equals(processor.processMessage(message))) {
+							failures.incrementAndGet();
+						}
+					}
+					latch.countDown();
+				}
+			});
+		}
+		assertTrue(latch.await(30, TimeUnit.SECONDS));
+		exec.shutdown();
+		assertEquals(0, failures.get());
+	}
+
 
 	private static class TestResource extends AbstractResource {
 
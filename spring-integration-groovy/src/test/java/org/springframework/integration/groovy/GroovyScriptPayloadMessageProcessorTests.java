@@ -17,6 +17,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import groovy.lang.Binding;
@@ -29,6 +30,7 @@ import org.springframework.integration.handler.MessageProcessor;
 import org.springframework.integration.scripting.DefaultScriptVariableGenerator;
 import org.springframework.integration.scripting.ScriptVariableGenerator;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.test.util.TestUtils;
 import org.springframework.test.annotation.Repeat;
 
 /**
@@ -120,4 +122,17 @@ public class GroovyScriptPayloadMessageProcessorTests {
 		assertEquals("spam is bucket, foo is default", result.toString());
 	}
 
+	@Test
+	public void testScriptClassReused() throws Exception {
+		processor = new GroovyCommandMessageProcessor();
+		assertEquals("bar", processor.processMessage(MessageBuilder.withPayload("headers.foo")
+				.setHeader("foo", "bar").build()));
+		assertEquals("baz", processor.processMessage(MessageBuilder.withPayload("headers.foo")
+				.setHeader("foo", "baz").build()));
+		assertEquals("qux", processor.processMessage(MessageBuilder.withPayload("headers.bar")
+				.setHeader("bar", "qux").build()));
+		Map<?, ?> scriptClasses = TestUtils.getPropertyValue(processor, "scriptClassCache.scriptClasses", Map.class);
+		assertEquals(2, scriptClasses.size());
+	}
+
 }
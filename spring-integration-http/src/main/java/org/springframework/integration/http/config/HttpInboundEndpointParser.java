@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -132,6 +132,7 @@ public class HttpInboundEndpointParser extends AbstractSingleBeanDefinitionParse
 			IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "extract-reply-payload");
 			IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "reply-key");
 			IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "convert-exceptions");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "async");
 		}
 		else {
 			IntegrationNamespaceUtils.setValueIfAttributeDefined(
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.http.converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link HttpMessageConverter} that reads a request body as an {@link InputStream}
+ * or a {@link File}, without holding large bodies in memory.
+ * <p>
+ * When reading an {@link InputStream}, bodies up to the {@link #setSizeThreshold(int) sizeThreshold}
+ * are buffered in memory; larger bodies are spooled to a temporary file, which is deleted when the
+ * stream is closed. When reading a {@link File}, the body is always spooled to a temporary file, which
+ * then belongs to the application (for example, it can be moved by a
+ * {@code FileWritingMessageHandler} with {@code deleteSourceFiles} set to true).
+ * <p>
+ * The body is copied from the request rather than passed through because the message may be
+ * handled after the request's thread has returned to the container (for example, when it is
+ * sent to a {@code QueueChannel}), at which time the request's stream is no longer readable.
+ * A {@link #setMaxSize(long) maxSize} can be set to reject bodies that are too large.
+ * <p>
+ * This converter does not write.
+ *
+ * @since 3.0
+ */
+public class SpoolingHttpMessageConverter implements HttpMessageConverter<Object> {
+
+	private static final Log logger = LogFactory.getLog(SpoolingHttpMessageConverter.class);
+
+	private static final int BUFFER_SIZE = 8192;
+
+
+	private final File directory;
+
+	private volatile String prefix = "si_";
+
+	private volatile String suffix = ".tmp";
+
+	private volatile int sizeThreshold = 64 * 1024;
+
+	private volatile long maxSize = -1;
+
+
+	/**
+	 * Create a {@link SpoolingHttpMessageConverter} that creates temporary
+	 * Files in the default temporary directory.
+	 */
+	public SpoolingHttpMessageConverter() {
+		this(null);
+	}
+
+	/**
+	 * Create a {@link SpoolingHttpMessageConverter} that creates temporary
+	 * Files in the given directory.
+	 */
+	public SpoolingHttpMessageConverter(File directory) {
+		this.directory = directory;
+	}
+
+
+	/**
+	 * Specify the prefix to use for temporary files.
+	 */
+	public void setPrefix(String prefix) {
+		this.prefix = prefix;
+	}
+
+	/**
+	 * Specify the suffix to use for temporary files.
+	 */
+	public void setSuffix(String suffix) {
+		this.suffix = suffix;
+	}
+
+	/**
+	 * Specify the maximum number of bytes that are held in memory when reading an
+	 * {@link InputStream}; larger bodies are spooled to a temporary file. Default 64k.
+	 */
+	public void setSizeThreshold(int sizeThreshold) {
+		Assert.isTrue(sizeThreshold >= 0, "'sizeThreshold' cannot be negative");
+		this.sizeThreshold = sizeThreshold;
+	}
+
+	/**
+	 * Specify the maximum number of bytes that will be read; if the body is larger, the
+	 * request is rejected with a {@link HttpMessageNotReadableException}. Default -1 (no limit).
+	 */
+	public void setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public boolean canRead(Class<?> clazz, MediaType mediaType) {
+		return InputStream.class.equals(clazz) || File.class.equals(clazz);
+	}
+
+	public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+		return false;
+	}
+
+	public List<MediaType> getSupportedMediaTypes() {
+		return Collections.singletonList(MediaType.ALL);
+	}
+
+	public Object read(Class<? extends Object> clazz, HttpInputMessage inputMessage) throws IOException {
+		long contentLength = inputMessage.getHeaders().getContentLength();
+		if (this.maxSize >= 0 && contentLength > this.maxSize) {
+			throw new HttpMessageNotReadableException("Content-Length " + contentLength
+					+ " exceeds the maximum size of " + this.maxSize);
+		}
+		InputStream body = inputMessage.getBody();
+		if (File.class.equals(clazz)) {
+			return this.spool(body, null);
+		}
+		if (contentLength > this.sizeThreshold) {
+			return new TemporaryFileInputStream(this.spool(body, null));
+		}
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(contentLength >= 0 ? (int) contentLength
+				: Math.min(this.sizeThreshold, BUFFER_SIZE));
+		byte[] chunk = new byte[BUFFER_SIZE];
+		int n;
+		while ((n = body.read(chunk)) != -1) {
+			buffer.write(chunk, 0, n);
+			if (buffer.size() > this.sizeThreshold) {
+				return new TemporaryFileInputStream(this.spool(body, buffer));
+			}
+		}
+		this.checkSize(buffer.size());
+		return new ByteArrayInputStream(buffer.toByteArray());
+	}
+
+	public void write(Object t, MediaType contentType, HttpOutputMessage outputMessage) throws IOException {
+		throw new UnsupportedOperationException("This converter does not write");
+	}
+
+	/**
+	 * Write any bytes already buffered followed by the rest of the body to a
+	 * temporary file; the file is deleted if the body cannot be read.
+	 */
+	private File spool(InputStream body, ByteArrayOutputStream buffered) throws IOException {
+		File file = File.createTempFile(this.prefix, this.suffix, this.directory);
+		boolean spooled = false;
+		OutputStream out = new FileOutputStream(file);
+		try {
+			long count = 0;
+			if (buffered != null) {
+				buffered.writeTo(out);
+				count = buffered.size();
+			}
+			byte[] chunk = new byte[BUFFER_SIZE];
+			int n;
+			while ((n = body.read(chunk)) != -1) {
+				out.write(chunk, 0, n);
+				count += n;
+				this.checkSize(count);
+			}
+			this.checkSize(count);
+			spooled = true;
+			if (logger.isDebugEnabled()) {
+				logger.debug("spooled " + count + " byte request body to [" + file.getAbsolutePath() + "]");
+			}
+			return file;
+		}
+		finally {
+			out.close();
+			if (!spooled && !file.delete() && logger.isWarnEnabled()) {
+				logger.warn("failed to delete [" + file.getAbsolutePath() + "]");
+			}
+		}
+	}
+
+	private void checkSize(long count) {
+		if (this.maxSize >= 0 && count > this.maxSize) {
+			throw new HttpMessageNotReadableException("Request body exceeds the maximum size of " + this.maxSize);
+		}
+	}
+
+
+	/**
+	 * Reads a spooled body and deletes the temporary file when closed.
+	 */
+	private static class TemporaryFileInputStream extends FileInputStream {
+
+		private final File file;
+
+		private TemporaryFileInputStream(File file) throws IOException {
+			super(file);
+			this.file = file;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			}
+			finally {
+				if (this.file.exists() && !this.file.delete() && logger.isWarnEnabled()) {
+					logger.warn("failed to delete [" + this.file.getAbsolutePath() + "]");
+				}
+			}
+		}
+
+	}
+
+}
@@ -134,12 +134,17 @@ public class HttpRequestHandlingController extends HttpRequestHandlingEndpointSu
 	/**
 	 * Handles the HTTP request by generating a Message and sending it to the request channel. If this gateway's
 	 * 'expectReply' property is true, it will also generate a response from the reply Message once received.
+	 * When the request is processed asynchronously, null is returned; the model and view are generated when
+	 * the request is dispatched again with the reply.
 	 */
 	public final ModelAndView handleRequest(HttpServletRequest servletRequest, HttpServletResponse servletResponse)
 			throws Exception {
 		ModelAndView modelAndView = new ModelAndView();
 		try {
 			Message<?> replyMessage = super.doHandleRequest(servletRequest, servletResponse);
+			if (replyMessage == null && this.isAsyncStarted(servletRequest)) {
+				return null;
+			}
 			if (replyMessage != null) {
 				ServletServerHttpResponse response = new ServletServerHttpResponse(servletResponse);
 				Object reply = setupResponseAndConvertReply(response, replyMessage);
@@ -21,8 +21,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -52,8 +57,11 @@ import org.springframework.integration.MessageHeaders;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.context.OrderlyShutdownCapable;
 import org.springframework.integration.expression.ExpressionUtils;
+import org.springframework.integration.gateway.ListenableReplyFuture;
 import org.springframework.integration.gateway.MessagingGatewaySupport;
+import org.springframework.integration.gateway.ReplyCallback;
 import org.springframework.integration.http.converter.MultipartAwareFormHttpMessageConverter;
+import org.springframework.integration.http.converter.SpoolingHttpMessageConverter;
 import org.springframework.integration.http.multipart.MultipartHttpInputMessage;
 import org.springframework.integration.http.support.DefaultHttpHeaderMapper;
 import org.springframework.integration.mapping.HeaderMapper;
@@ -91,6 +99,11 @@ import org.springframework.web.util.UrlPathHelper;
  * In a request-reply scenario, the reply Message's payload will be extracted prior to generating a response by default.
  * To have the entire serialized Message available for the response, switch the {@link #extractReplyPayload} value to
  * <code>false</code>.
+ * <p>
+ * When {@link #setAsync(boolean) async} is true and the request supports Servlet 3.0 asynchronous processing,
+ * the container thread is released while the downstream flow processes the request; when the reply arrives (or
+ * the reply timeout expires), the request is dispatched back to this endpoint, which generates the response as
+ * usual. If the reply is produced on the calling thread, the response is generated immediately.
  *
  * @author Mark Fisher
  * @author Oleg Zhurakousky
@@ -111,6 +124,14 @@ public abstract class HttpRequestHandlingEndpointSupport extends MessagingGatewa
 	private static boolean romePresent = ClassUtils.isPresent("com.sun.syndication.feed.WireFeed",
 			HttpRequestHandlingEndpointSupport.class.getClassLoader());
 
+	private static final boolean servlet3Present = ClassUtils.isPresent("javax.servlet.AsyncContext",
+			HttpRequestHandlingEndpointSupport.class.getClassLoader());
+
+	private static final String ASYNC_RESULT_ATTRIBUTE = HttpRequestHandlingEndpointSupport.class.getName()
+			+ ".ASYNC_RESULT";
+
+	private static final Object NO_REPLY = new Object();
+
 	private volatile List<HttpMethod> supportedMethods = Arrays.asList(HttpMethod.GET, HttpMethod.POST);
 
 	private volatile Class<?> requestPayloadType = null;
@@ -139,6 +160,8 @@ public abstract class HttpRequestHandlingEndpointSupport extends MessagingGatewa
 
 	private final AtomicInteger activeCount = new AtomicInteger();
 
+	private volatile boolean async;
+
 	public HttpRequestHandlingEndpointSupport() {
 		this(true);
 	}
@@ -150,6 +173,7 @@ public abstract class HttpRequestHandlingEndpointSupport extends MessagingGatewa
 		this.messageConverters.add(new ByteArrayHttpMessageConverter());
 		this.messageConverters.add(new StringHttpMessageConverter());
 		this.messageConverters.add(new ResourceHttpMessageConverter());
+		this.messageConverters.add(new SpoolingHttpMessageConverter());
 		this.messageConverters.add(new SourceHttpMessageConverter());
 		if (jaxb2Present) {
 			this.messageConverters.add(new Jaxb2RootElementHttpMessageConverter());
@@ -248,6 +272,10 @@ public abstract class HttpRequestHandlingEndpointSupport extends MessagingGatewa
 	 * Specify the type of payload to be generated when the inbound HTTP request content is read by the
 	 * {@link HttpMessageConverter}s. By default this value is null which means at runtime any "text" Content-Type will
 	 * result in String while all others default to <code>byte[].class</code>.
+	 * <p>
+	 * To avoid holding large request bodies in memory, use {@link java.io.InputStream} (small bodies are buffered,
+	 * larger ones spooled to a temporary file) or {@link java.io.File} (always spooled to a temporary file); see
+	 * {@link SpoolingHttpMessageConverter}.
 	 */
 	public void setRequestPayloadType(Class<?> requestPayloadType) {
 		this.requestPayloadType = requestPayloadType;
@@ -270,6 +298,17 @@ public abstract class HttpRequestHandlingEndpointSupport extends MessagingGatewa
 		this.multipartResolver = multipartResolver;
 	}
 
+	/**
+	 * Specify whether the container thread should be released while waiting for the reply, using
+	 * Servlet 3.0 asynchronous processing. Requires a Servlet 3.0 container and that asynchronous
+	 * processing is supported by the servlet (and any filters); otherwise, requests are processed
+	 * synchronously. The reply timeout applies to each request. Default false.
+	 * @since 3.0
+	 */
+	public void setAsync(boolean async) {
+		this.async = async;
+	}
+
 	protected boolean isShuttingDown() {
 		return this.shuttingDown;
 	}
@@ -321,6 +360,13 @@ public abstract class HttpRequestHandlingEndpointSupport extends MessagingGatewa
 	 * @return a the response Message
 	 */
 	protected final Message<?> doHandleRequest(HttpServletRequest servletRequest, HttpServletResponse servletResponse) throws IOException {
+		if (this.async) {
+			Object asyncResult = servletRequest.getAttribute(ASYNC_RESULT_ATTRIBUTE);
+			if (asyncResult != null) {
+				servletRequest.removeAttribute(ASYNC_RESULT_ATTRIBUTE);
+				return this.asyncResultToReply(asyncResult);
+			}
+		}
 		if (this.isShuttingDown()) {
 			return createServiceUnavailableResponse();
 		}
@@ -332,6 +378,7 @@ public abstract class HttpRequestHandlingEndpointSupport extends MessagingGatewa
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	private Message<?> actualDoHandleRequest(HttpServletRequest servletRequest, HttpServletResponse servletResponse) throws IOException {
 		this.activeCount.incrementAndGet();
+		boolean asyncStarted = false;
 		try {
 			ServletServerHttpRequest request = this.prepareRequest(servletRequest);
 			if (!this.supportedMethods.contains(request.getMethod())) {
@@ -404,6 +451,15 @@ public abstract class HttpRequestHandlingEndpointSupport extends MessagingGatewa
 
 			Message<?> reply = null;
 			if (this.expectReply) {
+				if (this.async && this.isAsyncSupported(servletRequest)) {
+					ListenableReplyFuture<Message<?>> future = this.sendAndReceiveMessageAsync(message);
+					if (future.isDone()) {
+						return this.getCompletedReply(future);
+					}
+					future.addCallback(new AsyncReplyHandler(servletRequest, future));
+					asyncStarted = true;
+					return null;
+				}
 				reply = this.sendAndReceiveMessage(message);
 			}
 			else {
@@ -413,8 +469,74 @@ public abstract class HttpRequestHandlingEndpointSupport extends MessagingGatewa
 		}
 		finally {
 			this.postProcessRequest(servletRequest);
-			this.activeCount.decrementAndGet();
+			if (!asyncStarted) {
+				this.activeCount.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * @return true if the request is being processed asynchronously, in which case no
+	 * response must be generated; the request will be dispatched again when the reply
+	 * is available.
+	 * @since 3.0
+	 */
+	protected final boolean isAsyncStarted(HttpServletRequest servletRequest) {
+		if (!this.async || !servlet3Present) {
+			return false;
+		}
+		try {
+			return servletRequest.isAsyncStarted();
+		}
+		catch (AbstractMethodError e) {
+			// a request implementation that predates Servlet 3.0
+			return false;
+		}
+	}
+
+	private boolean isAsyncSupported(HttpServletRequest servletRequest) {
+		if (!servlet3Present) {
+			return false;
+		}
+		try {
+			return servletRequest.isAsyncSupported();
+		}
+		catch (AbstractMethodError e) {
+			// a request implementation that predates Servlet 3.0
+			return false;
+		}
+	}
+
+	private Message<?> getCompletedReply(ListenableReplyFuture<Message<?>> future) throws IOException {
+		try {
+			return future.get();
+		}
+		catch (ExecutionException e) {
+			return this.asyncResultToReply(e.getCause());
 		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MessagingException("interrupted while retrieving the reply", e);
+		}
+	}
+
+	private Message<?> asyncResultToReply(Object asyncResult) throws IOException {
+		if (asyncResult instanceof Message<?>) {
+			return (Message<?>) asyncResult;
+		}
+		else if (asyncResult instanceof RuntimeException) {
+			throw (RuntimeException) asyncResult;
+		}
+		else if (asyncResult instanceof IOException) {
+			throw (IOException) asyncResult;
+		}
+		else if (asyncResult instanceof Error) {
+			throw (Error) asyncResult;
+		}
+		else if (asyncResult instanceof Throwable) {
+			throw new MessagingException("error occurred handling HTTP request", (Throwable) asyncResult);
+		}
+		return null;
 	}
 
 	private Message<?> createServiceUnavailableResponse() {
@@ -580,4 +702,67 @@ public abstract class HttpRequestHandlingEndpointSupport extends MessagingGatewa
 	public int afterShutdown() {
 		return this.activeCount.get();
 	}
+
+
+	/**
+	 * Releases the container thread and dispatches the request back to this endpoint when
+	 * the reply future completes; if the request fails or times out in the container first,
+	 * the future is cancelled so that a late reply is discarded. Only loaded when
+	 * asynchronous processing is used, so the endpoint can run in Servlet 2.5 containers.
+	 */
+	private class AsyncReplyHandler implements ReplyCallback<Message<?>>, AsyncListener {
+
+		private final AsyncContext asyncContext;
+
+		private final ListenableReplyFuture<Message<?>> future;
+
+		private final AtomicBoolean completed = new AtomicBoolean();
+
+		private AsyncReplyHandler(HttpServletRequest servletRequest, ListenableReplyFuture<Message<?>> future) {
+			this.future = future;
+			this.asyncContext = servletRequest.startAsync();
+			// the reply timeout is enforced by the gateway
+			this.asyncContext.setTimeout(0);
+			this.asyncContext.addListener(this);
+		}
+
+		public void onReply(Message<?> reply) {
+			this.dispatch(reply != null ? reply : NO_REPLY);
+		}
+
+		public void onFailure(Throwable t) {
+			this.dispatch(t);
+		}
+
+		private void dispatch(Object result) {
+			if (this.completed.compareAndSet(false, true)) {
+				activeCount.decrementAndGet();
+				this.asyncContext.getRequest().setAttribute(ASYNC_RESULT_ATTRIBUTE, result);
+				this.asyncContext.dispatch();
+			}
+		}
+
+		public void onTimeout(AsyncEvent event) throws IOException {
+			this.abandon();
+		}
+
+		public void onError(AsyncEvent event) throws IOException {
+			this.abandon();
+		}
+
+		private void abandon() {
+			if (this.completed.compareAndSet(false, true)) {
+				activeCount.decrementAndGet();
+				this.future.cancel(false);
+			}
+		}
+
+		public void onComplete(AsyncEvent event) throws IOException {
+		}
+
+		public void onStartAsync(AsyncEvent event) throws IOException {
+		}
+
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,11 @@ import org.springframework.web.multipart.MultipartFile;
  * {@link MultipartFileReader} implementation that copies the MulitpartFile's
  * content to a new temporary File in the specified directory. If no directory
  * is provided, the Files will be created in the default temporary directory.
+ * <p>
+ * A {@link #setSizeThreshold(long) sizeThreshold} can be set so that only large
+ * files are spooled to disk, while small ones are held in memory. When the
+ * MultipartResolver has already stored a large upload on disk, it is typically
+ * moved, rather than copied, to the temporary File.
  * 
  * @author Mark Fisher
  * @since 2.0
@@ -43,6 +48,8 @@ public class FileCopyingMultipartFileReader implements MultipartFileReader<Multi
 
 	private volatile String suffix = ".tmp";
 
+	private volatile long sizeThreshold = -1;
+
 
 	/**
 	 * Create a {@link FileCopyingMultipartFileReader} that creates temporary
@@ -75,7 +82,20 @@ public class FileCopyingMultipartFileReader implements MultipartFileReader<Multi
 		this.suffix = suffix;
 	}
 
+	/**
+	 * Specify the size (in bytes) up to which files are read into memory rather
+	 * than copied to a temporary File. Default -1 (all files are copied).
+	 * @since 3.0
+	 */
+	public void setSizeThreshold(long sizeThreshold) {
+		this.sizeThreshold = sizeThreshold;
+	}
+
 	public MultipartFile readMultipartFile(MultipartFile multipartFile) throws IOException {
+		if (multipartFile.getSize() <= this.sizeThreshold) {
+			return new UploadedMultipartFile(multipartFile.getBytes(), multipartFile.getContentType(),
+					multipartFile.getName(), multipartFile.getOriginalFilename());
+		}
 		File upload = File.createTempFile(this.prefix, this.suffix, this.directory);
 		multipartFile.transferTo(upload);
 		UploadedMultipartFile uploadedMultipartFile = new UploadedMultipartFile(upload, multipartFile.getSize(),
@@ -0,0 +1,492 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.http.outbound;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.nio.client.HttpAsyncClient;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.util.EntityUtils;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.expression.Expression;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageChannel;
+import org.springframework.integration.MessageHandlingException;
+import org.springframework.integration.MessagingException;
+import org.springframework.integration.channel.MessagePublishingErrorHandler;
+import org.springframework.integration.handler.ReplyRequiredException;
+import org.springframework.util.Assert;
+import org.springframework.web.client.HttpMessageConverterExtractor;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * An {@link HttpRequestExecutingMessageHandler} that executes requests with a non-blocking
+ * Apache {@link HttpAsyncClient}. The calling thread returns as soon as the request has been
+ * handed to the client; the reply is produced when the response arrives, on the client's
+ * I/O dispatch thread, so no thread is held for the duration of the exchange. Since
+ * downstream processing runs on that thread, consider using an executor or queue channel
+ * as the output channel when that processing is not trivial.
+ * <p>
+ * Unless a client is provided, a client with a pool of persistent (keep-alive) connections
+ * is created, bounded by {@link #setMaxConnections(int) maxConnections} and
+ * {@link #setMaxConnectionsPerRoute(int) maxConnectionsPerRoute}; it is closed when this
+ * handler is destroyed.
+ * <p>
+ * The number of requests in flight is bounded by {@link #setMaxInFlight(int) maxInFlight};
+ * when that limit is reached, the calling thread blocks until a response has been
+ * received, applying back-pressure to the sender.
+ * <p>
+ * The {@link RestTemplate}'s message converters and error handler are used to write
+ * requests and read responses; its request factory is not used. Failures that occur
+ * after the request has been sent are reported as an {@link org.springframework.integration.message.ErrorMessage}
+ * to the request message's error channel header, if present, otherwise to the
+ * {@link #setErrorChannel(MessageChannel) errorChannel}, or the 'errorChannel' bean.
+ *
+ * @since 3.0
+ */
+public class AsyncHttpRequestExecutingMessageHandler extends HttpRequestExecutingMessageHandler
+		implements DisposableBean {
+
+	public static final int DEFAULT_MAX_CONNECTIONS = 100;
+
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+	public static final int DEFAULT_MAX_IN_FLIGHT = 200;
+
+	private final ConcurrentMap<Class<?>, List<MediaType>> acceptableMediaTypes =
+			new ConcurrentHashMap<Class<?>, List<MediaType>>();
+
+	private volatile HttpAsyncClient asyncClient;
+
+	private volatile CloseableHttpAsyncClient internalClient;
+
+	private volatile int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+	private volatile int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+
+	private volatile int connectTimeout = -1;
+
+	private volatile int readTimeout = -1;
+
+	private volatile int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+	private volatile Semaphore inFlight;
+
+	private volatile boolean requiresReply;
+
+	private volatile MessageChannel errorChannel;
+
+	private volatile MessagePublishingErrorHandler errorHandler;
+
+	/**
+	 * Create a handler that will send requests to the provided URI.
+	 */
+	public AsyncHttpRequestExecutingMessageHandler(String uri) {
+		super(uri);
+	}
+
+	/**
+	 * Create a handler that will send requests to the provided URI Expression.
+	 */
+	public AsyncHttpRequestExecutingMessageHandler(Expression uriExpression) {
+		super(uriExpression);
+	}
+
+	/**
+	 * Create a handler that will send requests to the provided URI Expression, using the
+	 * message converters and error handler of the provided RestTemplate.
+	 */
+	public AsyncHttpRequestExecutingMessageHandler(Expression uriExpression, RestTemplate restTemplate) {
+		super(uriExpression, restTemplate);
+	}
+
+	/**
+	 * Provide a client to use instead of the default pooling client; it must be started
+	 * before use and it will not be closed by this handler. When a client is provided, the
+	 * connection and timeout settings of this handler are ignored.
+	 */
+	public void setAsyncClient(HttpAsyncClient asyncClient) {
+		Assert.notNull(asyncClient, "'asyncClient' must not be null");
+		this.asyncClient = asyncClient;
+	}
+
+	/**
+	 * The maximum number of connections in the pool. Default {@value #DEFAULT_MAX_CONNECTIONS}.
+	 */
+	public void setMaxConnections(int maxConnections) {
+		Assert.isTrue(maxConnections > 0, "'maxConnections' must be greater than 0");
+		this.maxConnections = maxConnections;
+	}
+
+	/**
+	 * The maximum number of pooled connections to any one host.
+	 * Default {@value #DEFAULT_MAX_CONNECTIONS_PER_ROUTE}.
+	 */
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		Assert.isTrue(maxConnectionsPerRoute > 0, "'maxConnectionsPerRoute' must be greater than 0");
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	/**
+	 * The connect timeout in milliseconds; by default, the system default is used.
+	 */
+	public void setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	/**
+	 * The socket (read) timeout in milliseconds; by default, the system default is used.
+	 */
+	public void setReadTimeout(int readTimeout) {
+		this.readTimeout = readTimeout;
+	}
+
+	/**
+	 * The maximum number of requests awaiting a response; when reached, the calling
+	 * thread blocks until a response is received. Default {@value #DEFAULT_MAX_IN_FLIGHT}.
+	 */
+	public void setMaxInFlight(int maxInFlight) {
+		Assert.isTrue(maxInFlight > 0, "'maxInFlight' must be greater than 0");
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * The channel to which failures are sent when the request message has no error
+	 * channel header; by default, the 'errorChannel' bean is used.
+	 */
+	public void setErrorChannel(MessageChannel errorChannel) {
+		this.errorChannel = errorChannel;
+	}
+
+	/**
+	 * Since the reply is produced asynchronously, the requirement is enforced when the
+	 * response is received; a missing reply is reported to the error channel.
+	 */
+	@Override
+	public void setRequiresReply(boolean requiresReply) {
+		this.requiresReply = requiresReply;
+	}
+
+	/**
+	 * @return the number of requests that have been sent but not yet completed.
+	 */
+	public int getInFlightCount() {
+		Semaphore inFlight = this.inFlight;
+		return inFlight == null ? 0 : this.maxInFlight - inFlight.availablePermits();
+	}
+
+	@Override
+	public void onInit() {
+		super.onInit();
+		if (this.asyncClient == null) {
+			RequestConfig requestConfig = RequestConfig.custom()
+					.setConnectTimeout(this.connectTimeout)
+					.setSocketTimeout(this.readTimeout)
+					.build();
+			CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+					.setMaxConnTotal(this.maxConnections)
+					.setMaxConnPerRoute(this.maxConnectionsPerRoute)
+					.setDefaultRequestConfig(requestConfig)
+					.disableCookieManagement()
+					.build();
+			client.start();
+			this.internalClient = client;
+			this.asyncClient = client;
+		}
+		this.inFlight = new Semaphore(this.maxInFlight);
+		MessagePublishingErrorHandler errorHandler = new MessagePublishingErrorHandler();
+		if (this.getBeanFactory() != null) {
+			errorHandler.setBeanFactory(this.getBeanFactory());
+		}
+		errorHandler.setDefaultErrorChannel(this.errorChannel);
+		this.errorHandler = errorHandler;
+	}
+
+	public void destroy() throws Exception {
+		CloseableHttpAsyncClient client = this.internalClient;
+		if (client != null) {
+			this.internalClient = null;
+			this.asyncClient = null;
+			client.close();
+		}
+	}
+
+	@Override
+	protected Object exchange(URI uri, HttpMethod httpMethod, HttpEntity<?> httpRequest,
+			Class<?> expectedResponseType, Message<?> requestMessage) throws Exception {
+		Assert.state(this.asyncClient != null, "handler has not been initialized");
+		HttpUriRequest request = this.createRequest(uri, httpMethod, httpRequest, expectedResponseType);
+		try {
+			this.inFlight.acquire();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MessageHandlingException(requestMessage, "Interrupted while waiting to send HTTP request", e);
+		}
+		try {
+			this.asyncClient.execute(request, new ResponseCallback(uri, expectedResponseType, requestMessage));
+		}
+		catch (RuntimeException e) {
+			this.inFlight.release();
+			throw e;
+		}
+		return null;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private HttpUriRequest createRequest(URI uri, HttpMethod httpMethod, HttpEntity<?> httpEntity,
+			Class<?> expectedResponseType) throws IOException {
+		BufferedOutputMessage outputMessage = new BufferedOutputMessage();
+		HttpHeaders headers = outputMessage.getHeaders();
+		if (expectedResponseType != null) {
+			headers.setAccept(this.getAcceptableMediaTypes(expectedResponseType));
+		}
+		headers.putAll(httpEntity.getHeaders());
+		Object body = httpEntity.getBody();
+		if (body != null) {
+			Class<?> bodyType = body.getClass();
+			MediaType contentType = httpEntity.getHeaders().getContentType();
+			HttpMessageConverter converter = null;
+			for (HttpMessageConverter<?> candidate : this.getRestTemplate().getMessageConverters()) {
+				if (candidate.canWrite(bodyType, contentType)) {
+					converter = candidate;
+					break;
+				}
+			}
+			if (converter == null) {
+				throw new RestClientException("Could not write request: no suitable HttpMessageConverter found for " +
+						"request type [" + bodyType.getName() + "]" +
+						(contentType != null ? " and content type [" + contentType + "]" : ""));
+			}
+			converter.write(body, contentType, outputMessage);
+		}
+		RequestBuilder builder = RequestBuilder.create(httpMethod.name()).setUri(uri);
+		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+			String name = entry.getKey();
+			// set by the client from the entity
+			if (!HTTP.CONTENT_LEN.equalsIgnoreCase(name) && !HTTP.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+				for (String value : entry.getValue()) {
+					builder.addHeader(name, value);
+				}
+			}
+		}
+		if (body != null) {
+			builder.setEntity(new ByteArrayEntity(outputMessage.getBodyAsBytes()));
+		}
+		return builder.build();
+	}
+
+	private List<MediaType> getAcceptableMediaTypes(Class<?> responseType) {
+		List<MediaType> mediaTypes = this.acceptableMediaTypes.get(responseType);
+		if (mediaTypes == null) {
+			mediaTypes = new ArrayList<MediaType>();
+			for (HttpMessageConverter<?> converter : this.getRestTemplate().getMessageConverters()) {
+				if (converter.canRead(responseType, null)) {
+					for (MediaType mediaType : converter.getSupportedMediaTypes()) {
+						if (mediaType.getCharSet() != null) {
+							mediaType = new MediaType(mediaType.getType(), mediaType.getSubtype());
+						}
+						if (!mediaTypes.contains(mediaType)) {
+							mediaTypes.add(mediaType);
+						}
+					}
+				}
+			}
+			MediaType.sortBySpecificity(mediaTypes);
+			this.acceptableMediaTypes.putIfAbsent(responseType, mediaTypes);
+		}
+		return mediaTypes;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private ResponseEntity<?> createResponseEntity(HttpResponse httpResponse, Class<?> expectedResponseType)
+			throws IOException {
+		ClientHttpResponse response = new AsyncClientHttpResponse(httpResponse);
+		try {
+			ResponseErrorHandler responseErrorHandler = this.getRestTemplate().getErrorHandler();
+			if (responseErrorHandler.hasError(response)) {
+				responseErrorHandler.handleError(response);
+			}
+			Object body = null;
+			if (expectedResponseType != null && !Void.class.equals(expectedResponseType)) {
+				body = new HttpMessageConverterExtractor(expectedResponseType,
+						this.getRestTemplate().getMessageConverters()).extractData(response);
+			}
+			return new ResponseEntity<Object>(body, response.getHeaders(), response.getStatusCode());
+		}
+		finally {
+			response.close();
+		}
+	}
+
+
+	private class ResponseCallback implements FutureCallback<HttpResponse> {
+
+		private final URI uri;
+
+		private final Class<?> expectedResponseType;
+
+		private final Message<?> requestMessage;
+
+		private ResponseCallback(URI uri, Class<?> expectedResponseType, Message<?> requestMessage) {
+			this.uri = uri;
+			this.expectedResponseType = expectedResponseType;
+			this.requestMessage = requestMessage;
+		}
+
+		public void completed(HttpResponse httpResponse) {
+			inFlight.release();
+			try {
+				Object reply = getReply(createResponseEntity(httpResponse, this.expectedResponseType));
+				if (reply != null) {
+					handleAsyncResult(reply, this.requestMessage.getHeaders());
+				}
+				else if (requiresReply) {
+					throw new ReplyRequiredException(this.requestMessage, "No reply produced by handler '" +
+							getComponentName() + "', and its 'requiresReply' property is set to true.");
+				}
+			}
+			catch (MessagingException e) {
+				errorHandler.handleError(e);
+			}
+			catch (Exception e) {
+				this.handleFailure(e);
+			}
+		}
+
+		public void failed(Exception ex) {
+			inFlight.release();
+			this.handleFailure(ex);
+		}
+
+		public void cancelled() {
+			inFlight.release();
+			errorHandler.handleError(new MessageHandlingException(this.requestMessage,
+					"HTTP request cancelled for URI [" + this.uri + "]"));
+		}
+
+		private void handleFailure(Exception ex) {
+			errorHandler.handleError(new MessageHandlingException(this.requestMessage,
+					"HTTP request execution failed for URI [" + this.uri + "]", ex));
+		}
+
+	}
+
+
+	private static class BufferedOutputMessage implements HttpOutputMessage {
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		public OutputStream getBody() throws IOException {
+			return this.body;
+		}
+
+		private byte[] getBodyAsBytes() {
+			return this.body.toByteArray();
+		}
+
+	}
+
+
+	private static class AsyncClientHttpResponse implements ClientHttpResponse {
+
+		private final HttpResponse httpResponse;
+
+		private volatile HttpHeaders headers;
+
+		private AsyncClientHttpResponse(HttpResponse httpResponse) {
+			this.httpResponse = httpResponse;
+		}
+
+		public int getRawStatusCode() throws IOException {
+			return this.httpResponse.getStatusLine().getStatusCode();
+		}
+
+		public HttpStatus getStatusCode() throws IOException {
+			return HttpStatus.valueOf(this.getRawStatusCode());
+		}
+
+		public String getStatusText() throws IOException {
+			return this.httpResponse.getStatusLine().getReasonPhrase();
+		}
+
+		public HttpHeaders getHeaders() {
+			if (this.headers == null) {
+				HttpHeaders headers = new HttpHeaders();
+				for (Header header : this.httpResponse.getAllHeaders()) {
+					headers.add(header.getName(), header.getValue());
+				}
+				this.headers = headers;
+			}
+			return this.headers;
+		}
+
+		public InputStream getBody() throws IOException {
+			return this.httpResponse.getEntity() != null ? this.httpResponse.getEntity().getContent()
+					: new ByteArrayInputStream(new byte[0]);
+		}
+
+		public void close() {
+			try {
+				EntityUtils.consume(this.httpResponse.getEntity());
+			}
+			catch (IOException e) {
+				// ignore
+			}
+		}
+
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.integration.http.outbound;
 
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -110,6 +111,16 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 
 	private volatile HeaderMapper<HttpHeaders> headerMapper = DefaultHttpHeaderMapper.outboundMapper();
 
+	/*
+	 * The results of evaluating literal expressions are cached, so that a fixed URI,
+	 * method and response type are only parsed/resolved once.
+	 */
+	private volatile URI literalUri;
+
+	private volatile HttpMethod literalHttpMethod;
+
+	private volatile Class<?> literalExpectedResponseType;
+
 	/**
 	 * Create a handler that will send requests to the provided URI.
 	 */
@@ -169,6 +180,7 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 	 */
 	public void setEncodeUri(boolean encodeUri) {
 		this.encodeUri = encodeUri;
+		this.literalUri = null;
 	}
 
 	/**
@@ -179,6 +191,7 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 	public void setHttpMethodExpression(Expression httpMethodExpression) {
 		Assert.notNull(httpMethodExpression, "'httpMethodExpression' must not be null");
 		this.httpMethodExpression = httpMethodExpression;
+		this.literalHttpMethod = null;
 	}
 
 	/**
@@ -186,6 +199,7 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 	 */
 	public void setHttpMethod(HttpMethod httpMethod) {
 		this.httpMethodExpression = new LiteralExpression(httpMethod.name());
+		this.literalHttpMethod = null;
 	}
 
 	/**
@@ -226,6 +240,7 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 	public void setExpectedResponseType(Class<?> expectedResponseType) {
 		Assert.notNull(expectedResponseType, "'expectedResponseType' must not be null");
 		this.expectedResponseTypeExpression = new LiteralExpression(expectedResponseType.getName());
+		this.literalExpectedResponseType = null;
 	}
 
 	/**
@@ -236,6 +251,7 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 	 */
 	public void setExpectedResponseTypeExpression(Expression expectedResponseTypeExpression) {
 		this.expectedResponseTypeExpression = expectedResponseTypeExpression;
+		this.literalExpectedResponseType = null;
 	}
 
 	/**
@@ -279,6 +295,7 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 		synchronized (this.uriVariableExpressions) {
 			this.uriVariableExpressions.clear();
 			this.uriVariableExpressions.putAll(uriVariableExpressions);
+			this.literalUri = null;
 		}
 	}
 
@@ -344,12 +361,6 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 		String uri = this.uriExpression.getValue(this.evaluationContext, requestMessage, String.class);
 		Assert.notNull(uri, "URI Expression evaluation cannot result in null");
 		try {
-			Map<String, Object> uriVariables = new HashMap<String, Object>();
-			for (Map.Entry<String, Expression> entry : this.uriVariableExpressions.entrySet()) {
-				Object value = entry.getValue().getValue(this.evaluationContext, requestMessage, String.class);
-				uriVariables.put(entry.getKey(), value);
-			}
-
 			HttpMethod httpMethod = this.determineHttpMethod(requestMessage);
 
 			if (!this.shouldIncludeRequestBody(httpMethod) && this.extractPayloadExplicitlySet){
@@ -362,29 +373,8 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 			Class<?> expectedResponseType = this.determineExpectedResponseType(requestMessage);
 
 			HttpEntity<?> httpRequest = this.generateHttpRequest(requestMessage, httpMethod);
-			UriComponents uriComponents = UriComponentsBuilder.fromUriString(uri).buildAndExpand(uriVariables);
-			URI realUri = this.encodeUri ? uriComponents.toUri() : new URI(uriComponents.toUriString());
-			ResponseEntity<?> httpResponse = this.restTemplate.exchange(realUri, httpMethod, httpRequest, expectedResponseType);
-			if (this.expectReply) {
-				HttpHeaders httpHeaders = httpResponse.getHeaders();
-				Map<String, Object> headers = this.headerMapper.toHeaders(httpHeaders);
-				if (this.transferCookies) {
-					this.doConvertSetCookie(headers);
-				}
-				MessageBuilder<?> replyBuilder = null;
-				if (httpResponse.hasBody()) {
-					Object responseBody = httpResponse.getBody();
-					replyBuilder = (responseBody instanceof Message<?>) ?
-							MessageBuilder.fromMessage((Message<?>) responseBody) : MessageBuilder.withPayload(responseBody);
-
-				}
-				else {
-					replyBuilder = MessageBuilder.withPayload(httpResponse);
-				}
-				replyBuilder.setHeader(org.springframework.integration.http.HttpHeaders.STATUS_CODE, httpResponse.getStatusCode());
-				return replyBuilder.copyHeaders(headers).build();
-			}
-			return null;
+			URI realUri = this.determineUri(uri, requestMessage);
+			return this.exchange(realUri, httpMethod, httpRequest, expectedResponseType, requestMessage);
 		}
 		catch (MessagingException e) {
 			throw e;
@@ -394,6 +384,80 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 		}
 	}
 
+	/**
+	 * Execute the HTTP request and return the reply, if any. This implementation
+	 * performs a blocking exchange using the {@link RestTemplate}.
+	 * @param uri the fully expanded request URI.
+	 * @param httpMethod the HTTP method.
+	 * @param httpRequest the request entity.
+	 * @param expectedResponseType the expected response type (may be null).
+	 * @param requestMessage the request message.
+	 * @return the reply, or null.
+	 * @throws Exception any exception; it will be wrapped in a {@link MessageHandlingException}.
+	 * @since 3.0
+	 */
+	protected Object exchange(URI uri, HttpMethod httpMethod, HttpEntity<?> httpRequest,
+			Class<?> expectedResponseType, Message<?> requestMessage) throws Exception {
+		ResponseEntity<?> httpResponse = this.restTemplate.exchange(uri, httpMethod, httpRequest, expectedResponseType);
+		return this.getReply(httpResponse);
+	}
+
+	/**
+	 * Build the reply from the response; returns null if 'expectReply' is false.
+	 * @param httpResponse the response.
+	 * @return the reply.
+	 * @since 3.0
+	 */
+	protected Object getReply(ResponseEntity<?> httpResponse) {
+		if (this.expectReply) {
+			HttpHeaders httpHeaders = httpResponse.getHeaders();
+			Map<String, Object> headers = this.headerMapper.toHeaders(httpHeaders);
+			if (this.transferCookies) {
+				this.doConvertSetCookie(headers);
+			}
+			MessageBuilder<?> replyBuilder = null;
+			if (httpResponse.hasBody()) {
+				Object responseBody = httpResponse.getBody();
+				replyBuilder = (responseBody instanceof Message<?>) ?
+						MessageBuilder.fromMessage((Message<?>) responseBody) : MessageBuilder.withPayload(responseBody);
+
+			}
+			else {
+				replyBuilder = MessageBuilder.withPayload(httpResponse);
+			}
+			replyBuilder.setHeader(org.springframework.integration.http.HttpHeaders.STATUS_CODE, httpResponse.getStatusCode());
+			return replyBuilder.copyHeaders(headers).build();
+		}
+		return null;
+	}
+
+	/**
+	 * Provides access to the {@link RestTemplate} for subclasses; its message converters
+	 * and error handler are used for all requests.
+	 * @since 3.0
+	 */
+	protected RestTemplate getRestTemplate() {
+		return this.restTemplate;
+	}
+
+	private URI determineUri(String uri, Message<?> requestMessage) throws URISyntaxException {
+		URI realUri = this.literalUri;
+		if (realUri != null) {
+			return realUri;
+		}
+		Map<String, Object> uriVariables = new HashMap<String, Object>();
+		for (Map.Entry<String, Expression> entry : this.uriVariableExpressions.entrySet()) {
+			Object value = entry.getValue().getValue(this.evaluationContext, requestMessage, String.class);
+			uriVariables.put(entry.getKey(), value);
+		}
+		UriComponents uriComponents = UriComponentsBuilder.fromUriString(uri).buildAndExpand(uriVariables);
+		realUri = this.encodeUri ? uriComponents.toUri() : new URI(uriComponents.toUriString());
+		if (this.uriExpression instanceof LiteralExpression && uriVariables.isEmpty()) {
+			this.literalUri = realUri;
+		}
+		return realUri;
+	}
+
 	/**
 	 * Convert Set-Cookie to Cookie
 	 */
@@ -554,20 +618,36 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 	}
 
 	private HttpMethod determineHttpMethod(Message<?> requestMessage) {
+		HttpMethod httpMethod = this.literalHttpMethod;
+		if (httpMethod != null) {
+			return httpMethod;
+		}
+		Expression httpMethodExpression = this.httpMethodExpression;
 		String strHttpMethod = httpMethodExpression.getValue(this.evaluationContext, requestMessage, String.class);
 		Assert.isTrue(StringUtils.hasText(strHttpMethod) && !Arrays.asList(HttpMethod.values()).contains(strHttpMethod),
 				"The 'httpMethodExpression' returned an invalid HTTP Method value: " + strHttpMethod);
-		return HttpMethod.valueOf(strHttpMethod);
+		httpMethod = HttpMethod.valueOf(strHttpMethod);
+		if (httpMethodExpression instanceof LiteralExpression) {
+			this.literalHttpMethod = httpMethod;
+		}
+		return httpMethod;
 	}
 
 	private Class<?> determineExpectedResponseType(Message<?> requestMessage) throws Exception{
-		Class<?> expectedResponseType = null;
+		Class<?> expectedResponseType = this.literalExpectedResponseType;
+		if (expectedResponseType != null) {
+			return expectedResponseType;
+		}
+		Expression expectedResponseTypeExpression = this.expectedResponseTypeExpression;
 		String expectedResponseTypeName = null;
-		if (this.expectedResponseTypeExpression != null){
-			expectedResponseTypeName = this.expectedResponseTypeExpression.getValue(this.evaluationContext, requestMessage, String.class);
+		if (expectedResponseTypeExpression != null){
+			expectedResponseTypeName = expectedResponseTypeExpression.getValue(this.evaluationContext, requestMessage, String.class);
 		}
 		if (StringUtils.hasText(expectedResponseTypeName)){
 			expectedResponseType = ClassUtils.forName(expectedResponseTypeName, ClassUtils.getDefaultClassLoader());
+			if (expectedResponseTypeExpression instanceof LiteralExpression) {
+				this.literalExpectedResponseType = expectedResponseType;
+			}
 		}
 		return expectedResponseType;
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -44,10 +45,10 @@ import org.springframework.http.MediaType;
 import org.springframework.integration.MessageHeaders;
 import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.mapping.HeaderMapper;
+import org.springframework.integration.mapping.HeaderNameMatcher;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ObjectUtils;
-import org.springframework.util.PatternMatchUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -244,6 +245,10 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 
 	private volatile String[] inboundHeaderNames = new String[0];
 
+	private volatile HeaderNameMatcher outboundHeaderMatcher = this.createHeaderNameMatcher(this.outboundHeaderNames);
+
+	private volatile HeaderNameMatcher inboundHeaderMatcher = this.createHeaderNameMatcher(this.inboundHeaderNames);
+
 	private volatile String[] excludedOutboundStandardRequestHeaderNames = new String[0];
 
 	private volatile String[] excludedInboundStandardResponseHeaderNames = new String[0];
@@ -264,6 +269,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 	 */
 	public void setOutboundHeaderNames(String[] outboundHeaderNames) {
 		this.outboundHeaderNames = (outboundHeaderNames != null) ? outboundHeaderNames : new String[0];
+		this.outboundHeaderMatcher = this.createHeaderNameMatcher(this.outboundHeaderNames);
 	}
 
 	/**
@@ -277,6 +283,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 	 */
 	public void setInboundHeaderNames(String[] inboundHeaderNames) {
 		this.inboundHeaderNames = (inboundHeaderNames != null) ? inboundHeaderNames : new String[0];
+		this.inboundHeaderMatcher = this.createHeaderNameMatcher(this.inboundHeaderNames);
 	}
 
 	/**
@@ -414,42 +421,30 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 				return false;
 			}
 		}
-		return this.shouldMapHeader(headerName, this.outboundHeaderNames);
+		return this.shouldMapHeader(headerName, this.outboundHeaderMatcher);
 	}
 
 	private boolean shouldMapInboundHeader(String headerName) {
-		return this.shouldMapHeader(headerName, this.inboundHeaderNames);
+		return this.shouldMapHeader(headerName, this.inboundHeaderMatcher);
 	}
 
-	private boolean shouldMapHeader(String headerName, String[] patterns) {
-		if (patterns != null && patterns.length > 0) {
-			for (String pattern : patterns) {
-				if (PatternMatchUtils.simpleMatch(pattern.toLowerCase(), headerName.toLowerCase())) {
-					if (logger.isDebugEnabled()) {
-						logger.debug(MessageFormat.format("headerName=[{0}] WILL be mapped, matched pattern={1}", headerName, pattern));
-					}
-					return true;
-				}
-				else if (HTTP_REQUEST_HEADER_NAME_PATTERN.equals(pattern)
-						&& this.containsElementIgnoreCase(HTTP_REQUEST_HEADER_NAMES, headerName)) {
-					if (logger.isDebugEnabled()) {
-						logger.debug(MessageFormat.format("headerName=[{0}] WILL be mapped, matched pattern={1}", headerName, pattern));
-					}
-					return true;
-				}
-				else if (HTTP_RESPONSE_HEADER_NAME_PATTERN.equals(pattern)
-						&& this.containsElementIgnoreCase(HTTP_RESPONSE_HEADER_NAMES, headerName)) {
-					if (logger.isDebugEnabled()) {
-						logger.debug(MessageFormat.format("headerName=[{0}] WILL be mapped, matched pattern={1}", headerName, pattern));
-					}
-					return true;
-				}
-			}
-		}
+	private boolean shouldMapHeader(String headerName, HeaderNameMatcher headerMatcher) {
+		boolean shouldMap = headerMatcher.matches(headerName);
 		if (logger.isDebugEnabled()) {
-			logger.debug(MessageFormat.format("headerName=[{0}] WILL NOT be mapped", headerName));
+			logger.debug(MessageFormat.format("headerName=[{0}] WILL" + (shouldMap ? "" : " NOT") + " be mapped", headerName));
 		}
-		return false;
+		return shouldMap;
+	}
+
+	/**
+	 * Compiles the header name patterns; the HTTP_*_HEADERS patterns are expanded
+	 * to the standard HTTP header names.
+	 */
+	private HeaderNameMatcher createHeaderNameMatcher(String[] patterns) {
+		Map<String, List<String>> symbolicPatterns = new HashMap<String, List<String>>();
+		symbolicPatterns.put(HTTP_REQUEST_HEADER_NAME_PATTERN, Arrays.asList(HTTP_REQUEST_HEADER_NAMES));
+		symbolicPatterns.put(HTTP_RESPONSE_HEADER_NAME_PATTERN, Arrays.asList(HTTP_RESPONSE_HEADER_NAMES));
+		return new HeaderNameMatcher(Arrays.asList(patterns), symbolicPatterns, HeaderNameMatcher.DEFAULT_CACHE_SIZE);
 	}
 
 	private void setHttpHeader(HttpHeaders target, String name, Object value) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.integration.http.config;
 import static org.hamcrest.CoreMatchers.any;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -135,6 +136,8 @@ public class HttpInboundGatewayParserTests {
 		assertEquals("oops", errorCode);
 		LiteralExpression viewExpression = (LiteralExpression) accessor.getPropertyValue("viewExpression");
 		assertEquals("foo", viewExpression.getValue());
+		assertTrue((Boolean) accessor.getPropertyValue("async"));
+		assertFalse(TestUtils.getPropertyValue(gateway, "async", Boolean.class));
 	}
 
 	@Test
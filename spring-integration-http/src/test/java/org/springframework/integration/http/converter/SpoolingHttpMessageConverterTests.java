@@ -0,0 +1,145 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.http.converter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * @since 3.0
+ */
+public class SpoolingHttpMessageConverterTests {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	private SpoolingHttpMessageConverter converter;
+
+	private final byte[] body = new byte[1000];
+
+	@Before
+	public void setUp() {
+		this.converter = new SpoolingHttpMessageConverter(this.temp.getRoot());
+		this.converter.setSizeThreshold(100);
+		for (int i = 0; i < this.body.length; i++) {
+			this.body[i] = (byte) i;
+		}
+	}
+
+	@Test
+	public void testCanReadCanWrite() {
+		assertTrue(this.converter.canRead(InputStream.class, MediaType.APPLICATION_OCTET_STREAM));
+		assertTrue(this.converter.canRead(File.class, null));
+		assertFalse(this.converter.canRead(byte[].class, MediaType.APPLICATION_OCTET_STREAM));
+		assertFalse(this.converter.canWrite(InputStream.class, MediaType.APPLICATION_OCTET_STREAM));
+	}
+
+	@Test
+	public void testSmallBodyInMemory() throws Exception {
+		InputStream stream = (InputStream) this.converter.read(InputStream.class, this.input(50, true));
+		assertTrue(stream instanceof ByteArrayInputStream);
+		assertEquals(50, FileCopyUtils.copyToByteArray(stream).length);
+		stream = (InputStream) this.converter.read(InputStream.class, this.input(50, false));
+		assertTrue(stream instanceof ByteArrayInputStream);
+		assertEquals(0, this.temp.getRoot().list().length);
+	}
+
+	@Test
+	public void testLargeBodySpooled() throws Exception {
+		for (boolean contentLength : new boolean[] { true, false }) {
+			InputStream stream = (InputStream) this.converter.read(InputStream.class,
+					this.input(this.body.length, contentLength));
+			assertFalse(stream instanceof ByteArrayInputStream);
+			assertEquals(1, this.temp.getRoot().list().length);
+			assertArrayEquals(this.body, FileCopyUtils.copyToByteArray(stream));
+			// the temporary file is deleted when the stream is closed
+			assertEquals(0, this.temp.getRoot().list().length);
+		}
+	}
+
+	@Test
+	public void testFile() throws Exception {
+		File file = (File) this.converter.read(File.class, this.input(10, true));
+		assertEquals(this.temp.getRoot(), file.getParentFile());
+		assertEquals(10, file.length());
+	}
+
+	@Test
+	public void testMaxSize() throws Exception {
+		this.converter.setMaxSize(500);
+		for (boolean contentLength : new boolean[] { true, false }) {
+			for (Class<?> type : new Class<?>[] { InputStream.class, File.class }) {
+				try {
+					this.converter.read(type, this.input(this.body.length, contentLength));
+					fail("Expected HttpMessageNotReadableException");
+				}
+				catch (HttpMessageNotReadableException e) {
+					// expected
+				}
+				assertEquals(0, this.temp.getRoot().list().length);
+			}
+		}
+		this.converter.setSizeThreshold(1000);
+		try {
+			this.converter.read(InputStream.class, this.input(this.body.length, false));
+			fail("Expected HttpMessageNotReadableException");
+		}
+		catch (HttpMessageNotReadableException e) {
+			// expected
+		}
+		assertEquals(500, FileCopyUtils.copyToByteArray(
+				(InputStream) this.converter.read(InputStream.class, this.input(500, false))).length);
+	}
+
+	private HttpInputMessage input(final int length, boolean contentLength) {
+		final HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+		if (contentLength) {
+			headers.setContentLength(length);
+		}
+		return new HttpInputMessage() {
+
+			public HttpHeaders getHeaders() {
+				return headers;
+			}
+
+			public InputStream getBody() throws IOException {
+				return new ByteArrayInputStream(body, 0, length);
+			}
+		};
+	}
+
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.http.inbound;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageChannel;
+import org.springframework.integration.MessagingException;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.core.MessageHandler;
+import org.springframework.integration.message.ErrorMessage;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.test.util.TestUtils;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Runs the inbound endpoints in an embedded Servlet 3.0 container.
+ *
+ * @since 3.0
+ */
+public class AsyncHttpRequestHandlingTests {
+
+	private static final int CONTAINER_THREADS = 10;
+
+	private final DirectChannel requests = new DirectChannel();
+
+	private final ScheduledExecutorService replyScheduler = Executors.newScheduledThreadPool(2);
+
+	private final AtomicInteger servletInvocations = new AtomicInteger();
+
+	private Server server;
+
+	private String url;
+
+	@After
+	public void tearDown() throws Exception {
+		if (this.server != null) {
+			this.server.stop();
+		}
+		this.replyScheduler.shutdownNow();
+	}
+
+	@Test
+	public void testMoreConcurrentRequestsThanContainerThreads() throws Exception {
+		final int count = CONTAINER_THREADS * 3;
+		// replies are only sent when all the requests are pending at the same time
+		this.requests.subscribe(new MessageHandler() {
+
+			private final List<Message<?>> waiting = new ArrayList<Message<?>>();
+
+			public synchronized void handleMessage(Message<?> message) {
+				this.waiting.add(message);
+				if (this.waiting.size() == count) {
+					for (Message<?> request : this.waiting) {
+						reply(request, ((String) request.getPayload()).toUpperCase());
+					}
+				}
+			}
+		});
+		HttpRequestHandlingMessagingGateway gateway = this.createGateway(10000);
+		this.startServer(gateway);
+		List<Future<String>> responses = this.post(count, count);
+		for (int i = 0; i < count; i++) {
+			assertEquals("200:FOO" + i, responses.get(i).get(20, TimeUnit.SECONDS));
+		}
+		// the last request sends all the replies on its own thread, so it is not dispatched again
+		assertEquals(count * 2 - 1, this.servletInvocations.get());
+		assertEquals(0, TestUtils.getPropertyValue(gateway, "activeCount", AtomicInteger.class).get());
+	}
+
+	@Test
+	public void testReplyOnCallingThread() throws Exception {
+		this.requests.subscribe(new MessageHandler() {
+
+			public void handleMessage(Message<?> message) {
+				reply(message, "bar");
+			}
+		});
+		this.startServer(this.createGateway(10000));
+		assertEquals("200:bar", this.post(1, 1).get(0).get(10, TimeUnit.SECONDS));
+		// no asynchronous dispatch is needed
+		assertEquals(1, this.servletInvocations.get());
+	}
+
+	@Test
+	public void testReplyTimeout() throws Exception {
+		this.requests.subscribe(new MessageHandler() {
+
+			public void handleMessage(Message<?> message) {
+			}
+		});
+		HttpRequestHandlingMessagingGateway gateway = this.createGateway(200);
+		this.startServer(gateway);
+		assertEquals("200:", this.post(1, 1).get(0).get(10, TimeUnit.SECONDS));
+		assertEquals(2, this.servletInvocations.get());
+		assertEquals(0, TestUtils.getPropertyValue(gateway, "activeCount", AtomicInteger.class).get());
+	}
+
+	@Test
+	public void testAsyncError() throws Exception {
+		this.requests.subscribe(new MessageHandler() {
+
+			public void handleMessage(final Message<?> message) {
+				replyScheduler.schedule(new Runnable() {
+
+					public void run() {
+						((MessageChannel) message.getHeaders().getErrorChannel()).send(
+								new ErrorMessage(new MessagingException(message, "intentional")));
+					}
+				}, 100, TimeUnit.MILLISECONDS);
+			}
+		});
+		this.startServer(this.createGateway(10000));
+		assertTrue(this.post(1, 1).get(0).get(10, TimeUnit.SECONDS).startsWith("500:"));
+	}
+
+	@Test
+	public void testController() throws Exception {
+		this.requests.subscribe(new DelayedReplyHandler(100));
+		final HttpRequestHandlingController controller = new HttpRequestHandlingController();
+		controller.setRequestChannel(this.requests);
+		controller.setReplyTimeout(10000);
+		controller.setAsync(true);
+		controller.afterPropertiesSet();
+		this.startServer(new HttpServlet() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void service(HttpServletRequest request, HttpServletResponse response)
+					throws ServletException, IOException {
+				servletInvocations.incrementAndGet();
+				try {
+					ModelAndView modelAndView = controller.handleRequest(request, response);
+					if (modelAndView != null) {
+						response.getWriter().print(modelAndView.getModel().get("reply"));
+					}
+				}
+				catch (Exception e) {
+					throw new ServletException(e);
+				}
+			}
+		});
+		assertEquals("200:FOO0", this.post(1, 1).get(0).get(10, TimeUnit.SECONDS));
+		assertEquals(2, this.servletInvocations.get());
+	}
+
+	private void reply(Message<?> request, Object payload) {
+		((MessageChannel) request.getHeaders().getReplyChannel()).send(MessageBuilder.withPayload(payload)
+				.copyHeaders(request.getHeaders()).build());
+	}
+
+	private HttpRequestHandlingMessagingGateway createGateway(long replyTimeout) throws Exception {
+		HttpRequestHandlingMessagingGateway gateway = new HttpRequestHandlingMessagingGateway();
+		gateway.setRequestChannel(this.requests);
+		gateway.setReplyTimeout(replyTimeout);
+		gateway.setAsync(true);
+		gateway.afterPropertiesSet();
+		return gateway;
+	}
+
+	private void startServer(final HttpRequestHandlingMessagingGateway gateway) throws Exception {
+		this.startServer(new HttpServlet() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void service(HttpServletRequest request, HttpServletResponse response)
+					throws ServletException, IOException {
+				servletInvocations.incrementAndGet();
+				gateway.handleRequest(request, response);
+			}
+		});
+	}
+
+	private void startServer(HttpServlet servlet) throws Exception {
+		this.server = new Server();
+		this.server.setThreadPool(new QueuedThreadPool(CONTAINER_THREADS));
+		SelectChannelConnector connector = new SelectChannelConnector();
+		connector.setHost("localhost");
+		connector.setPort(0);
+		this.server.addConnector(connector);
+		ServletContextHandler context = new ServletContextHandler();
+		ServletHolder holder = new ServletHolder(servlet);
+		holder.setAsyncSupported(true);
+		context.addServlet(holder, "/*");
+		this.server.setHandler(context);
+		this.server.start();
+		this.url = "http://localhost:" + connector.getLocalPort() + "/test";
+	}
+
+	/**
+	 * Posts 'foo0'...'fooN' from the given number of client threads; each response is
+	 * returned as "status:body".
+	 */
+	private List<Future<String>> post(int count, int clients) {
+		ExecutorService exec = Executors.newFixedThreadPool(clients);
+		List<Future<String>> responses = new ArrayList<Future<String>>();
+		for (int i = 0; i < count; i++) {
+			final String body = "foo" + i;
+			responses.add(exec.submit(new Callable<String>() {
+
+				public String call() throws Exception {
+					HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+					connection.setDoOutput(true);
+					connection.setRequestMethod("POST");
+					connection.setRequestProperty("Content-Type", "text/plain");
+					connection.setRequestProperty("Accept", "text/plain");
+					OutputStream out = connection.getOutputStream();
+					out.write(body.getBytes("UTF-8"));
+					out.close();
+					int status = connection.getResponseCode();
+					InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+					ByteArrayOutputStream response = new ByteArrayOutputStream();
+					if (in != null && status < 400) {
+						byte[] buffer = new byte[1024];
+						int n;
+						while ((n = in.read(buffer)) > 0) {
+							response.write(buffer, 0, n);
+						}
+						in.close();
+					}
+					return status + ":" + response.toString("UTF-8");
+				}
+			}));
+		}
+		exec.shutdown();
+		return responses;
+	}
+
+	private class DelayedReplyHandler implements MessageHandler {
+
+		private final long delay;
+
+		private DelayedReplyHandler(long delay) {
+			this.delay = delay;
+		}
+
+		public void handleMessage(final Message<?> message) {
+			replyScheduler.schedule(new Runnable() {
+
+				public void run() {
+					reply(message, ((String) message.getPayload()).toUpperCase());
+				}
+			}, this.delay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,8 +18,11 @@ package org.springframework.integration.http.inbound;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -43,6 +46,7 @@ import org.springframework.integration.http.converter.SerializingHttpMessageConv
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.FileCopyUtils;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.SerializationUtils;
 
@@ -95,6 +99,31 @@ public class HttpRequestHandlingMessagingGatewayTests {
 		assertEquals("hello", message.getPayload());
 	}
 
+	@Test
+	public void streamingPayloads() throws Exception {
+		QueueChannel requestChannel = new QueueChannel();
+		HttpRequestHandlingMessagingGateway gateway = new HttpRequestHandlingMessagingGateway(false);
+		gateway.setRequestPayloadType(InputStream.class);
+		gateway.setRequestChannel(requestChannel);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setMethod("POST");
+		request.addHeader("Content-Type", "application/octet-stream");
+		request.setContent("hello".getBytes());
+		gateway.handleRequest(request, new MockHttpServletResponse());
+		Message<?> message = requestChannel.receive(0);
+		assertNotNull(message);
+		InputStream stream = (InputStream) message.getPayload();
+		assertEquals("hello", new String(FileCopyUtils.copyToByteArray(stream)));
+
+		gateway.setRequestPayloadType(File.class);
+		gateway.handleRequest(request, new MockHttpServletResponse());
+		message = requestChannel.receive(0);
+		assertNotNull(message);
+		File file = (File) message.getPayload();
+		assertEquals("hello", new String(FileCopyUtils.copyToByteArray(file)));
+		assertTrue(file.delete());
+	}
+
 	@Test
 	public void stringExpectedWithReply() throws Exception {
 		DirectChannel requestChannel = new DirectChannel();
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.http.multipart;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.integration.http.StubMultipartFile;
+import org.springframework.integration.test.util.TestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * @since 3.0
+ */
+public class FileCopyingMultipartFileReaderTests {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void testSizeThreshold() throws Exception {
+		FileCopyingMultipartFileReader reader = new FileCopyingMultipartFileReader(this.temp.getRoot());
+		reader.setSizeThreshold(5);
+
+		MultipartFile small = reader.readMultipartFile(new StubMultipartFile("a", "a.txt", "small"));
+		assertNull(TestUtils.getPropertyValue(small, "file"));
+		assertEquals("small", new String(small.getBytes()));
+		assertEquals(0, this.temp.getRoot().list().length);
+
+		MultipartFile large = reader.readMultipartFile(new StubMultipartFile("b", "b.txt", "larger"));
+		File file = TestUtils.getPropertyValue(large, "file", File.class);
+		assertEquals(this.temp.getRoot(), file.getParentFile());
+		assertEquals("larger", new String(large.getBytes()));
+		assertEquals(6, large.getSize());
+	}
+
+}
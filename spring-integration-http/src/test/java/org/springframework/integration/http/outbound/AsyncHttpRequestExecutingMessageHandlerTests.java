@@ -0,0 +1,262 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.http.outbound;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageHandlingException;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.http.HttpHeaders;
+import org.springframework.integration.message.ErrorMessage;
+import org.springframework.integration.message.GenericMessage;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.web.client.HttpServerErrorException;
+
+/**
+ * @since 3.0
+ */
+public class AsyncHttpRequestExecutingMessageHandlerTests {
+
+	private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+
+	private volatile long latency;
+
+	private volatile CountDownLatch gate;
+
+	private HttpServer server;
+
+	private ExecutorService serverExecutor;
+
+	private String uri;
+
+	@Before
+	public void startServer() throws Exception {
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		this.server.createContext("/", new HttpHandler() {
+
+			public void handle(HttpExchange exchange) throws IOException {
+				clientPorts.add(exchange.getRemoteAddress().getPort());
+				byte[] request = read(exchange.getRequestBody());
+				try {
+					if (latency > 0) {
+						Thread.sleep(latency);
+					}
+					if (gate != null) {
+						gate.await(10, TimeUnit.SECONDS);
+					}
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				int status = exchange.getRequestURI().getPath().endsWith("/error") ? 500 : 200;
+				byte[] response = new String(request, "UTF-8").toUpperCase().getBytes("UTF-8");
+				exchange.getResponseHeaders().set("Content-Type", "text/plain;charset=UTF-8");
+				exchange.getResponseHeaders().set("X-Method", exchange.getRequestMethod());
+				exchange.sendResponseHeaders(status, response.length > 0 ? response.length : -1);
+				OutputStream body = exchange.getResponseBody();
+				body.write(response);
+				body.close();
+			}
+		});
+		this.serverExecutor = Executors.newCachedThreadPool();
+		this.server.setExecutor(this.serverExecutor);
+		this.server.start();
+		this.uri = "http://localhost:" + this.server.getAddress().getPort() + "/test";
+	}
+
+	@After
+	public void stopServer() {
+		this.server.stop(0);
+		this.serverExecutor.shutdownNow();
+	}
+
+	@Test
+	public void testReply() throws Exception {
+		AsyncHttpRequestExecutingMessageHandler handler = this.createHandler(this.uri);
+		handler.afterPropertiesSet();
+		QueueChannel replies = new QueueChannel();
+		handler.setOutputChannel(replies);
+		handler.handleMessage(MessageBuilder.withPayload("foo").setHeader("bar", "baz").build());
+		Message<?> reply = replies.receive(10000);
+		assertNotNull(reply);
+		assertEquals("FOO", reply.getPayload());
+		assertEquals(HttpStatus.OK, reply.getHeaders().get(HttpHeaders.STATUS_CODE));
+		assertEquals("baz", reply.getHeaders().get("bar"));
+		assertEquals(0, handler.getInFlightCount());
+		handler.destroy();
+	}
+
+	@Test
+	public void testReplyChannelHeaderAndUriVariables() throws Exception {
+		AsyncHttpRequestExecutingMessageHandler handler = new AsyncHttpRequestExecutingMessageHandler(
+				this.uri.replace("/test", "/{path}"));
+		handler.setUriVariableExpressions(Collections.singletonMap("path",
+				new SpelExpressionParser().parseExpression("headers.path")));
+		handler.setHttpMethod(HttpMethod.GET);
+		handler.afterPropertiesSet();
+		QueueChannel replies = new QueueChannel();
+		handler.handleMessage(MessageBuilder.withPayload("foo").setHeader("path", "one")
+				.setReplyChannel(replies).build());
+		handler.handleMessage(MessageBuilder.withPayload("foo").setHeader("path", "error")
+				.setReplyChannel(replies).setErrorChannel(replies).build());
+		Message<?> reply = replies.receive(10000);
+		Message<?> error = replies.receive(10000);
+		if (reply instanceof ErrorMessage) {
+			Message<?> temp = error;
+			error = reply;
+			reply = temp;
+		}
+		assertNotNull(reply);
+		assertEquals(HttpStatus.OK, reply.getHeaders().get(HttpHeaders.STATUS_CODE));
+		// no expected response type, so the payload is the ResponseEntity
+		assertEquals("GET", ((ResponseEntity<?>) reply.getPayload()).getHeaders().getFirst("X-Method"));
+		assertTrue(error instanceof ErrorMessage);
+		handler.destroy();
+	}
+
+	@Test
+	public void testErrorChannel() throws Exception {
+		AsyncHttpRequestExecutingMessageHandler handler = new AsyncHttpRequestExecutingMessageHandler(
+				this.uri + "/error");
+		QueueChannel errors = new QueueChannel();
+		handler.setErrorChannel(errors);
+		handler.setOutputChannel(new QueueChannel());
+		handler.afterPropertiesSet();
+		Message<String> request = new GenericMessage<String>("foo");
+		handler.handleMessage(request);
+		Message<?> error = errors.receive(10000);
+		assertTrue(error instanceof ErrorMessage);
+		MessageHandlingException exception = (MessageHandlingException) error.getPayload();
+		assertEquals(request, exception.getFailedMessage());
+		assertTrue(exception.getCause() instanceof HttpServerErrorException);
+		assertEquals(0, handler.getInFlightCount());
+		handler.destroy();
+	}
+
+	@Test
+	public void testCallerNotBlockedByLatencyAndConnectionsReused() throws Exception {
+		this.latency = 500;
+		AsyncHttpRequestExecutingMessageHandler handler = this.createHandler(this.uri);
+		handler.setMaxConnectionsPerRoute(10);
+		handler.afterPropertiesSet();
+		QueueChannel replies = new QueueChannel();
+		handler.setOutputChannel(replies);
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < 10; i++) {
+			handler.handleMessage(new GenericMessage<String>("foo" + i));
+		}
+		assertTrue(System.currentTimeMillis() - start < 500);
+		Set<Object> payloads = new HashSet<Object>();
+		for (int i = 0; i < 10; i++) {
+			Message<?> reply = replies.receive(10000);
+			assertNotNull(reply);
+			payloads.add(reply.getPayload());
+		}
+		assertEquals(10, payloads.size());
+		// all 10 requests were executed concurrently, well within 10 x latency
+		assertTrue(System.currentTimeMillis() - start < 4000);
+		int connections = this.clientPorts.size();
+		assertTrue(connections <= 10);
+
+		this.latency = 0;
+		for (int i = 0; i < 20; i++) {
+			handler.handleMessage(new GenericMessage<String>("bar"));
+			assertNotNull(replies.receive(10000));
+		}
+		// pooled keep-alive connections are reused
+		assertEquals(connections, this.clientPorts.size());
+		handler.destroy();
+	}
+
+	@Test
+	public void testBackPressure() throws Exception {
+		this.gate = new CountDownLatch(1);
+		final AsyncHttpRequestExecutingMessageHandler handler = this.createHandler(this.uri);
+		handler.setMaxInFlight(2);
+		handler.afterPropertiesSet();
+		QueueChannel replies = new QueueChannel();
+		handler.setOutputChannel(replies);
+		handler.handleMessage(new GenericMessage<String>("foo"));
+		handler.handleMessage(new GenericMessage<String>("bar"));
+		assertEquals(2, handler.getInFlightCount());
+		final CountDownLatch sent = new CountDownLatch(1);
+		Thread sender = new Thread(new Runnable() {
+
+			public void run() {
+				handler.handleMessage(new GenericMessage<String>("baz"));
+				sent.countDown();
+			}
+		});
+		sender.start();
+		assertFalse(sent.await(500, TimeUnit.MILLISECONDS));
+		assertNull(replies.receive(0));
+		this.gate.countDown();
+		assertTrue(sent.await(10, TimeUnit.SECONDS));
+		for (int i = 0; i < 3; i++) {
+			assertNotNull(replies.receive(10000));
+		}
+		assertEquals(0, handler.getInFlightCount());
+		handler.destroy();
+	}
+
+	private AsyncHttpRequestExecutingMessageHandler createHandler(String uri) throws Exception {
+		AsyncHttpRequestExecutingMessageHandler handler = new AsyncHttpRequestExecutingMessageHandler(uri);
+		handler.setExpectedResponseType(String.class);
+		return handler;
+	}
+
+	private static byte[] read(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int n;
+		while ((n = inputStream.read(buffer)) > 0) {
+			out.write(buffer, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+}
@@ -22,7 +22,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.integration.Message;
 import org.springframework.integration.context.OrderlyShutdownCapable;
+import org.springframework.integration.gateway.ListenableReplyFuture;
 import org.springframework.integration.gateway.MessagingGatewaySupport;
+import org.springframework.integration.gateway.ReplyCallback;
 import org.springframework.integration.ip.IpHeaders;
 import org.springframework.integration.ip.tcp.connection.AbstractClientConnectionFactory;
 import org.springframework.integration.ip.tcp.connection.AbstractConnectionFactory;
@@ -42,6 +44,10 @@ import org.springframework.util.Assert;
  * is not used, but multiple concurrent connections can be used if the connection factory uses
  * single-use connections. For true asynchronous bi-directional communication, a pair of
  * inbound / outbound channel adapters should be used.
+ * <p>
+ * When 'nonBlockingReplies' is true, the connection's thread is released as soon as
+ * the request has been sent and the reply is written to the connection when it
+ * arrives; in that case, replies may be written in a different order to the requests.
  * @author Gary Russell
  * @since 2.0
  *
@@ -69,6 +75,8 @@ public class TcpInboundGateway extends MessagingGatewaySupport implements
 
 	private final AtomicInteger activeCount = new AtomicInteger();
 
+	private volatile boolean nonBlockingReplies;
+
 	public boolean onMessage(Message<?> message) {
 		if (this.shuttingDown) {
 			if (logger.isInfoEnabled()) {
@@ -87,8 +95,32 @@ public class TcpInboundGateway extends MessagingGatewaySupport implements
 		return false;
 	}
 
-	private boolean doOnMessage(Message<?> message) {
-		Message<?> reply = this.sendAndReceiveMessage(message);
+	private boolean doOnMessage(final Message<?> message) {
+		if (this.nonBlockingReplies) {
+			ListenableReplyFuture<Message<?>> future = this.sendAndReceiveMessageAsync(message);
+			this.activeCount.incrementAndGet();
+			future.addCallback(new ReplyCallback<Message<?>>() {
+
+				public void onReply(Message<?> reply) {
+					try {
+						sendReply(reply, message);
+					}
+					finally {
+						activeCount.decrementAndGet();
+					}
+				}
+
+				public void onFailure(Throwable t) {
+					activeCount.decrementAndGet();
+					logger.error("Failed to process " + message, t);
+				}
+			});
+			return false;
+		}
+		return this.sendReply(this.sendAndReceiveMessage(message), message);
+	}
+
+	private boolean sendReply(Message<?> reply, Message<?> message) {
 		if (reply == null) {
 			if (logger.isDebugEnabled()) {
 				logger.debug("null reply received for " + message + " nothing to send");
@@ -232,6 +264,14 @@ public class TcpInboundGateway extends MessagingGatewaySupport implements
 		this.retryInterval = retryInterval;
 	}
 
+	/**
+	 * @param nonBlockingReplies true to release the connection's thread while the
+	 * request is being processed; the reply is written when it arrives.
+	 */
+	public void setNonBlockingReplies(boolean nonBlockingReplies) {
+		this.nonBlockingReplies = nonBlockingReplies;
+	}
+
 	public boolean isClientModeConnected() {
 		if (this.isClientMode && this.clientModeConnectionManager != null) {
 			return this.clientModeConnectionManager.isConnected();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -110,6 +110,37 @@ public class TcpInboundGatewayTests {
 		assertEquals("Echo:Test2\r\n", new String(bytes));
 	}
 
+	@Test
+	public void testNetNotSingleNonBlocking() throws Exception {
+		final int port = SocketUtils.findAvailableServerSocket();
+		AbstractServerConnectionFactory scf = new TcpNetServerConnectionFactory(port);
+		scf.setSingleUse(false);
+		TcpInboundGateway gateway = new TcpInboundGateway();
+		gateway.setConnectionFactory(scf);
+		gateway.setNonBlockingReplies(true);
+		scf.start();
+		TestingUtilities.waitListening(scf, 20000L);
+		final QueueChannel channel = new QueueChannel();
+		gateway.setRequestChannel(channel);
+		ServiceActivatingHandler handler = new ServiceActivatingHandler(new Service());
+		Socket socket = SocketFactory.getDefault().createSocket("localhost", port);
+		socket.getOutputStream().write("Test1\r\n".getBytes());
+		socket.getOutputStream().write("Test2\r\n".getBytes());
+		// the reader thread is not blocked by the first request
+		Message<?> request1 = channel.receive(10000);
+		assertNotNull(request1);
+		Message<?> request2 = channel.receive(10000);
+		assertNotNull(request2);
+		handler.handleMessage(request2);
+		handler.handleMessage(request1);
+		byte[] bytes = new byte[12];
+		readFully(socket.getInputStream(), bytes);
+		assertEquals("Echo:Test2\r\n", new String(bytes));
+		readFully(socket.getInputStream(), bytes);
+		assertEquals("Echo:Test1\r\n", new String(bytes));
+		scf.stop();
+	}
+
 	@Test
 	public void testNetClientMode() throws Exception {
 		final int port = SocketUtils.findAvailableServerSocket();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -20,7 +20,10 @@ import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionException;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.integration.util.AbstractExpressionEvaluator;
 import org.springframework.jdbc.core.namedparam.AbstractSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
@@ -40,13 +43,19 @@ public class ExpressionEvaluatingSqlParameterSourceFactory extends AbstractExpre
 
 	private static final Object ERROR = new Object();
 
+	private static final ExpressionParser PARSER = new SpelExpressionParser();
+
 	private volatile Map<String, ?> staticParameters;
 
-	private volatile Map<String, String> parameterExpressions;
+	/**
+	 * The parsed parameter expressions; element 0 is evaluated against a single input, element 1
+	 * (a projection) against a Collection.
+	 */
+	private volatile Map<String, Expression[]> parameterExpressions;
 
 	public ExpressionEvaluatingSqlParameterSourceFactory() {
 		this.staticParameters = Collections.unmodifiableMap(new HashMap<String, Object>());
-		this.parameterExpressions = Collections.unmodifiableMap(new HashMap<String, String>());
+		this.parameterExpressions = Collections.unmodifiableMap(new HashMap<String, Expression[]>());
 	}
 
 	/**
@@ -93,11 +102,19 @@ public class ExpressionEvaluatingSqlParameterSourceFactory extends AbstractExpre
 	 * </tr>
 	 * </table>
 	 * <p>
+	 * The expressions are parsed when they are set; parameter names without an explicit expression
+	 * are evaluated as expressions themselves, using the {@link #getExpressionCache() expression cache}.
 	 *
 	 * @param parameterExpressions the parameter expressions to set
 	 */
 	public void setParameterExpressions(Map<String, String> parameterExpressions) {
-		this.parameterExpressions = parameterExpressions;
+		Map<String, Expression[]> parsed = new HashMap<String, Expression[]>();
+		for (Map.Entry<String, String> entry : parameterExpressions.entrySet()) {
+			String expression = entry.getValue();
+			parsed.put(entry.getKey(), new Expression[] { PARSER.parseExpression(expression),
+					PARSER.parseExpression("#root.![" + expression + "]") });
+		}
+		this.parameterExpressions = parsed;
 	}
 
 	public SqlParameterSource createParameterSource(final Object input) {
@@ -112,10 +129,10 @@ public class ExpressionEvaluatingSqlParameterSourceFactory extends AbstractExpre
 
 		private volatile Map<String, Object> values = new HashMap<String, Object>();
 
-		private final Map<String, String> parameterExpressions;
+		private final Map<String, Expression[]> parameterExpressions;
 
 		private ExpressionEvaluatingSqlParameterSource(Object input, Map<String, ?> staticParameters,
-				Map<String, String> parameterExpressions) {
+				Map<String, Expression[]> parameterExpressions) {
 			this.input = input;
 			this.parameterExpressions = parameterExpressions;
 			this.values.putAll(staticParameters);
@@ -125,18 +142,26 @@ public class ExpressionEvaluatingSqlParameterSourceFactory extends AbstractExpre
 			if (values.containsKey(paramName)) {
 				return values.get(paramName);
 			}
-			String expression = paramName;
-			if (parameterExpressions.containsKey(expression)) {
-				expression = parameterExpressions.get(expression);
+			Object value;
+			Expression[] expressions = parameterExpressions.get(paramName);
+			if (expressions != null) {
+				Expression expression = expressions[input instanceof Collection<?> ? 1 : 0];
+				value = evaluateExpression(expression, input);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Resolved expression " + expression.getExpressionString() + " to " + value);
+				}
 			}
-			if (input instanceof Collection<?>) {
-				expression = "#root.![" + expression + "]";
+			else {
+				String expression = paramName;
+				if (input instanceof Collection<?>) {
+					expression = "#root.![" + expression + "]";
+				}
+				value = evaluateExpression(expression, input);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Resolved expression " + expression + " to " + value);
+				}
 			}
-			Object value = evaluateExpression(expression, input);
 			values.put(paramName, value);
-			if (logger.isDebugEnabled()) {
-				logger.debug("Resolved expression " + expression + " to " + value);
-			}
 			return value;
 		}
 
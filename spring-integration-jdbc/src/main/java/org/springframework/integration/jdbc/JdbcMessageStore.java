@@ -46,7 +46,9 @@ import org.springframework.integration.store.MessageGroup;
 import org.springframework.integration.store.MessageStore;
 import org.springframework.integration.store.SimpleMessageGroup;
 import org.springframework.integration.support.MessageBuilder;
-import org.springframework.integration.util.UUIDConverter;
+import org.springframework.integration.util.DefaultUUIDKeyStrategy;
+import org.springframework.integration.util.HashingUUIDKeyStrategy;
+import org.springframework.integration.util.UUIDKeyStrategy;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementSetter;
@@ -194,6 +196,8 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 
 	private volatile MessageMapper mapper = new MessageMapper();
 
+	private volatile UUIDKeyStrategy keyStrategy = new DefaultUUIDKeyStrategy();
+
 	private volatile Map<Query, String> queryCache = new HashMap<Query, String>();
 
 	/**
@@ -235,6 +239,20 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 		this.region = region;
 	}
 
+	/**
+	 * The strategy used to derive the keys under which message groups are stored
+	 * from the group ids. Default {@link DefaultUUIDKeyStrategy}, which is compatible
+	 * with data persisted by previous versions; the {@link HashingUUIDKeyStrategy}
+	 * is faster, but must only be used with a new store (or region).
+	 *
+	 * @param keyStrategy the key strategy.
+	 * @since 3.0
+	 */
+	public void setKeyStrategy(UUIDKeyStrategy keyStrategy) {
+		Assert.notNull(keyStrategy, "'keyStrategy' must not be null");
+		this.keyStrategy = keyStrategy;
+	}
+
 	/**
 	 * The JDBC {@link DataSource} to use when interacting with the database. Either this property can be set or the
 	 * {@link #setJdbcTemplate(JdbcOperations) jdbcTemplate}.
@@ -700,7 +718,7 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 	}
 
 	private String getKey(Object input) {
-		return input == null ? null : UUIDConverter.getUUID(input).toString();
+		return input == null ? null : this.keyStrategy.getUUID(input).toString();
 	}
 
 	/**
@@ -55,7 +55,9 @@ import org.springframework.integration.store.MessageStore;
 import org.springframework.integration.store.SimpleMessageGroup;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.transaction.TransactionSynchronizationFactory;
-import org.springframework.integration.util.UUIDConverter;
+import org.springframework.integration.util.DefaultUUIDKeyStrategy;
+import org.springframework.integration.util.HashingUUIDKeyStrategy;
+import org.springframework.integration.util.UUIDKeyStrategy;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementSetter;
@@ -150,6 +152,8 @@ public class JdbcChannelMessageStore extends AbstractMessageGroupStore implement
 
 	private volatile MessageRowMapper messageRowMapper;
 
+	private volatile UUIDKeyStrategy keyStrategy = new DefaultUUIDKeyStrategy();
+
 	private volatile Map<String, String> queryCache = new HashMap<String, String>();
 
 	private boolean usingIdCache = false;
@@ -290,6 +294,20 @@ public class JdbcChannelMessageStore extends AbstractMessageGroupStore implement
 		this.region = region;
 	}
 
+	/**
+	 * The strategy used to derive the keys under which message groups are stored
+	 * from the group ids. Default {@link DefaultUUIDKeyStrategy}, which is compatible
+	 * with data persisted by previous versions; the {@link HashingUUIDKeyStrategy}
+	 * is faster, but must only be used with a new store (or region).
+	 *
+	 * @param keyStrategy the key strategy.
+	 * @since 3.0
+	 */
+	public void setKeyStrategy(UUIDKeyStrategy keyStrategy) {
+		Assert.notNull(keyStrategy, "'keyStrategy' must not be null");
+		this.keyStrategy = keyStrategy;
+	}
+
 	/**
 	 * A converter for serializing messages to byte arrays for storage.
 	 *
@@ -500,13 +518,13 @@ public class JdbcChannelMessageStore extends AbstractMessageGroupStore implement
 
 	/**
 	 * Helper method that converts the channel id to a UUID using
-	 * {@link UUIDConverter#getUUID(Object)}.
+	 * the {@link UUIDKeyStrategy}.
 	 *
 	 * @param input Parameter may be null
 	 * @return Returns null when the input is null otherwise the UUID as String.
 	 */
 	private String getKey(Object input) {
-		return input == null ? null : UUIDConverter.getUUID(input).toString();
+		return input == null ? null : this.keyStrategy.getUUID(input).toString();
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.util.Arrays;
 import java.util.Collections;
 
 import org.junit.Test;
+import org.springframework.expression.ParseException;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 
 /**
@@ -93,4 +94,9 @@ public class ExpressionEvaluatingSqlParameterSourceFactoryTests {
 		assertEquals("[BAR, BUCKET]", source.getValue(expression).toString());
 	}
 
+	@Test(expected = ParseException.class)
+	public void testMappedExpressionParsedWhenSet() {
+		factory.setParameterExpressions(Collections.singletonMap("spam", "foo.toUpperCase("));
+	}
+
 }
@@ -52,6 +52,8 @@ import org.springframework.integration.store.MessageGroup;
 import org.springframework.integration.store.MessageGroupStore;
 import org.springframework.integration.store.MessageGroupStore.MessageGroupCallback;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.support.serializer.CompactMessageSerializer;
+import org.springframework.integration.util.HashingUUIDKeyStrategy;
 import org.springframework.integration.util.UUIDConverter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
@@ -159,6 +161,23 @@ public class JdbcMessageStoreTests {
 		assertEquals("foo", result.getPayload());
 	}
 
+	@Test
+	@Transactional
+	public void testCompactSerializer() throws Exception {
+		Message<String> javaSerialized = messageStore.addMessage(
+				MessageBuilder.withPayload("foo").setHeader("bar", "baz").build());
+		CompactMessageSerializer serializer = new CompactMessageSerializer();
+		messageStore.setSerializer(serializer);
+		messageStore.setDeserializer(serializer);
+		Message<String> saved = messageStore.addMessage(
+				MessageBuilder.withPayload("qux").setHeader("bar", "baz").build());
+		Message<?> result = messageStore.getMessage(saved.getHeaders().getId());
+		assertThat(saved, sameExceptIgnorableHeaders(result));
+		assertEquals(saved.getHeaders().getId(), result.getHeaders().getId());
+		result = messageStore.getMessage(javaSerialized.getHeaders().getId());
+		assertThat(javaSerialized, sameExceptIgnorableHeaders(result));
+	}
+
 	@Test
 	@Transactional
 	public void testAddAndGetWithDifferentRegion() throws Exception {
@@ -261,6 +280,27 @@ public class JdbcMessageStoreTests {
 				"SELECT * from INT_GROUP_TO_MESSAGE where GROUP_KEY = '"  + uuidGroupId + "'").size() == 0);
 	}
 
+	@Test
+	@Transactional
+	public void testHashingKeyStrategy() throws Exception {
+		JdbcTemplate template = new JdbcTemplate(dataSource);
+		template.afterPropertiesSet();
+		messageStore.setKeyStrategy(new HashingUUIDKeyStrategy());
+		String groupId = "X";
+
+		Message<String> message = MessageBuilder.withPayload("foo").setCorrelationId(groupId).build();
+		messageStore.addMessageToGroup(groupId, message);
+		String uuidGroupId = new HashingUUIDKeyStrategy().getUUID(groupId).toString();
+		assertEquals(1, template.queryForList(
+				"SELECT * from INT_GROUP_TO_MESSAGE where GROUP_KEY = '"  + uuidGroupId + "'").size());
+		MessageGroup group = messageStore.getMessageGroup(groupId);
+		assertEquals(1, group.size());
+		group = messageStore.getMessageGroup(uuidGroupId);
+		assertEquals(1, group.size());
+		messageStore.removeMessageGroup(groupId);
+		assertEquals(0, messageStore.getMessageGroup(groupId).size());
+	}
+
 	@Test
 	@Transactional
 	public void testCompleteMessageGroup() throws Exception {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.util.Map;
 
 import javax.jms.Destination;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.context.IntegrationObjectSupport;
@@ -38,7 +39,7 @@ import org.springframework.util.Assert;
  * @author Mark Fisher
  * @author Oleg Zhurakousky
  */
-public class JmsDestinationPollingSource extends IntegrationObjectSupport implements MessageSource<Object> {
+public class JmsDestinationPollingSource extends IntegrationObjectSupport implements MessageSource<Object>, DisposableBean {
 
 	private final JmsTemplate jmsTemplate;
 
@@ -50,6 +51,10 @@ public class JmsDestinationPollingSource extends IntegrationObjectSupport implem
 
 	private volatile JmsHeaderMapper headerMapper = new DefaultJmsHeaderMapper();
 
+	private volatile int prefetchSize;
+
+	private volatile PrefetchingJmsConsumer consumer;
+
 
 	public JmsDestinationPollingSource(JmsTemplate jmsTemplate) {
 		this.jmsTemplate = jmsTemplate;
@@ -82,6 +87,29 @@ public class JmsDestinationPollingSource extends IntegrationObjectSupport implem
 		this.headerMapper = headerMapper;
 	}
 
+	/**
+	 * When greater than 0, keep a JMS consumer open between polls rather than opening
+	 * one for each receive, and take up to this number of messages that are already
+	 * available from it at once; they are acknowledged together when the next batch
+	 * is taken. Combine with a poller's 'max-messages-per-poll' to drain a batch in
+	 * one poll. How many messages the broker sends to the consumer ahead of the
+	 * receives is configured on the JMS provider (for example, the ActiveMQ prefetch
+	 * policy). This mode cannot be used
+	 * with a transacted template ('sessionTransacted'), or within a JMS transaction.
+	 * Default 0.
+	 * @since 3.0
+	 */
+	public void setPrefetchSize(int prefetchSize) {
+		this.prefetchSize = prefetchSize;
+	}
+
+	@Override
+	protected void onInit() throws Exception {
+		super.onInit();
+		Assert.isTrue(this.prefetchSize <= 0 || !this.jmsTemplate.isSessionTransacted(),
+				"A 'prefetchSize' cannot be used with a transacted JmsTemplate ('sessionTransacted')");
+	}
+
 	/**
 	 * Will receive a JMS {@link javax.jms.Message} converting and returning it as 
 	 * a Spring Integration {@link Message}. This method will also use the current
@@ -111,7 +139,10 @@ public class JmsDestinationPollingSource extends IntegrationObjectSupport implem
 
 	private javax.jms.Message doReceiveJmsMessage() {
 		javax.jms.Message jmsMessage = null;
-		if (this.destination != null) {
+		if (this.prefetchSize > 0) {
+			jmsMessage = this.getConsumer().receive(this.jmsTemplate.getReceiveTimeout());
+		}
+		else if (this.destination != null) {
 			jmsMessage = this.jmsTemplate.receiveSelected(this.destination, this.messageSelector);
 		}
 		else if (this.destinationName != null) {
@@ -123,4 +154,19 @@ public class JmsDestinationPollingSource extends IntegrationObjectSupport implem
 		return jmsMessage;
 	}
 
+	private synchronized PrefetchingJmsConsumer getConsumer() {
+		if (this.consumer == null) {
+			this.consumer = new PrefetchingJmsConsumer(this.jmsTemplate, this.destination, this.destinationName,
+					this.messageSelector, this.prefetchSize);
+		}
+		return this.consumer;
+	}
+
+	public synchronized void destroy() {
+		if (this.consumer != null) {
+			this.consumer.close();
+			this.consumer = null;
+		}
+	}
+
 }
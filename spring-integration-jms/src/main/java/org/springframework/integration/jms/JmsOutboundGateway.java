@@ -16,9 +16,10 @@
 
 package org.springframework.integration.jms;
 
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.UUID;
@@ -26,6 +27,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -33,6 +35,7 @@ import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.DeliveryMode;
 import javax.jms.Destination;
+import javax.jms.ExceptionListener;
 import javax.jms.JMSException;
 import javax.jms.MessageConsumer;
 import javax.jms.MessageListener;
@@ -65,6 +68,12 @@ import org.springframework.util.StringUtils;
 
 /**
  * An outbound Messaging Gateway for request/reply JMS.
+ * <p>
+ * By default, each request uses a new Session and MessageProducer (and, unless a reply
+ * listener container is used, a new MessageConsumer). When a 'sessionPoolSize' is set,
+ * a shared Connection is used, Session/MessageProducer pairs are pooled and a small
+ * number of long-lived reply consumers demultiplex replies by correlation id to
+ * the waiting requests.
  *
  * @author Mark Fisher
  * @author Arjen Poutsma
@@ -122,6 +131,12 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler imp
 
 	private volatile boolean useReplyContainer;
 
+	private volatile int sessionPoolSize;
+
+	private volatile int replyConsumers = 1;
+
+	private volatile SessionPool sessionPool;
+
 	private final Object initializationMonitor = new Object();
 
 	private volatile boolean autoStartup;
@@ -133,7 +148,7 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler imp
 	private final String gatewayCorrelation = UUID.randomUUID().toString();
 
 	private final Map<String, LinkedBlockingQueue<javax.jms.Message>> replies =
-			new HashMap<String, LinkedBlockingQueue<javax.jms.Message>>();
+			new ConcurrentHashMap<String, LinkedBlockingQueue<javax.jms.Message>>();
 
 	private final ConcurrentHashMap<String, TimedReply> earlyOrLateReplies =
 			new ConcurrentHashMap<String, JmsOutboundGateway.TimedReply>();
@@ -389,6 +404,30 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler imp
 		this.useReplyContainer = useReplyContainer;
 	}
 
+	/**
+	 * Set the maximum number of cached Session/MessageProducer pairs used to send requests.
+	 * When greater than zero, a shared Connection is used and replies are received by
+	 * {@link #setReplyConsumers(int) replyConsumers} long-lived consumers instead of a
+	 * consumer per request. Cannot be combined with a reply listener container or a
+	 * 'replyDestinationExpression'; when an explicit reply destination is configured,
+	 * a 'correlationKey' is required. Default 0 (no pooling).
+	 * @param sessionPoolSize the session pool size.
+	 */
+	public void setSessionPoolSize(int sessionPoolSize) {
+		Assert.isTrue(sessionPoolSize >= 0, "'sessionPoolSize' cannot be negative");
+		this.sessionPoolSize = sessionPoolSize;
+	}
+
+	/**
+	 * Set the number of shared reply consumers used when a 'sessionPoolSize' is set.
+	 * Default 1.
+	 * @param replyConsumers the number of reply consumers.
+	 */
+	public void setReplyConsumers(int replyConsumers) {
+		Assert.isTrue(replyConsumers > 0, "'replyConsumers' must be greater than zero");
+		this.replyConsumers = replyConsumers;
+	}
+
 	private Destination determineRequestDestination(Message<?> message, Session session) throws JMSException {
 		if (this.requestDestination != null) {
 			return this.requestDestination;
@@ -497,6 +536,16 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler imp
 				}
 				this.useReplyContainer = false;
 			}
+			if (this.sessionPoolSize > 0) {
+				Assert.state(!this.useReplyContainer,
+						"A 'sessionPoolSize' cannot be used together with a reply listener container");
+				Assert.state(this.replyDestinationExpressionProcessor == null,
+						"A 'sessionPoolSize' cannot be used together with a 'replyDestinationExpression'");
+				Assert.state(this.correlationKey != null
+						|| (this.replyDestination == null && this.replyDestinationName == null),
+						"A 'correlationKey' is required when a 'sessionPoolSize' is used with an explicit reply destination");
+				this.sessionPool = new SessionPool(this.sessionPoolSize);
+			}
 			if (this.useReplyContainer) {
 				GatewayReplyListenerContainer container = new GatewayReplyListenerContainer();
 				setContainerProperties(container);
@@ -574,9 +623,9 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler imp
 			if (!this.active) {
 				if (this.replyContainer != null) {
 					this.replyContainer.start();
-					if (this.receiveTimeout >= 0) {
-						this.reaper = this.getTaskScheduler().schedule(new LateReplyReaper(), new Date());
-					}
+				}
+				if ((this.replyContainer != null || this.sessionPool != null) && this.receiveTimeout >= 0) {
+					this.reaper = this.getTaskScheduler().schedule(new LateReplyReaper(), new Date());
 				}
 				this.active = true;
 			}
@@ -588,7 +637,13 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler imp
 			if (this.replyContainer != null) {
 				this.replyContainer.stop();
 				this.deleteDestinationIfTemporary(this.replyContainer.getDestination());
+			}
+			if (this.sessionPool != null) {
+				this.sessionPool.reset();
+			}
+			if (this.reaper != null) {
 				this.reaper.cancel(false);
+				this.reaper = null;
 			}
 			this.active = false;
 		}
@@ -611,7 +666,10 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler imp
 		final Message<?> requestMessage = MessageBuilder.fromMessage(message).build();
 		try {
 			javax.jms.Message jmsReply;
-			if (this.replyContainer == null) {
+			if (this.sessionPool != null) {
+				jmsReply = this.sendAndReceiveWithSessionPool(requestMessage);
+			}
+			else if (this.replyContainer == null) {
 				jmsReply = this.sendAndReceiveWithoutContainer(requestMessage);
 			}
 			else {
@@ -630,7 +688,7 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler imp
 			}
 			Map<String, Object> jmsReplyHeaders = this.headerMapper.toHeaders(jmsReply);
 
-			if (this.replyContainer != null && this.correlationKey != null) {
+			if ((this.replyContainer != null || this.sessionPool != null) && this.correlationKey != null) {
 				// do not propagate back the gateway's internal correlation id
 				jmsReplyHeaders.remove(this.correlationKey);
 			}
@@ -701,6 +759,82 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler imp
 		}
 	}
 
+	private javax.jms.Message sendAndReceiveWithSessionPool(Message<?> requestMessage) throws JMSException {
+		String correlationId = null;
+		LinkedBlockingQueue<javax.jms.Message> replyQueue = new LinkedBlockingQueue<javax.jms.Message>(1);
+		PooledSession pooledSession = this.sessionPool.obtain(requestMessage);
+		boolean failed = true;
+		try {
+			Session session = pooledSession.getSession();
+
+			// convert to JMS Message
+			Object objectToSend = requestMessage;
+			if (this.extractRequestPayload) {
+				objectToSend = requestMessage.getPayload();
+			}
+			javax.jms.Message jmsRequest = this.messageConverter.toMessage(objectToSend, session);
+
+			// map headers
+			headerMapper.fromHeaders(requestMessage.getHeaders(), jmsRequest);
+
+			jmsRequest.setJMSReplyTo(this.sessionPool.getReplyTo());
+
+			Integer priority = requestMessage.getHeaders().getPriority();
+			if (priority == null) {
+				priority = this.priority;
+			}
+			Destination requestDestination = this.determineRequestDestination(requestMessage, session);
+
+			/*
+			 * Remove any existing correlation id that was mapped from the inbound message
+			 * (it will be restored by normal ARPMH header processing).
+			 */
+			jmsRequest.setJMSCorrelationID(null);
+			if (this.correlationKey != null) {
+				correlationId = this.gatewayCorrelation + "_" + Long.toString(this.correlationId.incrementAndGet());
+				if (this.correlationKey.equals("JMSCorrelationID")) {
+					jmsRequest.setJMSCorrelationID(correlationId);
+				}
+				else {
+					jmsRequest.setStringProperty(this.correlationKey, correlationId);
+				}
+				this.replies.put(correlationId, replyQueue);
+			}
+			this.sendRequestMessage(jmsRequest, pooledSession.getProducer(), requestDestination, priority);
+			if (this.correlationKey == null) {
+				correlationId = jmsRequest.getJMSMessageID();
+				this.replies.put(correlationId, replyQueue);
+				synchronized (this.earlyOrLateReplies) {
+					TimedReply timedReply = this.earlyOrLateReplies.remove(correlationId);
+					if (timedReply != null) {
+						replyQueue.add(timedReply.getReply());
+					}
+				}
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug(this.getComponentName() + " Sent message with correlationId " + correlationId);
+			}
+			failed = false;
+		}
+		finally {
+			// the session is not needed while waiting for the reply
+			this.sessionPool.release(pooledSession, failed);
+			if (failed && correlationId != null) {
+				this.replies.remove(correlationId);
+			}
+		}
+		try {
+			javax.jms.Message reply = this.obtainReplyFromContainer(correlationId, replyQueue);
+			if (reply != null) {
+				reply.setJMSCorrelationID(null);
+			}
+			return reply;
+		}
+		finally {
+			this.replies.remove(correlationId);
+		}
+	}
+
 	private javax.jms.Message sendAndReceiveWithoutContainer(Message<?> requestMessage) throws JMSException {
 		Connection connection = this.createConnection();
 		Session session = null;
@@ -926,6 +1060,19 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler imp
 		}
 	}
 
+	/**
+	 * Send using an anonymous (unidentified) producer, as used by the session pool.
+	 */
+	private void sendRequestMessage(javax.jms.Message jmsRequest, MessageProducer messageProducer,
+			Destination destination, int priority) throws JMSException {
+		if (this.explicitQosEnabled) {
+			messageProducer.send(destination, jmsRequest, this.deliveryMode, priority, this.timeToLive);
+		}
+		else {
+			messageProducer.send(destination, jmsRequest);
+		}
+	}
+
 	private javax.jms.Message receiveReplyMessage(MessageConsumer messageConsumer) throws JMSException {
 		return (this.receiveTimeout >= 0) ? messageConsumer.receive(receiveTimeout) : messageConsumer.receive();
 	}
@@ -1079,6 +1226,199 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler imp
 		}
 	}
 
+	/**
+	 * Pool of Session/MessageProducer pairs on a shared Connection, together with the
+	 * long-lived reply consumers (this gateway is their MessageListener). If the Connection
+	 * fails, the pool is reset and re-established by the next request.
+	 */
+	private class SessionPool implements ExceptionListener {
+
+		private final LinkedBlockingQueue<PooledSession> idleSessions = new LinkedBlockingQueue<PooledSession>();
+
+		private final Semaphore permits;
+
+		private final List<Session> consumerSessions = new ArrayList<Session>();
+
+		private final Object monitor = new Object();
+
+		private volatile Connection connection;
+
+		private volatile Destination replyTo;
+
+		private SessionPool(int size) {
+			this.permits = new Semaphore(size);
+		}
+
+		public PooledSession obtain(Message<?> requestMessage) throws JMSException {
+			Connection connection = this.getConnection();
+			try {
+				this.permits.acquire();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MessageHandlingException(requestMessage, "Interrupted while waiting for a pooled session", e);
+			}
+			try {
+				PooledSession pooledSession = this.idleSessions.poll();
+				if (pooledSession != null && pooledSession.getConnection() != connection) {
+					pooledSession.close();
+					pooledSession = null;
+				}
+				if (pooledSession == null) {
+					pooledSession = new PooledSession(connection);
+				}
+				return pooledSession;
+			}
+			catch (JMSException e) {
+				this.permits.release();
+				throw e;
+			}
+			catch (RuntimeException e) {
+				this.permits.release();
+				throw e;
+			}
+		}
+
+		public void release(PooledSession pooledSession, boolean discard) {
+			if (discard || pooledSession.getConnection() != this.connection) {
+				pooledSession.close();
+			}
+			else {
+				this.idleSessions.offer(pooledSession);
+			}
+			this.permits.release();
+		}
+
+		public Destination getReplyTo() {
+			return this.replyTo;
+		}
+
+		private Connection getConnection() throws JMSException {
+			Connection connection = this.connection;
+			if (connection == null) {
+				synchronized (this.monitor) {
+					if (this.connection == null) {
+						this.connect();
+					}
+					connection = this.connection;
+				}
+			}
+			return connection;
+		}
+
+		private void connect() throws JMSException {
+			Connection connection = createConnection();
+			try {
+				try {
+					connection.setExceptionListener(this);
+				}
+				catch (JMSException e) {
+					// some (shared) connections do not allow an ExceptionListener
+					if (logger.isDebugEnabled()) {
+						logger.debug("Could not set ExceptionListener on the shared connection", e);
+					}
+				}
+				Destination replyTo = null;
+				String messageSelector = null;
+				if (correlationKey != null) {
+					messageSelector = correlationKey + " LIKE '" + gatewayCorrelation + "%'";
+				}
+				for (int i = 0; i < replyConsumers; i++) {
+					Session session = createSession(connection);
+					this.consumerSessions.add(session);
+					if (replyTo == null) {
+						replyTo = determineReplyDestination(null, session);
+					}
+					MessageConsumer consumer = (messageSelector == null)
+							? session.createConsumer(replyTo)
+							: session.createConsumer(replyTo, messageSelector);
+					consumer.setMessageListener(JmsOutboundGateway.this);
+				}
+				connection.start();
+				this.replyTo = replyTo;
+				this.connection = connection;
+				if (logger.isDebugEnabled()) {
+					logger.debug(getComponentName() + " established shared connection with "
+							+ replyConsumers + " reply consumer(s) on " + replyTo);
+				}
+			}
+			catch (JMSException e) {
+				this.closeConsumers();
+				ConnectionFactoryUtils.releaseConnection(connection, connectionFactory, true);
+				throw e;
+			}
+		}
+
+		public void onException(JMSException exception) {
+			logger.error("Shared connection failed; the session pool will be re-established on the next request",
+					exception);
+			this.reset();
+		}
+
+		public void reset() {
+			synchronized (this.monitor) {
+				this.closeConsumers();
+				if (this.replyTo != null) {
+					deleteDestinationIfTemporary(this.replyTo);
+					this.replyTo = null;
+				}
+				PooledSession pooledSession = null;
+				while ((pooledSession = this.idleSessions.poll()) != null) {
+					pooledSession.close();
+				}
+				if (this.connection != null) {
+					ConnectionFactoryUtils.releaseConnection(this.connection, connectionFactory, true);
+					this.connection = null;
+				}
+			}
+		}
+
+		private void closeConsumers() {
+			for (Session session : this.consumerSessions) {
+				JmsUtils.closeSession(session);
+			}
+			this.consumerSessions.clear();
+		}
+	}
+
+	private class PooledSession {
+
+		private final Connection connection;
+
+		private final Session session;
+
+		private final MessageProducer producer;
+
+		private PooledSession(Connection connection) throws JMSException {
+			this.connection = connection;
+			this.session = createSession(connection);
+			try {
+				this.producer = this.session.createProducer(null);
+			}
+			catch (JMSException e) {
+				JmsUtils.closeSession(this.session);
+				throw e;
+			}
+		}
+
+		public Connection getConnection() {
+			return connection;
+		}
+
+		public Session getSession() {
+			return session;
+		}
+
+		public MessageProducer getProducer() {
+			return producer;
+		}
+
+		public void close() {
+			JmsUtils.closeMessageProducer(this.producer);
+			JmsUtils.closeSession(this.session);
+		}
+	}
+
 	private class TimedReply {
 
 		private long timeStamp = System.currentTimeMillis();
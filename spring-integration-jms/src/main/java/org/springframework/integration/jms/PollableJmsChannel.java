@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,15 @@
 
 package org.springframework.integration.jms;
 
+import javax.jms.JMSException;
+
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.integration.Message;
 import org.springframework.integration.core.PollableChannel;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.util.Assert;
 
 /**
  * @author Mark Fisher
@@ -27,10 +32,14 @@ import org.springframework.jms.core.JmsTemplate;
  * @author Gary Russell
  * @since 2.0
  */
-public class PollableJmsChannel extends AbstractJmsChannel implements PollableChannel {
+public class PollableJmsChannel extends AbstractJmsChannel implements PollableChannel, DisposableBean {
 
 	private volatile String messageSelector;
 
+	private volatile int prefetchSize;
+
+	private volatile PrefetchingJmsConsumer consumer;
+
 	public PollableJmsChannel(JmsTemplate jmsTemplate) {
 		super(jmsTemplate);
 	}
@@ -39,12 +48,37 @@ public class PollableJmsChannel extends AbstractJmsChannel implements PollableCh
 		this.messageSelector = messageSelector;
 	}
 
+	/**
+	 * When greater than 0, keep a JMS consumer open between receives rather than
+	 * opening one for each receive, and take up to this number of messages that are
+	 * already available from it at once; they are acknowledged together when the
+	 * next batch is taken. How many messages the broker sends to the consumer ahead
+	 * of the receives is configured on the JMS provider (for example, the ActiveMQ
+	 * prefetch policy). This mode cannot be used
+	 * with a transacted template ('sessionTransacted'), or within a JMS transaction.
+	 * Default 0.
+	 * @since 3.0
+	 */
+	public void setPrefetchSize(int prefetchSize) {
+		this.prefetchSize = prefetchSize;
+	}
+
+	@Override
+	protected void onInit() throws Exception {
+		super.onInit();
+		Assert.isTrue(this.prefetchSize <= 0 || !this.getJmsTemplate().isSessionTransacted(),
+				"A 'prefetchSize' cannot be used with a transacted JmsTemplate ('sessionTransacted')");
+	}
+
 	public Message<?> receive() {
 		if (!this.getInterceptors().preReceive(this)) {
  			return null;
  		}
 		Object object;
-		if (this.messageSelector == null) {
+		if (this.prefetchSize > 0) {
+			object = this.receivePrefetched();
+		}
+		else if (this.messageSelector == null) {
 			object = this.getJmsTemplate().receiveAndConvert();
 		}
 		else {
@@ -74,4 +108,33 @@ public class PollableJmsChannel extends AbstractJmsChannel implements PollableCh
 		}
 	}
 
+	private Object receivePrefetched() {
+		JmsTemplate jmsTemplate = this.getJmsTemplate();
+		javax.jms.Message jmsMessage = this.getConsumer().receive(jmsTemplate.getReceiveTimeout());
+		if (jmsMessage == null) {
+			return null;
+		}
+		try {
+			return jmsTemplate.getMessageConverter().fromMessage(jmsMessage);
+		}
+		catch (JMSException e) {
+			throw JmsUtils.convertJmsAccessException(e);
+		}
+	}
+
+	private synchronized PrefetchingJmsConsumer getConsumer() {
+		if (this.consumer == null) {
+			this.consumer = new PrefetchingJmsConsumer(this.getJmsTemplate(), null, null, this.messageSelector,
+					this.prefetchSize);
+		}
+		return this.consumer;
+	}
+
+	public synchronized void destroy() {
+		if (this.consumer != null) {
+			this.consumer.close();
+			this.consumer = null;
+		}
+	}
+
 }
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.jms;
+
+import java.util.LinkedList;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+/**
+ * Keeps a JMS consumer, and its Connection and Session, open between receives,
+ * instead of opening them for each receive as the {@link JmsTemplate} does.
+ * Up to prefetchSize messages that are already available are taken from the
+ * consumer at once and handed out from a local buffer; they are acknowledged
+ * together ({@link Session#CLIENT_ACKNOWLEDGE}) when the next batch is fetched
+ * or when the consumer is closed. Since a client acknowledgment covers all the
+ * messages consumed by the session, a batch is only acknowledged once all its
+ * messages have been handed out; if the consumer is closed (or the session
+ * fails) part way through a batch, the whole batch is redelivered by the broker.
+ * <p>
+ * The connection factory, destination resolution, message selector,
+ * pub-sub settings and receive timeout semantics are those of the template;
+ * the template's transaction settings are not used. A transacted template is
+ * rejected by the users of this class, and a receive fails if a JMS transaction is
+ * bound to the template's connection factory (for example, by a transactional
+ * poller), since the received messages could not take part in it.
+ *
+ * @since 3.0
+ */
+class PrefetchingJmsConsumer {
+
+	private final Log logger = LogFactory.getLog(this.getClass());
+
+	private final JmsTemplate jmsTemplate;
+
+	private final Destination destination;
+
+	private final String destinationName;
+
+	private final String messageSelector;
+
+	private final int prefetchSize;
+
+	private final LinkedList<javax.jms.Message> buffer = new LinkedList<javax.jms.Message>();
+
+	private Connection connection;
+
+	private Session session;
+
+	private volatile MessageConsumer consumer;
+
+	private javax.jms.Message lastReceived;
+
+	private volatile boolean receiving;
+
+	private volatile boolean closed;
+
+
+	/**
+	 * @param jmsTemplate the template providing the connection factory and settings.
+	 * @param destination the destination, or null to use the destinationName.
+	 * @param destinationName the destination name, or null to use the template's default destination.
+	 * @param messageSelector the message selector (may be null).
+	 * @param prefetchSize the maximum number of messages taken from the consumer at once.
+	 */
+	PrefetchingJmsConsumer(JmsTemplate jmsTemplate, Destination destination, String destinationName,
+			String messageSelector, int prefetchSize) {
+		Assert.notNull(jmsTemplate, "jmsTemplate must not be null");
+		Assert.isTrue(prefetchSize > 0, "prefetchSize must be greater than 0");
+		this.jmsTemplate = jmsTemplate;
+		this.destination = destination;
+		this.destinationName = destinationName;
+		this.messageSelector = messageSelector;
+		this.prefetchSize = prefetchSize;
+	}
+
+
+	/**
+	 * Return the next message, fetching a new batch if the buffer is empty. The
+	 * timeout follows the {@link JmsTemplate#setReceiveTimeout(long)} semantics.
+	 * Returns null once the consumer has been closed.
+	 */
+	synchronized javax.jms.Message receive(long timeout) {
+		if (this.closed) {
+			return null;
+		}
+		Assert.state(!TransactionSynchronizationManager.hasResource(this.jmsTemplate.getConnectionFactory()),
+				"A 'prefetchSize' cannot be used when receiving within a JMS transaction; " +
+				"the prefetched messages are not received in the transaction");
+		if (this.buffer.isEmpty()) {
+			try {
+				this.fill(timeout);
+			}
+			catch (JMSException e) {
+				this.close(false);
+				if (this.closed) {
+					// the consumer was closed by close() while receiving
+					return null;
+				}
+				throw JmsUtils.convertJmsAccessException(e);
+			}
+			catch (RuntimeException e) {
+				this.close(false);
+				throw e;
+			}
+		}
+		javax.jms.Message message = this.buffer.poll();
+		if (message != null) {
+			this.lastReceived = message;
+		}
+		return message;
+	}
+
+	/**
+	 * Close the consumer, acknowledging the messages that have been received if the
+	 * whole batch was handed out; otherwise, the batch is redelivered by the broker.
+	 * A receive that is blocked waiting for a message returns null.
+	 */
+	void close() {
+		this.closed = true;
+		if (this.receiving) {
+			// the monitor is held by a receive that is waiting for a message;
+			// closing the consumer makes it return
+			JmsUtils.closeMessageConsumer(this.consumer);
+		}
+		synchronized (this) {
+			this.close(true);
+		}
+	}
+
+	private void fill(long timeout) throws JMSException {
+		if (this.consumer == null) {
+			this.start();
+		}
+		this.acknowledge();
+		javax.jms.Message message;
+		this.receiving = true;
+		try {
+			if (this.closed) {
+				// close() may not have seen this receive
+				return;
+			}
+			if (timeout == JmsTemplate.RECEIVE_TIMEOUT_NO_WAIT) {
+				message = this.consumer.receiveNoWait();
+			}
+			else if (timeout > 0) {
+				message = this.consumer.receive(timeout);
+			}
+			else {
+				message = this.consumer.receive();
+			}
+		}
+		finally {
+			this.receiving = false;
+		}
+		while (message != null) {
+			this.buffer.add(message);
+			if (this.buffer.size() >= this.prefetchSize) {
+				break;
+			}
+			message = this.consumer.receiveNoWait();
+		}
+	}
+
+	private void start() throws JMSException {
+		this.connection = this.jmsTemplate.getConnectionFactory().createConnection();
+		this.session = this.connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+		Destination destination = this.resolveDestination();
+		if (this.jmsTemplate.isPubSubDomain()) {
+			this.consumer = this.session.createConsumer(destination, this.messageSelector,
+					this.jmsTemplate.isPubSubNoLocal());
+		}
+		else {
+			this.consumer = this.session.createConsumer(destination, this.messageSelector);
+		}
+		this.connection.start();
+		if (logger.isDebugEnabled()) {
+			logger.debug("Started prefetching consumer on " + destination);
+		}
+	}
+
+	private Destination resolveDestination() throws JMSException {
+		if (this.destination != null) {
+			return this.destination;
+		}
+		String name = (this.destinationName != null) ? this.destinationName
+				: this.jmsTemplate.getDefaultDestinationName();
+		if (name != null) {
+			return this.jmsTemplate.getDestinationResolver().resolveDestinationName(this.session, name,
+					this.jmsTemplate.isPubSubDomain());
+		}
+		Destination defaultDestination = this.jmsTemplate.getDefaultDestination();
+		Assert.state(defaultDestination != null, "No destination is available; either a 'destination', " +
+				"a 'destinationName' or the template's default destination is required");
+		return defaultDestination;
+	}
+
+	private void acknowledge() throws JMSException {
+		if (this.lastReceived != null) {
+			// acknowledges all the messages consumed by the session
+			this.lastReceived.acknowledge();
+			this.lastReceived = null;
+		}
+	}
+
+	private void close(boolean acknowledge) {
+		if (acknowledge && this.session != null && this.buffer.isEmpty()) {
+			try {
+				this.acknowledge();
+			}
+			catch (JMSException e) {
+				if (logger.isWarnEnabled()) {
+					logger.warn("Failed to acknowledge received messages; they will be redelivered", e);
+				}
+			}
+		}
+		this.buffer.clear();
+		this.lastReceived = null;
+		JmsUtils.closeMessageConsumer(this.consumer);
+		JmsUtils.closeSession(this.session);
+		JmsUtils.closeConnection(this.connection, true);
+		this.consumer = null;
+		this.session = null;
+		this.connection = null;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -101,6 +101,8 @@ public class JmsChannelFactoryBean extends AbstractFactoryBean<AbstractJmsChanne
 
 	private volatile String messageSelector;
 
+	private volatile int prefetchSize;
+
 	private volatile Integer phase;
 
 	private volatile Boolean pubSubDomain;
@@ -263,6 +265,14 @@ public class JmsChannelFactoryBean extends AbstractFactoryBean<AbstractJmsChanne
 		this.messageSelector = messageSelector;
 	}
 
+	/**
+	 * Set the prefetch size of a pollable channel.
+	 * @see PollableJmsChannel#setPrefetchSize(int)
+	 */
+	public void setPrefetchSize(int prefetchSize) {
+		this.prefetchSize = prefetchSize;
+	}
+
 	public void setPhase(int phase) {
 		this.phase = phase;
 	}
@@ -345,6 +355,7 @@ public class JmsChannelFactoryBean extends AbstractFactoryBean<AbstractJmsChanne
 			if (this.messageSelector != null) {
 				pollableJmschannel.setMessageSelector(this.messageSelector);
 			}
+			pollableJmschannel.setPrefetchSize(this.prefetchSize);
 			this.channel = pollableJmschannel;
 		}
 		if (!CollectionUtils.isEmpty(this.interceptors)) {
@@ -502,5 +513,8 @@ public class JmsChannelFactoryBean extends AbstractFactoryBean<AbstractJmsChanne
 		if (instance instanceof SubscribableJmsChannel) {
 			((SubscribableJmsChannel) this.channel).destroy();
 		}
+		else if (instance instanceof PollableJmsChannel) {
+			((PollableJmsChannel) this.channel).destroy();
+		}
 	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -109,6 +109,19 @@ public class JmsChannelParser extends AbstractChannelParser {
 			}
 		}
 		Integer acknowledgeMode = this.parseAcknowledgeMode(element, parserContext);
+		String prefetch = element.getAttribute("prefetch");
+		boolean prefetching = StringUtils.hasText(prefetch) && "false".equals(messageDriven);
+		if (prefetching && acknowledgeMode != null && acknowledgeMode == Session.SESSION_TRANSACTED) {
+			// the prefetching consumer cannot receive in the session transaction
+			if (element.getAttributeNode(ACKNOWLEDGE_ATTRIBUTE).getSpecified()) {
+				parserContext.getReaderContext().error("The 'prefetch' attribute of a channel that is not " +
+						"message-driven cannot be combined with acknowledge=\"transacted\".", element);
+			}
+			else {
+				// not explicitly configured; use auto acknowledgment instead of the schema default
+				acknowledgeMode = Session.AUTO_ACKNOWLEDGE;
+			}
+		}
 		if (acknowledgeMode != null) {
 			if (acknowledgeMode == Session.SESSION_TRANSACTED) {
 				builder.addPropertyValue("sessionTransacted", Boolean.TRUE);
@@ -119,9 +132,11 @@ public class JmsChannelParser extends AbstractChannelParser {
 		}
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "concurrency");
 
-		String prefetch = element.getAttribute("prefetch");
 		if (StringUtils.hasText(prefetch)) {
-			if (containerType.startsWith("default")) {
+			if (prefetching) {
+				builder.addPropertyValue("prefetchSize", prefetch);
+			}
+			else if (containerType.startsWith("default")) {
 				builder.addPropertyValue("maxMessagesPerTask", new Integer(prefetch));
 			}
 		}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -87,6 +87,12 @@ public class JmsInboundChannelAdapterParser extends AbstractPollingInboundChanne
 			builder.addPropertyReference(JmsAdapterParserUtils.HEADER_MAPPER_PROPERTY, headerMapper);
 		}
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "selector", "messageSelector");
+		if (StringUtils.hasText(element.getAttribute("prefetch"))
+				&& "transacted".equals(element.getAttribute("acknowledge"))) {
+			parserContext.getReaderContext().error("The 'prefetch' attribute cannot be combined with " +
+					"acknowledge=\"transacted\".", element);
+		}
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "prefetch", "prefetchSize");
 		BeanDefinition beanDefinition = builder.getBeanDefinition();
 		String beanName = BeanDefinitionReaderUtils.generateBeanName(beanDefinition, parserContext.getRegistry());
 		return new BeanComponentDefinition(beanDefinition, beanName);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,12 +15,14 @@
  */
 package org.springframework.integration.jms;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -29,6 +31,7 @@ import javax.jms.ConnectionFactory;
 import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.Message;
+import javax.jms.MessageProducer;
 import javax.jms.Session;
 
 import org.apache.activemq.ActiveMQConnectionFactory;
@@ -40,6 +43,8 @@ import org.springframework.integration.message.GenericMessage;
 import org.springframework.jms.connection.CachingConnectionFactory;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.core.MessageCreator;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.jms.listener.SessionAwareMessageListener;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
@@ -74,6 +79,12 @@ public class OutboundGatewayFunctionTests {
 
 	private static Destination replyQueue6 = new ActiveMQQueue("reply6");
 
+	private static Destination requestQueue7 = new ActiveMQQueue("request7");
+
+	private static Destination requestQueue8 = new ActiveMQQueue("request8");
+
+	private static Destination replyQueue8 = new ActiveMQQueue("reply8");
+
 	@Test
 	public void testContainerWithDest() throws Exception {
 		BeanFactory beanFactory = mock(BeanFactory.class);
@@ -372,6 +383,103 @@ public class OutboundGatewayFunctionTests {
 		gateway.stop();
 	}
 
+	@Test
+	public void testSessionPoolWithTemporaryNoCorrelation() throws Exception {
+		DefaultMessageListenerContainer responder = createResponder(requestQueue7);
+		JmsOutboundGateway gateway = new JmsOutboundGateway();
+		gateway.setBeanFactory(getBeanFactory());
+		gateway.setConnectionFactory(getGatewayConnectionFactory());
+		gateway.setRequestDestination(requestQueue7);
+		gateway.setSessionPoolSize(2);
+		gateway.setReplyConsumers(2);
+		gateway.afterPropertiesSet();
+		gateway.start();
+		runConcurrently(gateway, 4, 25);
+		gateway.stop();
+		responder.stop();
+	}
+
+	@Test
+	public void testSessionPoolWithDestAndCorrelation() throws Exception {
+		DefaultMessageListenerContainer responder = createResponder(requestQueue8);
+		JmsOutboundGateway gateway = new JmsOutboundGateway();
+		gateway.setBeanFactory(getBeanFactory());
+		gateway.setConnectionFactory(getGatewayConnectionFactory());
+		gateway.setRequestDestination(requestQueue8);
+		gateway.setReplyDestination(replyQueue8);
+		gateway.setCorrelationKey("JMSCorrelationID");
+		gateway.setSessionPoolSize(2);
+		gateway.afterPropertiesSet();
+		gateway.start();
+		runConcurrently(gateway, 4, 25);
+		gateway.stop();
+		responder.stop();
+	}
+
+	private void runConcurrently(final JmsOutboundGateway gateway, int threads, final int requestsPerThread)
+			throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final CountDownLatch latch = new CountDownLatch(threads);
+		final AtomicReference<Object> failure = new AtomicReference<Object>();
+		for (int i = 0; i < threads; i++) {
+			final int thread = i;
+			executor.execute(new Runnable() {
+				public void run() {
+					try {
+						for (int j = 0; j < requestsPerThread; j++) {
+							String payload = "foo" + thread + "." + j;
+							Object reply = gateway.handleRequestMessage(new GenericMessage<String>(payload));
+							Object replyPayload = ((org.springframework.integration.Message<?>) reply).getPayload();
+							if (!payload.toUpperCase().equals(replyPayload)) {
+								failure.compareAndSet(null, "Expected " + payload.toUpperCase() + " got " + replyPayload);
+							}
+						}
+					}
+					catch (Exception e) {
+						failure.compareAndSet(null, e);
+					}
+					finally {
+						latch.countDown();
+					}
+				}
+			});
+		}
+		assertTrue(latch.await(60, TimeUnit.SECONDS));
+		executor.shutdown();
+		assertEquals(null, failure.get());
+	}
+
+	private DefaultMessageListenerContainer createResponder(Destination requestQueue) {
+		DefaultMessageListenerContainer container = new DefaultMessageListenerContainer();
+		container.setConnectionFactory(getGatewayConnectionFactory());
+		container.setDestination(requestQueue);
+		container.setConcurrentConsumers(2);
+		container.setMessageListener(new SessionAwareMessageListener<javax.jms.TextMessage>() {
+
+			public void onMessage(javax.jms.TextMessage request, Session session) throws JMSException {
+				javax.jms.TextMessage reply = session.createTextMessage(request.getText().toUpperCase());
+				String correlationId = request.getJMSCorrelationID();
+				reply.setJMSCorrelationID(correlationId == null ? request.getJMSMessageID() : correlationId);
+				MessageProducer producer = session.createProducer(request.getJMSReplyTo());
+				producer.send(reply);
+				producer.close();
+			}
+		});
+		container.afterPropertiesSet();
+		container.start();
+		return container;
+	}
+
+	private BeanFactory getBeanFactory() {
+		BeanFactory beanFactory = mock(BeanFactory.class);
+		when(beanFactory.containsBean(IntegrationContextUtils.TASK_SCHEDULER_BEAN_NAME)).thenReturn(true);
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.initialize();
+		when(beanFactory.getBean(IntegrationContextUtils.TASK_SCHEDULER_BEAN_NAME, TaskScheduler.class))
+			.thenReturn(scheduler);
+		return beanFactory;
+	}
+
 	private ConnectionFactory getTemplateConnectionFactory() {
 		ConnectionFactory amqConnectionFactory = new ActiveMQConnectionFactory("vm://localhost?broker.persistent=false");
 		return amqConnectionFactory;
@@ -20,19 +20,24 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.jms.Destination;
 import javax.jms.JMSException;
+import javax.jms.ObjectMessage;
 import javax.jms.Session;
 import javax.jms.TextMessage;
 
@@ -47,9 +52,11 @@ import org.springframework.integration.jms.config.ActiveMqTestUtils;
 import org.springframework.integration.jms.config.JmsChannelFactoryBean;
 import org.springframework.integration.message.GenericMessage;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.test.util.TestUtils;
 import org.springframework.jms.connection.CachingConnectionFactory;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.core.MessageCreator;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * @author Mark Fisher
@@ -243,6 +250,149 @@ public class PollableJmsChannelTests {
 		assertEquals("bar", result2.getPayload());
 	}
 
+	@Test
+	public void prefetch() throws Exception {
+		ActiveMqTestUtils.prepare();
+		this.connectionFactory = new ActiveMQConnectionFactory();
+		this.connectionFactory.setBrokerURL("vm://localhost");
+		this.queue = new ActiveMQQueue("pollableJmsChannelPrefetchTestQueue");
+
+		PollableJmsChannel channel = this.createPrefetchingChannel(5);
+		for (int i = 0; i < 12; i++) {
+			assertTrue(channel.send(new GenericMessage<String>("foo" + i)));
+		}
+		for (int i = 0; i < 12; i++) {
+			Message<?> result = channel.receive(1000);
+			assertNotNull(result);
+			assertEquals("foo" + i, result.getPayload());
+		}
+		long start = System.currentTimeMillis();
+		assertNull(channel.receive(200));
+		assertTrue(System.currentTimeMillis() - start >= 190);
+		// the same consumer is used for all the receives
+		assertNotNull(TestUtils.getPropertyValue(channel, "consumer.consumer"));
+
+		assertTrue(channel.send(new GenericMessage<String>("bar")));
+		Message<?> result = channel.receive(1000);
+		assertNotNull(result);
+		assertEquals("bar", result.getPayload());
+		channel.destroy();
+		// all the received messages were acknowledged
+		assertNull(this.createTemplate().receive(this.queue));
+	}
+
+	@Test
+	public void prefetchRedeliversPartialBatch() throws Exception {
+		ActiveMqTestUtils.prepare();
+		this.connectionFactory = new ActiveMQConnectionFactory();
+		this.connectionFactory.setBrokerURL("vm://localhost");
+		this.queue = new ActiveMQQueue("pollableJmsChannelPrefetchRedeliveryTestQueue");
+
+		PollableJmsChannel channel = this.createPrefetchingChannel(5);
+		// start the consumer, and let the broker dispatch the messages to it, so that the first batch is full
+		assertNull(channel.receive(JmsTemplate.RECEIVE_TIMEOUT_NO_WAIT));
+		for (int i = 0; i < 7; i++) {
+			assertTrue(channel.send(new GenericMessage<String>("foo" + i)));
+		}
+		Thread.sleep(500);
+		for (int i = 0; i < 3; i++) {
+			assertEquals("foo" + i, channel.receive(1000).getPayload());
+		}
+		// the first batch of 5 is not fully received so it is not acknowledged
+		channel.destroy();
+		JmsTemplate template = this.createTemplate();
+		for (int i = 0; i < 7; i++) {
+			javax.jms.Message message = template.receive(this.queue);
+			assertNotNull(message);
+			assertEquals("foo" + i, ((Message<?>) ((ObjectMessage) message).getObject()).getPayload());
+		}
+		assertNull(template.receive(this.queue));
+	}
+
+	@Test
+	public void prefetchDestroyWhileReceiving() throws Exception {
+		ActiveMqTestUtils.prepare();
+		this.connectionFactory = new ActiveMQConnectionFactory();
+		this.connectionFactory.setBrokerURL("vm://localhost");
+		this.queue = new ActiveMQQueue("pollableJmsChannelPrefetchDestroyTestQueue");
+
+		final PollableJmsChannel channel = this.createPrefetchingChannel(5);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		// the template's receive timeout is indefinite
+		Future<Message<?>> received = executor.submit(new Callable<Message<?>>() {
+			public Message<?> call() throws Exception {
+				return channel.receive();
+			}
+		});
+		int n = 0;
+		while (n++ < 100 && !(TestUtils.getPropertyValue(channel, "consumer") != null
+				&& TestUtils.getPropertyValue(channel, "consumer.receiving", Boolean.class))) {
+			Thread.sleep(50);
+		}
+		assertTrue(TestUtils.getPropertyValue(channel, "consumer.receiving", Boolean.class));
+		Future<?> destroyed = executor.submit(new Runnable() {
+			public void run() {
+				channel.destroy();
+			}
+		});
+		destroyed.get(10, TimeUnit.SECONDS);
+		assertNull(received.get(10, TimeUnit.SECONDS));
+		executor.shutdown();
+	}
+
+	@Test
+	public void prefetchWithTransactedSessionRejected() throws Exception {
+		JmsChannelFactoryBean factoryBean = new JmsChannelFactoryBean(false);
+		factoryBean.setConnectionFactory(new ActiveMQConnectionFactory());
+		factoryBean.setDestination(new ActiveMQQueue("pollableJmsChannelPrefetchTransactedTestQueue"));
+		factoryBean.setPrefetchSize(5);
+		factoryBean.setSessionTransacted(true);
+		try {
+			factoryBean.afterPropertiesSet();
+			fail("expected exception");
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("A 'prefetchSize' cannot be used with a transacted JmsTemplate ('sessionTransacted')",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void prefetchWithinTransactionRejected() throws Exception {
+		this.connectionFactory = new ActiveMQConnectionFactory();
+		this.queue = new ActiveMQQueue("pollableJmsChannelPrefetchTransactionTestQueue");
+		PollableJmsChannel channel = this.createPrefetchingChannel(5);
+		TransactionSynchronizationManager.bindResource(this.connectionFactory, new Object());
+		try {
+			channel.receive();
+			fail("expected exception");
+		}
+		catch (IllegalStateException e) {
+			assertTrue(e.getMessage().startsWith("A 'prefetchSize' cannot be used when receiving within"));
+		}
+		finally {
+			TransactionSynchronizationManager.unbindResource(this.connectionFactory);
+		}
+		// the consumer was not started
+		assertNull(TestUtils.getPropertyValue(channel, "consumer.consumer"));
+		channel.destroy();
+	}
+
+	private PollableJmsChannel createPrefetchingChannel(int prefetchSize) throws Exception {
+		JmsChannelFactoryBean factoryBean = new JmsChannelFactoryBean(false);
+		factoryBean.setConnectionFactory(this.connectionFactory);
+		factoryBean.setDestination(this.queue);
+		factoryBean.setPrefetchSize(prefetchSize);
+		factoryBean.afterPropertiesSet();
+		return (PollableJmsChannel) factoryBean.getObject();
+	}
+
+	private JmsTemplate createTemplate() {
+		JmsTemplate template = new JmsTemplate(this.connectionFactory);
+		template.setReceiveTimeout(1000);
+		return template;
+	}
+
 	public static class SampleInterceptor implements ChannelInterceptor {
 		private final boolean preReceiveFlag;
 		public SampleInterceptor(boolean preReceiveFlag){
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,8 +31,10 @@ import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
 import org.springframework.integration.MessageChannel;
 import org.springframework.integration.channel.ChannelInterceptor;
 import org.springframework.integration.channel.interceptor.ChannelInterceptorAdapter;
@@ -97,6 +99,12 @@ public class JmsChannelParserTests {
 	@Autowired
 	private MessageChannel pollableWithSelectorChannel;
 
+	@Autowired
+	private MessageChannel pollableWithPrefetchChannel;
+
+	@Autowired
+	private MessageChannel pollableWithPrefetchDefaultAcknowledgeChannel;
+
 	@Autowired
 	private Topic topic;
 
@@ -258,6 +266,28 @@ public class JmsChannelParserTests {
 		assertEquals("foo='bar'", accessor.getPropertyValue("messageSelector"));
 	}
 
+	@Test
+	public void prefetchPollableChannel() {
+		assertEquals(PollableJmsChannel.class, pollableWithPrefetchChannel.getClass());
+		assertEquals(10, TestUtils.getPropertyValue(pollableWithPrefetchChannel, "prefetchSize"));
+		assertEquals(0, TestUtils.getPropertyValue(pollableWithSelectorChannel, "prefetchSize"));
+	}
+
+	@Test
+	public void prefetchPollableChannelWithDefaultAcknowledge() {
+		// auto acknowledge is used instead of the default transacted session
+		assertEquals(10, TestUtils.getPropertyValue(pollableWithPrefetchDefaultAcknowledgeChannel, "prefetchSize"));
+		assertEquals(Boolean.FALSE, TestUtils.getPropertyValue(pollableWithPrefetchDefaultAcknowledgeChannel,
+				"jmsTemplate.sessionTransacted"));
+		assertEquals(Session.AUTO_ACKNOWLEDGE, TestUtils.getPropertyValue(pollableWithPrefetchDefaultAcknowledgeChannel,
+				"jmsTemplate.sessionAcknowledgeMode"));
+	}
+
+	@Test(expected = BeanDefinitionStoreException.class)
+	public void prefetchPollableChannelWithTransactedSession() {
+		new ClassPathXmlApplicationContext("jmsChannelWithPrefetchTransacted-fail.xml", this.getClass());
+	}
+
 	@Test
 	public void withPlaceholders() {
 		DefaultMessageListenerContainer container = TestUtils.getPropertyValue(withPlaceholders, "container", DefaultMessageListenerContainer.class);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.integration.jms.config;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import java.util.Properties;
 
@@ -187,4 +188,24 @@ public class JmsInboundChannelAdapterParserTests {
 		context.stop();
 	}
 
+	@Test
+	public void pollingAdapterWithPrefetch() {
+		ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext(
+				"jmsInboundWithPrefetch.xml", this.getClass());
+		Object source = TestUtils.getPropertyValue(context.getBean("inboundAdapter"), "source");
+		assertEquals(5, TestUtils.getPropertyValue(source, "prefetchSize"));
+		PollableChannel output = (PollableChannel) context.getBean("output");
+		Message<?> message = output.receive(timeoutOnReceive);
+		assertNotNull("message should not be null", message);
+		assertEquals("polling-test", message.getPayload());
+		assertNotNull(TestUtils.getPropertyValue(source, "consumer"));
+		context.close();
+		assertNull(TestUtils.getPropertyValue(source, "consumer"));
+	}
+
+	@Test(expected = BeanDefinitionStoreException.class)
+	public void pollingAdapterWithPrefetchAndTransactedSession() {
+		new ClassPathXmlApplicationContext("jmsInboundWithPrefetchTransacted-fail.xml", this.getClass());
+	}
+
 }
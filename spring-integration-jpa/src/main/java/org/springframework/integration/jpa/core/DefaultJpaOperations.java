@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,6 +15,7 @@
  */
 package org.springframework.integration.jpa.core;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -38,7 +39,7 @@ import org.springframework.util.StringUtils;
  * @since 2.2
  *
  */
-public class DefaultJpaOperations extends AbstractJpaOperations {
+public class DefaultJpaOperations extends AbstractJpaOperations implements ExtendedJpaOperations {
 
 	public void delete(Object entity) {
 		Assert.notNull(entity, "The entity must not be null!");
@@ -75,6 +76,29 @@ public class DefaultJpaOperations extends AbstractJpaOperations {
 
 	}
 
+	public int deleteInRange(Class<?> entityClass, String keyAttribute, Object firstKey, Object lastKey) {
+
+		Assert.notNull(entityClass, "entityClass must not be null.");
+		Assert.hasText(keyAttribute, "keyAttribute must not be empty.");
+		Assert.notNull(firstKey, "firstKey must not be null.");
+		Assert.notNull(lastKey, "lastKey must not be null.");
+
+		final String entityName  = JpaUtils.getEntityName(entityManager, entityClass);
+		final String queryString = String.format("delete from %s x where x.%s >= :firstKey and x.%s <= :lastKey",
+				entityName, keyAttribute, keyAttribute);
+
+		return entityManager.createQuery(queryString)
+				.setParameter("firstKey", firstKey)
+				.setParameter("lastKey", lastKey)
+				.executeUpdate();
+
+	}
+
+	public void detach(Object entity) {
+		Assert.notNull(entity, "The entity must not be null!");
+		entityManager.detach(entity);
+	}
+
 	public int executeUpdate(String updateQuery,  ParameterSource source) {
 		Query query = entityManager.createQuery(updateQuery);
 		setParametersIfRequired(updateQuery, source, query);
@@ -93,6 +117,10 @@ public class DefaultJpaOperations extends AbstractJpaOperations {
 		return query.executeUpdate();
 	}
 
+	public void flush() {
+		entityManager.flush();
+	}
+
 	public <T> T find(Class<T> entityType, Object id) {
 		return entityManager.find(entityType, id);
 	}
@@ -116,6 +144,29 @@ public class DefaultJpaOperations extends AbstractJpaOperations {
 
 	}
 
+	public List<?> getResultListForClass(Class<?> entityClass, String keyAttribute, Object lastKey,
+			int maxNumberOfResults) {
+
+		Assert.notNull(entityClass, "entityClass must not be null.");
+		Assert.hasText(keyAttribute, "keyAttribute must not be empty.");
+
+		final String entityName = JpaUtils.getEntityName(entityManager, entityClass);
+		final String restriction = lastKey == null ? "" : " where x." + keyAttribute + " > :lastKey";
+		final Query query = entityManager.createQuery("select x from " + entityName + " x" + restriction
+				+ " order by x." + keyAttribute, entityClass);
+
+		if (lastKey != null) {
+			query.setParameter("lastKey", lastKey);
+		}
+
+		if(maxNumberOfResults > 0) {
+			query.setMaxResults(maxNumberOfResults);
+		}
+
+		return query.getResultList();
+
+	}
+
 	public List<?> getResultListForNamedQuery(String selectNamedQuery,
 			ParameterSource parameterSource, int maxNumberOfResults) {
 
@@ -175,10 +226,68 @@ public class DefaultJpaOperations extends AbstractJpaOperations {
 		return entityManager.merge(entity);
 	}
 
+	public Object merge(Object entity, int flushSize, boolean clearOnFlush) {
+		return this.persistOrMerge(entity, true, flushSize, clearOnFlush);
+	}
+
 	public void persist(Object entity) {
 		entityManager.persist(entity);
 	}
 
+	public void persist(Object entity, int flushSize, boolean clearOnFlush) {
+		this.persistOrMerge(entity, false, flushSize, clearOnFlush);
+	}
+
+	private Object persistOrMerge(Object entity, boolean isMerge, int flushSize, boolean clearOnFlush) {
+		Assert.notNull(entity, "The entity must not be null!");
+
+		if (!(entity instanceof Iterable)) {
+			Object result = entity;
+			if (isMerge) {
+				result = entityManager.merge(entity);
+			}
+			else {
+				entityManager.persist(entity);
+			}
+			if (flushSize > 0) {
+				this.flushAndClearIfRequired(clearOnFlush);
+			}
+			return result;
+		}
+
+		final List<Object> mergedEntities = isMerge ? new ArrayList<Object>() : null;
+		int unflushed = 0;
+
+		for (Object element : (Iterable<?>) entity) {
+			if (element == null) {
+				continue;
+			}
+			if (isMerge) {
+				mergedEntities.add(entityManager.merge(element));
+			}
+			else {
+				entityManager.persist(element);
+			}
+			if (flushSize > 0 && ++unflushed >= flushSize) {
+				this.flushAndClearIfRequired(clearOnFlush);
+				unflushed = 0;
+			}
+		}
+
+		if (unflushed > 0) {
+			this.flushAndClearIfRequired(clearOnFlush);
+		}
+
+		return isMerge ? mergedEntities : entity;
+	}
+
+	private void flushAndClearIfRequired(boolean clearOnFlush) {
+		entityManager.flush();
+		if (clearOnFlush) {
+			entityManager.clear();
+		}
+	}
+
 	/**
 	 * Given a JPQL query, this method gets all parameters defined in this query and
 	 * use the {@link JPAQLParameterSource} to find their values and set them
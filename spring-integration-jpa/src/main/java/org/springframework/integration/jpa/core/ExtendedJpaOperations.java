@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.jpa.core;
+
+import java.util.List;
+
+/**
+ * Optional {@link JpaOperations}, used by the JPA adapters and gateways for batched
+ * persistence and keyset pagination. {@link DefaultJpaOperations} implements this
+ * interface; custom {@link JpaOperations} implementations that do not cannot be used
+ * with a flush size or a key attribute.
+ *
+ * @since 3.0
+ *
+ */
+public interface ExtendedJpaOperations extends JpaOperations {
+
+	/**
+	 * Deletes, using a single bulk JPQL statement, the entities of the given class
+	 * whose key attribute lies within the given (inclusive) range. As with any bulk
+	 * delete, the operation does not cascade to related entities and does not
+	 * affect entities held by the persistence context.
+	 *
+	 * @param entityClass Must not be null.
+	 * @param keyAttribute The name of the key attribute, typically the id; must not be empty.
+	 * @param firstKey The lowest key to delete; must not be null.
+	 * @param lastKey The highest key to delete; must not be null.
+	 * @return The number of entities deleted
+	 */
+	int deleteInRange(Class<?> entityClass, String keyAttribute, Object firstKey, Object lastKey);
+
+	/**
+	 * Removes the given entity from the persistence context, so that changes made to
+	 * it are no longer synchronized with the database.
+	 *
+	 * @param entity Must not be null.
+	 */
+	void detach(Object entity);
+
+	/**
+	 * Retrieves the entities of the given class whose key attribute is greater than
+	 * the given key, ordered by the key attribute. Passing the key of the last
+	 * entity returned as the next lastKey pages through the entities (keyset
+	 * pagination) without the cost of an offset, which the database has to
+	 * scan past on every page.
+	 *
+	 * @param entityClass Must not be null.
+	 * @param keyAttribute The name of the key attribute, typically the id; must not be empty.
+	 * @param lastKey The key after which to start; null to start with the first entity.
+	 * @param maxNumberOfResults The page size; 0 means all the remaining entities.
+	 * @return List of found entities
+	 */
+	List<?> getResultListForClass(Class<?> entityClass, String keyAttribute, Object lastKey,
+			int maxNumberOfResults);
+
+	/**
+	 * Synchronizes the persistence context with the database, executing any
+	 * pending inserts, updates and deletes.
+	 */
+	void flush();
+
+	/**
+	 * Merges the entity, or each element if the entity is an {@link Iterable} (null
+	 * elements are skipped). If flushSize is greater than 0, the persistence context is
+	 * flushed after that many entities, and at the end; if clearOnFlush is true, it is
+	 * also cleared after each flush, so that the managed entities can be garbage collected.
+	 *
+	 * @param entity Must not be null.
+	 * @param flushSize The number of entities after which to flush; 0 means no flush.
+	 * @param clearOnFlush Whether to clear the persistence context after each flush.
+	 * @return The merged managed instance of the entity, or a List of them.
+	 */
+	Object merge(Object entity, int flushSize, boolean clearOnFlush);
+
+	/**
+	 * Persists the entity, or each element if the entity is an {@link Iterable} (null
+	 * elements are skipped), flushing and clearing the persistence context as described
+	 * for {@link #merge(Object, int, boolean)}.
+	 *
+	 * @param entity Must not be null.
+	 * @param flushSize The number of entities after which to flush; 0 means no flush.
+	 * @param clearOnFlush Whether to clear the persistence context after each flush.
+	 */
+	void persist(Object entity, int flushSize, boolean clearOnFlush);
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,12 +15,16 @@
  */
 package org.springframework.integration.jpa.core;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Query;
 
+import org.springframework.beans.PropertyAccessor;
+import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessagingException;
@@ -30,6 +34,8 @@ import org.springframework.integration.jpa.support.parametersource.BeanPropertyP
 import org.springframework.integration.jpa.support.parametersource.ExpressionEvaluatingParameterSourceFactory;
 import org.springframework.integration.jpa.support.parametersource.ParameterSource;
 import org.springframework.integration.jpa.support.parametersource.ParameterSourceFactory;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 
 /**
@@ -49,6 +55,10 @@ import org.springframework.util.Assert;
  *     <li>delete the retrieved object</li>
  * </ul>
  *
+ * When a {@link #setKeyAttribute(String) keyAttribute} is set, the entityClass is
+ * polled in pages, ordered by the key, each poll starting after the last key of
+ * the previous one.
+ *
  * If neither entityClass nor any other query is specified then the entity-class
  * is "guessed" from the {@link Message} payload.
  *
@@ -72,6 +82,11 @@ public class JpaExecutor implements InitializingBean {
 
 	private volatile PersistMode persistMode = PersistMode.MERGE;
 
+	/** 0 means the persistence context is not explicitly flushed. */
+	private volatile int flushSize = 0;
+
+	private volatile boolean clearOnFlush = false;
+
 	private volatile ParameterSourceFactory parameterSourceFactory = null;
 	private volatile ParameterSource parameterSource;
 
@@ -80,6 +95,16 @@ public class JpaExecutor implements InitializingBean {
 
 	private volatile boolean  expectSingleResult = false;
 
+	/** The entity attribute used for keyset pagination; null if not paginating. */
+	private volatile String keyAttribute;
+
+	private final AtomicReference<Object> lastKey = new AtomicReference<Object>();
+
+	private final Object pageMonitor = new Object();
+
+	/** True while the transaction of a polled page has not completed; guarded by the pageMonitor. */
+	private boolean pageInFlight;
+
 	/**
 	 * Indicates that whether only the payload of the passed in {@link Message}
 	 * will be used as a source of parameters. The is 'true' by default because as a
@@ -140,6 +165,19 @@ public class JpaExecutor implements InitializingBean {
 	 */
 	public void afterPropertiesSet() {
 
+		if (this.flushSize > 0 || this.clearOnFlush) {
+			Assert.state(this.jpaOperations instanceof ExtendedJpaOperations, "A 'flushSize' or 'clearOnFlush' "
+					+ "requires the JpaOperations to implement ExtendedJpaOperations.");
+		}
+
+		if (this.keyAttribute != null) {
+			Assert.state(this.entityClass != null && this.jpaQuery == null && this.nativeQuery == null
+					&& this.namedQuery == null, "A 'keyAttribute' can only be used with an 'entityClass' "
+					+ "and no 'jpaQuery', 'nativeQuery' or 'namedQuery'.");
+			Assert.state(this.jpaOperations instanceof ExtendedJpaOperations, "A 'keyAttribute' "
+					+ "requires the JpaOperations to implement ExtendedJpaOperations.");
+		}
+
 		if (this.jpaParameters != null) {
 
 			if (this.parameterSourceFactory == null) {
@@ -216,15 +254,38 @@ public class JpaExecutor implements InitializingBean {
 		else {
 
 			if (PersistMode.PERSIST.equals(this.persistMode)) {
-				this.jpaOperations.persist(message.getPayload());
+				if (this.jpaOperations instanceof ExtendedJpaOperations) {
+					((ExtendedJpaOperations) this.jpaOperations).persist(message.getPayload(), this.flushSize,
+							this.clearOnFlush);
+				}
+				else {
+					this.jpaOperations.persist(message.getPayload());
+				}
 				result = message.getPayload();
 			}
 			else if (PersistMode.MERGE.equals(this.persistMode)) {
-				final Object mergedEntity = this.jpaOperations.merge(message.getPayload());
+				final Object mergedEntity;
+				if (this.jpaOperations instanceof ExtendedJpaOperations) {
+					mergedEntity = ((ExtendedJpaOperations) this.jpaOperations).merge(message.getPayload(),
+							this.flushSize, this.clearOnFlush);
+				}
+				else {
+					mergedEntity = this.jpaOperations.merge(message.getPayload());
+				}
 				result = mergedEntity;
 			}
 			else if (PersistMode.DELETE.equals(this.persistMode)) {
-				this.jpaOperations.delete(message.getPayload());
+				if (message.getPayload() instanceof Iterable) {
+					for (Object entity : (Iterable<?>) message.getPayload()) {
+						this.jpaOperations.delete(entity);
+					}
+				}
+				else {
+					this.jpaOperations.delete(message.getPayload());
+				}
+				if (this.flushSize > 0) {
+					((ExtendedJpaOperations) this.jpaOperations).flush();
+				}
 				result = message.getPayload();
 			}
 			else {
@@ -254,7 +315,10 @@ public class JpaExecutor implements InitializingBean {
 
 		final List<?> result;
 
-		if (requestMessage == null) {
+		if (this.keyAttribute != null) {
+			result = doPollNextPage();
+		}
+		else if (requestMessage == null) {
 			result = doPoll(this.parameterSource);
 		}
 		else {
@@ -288,7 +352,11 @@ public class JpaExecutor implements InitializingBean {
 
 		if (payload != null && this.deleteAfterPoll) {
 
-			if (payload instanceof Iterable) {
+			if (this.keyAttribute != null) {
+				((ExtendedJpaOperations) this.jpaOperations).deleteInRange(this.entityClass, this.keyAttribute,
+						getKey(result.get(0)), getKey(result.get(result.size() - 1)));
+			}
+			else if (payload instanceof Iterable) {
 				if (this.deleteInBatch) {
 					this.jpaOperations.deleteInBatch((Iterable<Object>) payload);
 				}
@@ -350,6 +418,72 @@ public class JpaExecutor implements InitializingBean {
 		return payload;
 	}
 
+	/**
+	 * Retrieve the next page of the entityClass, after the last key of the
+	 * previous page, and detach its entities from the persistence context. If a
+	 * transaction is active and does not commit, the last key is reset so that
+	 * the page is retrieved again by the next poll; until the transaction completes,
+	 * concurrent polls return no entities, so that no later page can be retrieved
+	 * (and committed) before a page that is rolled back.
+	 */
+	private List<?> doPollNextPage() {
+
+		if (this.entityClass == null) {
+			throw new IllegalStateException("For keyset pagination, the entityClass must be specified.");
+		}
+
+		synchronized (this.pageMonitor) {
+
+			if (this.pageInFlight) {
+				return Collections.emptyList();
+			}
+
+			final Object previousKey = this.lastKey.get();
+			final ExtendedJpaOperations jpaOperations = (ExtendedJpaOperations) this.jpaOperations;
+			final List<?> page = jpaOperations.getResultListForClass(this.entityClass, this.keyAttribute,
+					previousKey, this.maxNumberOfResults);
+
+			if (page.isEmpty()) {
+				return page;
+			}
+
+			this.lastKey.set(getKey(page.get(page.size() - 1)));
+
+			if (TransactionSynchronizationManager.isSynchronizationActive()) {
+				this.pageInFlight = true;
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+					@Override
+					public void afterCompletion(int status) {
+						synchronized (pageMonitor) {
+							if (status != STATUS_COMMITTED) {
+								lastKey.set(previousKey);
+							}
+							pageInFlight = false;
+						}
+					}
+
+				});
+			}
+
+			for (Object entity : page) {
+				jpaOperations.detach(entity);
+			}
+
+			return page;
+		}
+	}
+
+	private Object getKey(Object entity) {
+		PropertyAccessor accessor = PropertyAccessorFactory.forBeanPropertyAccess(entity);
+		if (!accessor.isReadableProperty(this.keyAttribute)) {
+			accessor = PropertyAccessorFactory.forDirectFieldAccess(entity);
+		}
+		final Object key = accessor.getPropertyValue(this.keyAttribute);
+		Assert.state(key != null, "The '" + this.keyAttribute + "' of a polled entity must not be null.");
+		return key;
+	}
+
 	/**
 	 * Sets the class type which is being used for retrieving entities from the
 	 * database.
@@ -407,6 +541,38 @@ public class JpaExecutor implements InitializingBean {
 		this.persistMode = persistMode;
 	}
 
+	/**
+	 * When persisting or merging entities, flush the persistence context after the
+	 * given number of entities, and once all the entities of a message have been
+	 * processed. This is typically used with an {@link Iterable} payload (such as the
+	 * output of an aggregator), each element of which is persisted or merged, so that
+	 * the inserts or updates are sent to the database in chunks (which the JPA provider
+	 * can combine into JDBC batches) rather than all at commit time. When deleting,
+	 * any positive value causes a flush after the entities have been deleted.
+	 * Requires the {@link JpaOperations} to implement {@link ExtendedJpaOperations},
+	 * as {@link DefaultJpaOperations} does.
+	 *
+	 * @param flushSize Defaults to 0, which means no explicit flush; must not be negative.
+	 * @since 3.0
+	 */
+	public void setFlushSize(int flushSize) {
+		Assert.isTrue(flushSize >= 0, "flushSize must not be negative.");
+		this.flushSize = flushSize;
+	}
+
+	/**
+	 * If set to 'true', the persistence context is cleared after each flush, detaching
+	 * the entities that have been written, so that bulk loads within one transaction do
+	 * not grow the persistence context without bound. Only applies if the
+	 * {@link #setFlushSize(int) flushSize} is greater than 0.
+	 *
+	 * @param clearOnFlush Defaults to 'false'.
+	 * @since 3.0
+	 */
+	public void setClearOnFlush(boolean clearOnFlush) {
+		this.clearOnFlush = clearOnFlush;
+	}
+
 	public void setJpaParameters(List<JpaParameter> jpaParameters) {
 		this.jpaParameters = jpaParameters;
 	}
@@ -415,6 +581,58 @@ public class JpaExecutor implements InitializingBean {
 		this.usePayloadAsParameterSource = usePayloadAsParameterSource;
 	}
 
+	/**
+	 * Enables keyset (also known as seek) pagination: each poll retrieves the next
+	 * {@link #setMaxNumberOfResults(int) maxNumberOfResults} entities of the
+	 * entityClass whose key attribute is greater than the last key of the previous
+	 * poll, ordered by the key. Unlike an offset, which the database has to scan past,
+	 * the restriction on the key uses its index, so that large tables can be drained
+	 * without slowing down as the position advances, and without loading the table
+	 * in a single message.
+	 * <p>
+	 * The polled entities are detached from the persistence context. If
+	 * {@link #setDeleteAfterPoll(boolean) deleteAfterPoll} is 'true', each page is
+	 * removed with a single bulk JPQL delete of its key range, instead of per
+	 * entity; as with {@link #setDeleteInBatch(boolean) deleteInBatch}, the delete
+	 * does not cascade to related entities.
+	 * <p>
+	 * The key attribute must be unique and, for entities inserted while polling,
+	 * increasing in commit order (such as a sequence-generated id); otherwise entities
+	 * committed with a lower key than the last key are skipped, and may be removed by a
+	 * range delete. Only the entityClass can be polled in this mode. Within a
+	 * transaction, a single page is polled at a time: until the transaction of a page
+	 * completes, other polls (for example, from a poller with a task executor) return
+	 * no entities. The {@link JpaOperations} must implement
+	 * {@link ExtendedJpaOperations}, as {@link DefaultJpaOperations} does.
+	 *
+	 * @param keyAttribute The name of the key attribute, typically the id.
+	 * @since 3.0
+	 */
+	public void setKeyAttribute(String keyAttribute) {
+		Assert.hasText(keyAttribute, "keyAttribute must neither be null nor empty.");
+		this.keyAttribute = keyAttribute;
+	}
+
+	/**
+	 * @return The key of the last entity polled when using keyset pagination, or null
+	 * if no entity has been polled yet.
+	 * @since 3.0
+	 */
+	public Object getLastKey() {
+		return this.lastKey.get();
+	}
+
+	/**
+	 * Sets the key after which the next keyset pagination poll starts, for example
+	 * to resume from a key that was saved by the application.
+	 *
+	 * @param lastKey The key, or null to start with the first entity.
+	 * @since 3.0
+	 */
+	public void setLastKey(Object lastKey) {
+		this.lastKey.set(lastKey);
+	}
+
 	/**
 	 * If not set, this property defaults to <code>false</code>, which means that
 	 * deletion occurs on a per object basis if a collection of entities is being
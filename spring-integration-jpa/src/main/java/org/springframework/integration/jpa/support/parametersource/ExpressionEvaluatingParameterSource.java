@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -49,13 +49,19 @@ class ExpressionEvaluatingParameterSource implements PositionSupportingParameter
 
 	private final ParameterExpressionEvaluator expressionEvaluator;
 
-	ExpressionEvaluatingParameterSource(Object input, List<JpaParameter> parameters, ParameterExpressionEvaluator expressionEvaluator) {
+	/**
+	 * @param parameterExpressions the expression parameters, converted once by the factory.
+	 * @param staticParameters the static parameters, converted once by the factory.
+	 */
+	ExpressionEvaluatingParameterSource(Object input, List<JpaParameter> parameters,
+			Map<String, String> parameterExpressions, Map<String, Object> staticParameters,
+			ParameterExpressionEvaluator expressionEvaluator) {
 
 		this.input      = input;
 		this.expressionEvaluator = expressionEvaluator;
 		this.parameters = parameters;
-		this.parameterExpressions = ExpressionEvaluatingParameterSourceUtils.convertExpressions(parameters);
-		this.values.putAll(ExpressionEvaluatingParameterSourceUtils.convertStaticParameters(parameters));
+		this.parameterExpressions = parameterExpressions;
+		this.values.putAll(staticParameters);
 
 	}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.integration.jpa.support.parametersource;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.integration.jpa.support.JpaParameter;
 import org.springframework.integration.jpa.support.parametersource.ExpressionEvaluatingParameterSourceUtils.ParameterExpressionEvaluator;
@@ -32,10 +33,17 @@ import org.springframework.util.Assert;
 public class ExpressionEvaluatingParameterSourceFactory implements ParameterSourceFactory {
 
 	private volatile List<JpaParameter> parameters;
+
+	private volatile Map<String, String> parameterExpressions;
+
+	private volatile Map<String, Object> staticParameters;
+
 	private ParameterExpressionEvaluator expressionEvaluator = new ParameterExpressionEvaluator();
 
 	public ExpressionEvaluatingParameterSourceFactory() {
 		this.parameters = Collections.unmodifiableList(new ArrayList<JpaParameter>());
+		this.parameterExpressions = Collections.emptyMap();
+		this.staticParameters = Collections.emptyMap();
 	}
 
 	/**
@@ -52,13 +60,15 @@ public class ExpressionEvaluatingParameterSourceFactory implements ParameterSour
 		}
 
 		this.parameters = parameters;
-		expressionEvaluator.getEvaluationContext().setVariable("staticParameters",
-				ExpressionEvaluatingParameterSourceUtils.convertStaticParameters(parameters));
+		this.parameterExpressions = ExpressionEvaluatingParameterSourceUtils.convertExpressions(parameters);
+		this.staticParameters = ExpressionEvaluatingParameterSourceUtils.convertStaticParameters(parameters);
+		expressionEvaluator.getEvaluationContext().setVariable("staticParameters", this.staticParameters);
 
 	}
 
 	public PositionSupportingParameterSource createParameterSource(final Object input) {
-		return new ExpressionEvaluatingParameterSource(input, this.parameters, expressionEvaluator);
+		return new ExpressionEvaluatingParameterSource(input, this.parameters, this.parameterExpressions,
+				this.staticParameters, expressionEvaluator);
 	}
 
 }
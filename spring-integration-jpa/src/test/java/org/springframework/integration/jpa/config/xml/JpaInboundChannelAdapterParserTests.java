@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -88,6 +88,19 @@ public class JpaInboundChannelAdapterParserTests {
 
 	}
 
+	@Test
+	public void testJpaInboundChannelAdapterParserWithKeyAttribute() throws Exception {
+
+		setUp("JpaInboundChannelAdapterParserTests.xml", getClass(), "jpaInboundChannelAdapter3");
+
+		final JpaExecutor jpaExecutor = TestUtils.getPropertyValue(this.consumer, "source.jpaExecutor", JpaExecutor.class);
+
+		assertEquals("rollNumber", TestUtils.getPropertyValue(jpaExecutor, "keyAttribute", String.class));
+		assertEquals(Integer.valueOf(100), TestUtils.getPropertyValue(jpaExecutor, "maxNumberOfResults", Integer.class));
+		assertTrue(TestUtils.getPropertyValue(jpaExecutor, "deleteAfterPoll", Boolean.class));
+
+	}
+
 	@Test
 	public void testJpaExecutorBeanIdNaming() throws Exception {
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -13,6 +13,7 @@
 package org.springframework.integration.jpa.config.xml;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -133,6 +134,9 @@ public class JpaOutboundGatewayParserTests {
 
 		assertEquals(PersistMode.PERSIST, persistMode);
 
+		assertEquals(Integer.valueOf(50), TestUtils.getPropertyValue(jpaExecutor, "flushSize", Integer.class));
+		assertFalse(TestUtils.getPropertyValue(jpaExecutor, "clearOnFlush", Boolean.class));
+
 	}
 
 	@Test
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -75,6 +75,24 @@ public class AbstractJpaOperationsTests {
 
 	}
 
+	public void testGetStudentsAfterKey() {
+
+		final ExtendedJpaOperations jpaOperations = (ExtendedJpaOperations) getJpaOperations(entityManager);
+
+		List<?> students = jpaOperations.getResultListForClass(StudentDomain.class, "rollNumber", null, 2);
+		assertEquals(2, students.size());
+		assertEquals(Long.valueOf(1001), ((StudentDomain) students.get(0)).getRollNumber());
+		assertEquals(Long.valueOf(1002), ((StudentDomain) students.get(1)).getRollNumber());
+
+		students = jpaOperations.getResultListForClass(StudentDomain.class, "rollNumber", 1002L, 2);
+		assertEquals(1, students.size());
+		assertEquals(Long.valueOf(1003), ((StudentDomain) students.get(0)).getRollNumber());
+
+		students = jpaOperations.getResultListForClass(StudentDomain.class, "rollNumber", 1003L, 0);
+		assertEquals(0, students.size());
+
+	}
+
 	/**
 	 * Test method for {@link org.springframework.integration.jpa.core.DefaultJpaOperations#executeUpdate(java.lang.String, org.springframework.integration.jpa.core.JpaQLParameterSource)}.
 	 */
@@ -269,6 +287,25 @@ public class AbstractJpaOperationsTests {
 
 	}
 
+	public void testDeleteInRange() {
+		final ExtendedJpaOperations jpaOperations = (ExtendedJpaOperations) getJpaOperations(entityManager);
+
+		DefaultTransactionDefinition def = new DefaultTransactionDefinition();
+		def.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+
+		TransactionStatus status = transactionManager.getTransaction(def);
+
+		assertEquals(2, jpaOperations.deleteInRange(StudentDomain.class, "rollNumber", 1001L, 1002L));
+
+		transactionManager.commit(status);
+
+		final List<?> studentsFromDb = jpaOperations.getResultListForClass(StudentDomain.class, 0);
+
+		assertEquals(1, studentsFromDb.size());
+		assertEquals(Long.valueOf(1003), ((StudentDomain) studentsFromDb.get(0)).getRollNumber());
+
+	}
+
 	protected JpaOperations getJpaOperations(EntityManager entityManager) {
 
 		final DefaultJpaOperations jpaOperationsImpl = new DefaultJpaOperations();
@@ -117,6 +117,12 @@ public class EclipseLinkJpaOperationsTests extends AbstractJpaOperationsTests {
 		super.testGetAllStudentsWithMaxResults();
 	}
 
+	@Test
+	@Override
+	public void testGetStudentsAfterKey() {
+		super.testGetStudentsAfterKey();
+	}
+
 	@Test
 	@Override
 	public void testDeleteInBatch() {
@@ -135,4 +141,10 @@ public class EclipseLinkJpaOperationsTests extends AbstractJpaOperationsTests {
 		super.testDeleteInBatchWithEmptyCollection();
 	}
 
+	@Test
+	@Override
+	public void testDeleteInRange() {
+		super.testDeleteInRange();
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -91,6 +91,12 @@ public class HibernateJpaOperationsTests extends AbstractJpaOperationsTests {
 		super.testGetAllStudentsWithMaxResults();
 	}
 
+	@Test
+	@Override
+	public void testGetStudentsAfterKey() {
+		super.testGetStudentsAfterKey();
+	}
+
 	@Test
 	@Override
 	public void testExecuteUpdateWithNamedQuery() {
@@ -152,4 +158,10 @@ public class HibernateJpaOperationsTests extends AbstractJpaOperationsTests {
 		super.testDeleteInBatchWithEmptyCollection();
 	}
 
+	@Test
+	@Override
+	public void testDeleteInRange() {
+		super.testDeleteInRange();
+	}
+
 }
@@ -13,6 +13,7 @@
 package org.springframework.integration.jpa.core;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 import java.util.Collections;
 import java.util.Map;
@@ -26,6 +27,7 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.integration.Message;
 import org.springframework.integration.jpa.support.JpaParameter;
+import org.springframework.integration.jpa.support.PersistMode;
 import org.springframework.integration.jpa.support.parametersource.ExpressionEvaluatingParameterSourceFactory;
 import org.springframework.integration.jpa.test.entity.StudentDomain;
 import org.springframework.integration.support.MessageBuilder;
@@ -222,4 +224,75 @@ public class JpaExecutorTests {
 
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void testKeyAttributeWithJpaQuery() throws Exception {
+
+		final JpaExecutor jpaExecutor = new JpaExecutor(mock(EntityManager.class));
+		jpaExecutor.setJpaQuery("select s from Student s");
+		jpaExecutor.setKeyAttribute("rollNumber");
+
+		try {
+			jpaExecutor.afterPropertiesSet();
+		} catch (IllegalStateException e) {
+			Assert.assertEquals("A 'keyAttribute' can only be used with an 'entityClass' "
+					+ "and no 'jpaQuery', 'nativeQuery' or 'namedQuery'.", e.getMessage());
+			return;
+		}
+
+		Assert.fail("Was expecting an IllegalStateException to be thrown.");
+
+	}
+
+	@Test
+	public void testFlushSizeRequiresExtendedJpaOperations() throws Exception {
+
+		final JpaExecutor jpaExecutor = new JpaExecutor(mock(JpaOperations.class));
+		jpaExecutor.setFlushSize(10);
+
+		try {
+			jpaExecutor.afterPropertiesSet();
+		} catch (IllegalStateException e) {
+			Assert.assertEquals("A 'flushSize' or 'clearOnFlush' "
+					+ "requires the JpaOperations to implement ExtendedJpaOperations.", e.getMessage());
+			return;
+		}
+
+		Assert.fail("Was expecting an IllegalStateException to be thrown.");
+
+	}
+
+	@Test
+	public void testKeyAttributeRequiresExtendedJpaOperations() throws Exception {
+
+		final JpaExecutor jpaExecutor = new JpaExecutor(mock(JpaOperations.class));
+		jpaExecutor.setEntityClass(StudentDomain.class);
+		jpaExecutor.setKeyAttribute("rollNumber");
+
+		try {
+			jpaExecutor.afterPropertiesSet();
+		} catch (IllegalStateException e) {
+			Assert.assertEquals("A 'keyAttribute' "
+					+ "requires the JpaOperations to implement ExtendedJpaOperations.", e.getMessage());
+			return;
+		}
+
+		Assert.fail("Was expecting an IllegalStateException to be thrown.");
+
+	}
+
+	@Test
+	public void testPersistWithJpaOperations() throws Exception {
+
+		final JpaOperations jpaOperations = mock(JpaOperations.class);
+		final JpaExecutor jpaExecutor = new JpaExecutor(jpaOperations);
+		jpaExecutor.setPersistMode(PersistMode.PERSIST);
+		jpaExecutor.afterPropertiesSet();
+
+		final StudentDomain student = new StudentDomain();
+		jpaExecutor.executeOutboundJpaOperation(MessageBuilder.withPayload(student).build());
+
+		verify(jpaOperations).persist(student);
+
+	}
+
+}
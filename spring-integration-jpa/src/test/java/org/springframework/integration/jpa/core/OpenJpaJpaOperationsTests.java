@@ -162,6 +162,12 @@ public class OpenJpaJpaOperationsTests extends AbstractJpaOperationsTests {
 		super.testGetAllStudentsWithMaxResults();
 	}
 
+	@Test
+	@Override
+	public void testGetStudentsAfterKey() {
+		super.testGetStudentsAfterKey();
+	}
+
 	@Test
 	@Override
 	public void testDeleteInBatch() {
@@ -179,4 +185,10 @@ public class OpenJpaJpaOperationsTests extends AbstractJpaOperationsTests {
 	public void testDeleteInBatchWithEmptyCollection() {
 		super.testDeleteInBatchWithEmptyCollection();
 	}
+
+	@Test
+	@Override
+	public void testDeleteInRange() {
+		super.testDeleteInRange();
+	}
 }
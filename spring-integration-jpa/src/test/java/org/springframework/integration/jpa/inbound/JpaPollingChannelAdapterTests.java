@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 package org.springframework.integration.jpa.inbound;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -24,8 +25,12 @@ import static org.junit.Assert.fail;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.persistence.EntityManager;
+import javax.sql.DataSource;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -46,6 +51,10 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.transaction.TransactionConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Integration tests for the Jpa Polling Channel Adapter {@link JpaPollingChannelAdapter}.
@@ -80,6 +89,12 @@ public class JpaPollingChannelAdapterTests {
 	@Autowired
 	TestTrigger testTrigger;
 
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	DataSource dataSource;
+
 	/**
 	 * In this test, a Jpa Polling Channel Adapter will use a plain entity class
 	 * to retrieve a list of records from the database.
@@ -489,4 +504,145 @@ public class JpaPollingChannelAdapterTests {
 
 	}
 
+	/**
+	 * In this test, a Jpa Polling Channel Adapter will page through the entities
+	 * using keyset pagination, and delete each page by its key range.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	@DirtiesContext
+	public void testWithKeysetPaginationAndDelete() throws Exception {
+
+		final JpaExecutor jpaExecutor = new JpaExecutor(jpaOperations);
+		jpaExecutor.setEntityClass(StudentDomain.class);
+		jpaExecutor.setKeyAttribute("rollNumber");
+		jpaExecutor.setMaxNumberOfResults(2);
+		jpaExecutor.setDeleteAfterPoll(true);
+		jpaExecutor.afterPropertiesSet();
+
+		final JpaPollingChannelAdapter jpaPollingChannelAdapter = new JpaPollingChannelAdapter(jpaExecutor);
+
+		Message<?> message = this.receiveInTransaction(jpaPollingChannelAdapter);
+		assertNotNull(message);
+		List<?> students = (List<?>) message.getPayload();
+		assertEquals(2, students.size());
+		assertEquals(Long.valueOf(1001), ((StudentDomain) students.get(0)).getRollNumber());
+		assertEquals(Long.valueOf(1002), ((StudentDomain) students.get(1)).getRollNumber());
+
+		message = this.receiveInTransaction(jpaPollingChannelAdapter);
+		assertNotNull(message);
+		students = (List<?>) message.getPayload();
+		assertEquals(1, students.size());
+		assertEquals(Long.valueOf(1003), ((StudentDomain) students.get(0)).getRollNumber());
+
+		assertNull(this.receiveInTransaction(jpaPollingChannelAdapter));
+		assertEquals(1003L, jpaExecutor.getLastKey());
+
+		assertEquals(Long.valueOf(0), entityManager.createQuery("select count(*) from Student", Long.class)
+				.getSingleResult());
+
+	}
+
+	/**
+	 * In this test, the keyset pagination poll is rolled back, so the same page
+	 * is retrieved by the next poll.
+	 */
+	@Test
+	public void testWithKeysetPaginationAndRollback() {
+
+		final JpaExecutor jpaExecutor = new JpaExecutor(entityManager);
+		jpaExecutor.setEntityClass(StudentDomain.class);
+		jpaExecutor.setKeyAttribute("rollNumber");
+		jpaExecutor.setMaxNumberOfResults(2);
+		jpaExecutor.afterPropertiesSet();
+
+		new TransactionTemplate(this.transactionManager).execute(new TransactionCallback<Object>() {
+
+			public Object doInTransaction(TransactionStatus status) {
+				List<?> students = (List<?>) jpaExecutor.poll();
+				assertEquals(2, students.size());
+				assertFalse(entityManager.contains(students.get(0)));
+				assertEquals(1002L, jpaExecutor.getLastKey());
+				status.setRollbackOnly();
+				return null;
+			}
+		});
+
+		assertNull(jpaExecutor.getLastKey());
+
+		List<?> students = (List<?>) jpaExecutor.poll();
+		assertEquals(2, students.size());
+		assertEquals(1002L, jpaExecutor.getLastKey());
+
+		students = (List<?>) jpaExecutor.poll();
+		assertEquals(1, students.size());
+		assertEquals(1003L, jpaExecutor.getLastKey());
+
+		assertNull(jpaExecutor.poll());
+
+	}
+
+	/**
+	 * In this test, a page is polled by another thread while the transaction of the
+	 * previous page is in flight; that transaction is then rolled back, so its page
+	 * is retrieved again rather than skipped.
+	 */
+	@Test
+	public void testWithKeysetPaginationAndConcurrentRollback() throws Exception {
+
+		final JpaExecutor jpaExecutor = new JpaExecutor(entityManager);
+		jpaExecutor.setEntityClass(StudentDomain.class);
+		jpaExecutor.setKeyAttribute("rollNumber");
+		jpaExecutor.setMaxNumberOfResults(2);
+		jpaExecutor.afterPropertiesSet();
+
+		final TransactionTemplate transactionTemplate = new TransactionTemplate(this.transactionManager);
+		final ExecutorService exec = Executors.newSingleThreadExecutor();
+		final Callable<Object> concurrentPoll = new Callable<Object>() {
+
+			public Object call() throws Exception {
+				return transactionTemplate.execute(new TransactionCallback<Object>() {
+
+					public Object doInTransaction(TransactionStatus status) {
+						return jpaExecutor.poll();
+					}
+				});
+			}
+		};
+
+		transactionTemplate.execute(new TransactionCallback<Object>() {
+
+			public Object doInTransaction(TransactionStatus status) {
+				List<?> students = (List<?>) jpaExecutor.poll();
+				assertEquals(2, students.size());
+				try {
+					// the page after this one is not polled while this transaction is in flight
+					assertNull(exec.submit(concurrentPoll).get());
+				}
+				catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+				status.setRollbackOnly();
+				return null;
+			}
+		});
+
+		List<?> students = (List<?>) exec.submit(concurrentPoll).get();
+		assertEquals(2, students.size());
+		assertEquals(Long.valueOf(1001), ((StudentDomain) students.get(0)).getRollNumber());
+		assertEquals(1002L, jpaExecutor.getLastKey());
+		exec.shutdown();
+
+	}
+
+	private Message<?> receiveInTransaction(final JpaPollingChannelAdapter jpaPollingChannelAdapter) {
+		return new TransactionTemplate(this.transactionManager).execute(new TransactionCallback<Message<?>>() {
+
+			public Message<?> doInTransaction(TransactionStatus status) {
+				return jpaPollingChannelAdapter.receive();
+			}
+		});
+	}
+
 }
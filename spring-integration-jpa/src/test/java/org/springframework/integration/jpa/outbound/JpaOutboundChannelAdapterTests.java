@@ -12,6 +12,7 @@
  */
 package org.springframework.integration.jpa.outbound;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.persistence.EntityManager;
@@ -24,6 +25,7 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
+import org.springframework.integration.channel.QueueChannel;
 import org.springframework.integration.jpa.core.JpaExecutor;
 import org.springframework.integration.jpa.support.PersistMode;
 import org.springframework.integration.jpa.test.JpaTestUtils;
@@ -173,6 +175,67 @@ public class JpaOutboundChannelAdapterTests {
 		Assert.assertNotNull(testStudent.getRollNumber());
 	}
 
+	@Test
+	public void saveEntitiesInBatchesWithPersist() {
+
+		JpaExecutor jpaExecutor = new JpaExecutor(entityManager);
+		jpaExecutor.setPersistMode(PersistMode.PERSIST);
+		jpaExecutor.setFlushSize(3);
+		jpaExecutor.setClearOnFlush(true);
+		jpaExecutor.afterPropertiesSet();
+
+		JpaOutboundGateway jpaOutboundChannelAdapter = new JpaOutboundGateway(jpaExecutor);
+		jpaOutboundChannelAdapter.setProducesReply(false);
+
+		List<StudentDomain> students = new ArrayList<StudentDomain>();
+		for (int i = 0; i < 10; i++) {
+			students.add(JpaTestUtils.getTestStudent());
+		}
+
+		TransactionStatus status = transactionManager.getTransaction(new DefaultTransactionDefinition());
+		jpaOutboundChannelAdapter.handleMessage(MessageBuilder.withPayload(students).build());
+		// all entities have been written and detached before the commit
+		Assert.assertEquals(13, this.jdbcTemplate.queryForInt("select count(*) from Student"));
+		for (StudentDomain student : students) {
+			Assert.assertNotNull(student.getRollNumber());
+			Assert.assertFalse(this.entityManager.contains(student));
+		}
+		transactionManager.commit(status);
+
+		Assert.assertEquals(13, this.jdbcTemplate.queryForInt("select count(*) from Student"));
+	}
+
+	@Test
+	public void saveEntitiesWithMerge() {
+
+		JpaExecutor jpaExecutor = new JpaExecutor(entityManager);
+		jpaExecutor.setFlushSize(100);
+		jpaExecutor.afterPropertiesSet();
+
+		JpaOutboundGateway jpaOutboundGateway = new JpaOutboundGateway(jpaExecutor);
+		QueueChannel replies = new QueueChannel();
+		jpaOutboundGateway.setOutputChannel(replies);
+
+		List<StudentDomain> students = new ArrayList<StudentDomain>();
+		for (int i = 0; i < 5; i++) {
+			students.add(JpaTestUtils.getTestStudent());
+		}
+		students.add(null);
+
+		TransactionStatus status = transactionManager.getTransaction(new DefaultTransactionDefinition());
+		jpaOutboundGateway.handleMessage(MessageBuilder.withPayload(students).build());
+		transactionManager.commit(status);
+
+		Message<?> reply = replies.receive(0);
+		Assert.assertNotNull(reply);
+		List<?> merged = (List<?>) reply.getPayload();
+		Assert.assertEquals(5, merged.size());
+		for (Object student : merged) {
+			Assert.assertNotNull(((StudentDomain) student).getRollNumber());
+		}
+		Assert.assertEquals(8, this.jdbcTemplate.queryForInt("select count(*) from Student"));
+	}
+
 	@Test //INT-2557
 	public void saveEntityWithPersistWithinChain() throws InterruptedException {
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.springframework.beans.DirectFieldAccessor;
 import org.springframework.beans.factory.BeanClassLoaderAware;
@@ -40,9 +42,11 @@ import org.springframework.data.mongodb.MongoDbFactory;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.convert.CustomConversions;
 import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
 import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Order;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.integration.Message;
@@ -91,6 +95,8 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 
 	private final static String CREATED_DATE = "_createdDate";
 
+	private final static String MESSAGE_ID_KEY = "headers.id._value";
+
 
 	private final MongoTemplate template;
 
@@ -98,6 +104,12 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 
 	private volatile ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
 
+	private final ConcurrentMap<String, Class<?>> classCache = new ConcurrentHashMap<String, Class<?>>();
+
+	private volatile boolean createIndexes = true;
+
+	private volatile boolean indexesCreated;
+
 
 	/**
 	 * Create a MongoDbMessageStore using the provided {@link MongoDbFactory}.and the default collection name.
@@ -121,10 +133,21 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 	public void setBeanClassLoader(ClassLoader classLoader) {
 		Assert.notNull(classLoader, "classLoader must not be null");
 		this.classLoader = classLoader;
+		this.classCache.clear();
+	}
+
+	/**
+	 * Set to false to prevent the store from creating the indexes on the message id and
+	 * group id fields when the first message is added (for example, if the indexes are managed
+	 * externally or the user does not have the required privileges). Default true.
+	 */
+	public void setCreateIndexes(boolean createIndexes) {
+		this.createIndexes = createIndexes;
 	}
 
 	public <T> Message<T> addMessage(Message<T> message) {
 		Assert.notNull(message, "'message' must not be null");
+		this.createIndexesIfNecessary();
 		this.template.insert(new MessageWrapper(message), this.collectionName);
 		return message;
 	}
@@ -178,10 +201,11 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 	public MessageGroup addMessageToGroup(Object groupId, Message<?> message) {
 		Assert.notNull(groupId, "'groupId' must not be null");
 		Assert.notNull(message, "'message' must not be null");
-		MessageGroup messageGroup = this.getMessageGroup(groupId);
+		this.createIndexesIfNecessary();
+		DBObject groupMetadata = this.getGroupMetadata(groupId);
 
-		long messageGroupTimestamp = messageGroup.getTimestamp();
-		long lastModified = messageGroup.getLastModified();
+		long messageGroupTimestamp = getLong(groupMetadata, GROUP_TIMESTAMP_KEY);
+		long lastModified;
 
 		if (messageGroupTimestamp == 0){
 			messageGroupTimestamp = System.currentTimeMillis();
@@ -195,8 +219,14 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 		wrapper.set_GroupId(groupId);
 		wrapper.set_Group_timestamp(messageGroupTimestamp);
 		wrapper.set_Group_update_timestamp(lastModified);
-		wrapper.set_Group_complete(messageGroup.isComplete());
-		wrapper.set_LastReleasedSequenceNumber(messageGroup.getLastReleasedMessageSequenceNumber());
+		if (groupMetadata != null) {
+			Boolean completeGroup = (Boolean) groupMetadata.get(GROUP_COMPLETE_KEY);
+			wrapper.set_Group_complete(completeGroup != null && completeGroup.booleanValue());
+			Integer lastReleasedSequenceNumber = (Integer) groupMetadata.get(LAST_RELEASED_SEQUENCE_NUMBER);
+			if (lastReleasedSequenceNumber != null) {
+				wrapper.set_LastReleasedSequenceNumber(lastReleasedSequenceNumber);
+			}
+		}
 
 		this.template.insert(wrapper, this.collectionName);
 		return this.getMessageGroup(groupId);
@@ -218,15 +248,51 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 	}
 
 	public Iterator<MessageGroup> iterator() {
-		List<MessageWrapper> groupedMessages = this.template.find(whereGroupIdExists(), MessageWrapper.class, this.collectionName);
-		Map<Object, MessageGroup> messageGroups = new HashMap<Object, MessageGroup>();
-		for (MessageWrapper groupedMessage : groupedMessages) {
-			Object groupId = groupedMessage.get_GroupId();
-			if (!messageGroups.containsKey(groupId)) {
-				messageGroups.put(groupId, this.getMessageGroup(groupId));
+		List<MessageGroup> messageGroups = new ArrayList<MessageGroup>();
+		for (Object groupId : this.getGroupIds()) {
+			messageGroups.add(this.getMessageGroup(groupId));
+		}
+		return messageGroups.iterator();
+	}
+
+	/**
+	 * Only the group metadata is retrieved to determine whether each group has expired;
+	 * the messages are loaded only for the groups that are passed to the expiry callbacks.
+	 */
+	@Override
+	public int expireMessageGroups(long timeout) {
+		int count = 0;
+		long threshold = System.currentTimeMillis() - timeout;
+		for (Object groupId : this.getGroupIds()) {
+			DBObject groupMetadata = this.getGroupMetadata(groupId);
+			if (groupMetadata == null) {
+				continue;
+			}
+			long timestamp = getLong(groupMetadata, GROUP_TIMESTAMP_KEY);
+			long lastModified = getLong(groupMetadata, GROUP_UPDATE_TIMESTAMP_KEY);
+			if (this.isTimeoutOnIdle() && lastModified > 0) {
+				timestamp = lastModified;
+			}
+			if (timestamp <= threshold) {
+				count++;
+				this.expire(this.getMessageGroup(groupId));
 			}
 		}
-		return messageGroups.values().iterator();
+		return count;
+	}
+
+	@Override
+	@ManagedAttribute
+	public int getMessageGroupCount() {
+		return this.getGroupIds().size();
+	}
+
+	@Override
+	@ManagedAttribute
+	public int getMessageCountForAllMessageGroups() {
+		long lCount = this.template.count(whereGroupIdExists(), this.collectionName);
+		Assert.isTrue(lCount <= Integer.MAX_VALUE, "Message count is out of Integer's range");
+		return (int) lCount;
 	}
 
 	public void completeGroup(Object groupId) {
@@ -267,7 +333,7 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 	 */
 
 	private static Query whereMessageIdIs(UUID id) {
-		return new Query(where("headers.id._value").is(id.toString()));
+		return new Query(where(MESSAGE_ID_KEY).is(id.toString()));
 	}
 
 	private static Query whereGroupIdIs(Object groupId) {
@@ -292,6 +358,48 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 		this.template.updateFirst(q, update, this.collectionName);
 	}
 
+	@SuppressWarnings("unchecked")
+	private List<Object> getGroupIds() {
+		return this.template.getCollection(this.collectionName).distinct(GROUP_ID_KEY, whereGroupIdExists().getQueryObject());
+	}
+
+	/**
+	 * Retrieves the group metadata from the most recently updated document in the
+	 * group, without the message payload and headers.
+	 * @return the metadata, or null if the group is empty.
+	 */
+	private DBObject getGroupMetadata(Object groupId) {
+		Query q = whereGroupIdIs(groupId);
+		q.fields().include(GROUP_TIMESTAMP_KEY).include(GROUP_UPDATE_TIMESTAMP_KEY)
+				.include(GROUP_COMPLETE_KEY).include(LAST_RELEASED_SEQUENCE_NUMBER);
+		return this.template.findOne(q, DBObject.class, this.collectionName);
+	}
+
+	private static long getLong(DBObject dbObject, String key) {
+		if (dbObject == null) {
+			return 0;
+		}
+		Object value = dbObject.get(key);
+		return (value instanceof Number) ? ((Number) value).longValue() : 0;
+	}
+
+	private void createIndexesIfNecessary() {
+		if (this.createIndexes && !this.indexesCreated) {
+			this.template.indexOps(this.collectionName).ensureIndex(new Index(MESSAGE_ID_KEY, Order.ASCENDING));
+			this.template.indexOps(this.collectionName).ensureIndex(new Index(GROUP_ID_KEY, Order.ASCENDING));
+			this.indexesCreated = true;
+		}
+	}
+
+	private Class<?> resolveClass(String className) throws ClassNotFoundException {
+		Class<?> clazz = this.classCache.get(className);
+		if (clazz == null) {
+			clazz = ClassUtils.forName(className, this.classLoader);
+			this.classCache.putIfAbsent(className, clazz);
+		}
+		return clazz;
+	}
+
 
 	/**
 	 * Custom implementation of the {@link MappingMongoConverter} strategy.
@@ -335,7 +443,7 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 				Object payloadType = source.get(PAYLOAD_TYPE_KEY);
 				if (payloadType != null && payload instanceof DBObject) {
 					try {
-						Class<?> payloadClass = ClassUtils.forName(payloadType.toString(), classLoader);
+						Class<?> payloadClass = resolveClass(payloadType.toString());
 						payload = this.read(payloadClass, (DBObject) payload);
 					}
 					catch (Exception e) {
@@ -384,7 +492,7 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 					DBObject source = (DBObject) headerValue;
 					Object type = source.get("_class");
 					try {
-						Class<?> typeClass = ClassUtils.forName(type.toString(), classLoader);
+						Class<?> typeClass = resolveClass(type.toString());
 						normalizedHeaders.put(headerName, super.read(typeClass, source));
 					}
 					catch (Exception e) {
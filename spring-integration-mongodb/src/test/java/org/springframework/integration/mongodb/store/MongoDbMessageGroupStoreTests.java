@@ -1,5 +1,5 @@
 /*
- * Copyright 2007-2012 the original author or authors
+ * Copyright 2007-2013 the original author or authors
  *
  *     Licensed under the Apache License, Version 2.0 (the "License");
  *     you may not use this file except in compliance with the License.
@@ -15,7 +15,10 @@
  */
 package org.springframework.integration.mongodb.store;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
 import java.util.UUID;
 
@@ -23,6 +26,7 @@ import org.junit.Test;
 
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
 import org.springframework.integration.channel.DirectChannel;
@@ -32,14 +36,27 @@ import org.springframework.integration.message.GenericMessage;
 import org.springframework.integration.mongodb.rules.MongoDbAvailable;
 import org.springframework.integration.mongodb.rules.MongoDbAvailableTests;
 import org.springframework.integration.store.MessageGroup;
+import org.springframework.integration.store.MessageGroupStore;
+import org.springframework.integration.store.MessageGroupStore.MessageGroupCallback;
 import org.springframework.integration.store.SimpleMessageGroup;
 import org.springframework.integration.support.MessageBuilder;
 
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * @author Oleg Zhurakousky
@@ -387,4 +404,69 @@ public class MongoDbMessageGroupStoreTests extends MongoDbAvailableTests {
 		assertEquals("channel", fooChannelHistory.get("type"));
 	}
 
+	@Test
+	@MongoDbAvailable
+	public void testIndexesAndGroupCounts() throws Exception{
+		MongoDbFactory mongoDbFactory = this.prepareMongoFactory();
+		MongoDbMessageStore store = new MongoDbMessageStore(mongoDbFactory);
+
+		store.addMessageToGroup(1, new GenericMessage<String>("1"));
+		store.addMessageToGroup(1, new GenericMessage<String>("2"));
+		store.addMessageToGroup(2, new GenericMessage<String>("3"));
+		store.addMessage(new GenericMessage<String>("4"));
+
+		List<String> indexedKeys = new ArrayList<String>();
+		for (DBObject index : new MongoTemplate(mongoDbFactory).getCollection("messages").getIndexInfo()) {
+			indexedKeys.addAll(((DBObject) index.get("key")).keySet());
+		}
+		assertTrue(indexedKeys.contains("headers.id._value"));
+		assertTrue(indexedKeys.contains("_groupId"));
+
+		assertEquals(2, store.getMessageGroupCount());
+		assertEquals(3, store.getMessageCountForAllMessageGroups());
+		assertEquals(2, store.messageGroupSize(1));
+	}
+
+	@Test
+	@MongoDbAvailable
+	public void testExpireMessageGroups() throws Exception{
+		MongoDbFactory mongoDbFactory = this.prepareMongoFactory();
+		MongoDbMessageStore store = new MongoDbMessageStore(mongoDbFactory);
+		final List<Object> expired = new ArrayList<Object>();
+		store.registerMessageGroupExpiryCallback(new MessageGroupCallback() {
+			public void execute(MessageGroupStore messageGroupStore, MessageGroup group) {
+				assertEquals(1, group.size());
+				expired.add(group.getGroupId());
+				messageGroupStore.removeMessageGroup(group.getGroupId());
+			}
+		});
+
+		store.addMessageToGroup(1, new GenericMessage<String>("1"));
+		store.addMessageToGroup(2, new GenericMessage<String>("2"));
+
+		assertEquals(0, store.expireMessageGroups(60000));
+		assertEquals(0, expired.size());
+		Thread.sleep(10);
+		assertEquals(2, store.expireMessageGroups(0));
+		assertTrue(expired.containsAll(Arrays.asList(1, 2)));
+		assertEquals(0, store.getMessageGroupCount());
+	}
+
+	@Test
+	public void testGroupEnumerationDoesNotLoadMessages() throws Exception{
+		MongoDbFactory mongoDbFactory = mock(MongoDbFactory.class);
+		DB db = mock(DB.class);
+		DBCollection collection = mock(DBCollection.class);
+		when(mongoDbFactory.getDb()).thenReturn(db);
+		when(db.getCollection(anyString())).thenReturn(collection);
+		when(collection.distinct(eq("_groupId"), any(DBObject.class))).thenReturn(new ArrayList<Object>());
+		MongoDbMessageStore store = new MongoDbMessageStore(mongoDbFactory);
+
+		assertEquals(0, store.getMessageGroupCount());
+		assertFalse(store.iterator().hasNext());
+		assertEquals(0, store.expireMessageGroups(0));
+		verify(collection, never()).find(any(DBObject.class));
+		verify(collection, never()).find(any(DBObject.class), any(DBObject.class));
+	}
+
 }
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.redis.channel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageDeliveryException;
+import org.springframework.integration.channel.AbstractPollableChannel;
+import org.springframework.integration.support.serializer.CompactMessageSerializer;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+/**
+ * A point-to-point {@link org.springframework.integration.core.PollableChannel} backed
+ * by a Redis list, so messages survive restarts and can be shared by consumers in
+ * several processes.
+ * <p>
+ * Messages are pushed onto the list named by the {@code queueName}; a receive moves the
+ * oldest message to the '{@code queueName}:inflight' list (RPOPLPUSH or, when waiting, BRPOPLPUSH),
+ * and it is removed from there once it has been handled. If the receive is within a transaction
+ * (for example a transactional poller), this happens when the transaction commits; on rollback
+ * the message is returned to the queue. Otherwise it is removed as soon as it has been received.
+ * When {@link #setPrefetchCount(int) prefetchCount} is greater than 1, up to that many messages
+ * are moved (in a single pipeline) each time the channel needs to go to Redis, and are then
+ * received from memory.
+ * <p>
+ * Messages left in the in-flight list by a consumer that died are returned to the queue by a
+ * recovery task, which runs every {@link #setRecoveryInterval(long) recoveryInterval}
+ * milliseconds and requeues the messages that were in the in-flight list on its previous run;
+ * the interval must therefore be longer than the time taken to handle a message (and to
+ * receive all the prefetched messages). Messages are delivered at least once.
+ * <p>
+ * Messages are written with a {@link CompactMessageSerializer} by default.
+ *
+ * @since 3.0
+ */
+public class PollableRedisChannel extends AbstractPollableChannel implements DisposableBean {
+
+	public static final long DEFAULT_RECOVERY_INTERVAL = 60000;
+
+	private final RedisTemplate<String, Object> template = new RedisTemplate<String, Object>();
+
+	private final String queueName;
+
+	private final byte[] queueKey;
+
+	private final byte[] inflightKey;
+
+	private final BlockingQueue<byte[]> prefetched = new LinkedBlockingQueue<byte[]>();
+
+	private volatile Serializer<? super Message<?>> serializer = new CompactMessageSerializer();
+
+	private volatile Deserializer<? extends Message<?>> deserializer = new CompactMessageSerializer();
+
+	private volatile int prefetchCount = 1;
+
+	private volatile long recoveryInterval = DEFAULT_RECOVERY_INTERVAL;
+
+	private volatile ScheduledFuture<?> recoveryTask;
+
+	private volatile Set<ByteBuffer> previousInflight = new HashSet<ByteBuffer>();
+
+
+	public PollableRedisChannel(RedisConnectionFactory connectionFactory, String queueName) {
+		Assert.notNull(connectionFactory, "'connectionFactory' must not be null");
+		Assert.hasText(queueName, "'queueName' must not be empty");
+		this.template.setConnectionFactory(connectionFactory);
+		this.queueName = queueName;
+		try {
+			this.queueKey = queueName.getBytes("UTF-8");
+			this.inflightKey = (queueName + ":inflight").getBytes("UTF-8");
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+
+	public void setSerializer(Serializer<? super Message<?>> serializer) {
+		Assert.notNull(serializer, "'serializer' must not be null");
+		this.serializer = serializer;
+	}
+
+	public void setDeserializer(Deserializer<? extends Message<?>> deserializer) {
+		Assert.notNull(deserializer, "'deserializer' must not be null");
+		this.deserializer = deserializer;
+	}
+
+	/**
+	 * The maximum number of messages to move to the in-flight list each time the channel
+	 * goes to Redis; default 1.
+	 */
+	public void setPrefetchCount(int prefetchCount) {
+		Assert.isTrue(prefetchCount > 0, "'prefetchCount' must be greater than 0");
+		this.prefetchCount = prefetchCount;
+	}
+
+	/**
+	 * The interval (milliseconds) between runs of the task that returns messages that
+	 * have been in the in-flight list since its previous run to the queue; default
+	 * {@value #DEFAULT_RECOVERY_INTERVAL}.
+	 */
+	public void setRecoveryInterval(long recoveryInterval) {
+		Assert.isTrue(recoveryInterval > 0, "'recoveryInterval' must be greater than 0");
+		this.recoveryInterval = recoveryInterval;
+	}
+
+	public String getQueueName() {
+		return this.queueName;
+	}
+
+	/**
+	 * @return the number of messages waiting in the queue (excluding those in-flight).
+	 */
+	public long getQueueSize() {
+		return this.template.execute(new RedisCallback<Long>() {
+
+			public Long doInRedis(RedisConnection connection) throws DataAccessException {
+				return connection.lLen(queueKey);
+			}
+		});
+	}
+
+	@Override
+	protected void onInit() throws Exception {
+		super.onInit();
+		this.template.afterPropertiesSet();
+		TaskScheduler taskScheduler = this.getTaskScheduler();
+		if (taskScheduler != null) {
+			this.recoveryTask = taskScheduler.scheduleAtFixedRate(new Runnable() {
+
+				public void run() {
+					try {
+						recoverInflightMessages();
+					}
+					catch (Exception e) {
+						logger.error("Failed to recover in-flight messages for " + queueName, e);
+					}
+				}
+			}, new Date(System.currentTimeMillis() + this.recoveryInterval), this.recoveryInterval);
+		}
+		else if (logger.isWarnEnabled()) {
+			logger.warn("No TaskScheduler available; in-flight messages for '" + this.queueName
+					+ "' will not be recovered");
+		}
+	}
+
+	@Override
+	protected boolean doSend(Message<?> message, long timeout) {
+		final byte[] entry;
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+			this.serializer.serialize(message, out);
+			entry = out.toByteArray();
+		}
+		catch (Exception e) {
+			throw new MessageDeliveryException(message, "Failed to serialize message", e);
+		}
+		this.template.execute(new RedisCallback<Object>() {
+
+			public Object doInRedis(RedisConnection connection) throws DataAccessException {
+				connection.lPush(queueKey, entry);
+				return null;
+			}
+		});
+		return true;
+	}
+
+	@Override
+	protected Message<?> doReceive(long timeout) {
+		byte[] entry = this.prefetched.poll();
+		if (entry == null) {
+			entry = this.pop(timeout);
+			if (entry == null) {
+				return null;
+			}
+		}
+		Message<?> message;
+		try {
+			message = this.deserializer.deserialize(new ByteArrayInputStream(entry));
+		}
+		catch (Exception e) {
+			logger.error("Discarding an entry that could not be deserialized from " + this.queueName, e);
+			this.remove(entry);
+			return null;
+		}
+		this.acknowledgeOnCompletion(entry);
+		return message;
+	}
+
+	/**
+	 * Move the next message (waiting for up to the timeout, rounded up to a whole number of
+	 * seconds) to the in-flight list, and then any other messages to prefetch.
+	 */
+	private byte[] pop(final long timeout) {
+		return this.template.execute(new RedisCallback<byte[]>() {
+
+			public byte[] doInRedis(RedisConnection connection) throws DataAccessException {
+				byte[] entry;
+				if (timeout == 0) {
+					entry = connection.rPopLPush(queueKey, inflightKey);
+				}
+				else if (timeout > 0) {
+					entry = connection.bRPopLPush((int) Math.max(1, (timeout + 999) / 1000), queueKey, inflightKey);
+				}
+				else {
+					entry = null;
+					while (entry == null && !Thread.currentThread().isInterrupted()) {
+						entry = connection.bRPopLPush(1, queueKey, inflightKey);
+					}
+				}
+				if (entry != null && prefetchCount > 1) {
+					connection.openPipeline();
+					for (int i = 1; i < prefetchCount; i++) {
+						connection.rPopLPush(queueKey, inflightKey);
+					}
+					List<Object> results = connection.closePipeline();
+					if (results != null) {
+						for (Object result : results) {
+							if (result instanceof byte[]) {
+								prefetched.add((byte[]) result);
+							}
+						}
+					}
+				}
+				return entry;
+			}
+		});
+	}
+
+	private void acknowledgeOnCompletion(final byte[] entry) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+				@Override
+				public void afterCompletion(int status) {
+					if (status == TransactionSynchronization.STATUS_COMMITTED) {
+						remove(entry);
+					}
+					else {
+						requeue(entry);
+					}
+				}
+			});
+		}
+		else {
+			this.remove(entry);
+		}
+	}
+
+	private void remove(final byte[] entry) {
+		this.template.execute(new RedisCallback<Object>() {
+
+			public Object doInRedis(RedisConnection connection) throws DataAccessException {
+				connection.lRem(inflightKey, 1, entry);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Return an in-flight entry to the head of the queue, unless it has already been
+	 * removed from the in-flight list.
+	 */
+	private void requeue(final byte[] entry) {
+		this.template.execute(new RedisCallback<Object>() {
+
+			public Object doInRedis(RedisConnection connection) throws DataAccessException {
+				Long removed = connection.lRem(inflightKey, 1, entry);
+				if (removed != null && removed > 0) {
+					connection.rPush(queueKey, entry);
+				}
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Return the messages that have been in the in-flight list since the previous invocation
+	 * to the queue. Invoked by the recovery task every {@code recoveryInterval} milliseconds.
+	 */
+	public void recoverInflightMessages() {
+		List<byte[]> inflight = this.template.execute(new RedisCallback<List<byte[]>>() {
+
+			public List<byte[]> doInRedis(RedisConnection connection) throws DataAccessException {
+				return connection.lRange(inflightKey, 0, -1);
+			}
+		});
+		Set<ByteBuffer> current = new HashSet<ByteBuffer>();
+		int recovered = 0;
+		if (inflight != null) {
+			for (byte[] entry : inflight) {
+				ByteBuffer key = ByteBuffer.wrap(entry);
+				if (this.previousInflight.contains(key)) {
+					this.requeue(entry);
+					recovered++;
+				}
+				else {
+					current.add(key);
+				}
+			}
+		}
+		this.previousInflight = current;
+		if (recovered > 0 && logger.isWarnEnabled()) {
+			logger.warn("Returned " + recovered + " stale in-flight message(s) to " + this.queueName);
+		}
+	}
+
+	/**
+	 * Cancels the recovery task and returns any prefetched messages to the queue.
+	 */
+	public void destroy() {
+		if (this.recoveryTask != null) {
+			this.recoveryTask.cancel(false);
+		}
+		List<byte[]> entries = new ArrayList<byte[]>();
+		this.prefetched.drainTo(entries);
+		// the oldest must end up at the head of the queue
+		for (int i = entries.size() - 1; i >= 0; i--) {
+			this.requeue(entries.get(i));
+		}
+	}
+
+}
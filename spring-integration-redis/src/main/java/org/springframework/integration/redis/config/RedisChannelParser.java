@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.xml.ParserContext;
 import org.springframework.integration.config.xml.AbstractChannelParser;
 import org.springframework.integration.config.xml.IntegrationNamespaceUtils;
+import org.springframework.integration.redis.channel.PollableRedisChannel;
 import org.springframework.integration.redis.channel.SubscribableRedisChannel;
 import org.springframework.util.StringUtils;
 import org.w3c.dom.Element;
@@ -37,11 +38,19 @@ public class RedisChannelParser extends AbstractChannelParser {
 
 	@Override
 	protected BeanDefinitionBuilder buildBeanDefinition(Element element, ParserContext parserContext) {
-		BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(SubscribableRedisChannel.class);
 		String connectionFactory = element.getAttribute("connection-factory");
 		if (!StringUtils.hasText(connectionFactory)) {
 			connectionFactory = "redisConnectionFactory";
 		}
+		if ("channel".equals(element.getLocalName())) {
+			BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(PollableRedisChannel.class);
+			builder.addConstructorArgReference(connectionFactory);
+			builder.addConstructorArgValue(element.getAttribute("queue-name"));
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "prefetch-count");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "recovery-interval");
+			return builder;
+		}
+		BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(SubscribableRedisChannel.class);
 		builder.addConstructorArgReference(connectionFactory);
 		String topicName = element.getAttribute("topic-name");
 		builder.addConstructorArgValue(topicName);
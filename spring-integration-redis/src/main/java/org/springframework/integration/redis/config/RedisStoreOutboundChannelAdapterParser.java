@@ -1,5 +1,5 @@
 /*
- * Copyright 2007-2012 the original author or authors
+ * Copyright 2007-2013 the original author or authors
  *
  *     Licensed under the Apache License, Version 2.0 (the "License");
  *     you may not use this file except in compliance with the License.
@@ -82,6 +82,9 @@ public class RedisStoreOutboundChannelAdapterParser extends AbstractOutboundChan
 
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "collection-type");
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "extract-payload-elements");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "batch-size");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "batch-timeout");
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "error-channel");
 		return builder.getBeanDefinition();
 	}
 
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.redis.outbound;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.RedisConnectionUtils;
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageHandlingException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.Assert;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * Accumulates messages for an outbound Redis handler and writes them using a single
+ * Redis pipeline when {@code batchSize} messages have accumulated, or {@code batchTimeout}
+ * milliseconds after the first message of the batch was added.
+ * <p>
+ * The results of the pipeline are mapped back to the messages (using the number of commands
+ * issued for each) and each message that failed is reported to the {@link ErrorHandler}
+ * in a {@link MessageHandlingException}. If the results cannot be mapped (for example the
+ * connection failed), all the messages in the batch are reported.
+ *
+ * @since 3.0
+ */
+class PipelinedBatchWriter {
+
+	private final RedisConnectionFactory connectionFactory;
+
+	private final MessageWriter messageWriter;
+
+	private final int batchSize;
+
+	private final long batchTimeout;
+
+	private final TaskScheduler taskScheduler;
+
+	private final ErrorHandler errorHandler;
+
+	private final Object flushMonitor = new Object();
+
+	private final Runnable flushTask = new Runnable() {
+
+		public void run() {
+			flush();
+		}
+	};
+
+	private List<Message<?>> batch = new ArrayList<Message<?>>();
+
+
+	PipelinedBatchWriter(RedisConnectionFactory connectionFactory, MessageWriter messageWriter, int batchSize,
+			long batchTimeout, TaskScheduler taskScheduler, ErrorHandler errorHandler) {
+		Assert.notNull(connectionFactory, "'connectionFactory' must not be null");
+		Assert.notNull(taskScheduler, "a TaskScheduler is required when 'batchSize' is greater than 1");
+		this.connectionFactory = connectionFactory;
+		this.messageWriter = messageWriter;
+		this.batchSize = batchSize;
+		this.batchTimeout = batchTimeout;
+		this.taskScheduler = taskScheduler;
+		this.errorHandler = errorHandler;
+	}
+
+
+	void add(Message<?> message) {
+		boolean full;
+		synchronized (this) {
+			this.batch.add(message);
+			full = this.batch.size() >= this.batchSize;
+			if (!full && this.batch.size() == 1) {
+				this.taskScheduler.schedule(this.flushTask, new Date(System.currentTimeMillis() + this.batchTimeout));
+			}
+		}
+		if (full) {
+			this.flush();
+		}
+	}
+
+	/**
+	 * Write the messages accumulated so far; batches are written in the order they were
+	 * accumulated.
+	 */
+	void flush() {
+		synchronized (this.flushMonitor) {
+			List<Message<?>> messages;
+			synchronized (this) {
+				if (this.batch.isEmpty()) {
+					return;
+				}
+				messages = this.batch;
+				this.batch = new ArrayList<Message<?>>(this.batchSize);
+			}
+			this.write(messages);
+		}
+	}
+
+	private void write(List<Message<?>> messages) {
+		int[] commandCounts = new int[messages.size()];
+		Exception[] failures = new Exception[messages.size()];
+		List<Object> results = null;
+		Exception pipelineFailure = null;
+		try {
+			RedisConnection connection = RedisConnectionUtils.bindConnection(this.connectionFactory);
+			try {
+				connection.openPipeline();
+				for (int i = 0; i < messages.size(); i++) {
+					try {
+						commandCounts[i] = this.messageWriter.write(messages.get(i));
+					}
+					catch (Exception e) {
+						failures[i] = e;
+					}
+				}
+				results = connection.closePipeline();
+			}
+			finally {
+				RedisConnectionUtils.unbindConnection(this.connectionFactory);
+			}
+		}
+		catch (RedisPipelineException e) {
+			results = e.getPipelineResult();
+			pipelineFailure = e;
+		}
+		catch (Exception e) {
+			pipelineFailure = e;
+		}
+		this.mapResults(messages, commandCounts, failures, results, pipelineFailure);
+		for (int i = 0; i < messages.size(); i++) {
+			if (failures[i] != null) {
+				this.errorHandler.handleError(new MessageHandlingException(messages.get(i),
+						"Failed to write Message data to Redis", failures[i]));
+			}
+		}
+	}
+
+	private void mapResults(List<Message<?>> messages, int[] commandCounts, Exception[] failures,
+			List<Object> results, Exception pipelineFailure) {
+		int commands = 0;
+		for (int i = 0; i < messages.size(); i++) {
+			if (failures[i] == null) {
+				commands += commandCounts[i];
+			}
+		}
+		if (results != null && results.size() == commands) {
+			int index = 0;
+			for (int i = 0; i < messages.size(); i++) {
+				if (failures[i] == null) {
+					for (int j = 0; j < commandCounts[i]; j++) {
+						Object result = results.get(index++);
+						if (failures[i] == null && result instanceof Exception) {
+							failures[i] = (Exception) result;
+						}
+					}
+				}
+			}
+		}
+		else if (pipelineFailure != null) {
+			for (int i = 0; i < messages.size(); i++) {
+				if (failures[i] == null) {
+					failures[i] = pipelineFailure;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Issues the command(s) for a message, on the pipelined connection that is bound to
+	 * the current thread.
+	 */
+	interface MessageWriter {
+
+		/**
+		 * @return the number of commands issued.
+		 */
+		int write(Message<?> message) throws Exception;
+
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2007-2011 the original author or authors
+ * Copyright 2007-2013 the original author or authors
  *
  *     Licensed under the Apache License, Version 2.0 (the "License");
  *     you may not use this file except in compliance with the License.
@@ -16,21 +16,34 @@
 
 package org.springframework.integration.redis.outbound;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.integration.Message;
+import org.springframework.integration.MessageChannel;
+import org.springframework.integration.channel.MessagePublishingErrorHandler;
 import org.springframework.integration.handler.AbstractMessageHandler;
 import org.springframework.integration.support.converter.MessageConverter;
 import org.springframework.integration.support.converter.SimpleMessageConverter;
 import org.springframework.util.Assert;
 
 /**
+ * Publishes the payload of each message to a Redis topic.
+ * <p>
+ * When {@link #setBatchSize(int) batchSize} is greater than 1, messages are accumulated
+ * and published using a single Redis pipeline when the batch is full, or
+ * {@link #setBatchTimeout(long) batchTimeout} milliseconds after its first message; the
+ * caller does not wait for the message to be published. Messages that could not be published
+ * are sent (in a {@link org.springframework.integration.message.ErrorMessage}) to the
+ * {@link #setErrorChannel(MessageChannel) errorChannel}, the failed message's error channel
+ * header or the default 'errorChannel'.
+ *
  * @author Mark Fisher
  * @since 2.1
  */
-public class RedisPublishingMessageHandler extends AbstractMessageHandler {
+public class RedisPublishingMessageHandler extends AbstractMessageHandler implements DisposableBean {
 
 	private final StringRedisTemplate template;
 
@@ -40,6 +53,14 @@ public class RedisPublishingMessageHandler extends AbstractMessageHandler {
 
 	private volatile RedisSerializer<?> serializer = new StringRedisSerializer();
 
+	private volatile int batchSize = 1;
+
+	private volatile long batchTimeout = 100;
+
+	private volatile MessageChannel errorChannel;
+
+	private volatile PipelinedBatchWriter batchWriter;
+
 	public RedisPublishingMessageHandler(RedisConnectionFactory connectionFactory) {
 		Assert.notNull(connectionFactory, "connectionFactory must not be null");
 		this.template = new StringRedisTemplate(connectionFactory);
@@ -59,6 +80,31 @@ public class RedisPublishingMessageHandler extends AbstractMessageHandler {
 		this.defaultTopic = defaultTopic;
 	}
 
+	/**
+	 * The maximum number of messages to publish in a single pipeline; default 1
+	 * (each message is published when it is handled).
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "'batchSize' must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * The maximum time (milliseconds) a message waits for its batch to fill before the batch
+	 * is published; default 100.
+	 */
+	public void setBatchTimeout(long batchTimeout) {
+		Assert.isTrue(batchTimeout > 0, "'batchTimeout' must be greater than 0");
+		this.batchTimeout = batchTimeout;
+	}
+
+	/**
+	 * The channel to which messages that could not be published in a batch are sent.
+	 */
+	public void setErrorChannel(MessageChannel errorChannel) {
+		this.errorChannel = errorChannel;
+	}
+
 	private String determineTopic(Message<?> message) {
 		// TODO: add support for determining topic by evaluating SpEL against the Message
 		Assert.hasText(this.defaultTopic, "Failed to determine Redis topic " +
@@ -68,6 +114,15 @@ public class RedisPublishingMessageHandler extends AbstractMessageHandler {
 
 	@Override
 	protected void handleMessageInternal(Message<?> message) throws Exception {
+		if (this.batchWriter != null) {
+			this.batchWriter.add(message);
+		}
+		else {
+			this.publish(message);
+		}
+	}
+
+	private void publish(Message<?> message) throws Exception {
 		String topic = this.determineTopic(message);
 		Object value = this.messageConverter.fromMessage(message);
 		this.template.convertAndSend(topic, value.toString());
@@ -77,5 +132,30 @@ public class RedisPublishingMessageHandler extends AbstractMessageHandler {
 	protected void onInit() throws Exception {
 		this.template.setValueSerializer(this.serializer);
 		this.template.afterPropertiesSet();
+		if (this.batchSize > 1) {
+			MessagePublishingErrorHandler errorHandler = new MessagePublishingErrorHandler();
+			if (this.getBeanFactory() != null) {
+				errorHandler.setBeanFactory(this.getBeanFactory());
+			}
+			errorHandler.setDefaultErrorChannel(this.errorChannel);
+			this.batchWriter = new PipelinedBatchWriter(this.template.getConnectionFactory(),
+					new PipelinedBatchWriter.MessageWriter() {
+
+						public int write(Message<?> message) throws Exception {
+							publish(message);
+							return 1;
+						}
+					}, this.batchSize, this.batchTimeout, this.getTaskScheduler(), errorHandler);
+		}
+	}
+
+	/**
+	 * Publishes any accumulated messages.
+	 */
+	public void destroy() {
+		if (this.batchWriter != null) {
+			this.batchWriter.flush();
+		}
 	}
+
 }
@@ -23,8 +23,11 @@ import java.util.Properties;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.BoundHashOperations;
+import org.springframework.data.redis.core.BoundListOperations;
 import org.springframework.data.redis.core.BoundSetOperations;
 import org.springframework.data.redis.core.BoundZSetOperations;
 import org.springframework.data.redis.core.RedisConnectionUtils;
@@ -45,7 +48,9 @@ import org.springframework.expression.common.LiteralExpression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.integration.Message;
+import org.springframework.integration.MessageChannel;
 import org.springframework.integration.MessageHandlingException;
+import org.springframework.integration.channel.MessagePublishingErrorHandler;
 import org.springframework.integration.core.MessageHandler;
 import org.springframework.integration.expression.ExpressionUtils;
 import org.springframework.integration.handler.AbstractMessageHandler;
@@ -68,12 +73,20 @@ import org.springframework.util.NumberUtils;
  * You can instead choose to persist such a payload as a single item if the
  * {@link #extractPayloadElements} property is set to false (default is true).
  *
+ * When {@link #setBatchSize(int) batchSize} is greater than 1, messages are accumulated
+ * and written using a single Redis pipeline when the batch is full, or
+ * {@link #setBatchTimeout(long) batchTimeout} milliseconds after its first message; the
+ * caller does not wait for the data to be written. Messages that could not be written
+ * are sent (in an {@link org.springframework.integration.message.ErrorMessage}) to the
+ * {@link #setErrorChannel(MessageChannel) errorChannel}, the failed message's error channel
+ * header or the default 'errorChannel'.
+ *
  * @author Oleg Zhurakousky
  * @author Gary Russell
  * @author Mark Fisher
  * @since 2.2
  */
-public class RedisStoreWritingMessageHandler extends AbstractMessageHandler {
+public class RedisStoreWritingMessageHandler extends AbstractMessageHandler implements DisposableBean {
 
 	private final Log logger = LogFactory.getLog(this.getClass());
 
@@ -102,6 +115,14 @@ public class RedisStoreWritingMessageHandler extends AbstractMessageHandler {
 
 	private volatile boolean initialized;
 
+	private volatile int batchSize = 1;
+
+	private volatile long batchTimeout = 100;
+
+	private volatile MessageChannel errorChannel;
+
+	private volatile PipelinedBatchWriter batchWriter;
+
 
 	/**
 	 * Constructs an instance using the provided {@link RedisTemplate}.
@@ -192,6 +213,37 @@ public class RedisStoreWritingMessageHandler extends AbstractMessageHandler {
 		this.mapKeyExpressionExplicitlySet = true;
 	}
 
+	/**
+	 * The maximum number of messages to write in a single pipeline; default 1
+	 * (each message is written when it is handled).
+	 *
+	 * @param batchSize
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "'batchSize' must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * The maximum time (milliseconds) a message waits for its batch to fill before the batch
+	 * is written; default 100.
+	 *
+	 * @param batchTimeout
+	 */
+	public void setBatchTimeout(long batchTimeout) {
+		Assert.isTrue(batchTimeout > 0, "'batchTimeout' must be greater than 0");
+		this.batchTimeout = batchTimeout;
+	}
+
+	/**
+	 * The channel to which messages that could not be written in a batch are sent.
+	 *
+	 * @param errorChannel
+	 */
+	public void setErrorChannel(MessageChannel errorChannel) {
+		this.errorChannel = errorChannel;
+	}
+
 	@Override
 	public String getComponentType() {
 		return "redis:store-outbound-channel-adapter";
@@ -220,9 +272,32 @@ public class RedisStoreWritingMessageHandler extends AbstractMessageHandler {
 			this.redisTemplate.setConnectionFactory(this.connectionFactory);
 			this.redisTemplate.afterPropertiesSet();
 		}
+		if (this.batchSize > 1) {
+			MessagePublishingErrorHandler errorHandler = new MessagePublishingErrorHandler();
+			if (this.getBeanFactory() != null) {
+				errorHandler.setBeanFactory(this.getBeanFactory());
+			}
+			errorHandler.setDefaultErrorChannel(this.errorChannel);
+			this.batchWriter = new PipelinedBatchWriter(this.redisTemplate.getConnectionFactory(),
+					new PipelinedBatchWriter.MessageWriter() {
+
+						public int write(Message<?> message) throws Exception {
+							return writeWithOperations(message);
+						}
+					}, this.batchSize, this.batchTimeout, this.getTaskScheduler(), errorHandler);
+		}
 		this.initialized = true;
 	}
 
+	/**
+	 * Writes any accumulated messages.
+	 */
+	public void destroy() {
+		if (this.batchWriter != null) {
+			this.batchWriter.flush();
+		}
+	}
+
 	/**
 	 * Will extract the payload from the Message and store it in the collection identified by the
 	 * key (which may be determined by an expression). The type of collection is specified by the
@@ -253,13 +328,16 @@ public class RedisStoreWritingMessageHandler extends AbstractMessageHandler {
 	@SuppressWarnings("unchecked")
 	@Override
 	protected void handleMessageInternal(Message<?> message) throws Exception {
-		String key = this.keyExpression.getValue(this.evaluationContext, message, String.class);
-		Assert.hasText(key, "Failed to determine a key for the Redis store using expression: "
-				+ this.keyExpression.getExpressionString());
+		Assert.state(this.initialized, "handler not initialized - afterPropertiesSet() must be called before the first use");
+		if (this.batchWriter != null) {
+			this.batchWriter.add(message);
+			return;
+		}
+
+		String key = this.determineKey(message);
 
 		RedisStore store = this.createStoreView(key);
 
-		Assert.state(this.initialized, "handler not initialized - afterPropertiesSet() must be called before the first use");
 		try {
 			if (collectionType == CollectionType.ZSET) {
 				this.writeToZset((RedisZSet<Object>) store, message);
@@ -282,6 +360,88 @@ public class RedisStoreWritingMessageHandler extends AbstractMessageHandler {
 		}
 	}
 
+	private String determineKey(Message<?> message) {
+		String key = this.keyExpression.getValue(this.evaluationContext, message, String.class);
+		Assert.hasText(key, "Failed to determine a key for the Redis store using expression: "
+				+ this.keyExpression.getExpressionString());
+		return key;
+	}
+
+	/**
+	 * Write the message data using the bound operations of the template, so that the
+	 * commands are issued on the (pipelined) connection bound to the current thread.
+	 * The rules are the same as for {@link #handleMessageInternal(Message)}.
+	 * @return the number of commands issued.
+	 */
+	@SuppressWarnings("unchecked")
+	private int writeWithOperations(Message<?> message) {
+		String key = this.determineKey(message);
+		Object payload = message.getPayload();
+		boolean extract = this.extractPayloadElements;
+		if (this.collectionType == CollectionType.ZSET) {
+			BoundZSetOperations<String, Object> ops =
+					(BoundZSetOperations<String, Object>) this.redisTemplate.boundZSetOps(key);
+			boolean zsetIncrementHeader = this.extractZsetIncrementHeader(message);
+			if (extract && payload instanceof Map<?, ?> && this.verifyAllMapValuesOfTypeNumber((Map<?, ?>) payload)) {
+				for (Entry<Object, Number> entry : ((Map<Object, Number>) payload).entrySet()) {
+					Number d = entry.getValue();
+					this.incrementOrOverwrite(ops, entry.getKey(), d == null ?
+							this.determineScore(message) :
+							NumberUtils.convertNumberToTargetClass(d, Double.class),
+							zsetIncrementHeader);
+				}
+				return ((Map<?, ?>) payload).size();
+			}
+			else if (extract && payload instanceof Collection<?>) {
+				for (Object object : ((Collection<?>) payload)) {
+					this.incrementOrOverwrite(ops, object, this.determineScore(message), zsetIncrementHeader);
+				}
+				return ((Collection<?>) payload).size();
+			}
+			this.incrementOrOverwrite(ops, payload, this.determineScore(message), zsetIncrementHeader);
+			return 1;
+		}
+		else if (this.collectionType == CollectionType.SET) {
+			BoundSetOperations<String, Object> ops = (BoundSetOperations<String, Object>) this.redisTemplate.boundSetOps(key);
+			if (extract && payload instanceof Collection<?>) {
+				for (Object object : ((Collection<?>) payload)) {
+					ops.add(object);
+				}
+				return ((Collection<?>) payload).size();
+			}
+			ops.add(payload);
+			return 1;
+		}
+		else if (this.collectionType == CollectionType.LIST) {
+			BoundListOperations<String, Object> ops = (BoundListOperations<String, Object>) this.redisTemplate.boundListOps(key);
+			if (extract && payload instanceof Collection<?>) {
+				for (Object object : ((Collection<?>) payload)) {
+					ops.rightPush(object);
+				}
+				return ((Collection<?>) payload).size();
+			}
+			ops.rightPush(payload);
+			return 1;
+		}
+		else {
+			boolean properties = this.collectionType == CollectionType.PROPERTIES;
+			BoundHashOperations<String, Object, Object> ops = this.redisTemplate.boundHashOps(key);
+			if (extract && (properties ? payload instanceof Properties : payload instanceof Map<?, ?>)) {
+				if (((Map<?, ?>) payload).isEmpty()) {
+					return 0;
+				}
+				// a single HMSET
+				ops.putAll((Map<? extends Object, ? extends Object>) payload);
+				return 1;
+			}
+			if (properties) {
+				Assert.isInstanceOf(String.class, payload, "For property, payload must be a String.");
+			}
+			ops.put(this.determineMapKey(message, properties), payload);
+			return 1;
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	private void writeToZset(RedisZSet<Object> zset, final Message<?> message) throws Exception{
 		final Object payload = message.getPayload();
@@ -330,14 +490,18 @@ public class RedisStoreWritingMessageHandler extends AbstractMessageHandler {
 
 	@SuppressWarnings("unchecked")
 	private void writeToList(RedisList<Object> list, Message<?> message) {
-		Object payload = message.getPayload();
-		if (this.extractPayloadElements) {
-			if (payload instanceof Collection<?>) {
-				list.addAll((Collection<? extends Object>) payload);
-			}
-			else {
-				list.add(payload);
-			}
+		final Object payload = message.getPayload();
+		if (this.extractPayloadElements && payload instanceof Collection<?>) {
+			final BoundListOperations<String, Object> ops =
+					(BoundListOperations<String, Object>) this.redisTemplate.boundListOps(list.getKey());
+
+			this.processInPipeline(new PipelineCallback() {
+				public void process() {
+					for (Object object : ((Collection<?>) payload)) {
+						ops.rightPush(object);
+					}
+				}
+			});
 		}
 		else {
 			list.add(payload);
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.redis.channel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.integration.Message;
+import org.springframework.integration.message.GenericMessage;
+import org.springframework.integration.redis.rules.RedisAvailable;
+import org.springframework.integration.redis.rules.RedisAvailableTests;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * @since 3.0
+ */
+public class PollableRedisChannelTests extends RedisAvailableTests {
+
+	private final RedisLists redis = new RedisLists();
+
+	private final RedisConnectionFactory connectionFactory = mock(RedisConnectionFactory.class);
+
+	@Before
+	public void setup() {
+		RedisConnection connection = mock(RedisConnection.class, this.redis);
+		when(this.connectionFactory.getConnection()).thenReturn(connection);
+	}
+
+	@Test
+	public void testSendAndReceive() throws Exception {
+		PollableRedisChannel channel = this.createChannel(1);
+		channel.send(MessageBuilder.withPayload("foo").setHeader("bar", 1).build());
+		channel.send(new GenericMessage<String>("baz"));
+		assertEquals(2, channel.getQueueSize());
+
+		Message<?> message = channel.receive(0);
+		assertEquals("foo", message.getPayload());
+		assertEquals(1, message.getHeaders().get("bar"));
+		assertEquals("baz", channel.receive(1000).getPayload());
+		assertNull(channel.receive(0));
+		assertEquals(0, this.redis.size("queue:inflight"));
+		channel.destroy();
+	}
+
+	@Test
+	public void testPrefetch() throws Exception {
+		PollableRedisChannel channel = this.createChannel(3);
+		for (int i = 0; i < 5; i++) {
+			channel.send(new GenericMessage<Integer>(i));
+		}
+		assertEquals(0, channel.receive(0).getPayload());
+		assertEquals(1, this.redis.pipelines);
+		assertEquals(2, this.redis.size("queue"));
+		assertEquals(2, this.redis.size("queue:inflight"));
+		assertEquals(1, channel.receive(0).getPayload());
+		assertEquals(2, channel.receive(0).getPayload());
+		assertEquals(1, this.redis.pipelines);
+		assertEquals(3, channel.receive(0).getPayload());
+		assertEquals(2, this.redis.pipelines);
+
+		// the prefetched message is returned to the queue
+		channel.destroy();
+		assertEquals(1, this.redis.size("queue"));
+		assertEquals(0, this.redis.size("queue:inflight"));
+		assertEquals(4, channel.receive(0).getPayload());
+	}
+
+	@Test
+	public void testTransactionCompletion() throws Exception {
+		PollableRedisChannel channel = this.createChannel(1);
+		channel.send(new GenericMessage<String>("foo"));
+
+		Message<?> message = this.receiveAndComplete(channel, TransactionSynchronization.STATUS_ROLLED_BACK);
+		assertEquals(1, this.redis.size("queue"));
+		Message<?> redelivered = this.receiveAndComplete(channel, TransactionSynchronization.STATUS_COMMITTED);
+		assertEquals(message.getHeaders().getId(), redelivered.getHeaders().getId());
+		assertEquals(0, this.redis.size("queue"));
+		assertEquals(0, this.redis.size("queue:inflight"));
+		channel.destroy();
+	}
+
+	@Test
+	public void testStaleInflightMessagesRecovered() throws Exception {
+		PollableRedisChannel channel = this.createChannel(1);
+		channel.send(new GenericMessage<String>("foo"));
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			// simulate a consumer that dies while handling the message
+			assertNotNull(channel.receive(0));
+		}
+		finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertEquals(1, this.redis.size("queue:inflight"));
+		channel.recoverInflightMessages();
+		assertEquals(1, this.redis.size("queue:inflight"));
+		channel.send(new GenericMessage<String>("bar"));
+		channel.recoverInflightMessages();
+		assertEquals(0, this.redis.size("queue:inflight"));
+		assertEquals("foo", channel.receive(0).getPayload());
+		assertEquals("bar", channel.receive(0).getPayload());
+		channel.destroy();
+	}
+
+	@Test
+	@RedisAvailable
+	public void testWithRedis() throws Exception {
+		JedisConnectionFactory jcf = this.getConnectionFactoryForTest();
+		PollableRedisChannel channel = new PollableRedisChannel(jcf, "si.test.queue");
+		channel.setPrefetchCount(10);
+		channel.afterPropertiesSet();
+		for (int i = 0; i < 20; i++) {
+			channel.send(new GenericMessage<Integer>(i));
+		}
+		for (int i = 0; i < 20; i++) {
+			assertEquals(i, channel.receive(1000).getPayload());
+		}
+		assertNull(channel.receive(1000));
+		channel.destroy();
+	}
+
+	private Message<?> receiveAndComplete(PollableRedisChannel channel, int status) {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			Message<?> message = channel.receive(0);
+			assertNotNull(message);
+			for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+				synchronization.afterCompletion(status);
+			}
+			return message;
+		}
+		finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	private PollableRedisChannel createChannel(int prefetchCount) throws Exception {
+		PollableRedisChannel channel = new PollableRedisChannel(this.connectionFactory, "queue");
+		channel.setPrefetchCount(prefetchCount);
+		channel.afterPropertiesSet();
+		return channel;
+	}
+
+
+	/**
+	 * Stand-in for the list commands of a Redis connection.
+	 */
+	private static class RedisLists implements Answer<Object> {
+
+		private final Map<String, LinkedList<byte[]>> lists = new HashMap<String, LinkedList<byte[]>>();
+
+		private List<Object> pipelineResults;
+
+		private int pipelines;
+
+		synchronized int size(String key) {
+			return this.list(key.getBytes()).size();
+		}
+
+		public synchronized Object answer(InvocationOnMock invocation) throws Throwable {
+			String method = invocation.getMethod().getName();
+			Object[] args = invocation.getArguments();
+			Object result = null;
+			if ("openPipeline".equals(method)) {
+				this.pipelineResults = new ArrayList<Object>();
+				this.pipelines++;
+				return null;
+			}
+			else if ("closePipeline".equals(method)) {
+				List<Object> results = this.pipelineResults;
+				this.pipelineResults = null;
+				return results;
+			}
+			else if ("isPipelined".equals(method) || "isQueueing".equals(method) || "isClosed".equals(method)) {
+				return false;
+			}
+			else if ("lPush".equals(method)) {
+				this.list((byte[]) args[0]).addFirst((byte[]) args[1]);
+				result = (long) this.list((byte[]) args[0]).size();
+			}
+			else if ("rPush".equals(method)) {
+				this.list((byte[]) args[0]).addLast((byte[]) args[1]);
+				result = (long) this.list((byte[]) args[0]).size();
+			}
+			else if ("rPopLPush".equals(method) || "bRPopLPush".equals(method)) {
+				int offset = "rPopLPush".equals(method) ? 0 : 1;
+				byte[] value = this.list((byte[]) args[offset]).pollLast();
+				if (value != null) {
+					this.list((byte[]) args[offset + 1]).addFirst(value);
+				}
+				result = value;
+			}
+			else if ("lRem".equals(method)) {
+				long removed = 0;
+				Iterator<byte[]> iterator = this.list((byte[]) args[0]).iterator();
+				while (iterator.hasNext() && removed < (Long) args[1]) {
+					if (Arrays.equals(iterator.next(), (byte[]) args[2])) {
+						iterator.remove();
+						removed++;
+					}
+				}
+				result = removed;
+			}
+			else if ("lRange".equals(method)) {
+				result = new ArrayList<byte[]>(this.list((byte[]) args[0]));
+			}
+			else if ("lLen".equals(method)) {
+				result = (long) this.list((byte[]) args[0]).size();
+			}
+			if (this.pipelineResults != null) {
+				this.pipelineResults.add(result);
+				return null;
+			}
+			return result;
+		}
+
+		private LinkedList<byte[]> list(byte[] key) {
+			String name = new String(key);
+			LinkedList<byte[]> list = this.lists.get(name);
+			if (list == null) {
+				list = new LinkedList<byte[]>();
+				this.lists.put(name, list);
+			}
+			return list;
+		}
+	}
+
+}
@@ -26,8 +26,10 @@ import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.core.MessageHandler;
+import org.springframework.integration.core.PollableChannel;
 import org.springframework.integration.core.SubscribableChannel;
 import org.springframework.integration.message.GenericMessage;
+import org.springframework.integration.redis.channel.PollableRedisChannel;
 import org.springframework.integration.redis.rules.RedisAvailable;
 import org.springframework.integration.redis.rules.RedisAvailableTests;
 import org.springframework.integration.test.util.TestUtils;
@@ -58,6 +60,23 @@ public class RedisChannelParserTests extends RedisAvailableTests{
 		context.stop();
 	}
 
+	@Test
+	public void testQueueChannelConfig() {
+		ClassPathXmlApplicationContext context =
+				new ClassPathXmlApplicationContext("RedisQueueChannelParserTests-context.xml", this.getClass());
+		PollableRedisChannel channel = context.getBean("redisQueue", PollableRedisChannel.class);
+		assertEquals("si.test.queue", channel.getQueueName());
+		assertEquals(10, TestUtils.getPropertyValue(channel, "prefetchCount"));
+		assertEquals(30000L, TestUtils.getPropertyValue(channel, "recoveryInterval"));
+		assertEquals(context.getBean("redisConnectionFactory"),
+				TestUtils.getPropertyValue(channel, "template.connectionFactory"));
+		PollableChannel other = context.getBean("redisQueueWithDefaults", PollableChannel.class);
+		assertEquals(1, TestUtils.getPropertyValue(other, "prefetchCount"));
+		assertEquals(context.getBean("otherConnectionFactory"),
+				TestUtils.getPropertyValue(other, "template.connectionFactory"));
+		context.close();
+	}
+
 	@Test
 	@RedisAvailable
 	public void testPubSubChannelUsage() throws Exception {
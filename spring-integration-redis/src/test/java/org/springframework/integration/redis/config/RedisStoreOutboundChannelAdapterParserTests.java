@@ -1,5 +1,5 @@
 /*
- * Copyright 2007-2012 the original author or authors
+ * Copyright 2007-2013 the original author or authors
  *
  *     Licensed under the Apache License, Version 2.0 (the "License");
  *     you may not use this file except in compliance with the License.
@@ -80,4 +80,15 @@ public class RedisStoreOutboundChannelAdapterParserTests {
 		assertEquals("PROPERTIES", ((CollectionType)TestUtils.getPropertyValue(withExternalTemplate, "collectionType")).toString());
 		assertSame(redisTemplate, TestUtils.getPropertyValue(withExternalTemplate, "redisTemplate"));
 	}
+
+	@Test
+	public void validateBatched(){
+		RedisStoreWritingMessageHandler batched =
+				TestUtils.getPropertyValue(context.getBean("batched.adapter"), "handler", RedisStoreWritingMessageHandler.class);
+		assertEquals(50, TestUtils.getPropertyValue(batched, "batchSize"));
+		assertEquals(250L, TestUtils.getPropertyValue(batched, "batchTimeout"));
+		assertSame(context.getBean("batchErrors"), TestUtils.getPropertyValue(batched, "errorChannel"));
+		assertSame(context.getBean("batchErrors"),
+				TestUtils.getPropertyValue(batched, "batchWriter.errorHandler.defaultErrorChannel"));
+	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2007-2011 the original author or authors
+ * Copyright 2007-2013 the original author or authors
  *
  *     Licensed under the Apache License, Version 2.0 (the "License");
  *     you may not use this file except in compliance with the License.
@@ -16,11 +16,16 @@
 
 package org.springframework.integration.redis.outbound;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
@@ -30,8 +35,13 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.integration.redis.rules.RedisAvailable;
 import org.springframework.integration.redis.rules.RedisAvailableTests;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * @author Mark Fisher
@@ -72,6 +82,36 @@ public class RedisPublishingMessageHandlerTests extends RedisAvailableTests{
 		container.stop();
 	}
 
+	@Test
+	public void testBatchedPublishing() throws Exception {
+		RedisConnectionFactory connectionFactory = mock(RedisConnectionFactory.class);
+		RedisConnection connection = mock(RedisConnection.class);
+		when(connectionFactory.getConnection()).thenReturn(connection);
+		when(connection.closePipeline()).thenReturn(Arrays.<Object>asList(1L, 1L));
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.afterPropertiesSet();
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("taskScheduler", scheduler);
+
+		RedisPublishingMessageHandler handler = new RedisPublishingMessageHandler(connectionFactory);
+		handler.setDefaultTopic("foo");
+		handler.setBatchSize(10);
+		handler.setBatchTimeout(60000);
+		handler.setBeanFactory(beanFactory);
+		handler.afterPropertiesSet();
+		handler.handleMessage(MessageBuilder.withPayload("bar").build());
+		handler.handleMessage(MessageBuilder.withPayload("baz").build());
+		handler.destroy();
+
+		InOrder inOrder = inOrder(connection);
+		inOrder.verify(connection).openPipeline();
+		inOrder.verify(connection).publish("foo".getBytes(), "bar".getBytes());
+		inOrder.verify(connection).publish("foo".getBytes(), "baz".getBytes());
+		inOrder.verify(connection).closePipeline();
+		verify(connection).close();
+		scheduler.destroy();
+	}
+
 
 	private static class Listener {
 
@@ -17,11 +17,19 @@
 package org.springframework.integration.redis.outbound;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,7 +37,10 @@ import java.util.Set;
 
 import org.junit.Test;
 
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPipelineException;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
@@ -42,11 +53,14 @@ import org.springframework.data.redis.support.collections.RedisZSet;
 import org.springframework.expression.common.LiteralExpression;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageHandlingException;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.message.ErrorMessage;
 import org.springframework.integration.message.GenericMessage;
 import org.springframework.integration.redis.rules.RedisAvailable;
 import org.springframework.integration.redis.rules.RedisAvailableTests;
 import org.springframework.integration.redis.support.RedisHeaders;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 /**
  * @author Oleg Zhurakousky
@@ -512,6 +526,83 @@ public class RedisStoreWritingMessageHandlerTests extends RedisAvailableTests{
 		return redisTemplate;
 	}
 
+	@Test
+	public void testBatchedListWrittenInPipeline() throws Exception {
+		RedisConnectionFactory connectionFactory = mock(RedisConnectionFactory.class);
+		RedisConnection connection = mock(RedisConnection.class);
+		when(connectionFactory.getConnection()).thenReturn(connection);
+		when(connection.closePipeline()).thenThrow(new RedisPipelineException(new RuntimeException("WRONGTYPE"),
+				Arrays.<Object>asList(1L, new RuntimeException("WRONGTYPE"), 3L, 4L)));
+
+		RedisStoreWritingMessageHandler handler = new RedisStoreWritingMessageHandler(connectionFactory);
+		handler.setKey("foo");
+		handler.setBatchSize(3);
+		QueueChannel errors = new QueueChannel();
+		handler.setErrorChannel(errors);
+		ThreadPoolTaskScheduler scheduler = this.setTaskScheduler(handler);
+		handler.afterPropertiesSet();
+
+		handler.handleMessage(new GenericMessage<String>("a"));
+		handler.handleMessage(new GenericMessage<List<String>>(Arrays.asList("b", "c")));
+		verify(connection, times(0)).openPipeline();
+		handler.handleMessage(new GenericMessage<String>("d"));
+
+		verify(connection, times(1)).openPipeline();
+		verify(connection, times(4)).rPush(any(byte[].class), any(byte[].class));
+		verify(connection, times(1)).closePipeline();
+		Message<?> error = errors.receive(0);
+		assertNotNull(error);
+		assertEquals(Arrays.asList("b", "c"),
+				((MessageHandlingException) ((ErrorMessage) error).getPayload()).getFailedMessage().getPayload());
+		assertNull(errors.receive(0));
+		scheduler.destroy();
+	}
+
+	@Test
+	public void testBatchedMapWrittenAfterTimeout() throws Exception {
+		RedisConnectionFactory connectionFactory = mock(RedisConnectionFactory.class);
+		RedisConnection connection = mock(RedisConnection.class);
+		when(connectionFactory.getConnection()).thenReturn(connection);
+
+		RedisStoreWritingMessageHandler handler = new RedisStoreWritingMessageHandler(connectionFactory);
+		handler.setKey("foo");
+		handler.setCollectionType(CollectionType.MAP);
+		handler.setBatchSize(100);
+		handler.setBatchTimeout(50);
+		ThreadPoolTaskScheduler scheduler = this.setTaskScheduler(handler);
+		handler.afterPropertiesSet();
+
+		Map<String, String> map = new HashMap<String, String>();
+		map.put("bar", "baz");
+		map.put("qux", "fiz");
+		handler.handleMessage(new GenericMessage<Map<String, String>>(map));
+		handler.handleMessage(MessageBuilder.withPayload("buz").setHeader(RedisHeaders.MAP_KEY, "fuz").build());
+		int n = 0;
+		while (n++ < 100) {
+			try {
+				verify(connection).closePipeline();
+				break;
+			}
+			catch (AssertionError e) {
+				Thread.sleep(50);
+			}
+		}
+		verify(connection).openPipeline();
+		verify(connection).hMSet(any(byte[].class), any(Map.class));
+		verify(connection).hSet(any(byte[].class), any(byte[].class), any(byte[].class));
+		verify(connection).closePipeline();
+		scheduler.destroy();
+	}
+
+	private ThreadPoolTaskScheduler setTaskScheduler(RedisStoreWritingMessageHandler handler) {
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.afterPropertiesSet();
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("taskScheduler", scheduler);
+		handler.setBeanFactory(beanFactory);
+		return scheduler;
+	}
+
 	private static class President implements Serializable {
 		private static final long serialVersionUID = 1L;
 		private String name;
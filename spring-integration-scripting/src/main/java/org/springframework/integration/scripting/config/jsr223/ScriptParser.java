@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,6 +31,8 @@ public class ScriptParser extends AbstractScriptParser {
 	
 	private static final String LANGUAGE_ATTRIBUTE = "lang";
 
+	private static final String COMPILE_ATTRIBUTE = "compile";
+
 	@Override
 	protected String getBeanClassName(Element element) {
 		return "org.springframework.integration.scripting.jsr223.ScriptExecutingMessageProcessor";
@@ -47,7 +49,8 @@ public class ScriptParser extends AbstractScriptParser {
 	protected void postProcess(BeanDefinitionBuilder builder, Element element, ParserContext parserContext){
 		String language = element.getAttribute(LANGUAGE_ATTRIBUTE);
 		Assert.hasLength(language, "Attribute " + LANGUAGE_ATTRIBUTE + " is required");
-		builder.addConstructorArgValue(ScriptExecutorFactory.getScriptExecutor(language));
+		boolean compile = Boolean.parseBoolean(element.getAttribute(COMPILE_ATTRIBUTE));
+		builder.addConstructorArgValue(ScriptExecutorFactory.getScriptExecutor(language, compile));
 	}
 	
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  * 
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -15,9 +15,14 @@ package org.springframework.integration.scripting.jsr223;
 import java.util.Date;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -28,6 +33,12 @@ import org.springframework.util.Assert;
 
 /**
  * Base Class for {@link ScriptExecutor}
+ * <p>
+ * When {@link #setCompileScripts(boolean) compileScripts} is true, each script is
+ * compiled once (if the engine is {@link Compilable}) and the compiled script is
+ * reused until the {@link ScriptSource} reports that it has been modified. Scripts are
+ * then evaluated with per-invocation {@link Bindings}, rather than placing the variables
+ * in the engine scope, so that concurrent invocations do not see each other's variables.
  * 
  * @author David Turanski
  * @author Mark Fisher
@@ -35,12 +46,18 @@ import org.springframework.util.Assert;
  */
 abstract class AbstractScriptExecutor implements ScriptExecutor {
 
+	private static final int MAX_CACHED_SCRIPTS = 256;
+
 	protected final Log logger = LogFactory.getLog(this.getClass());
 
 	protected final ScriptEngine scriptEngine;
 
 	protected final String language;
 
+	private final Map<ScriptSource, CachedScript> scriptCache = new ConcurrentHashMap<ScriptSource, CachedScript>();
+
+	private volatile boolean compileScripts;
+
 	public AbstractScriptExecutor(String language) {
 		Assert.hasText(language, "language must not be empty");
 		this.language = language;
@@ -58,11 +75,22 @@ abstract class AbstractScriptExecutor implements ScriptExecutor {
 		}
 	}
 
+	/**
+	 * Set to true to compile scripts once and evaluate them with per-invocation bindings.
+	 * @since 3.0
+	 */
+	public void setCompileScripts(boolean compileScripts) {
+		this.compileScripts = compileScripts;
+	}
+
 	public Object executeScript(ScriptSource scriptSource) {
 		return this.executeScript(scriptSource, null);
 	}
 
 	public Object executeScript(ScriptSource scriptSource, Map<String, Object> variables) {
+		if (this.compileScripts) {
+			return this.executeCachedScript(scriptSource, variables);
+		}
 		Object result = null;
 
 		try {
@@ -93,6 +121,55 @@ abstract class AbstractScriptExecutor implements ScriptExecutor {
 		return result;
 	}
 
+	private Object executeCachedScript(ScriptSource scriptSource, Map<String, Object> variables) {
+		try {
+			CachedScript cachedScript = this.scriptCache.get(scriptSource);
+			if (cachedScript == null || scriptSource.isModified()) {
+				String script = scriptSource.getScriptAsString();
+				if (cachedScript == null || !script.equals(cachedScript.script)) {
+					cachedScript = new CachedScript(script, this.compile(script));
+					if (this.scriptCache.size() < MAX_CACHED_SCRIPTS) {
+						this.scriptCache.put(scriptSource, cachedScript);
+					}
+				}
+			}
+			Bindings bindings = this.scriptEngine.createBindings();
+			if (variables != null) {
+				bindings.putAll(variables);
+			}
+			Date start = new Date();
+			Object result;
+			if (cachedScript.compiledScript != null) {
+				result = cachedScript.compiledScript.eval(bindings);
+			}
+			else {
+				result = this.scriptEngine.eval(cachedScript.script, bindings);
+			}
+			result = postProcess(result, this.scriptEngine, cachedScript.script, bindings);
+			if (logger.isDebugEnabled()) {
+				logger.debug("script executed in " + (new Date().getTime() - start.getTime()) + " ms");
+			}
+			return result;
+		}
+		catch (Exception e) {
+			throw new ScriptingException(e.getMessage(), e);
+		}
+	}
+
+	private CompiledScript compile(String script) throws ScriptException {
+		if (this.scriptEngine instanceof Compilable) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("compiling script: " + script);
+			}
+			return ((Compilable) this.scriptEngine).compile(script);
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("script engine " + this.scriptEngine.getFactory().getEngineName()
+					+ " does not support compilation; the script will be interpreted");
+		}
+		return null;
+	}
+
 	/**
 	 * Subclasses may implement this to provide any special handling required
 	 * @param result
@@ -102,10 +179,33 @@ abstract class AbstractScriptExecutor implements ScriptExecutor {
 	 */
 	protected abstract Object postProcess(Object result, ScriptEngine scriptEngine, String script);
 
+	/**
+	 * Subclasses may override this to provide any special handling required when the
+	 * script was evaluated with the supplied bindings; by default, delegates to
+	 * {@link #postProcess(Object, ScriptEngine, String)}.
+	 * @since 3.0
+	 */
+	protected Object postProcess(Object result, ScriptEngine scriptEngine, String script, Bindings bindings) {
+		return this.postProcess(result, scriptEngine, script);
+	}
+
 	private static String invlalidLanguageMessage(String language) {
 		return new StringBuilder().append(ScriptEngineManager.class.getName())
 				.append(" is unable to create a script engine for language '").append(language).append("'.\n")
 				.append("This may be due to a missing language implementation or an invalid language name.").toString();
 	}
 
+
+	private static class CachedScript {
+
+		private final String script;
+
+		private final CompiledScript compiledScript;
+
+		private CachedScript(String script, CompiledScript compiledScript) {
+			this.script = script;
+			this.compiledScript = compiledScript;
+		}
+	}
+
 }
@@ -12,6 +12,7 @@
  */
 package org.springframework.integration.scripting.jsr223;
 
+import javax.script.Bindings;
 import javax.script.ScriptEngine;
 
 import org.springframework.integration.scripting.ScriptExecutor;
@@ -47,6 +48,16 @@ import org.springframework.integration.scripting.ScriptExecutor;
 		}
 		return newResult;
 	}
+
+	@Override
+	protected Object postProcess(Object result, ScriptEngine scriptEngine, String script, Bindings bindings) {
+		Object newResult = result;
+		if (newResult == null) {
+			String returnVariableName = PythonVariableParser.parseReturnVariable(script);
+			newResult = bindings.get(returnVariableName);
+		}
+		return newResult;
+	}
 	
 	public static class PythonVariableParser {
 		public static String parseReturnVariable(String script){
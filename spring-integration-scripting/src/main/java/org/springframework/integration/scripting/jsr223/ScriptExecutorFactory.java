@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  * 
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -21,12 +21,28 @@ import org.springframework.integration.scripting.ScriptExecutor;
 public abstract class ScriptExecutorFactory {
 	
 	public static ScriptExecutor getScriptExecutor(String language) {
+		return getScriptExecutor(language, false);
+	}
+
+	/**
+	 * @param language the script language or JSR 223 engine name.
+	 * @param compileScripts true to compile scripts once and evaluate them with
+	 * per-invocation bindings.
+	 * @return the executor.
+	 * @since 3.0
+	 */
+	public static ScriptExecutor getScriptExecutor(String language, boolean compileScripts) {
+		AbstractScriptExecutor executor;
 		if (language.equalsIgnoreCase("python") || language.equalsIgnoreCase("jython")){
-			return new PythonScriptExecutor();
+			executor = new PythonScriptExecutor();
 		} 
 		else if (language.equalsIgnoreCase("ruby") ||  language.equalsIgnoreCase("jruby")) {
-			return new RubyScriptExecutor();
+			executor = new RubyScriptExecutor();
+		}
+		else {
+			executor = new DefaultScriptExecutor(language);
 		}
-		return new DefaultScriptExecutor(language);
+		executor.setCompileScripts(compileScripts);
+		return executor;
 	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  * 
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -13,15 +13,25 @@
 package org.springframework.integration.scripting.jsr223;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.integration.scripting.ScriptExecutor;
 import org.springframework.integration.scripting.ScriptingException;
+import org.springframework.integration.test.util.TestUtils;
 import org.springframework.scripting.support.ResourceScriptSource;
 import org.springframework.scripting.support.StaticScriptSource;
 
@@ -80,4 +90,48 @@ public class Jsr223ScriptExecutorTests {
 			 System.out.println(e.getMessage());
 		}
 	}
+
+	@Test
+	public void testCompiledGroovy() {
+		ScriptExecutor executor = ScriptExecutorFactory.getScriptExecutor("groovy", true);
+		StaticScriptSource scriptSource = new StaticScriptSource("payload.toUpperCase()");
+		assertEquals("FOO", executor.executeScript(scriptSource, Collections.<String, Object>singletonMap("payload", "foo")));
+		assertEquals("BAR", executor.executeScript(scriptSource, Collections.<String, Object>singletonMap("payload", "bar")));
+		scriptSource.setScript("payload.toLowerCase()");
+		assertEquals("baz", executor.executeScript(scriptSource, Collections.<String, Object>singletonMap("payload", "BAZ")));
+		Object compiled = ((Map<?, ?>) TestUtils.getPropertyValue(executor, "scriptCache")).get(scriptSource);
+		assertNotNull(TestUtils.getPropertyValue(compiled, "compiledScript"));
+		assertEquals("qux", executor.executeScript(scriptSource, Collections.<String, Object>singletonMap("payload", "QUX")));
+		assertTrue(compiled == ((Map<?, ?>) TestUtils.getPropertyValue(executor, "scriptCache")).get(scriptSource));
+		// variables are not left in the engine scope
+		assertNull(TestUtils.getPropertyValue(executor, "scriptEngine", javax.script.ScriptEngine.class).get("payload"));
+	}
+
+	@Test
+	public void testCompiledGroovyConcurrent() throws Exception {
+		final ScriptExecutor executor = ScriptExecutorFactory.getScriptExecutor("groovy", true);
+		final StaticScriptSource scriptSource = new StaticScriptSource("Thread.yield(); payload * 2");
+		int threads = 4;
+		final CountDownLatch latch = new CountDownLatch(threads);
+		final AtomicInteger failures = new AtomicInteger();
+		ExecutorService exec = Executors.newFixedThreadPool(threads);
+		for (int i = 0; i < threads; i++) {
+			final int payload = i;
+			exec.execute(new Runnable() {
+				public void run() {
+					for (int j = 0; j < 1000; j++) {
+						Object result = executor.executeScript(scriptSource,
+								Collections.<String, Object>singletonMap("payload", payload));
+						if (!Integer.valueOf(payload * 2).equals(result)) {
+							failures.incrementAndGet();
+						}
+					}
+					latch.countDown();
+				}
+			});
+		}
+		assertTrue(latch.await(30, TimeUnit.SECONDS));
+		exec.shutdown();
+		assertEquals(0, failures.get());
+	}
 }
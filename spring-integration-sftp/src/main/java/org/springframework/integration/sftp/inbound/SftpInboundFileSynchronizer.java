@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -46,4 +46,9 @@ public class SftpInboundFileSynchronizer extends AbstractInboundFileSynchronizer
 		return (file != null ? file.getFilename() : null);
 	}
 
+	@Override
+	protected long getSize(LsEntry file) {
+		return (file != null && file.getAttrs() != null ? file.getAttrs().getSize() : -1);
+	}
+
 }
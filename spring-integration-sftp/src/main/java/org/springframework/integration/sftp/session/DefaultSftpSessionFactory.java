@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,15 +18,21 @@ package org.springframework.integration.sftp.session;
 
 import java.util.Properties;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.core.io.Resource;
 import org.springframework.integration.file.remote.session.Session;
 import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.util.SimplePool;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
+import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.ChannelSftp.LsEntry;
 import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Proxy;
 import com.jcraft.jsch.SocketFactory;
 import com.jcraft.jsch.UIKeyboardInteractive;
@@ -34,6 +40,11 @@ import com.jcraft.jsch.UserInfo;
 
 /**
  * Factory for creating {@link SftpSession} instances.
+ * <p>
+ * By default, each session has its own SSH connection. When {@link #setSharedSession(boolean)
+ * sharedSession} is true, a single authenticated SSH connection is shared by all sessions,
+ * each session leasing an SFTP channel from a bounded pool; the connection is
+ * transparently re-established if it is found to have been lost.
  *
  * @author Josh Long
  * @author Mario Gray
@@ -42,7 +53,15 @@ import com.jcraft.jsch.UserInfo;
  *
  * @since 2.0
  */
-public class DefaultSftpSessionFactory implements SessionFactory<LsEntry> {
+public class DefaultSftpSessionFactory implements SessionFactory<LsEntry>, DisposableBean {
+
+	/**
+	 * The default maximum number of channels leased on a shared connection; the
+	 * default limit of sessions per connection for OpenSSH servers (MaxSessions).
+	 */
+	public static final int DEFAULT_MAX_CHANNELS = 10;
+
+	private final Log logger = LogFactory.getLog(this.getClass());
 
 	private volatile String host;
 
@@ -76,6 +95,17 @@ public class DefaultSftpSessionFactory implements SessionFactory<LsEntry> {
 
 	private volatile Boolean enableDaemonThread;
 
+	private volatile boolean sharedSession;
+
+	private volatile int maxChannels = DEFAULT_MAX_CHANNELS;
+
+	private volatile long channelWaitTimeout = Long.MAX_VALUE;
+
+	private volatile long keepAliveInterval;
+
+	private volatile SharedConnection sharedConnection;
+
+	private final Object sharedConnectionMonitor = new Object();
 
 	private final JSch jsch = new JSch();
 
@@ -249,6 +279,50 @@ public class DefaultSftpSessionFactory implements SessionFactory<LsEntry> {
 		this.enableDaemonThread = enableDaemonThread;
 	}
 
+	/**
+	 * When true, a single SSH connection is shared by all sessions created by
+	 * this factory; each session uses its own SFTP channel on that connection.
+	 * Defaults to <code>false</code> - each session has its own connection.
+	 * @since 3.0
+	 */
+	public void setSharedSession(boolean sharedSession) {
+		this.sharedSession = sharedSession;
+	}
+
+	/**
+	 * The maximum number of SFTP channels (and so sessions) that can be in use
+	 * concurrently on the shared connection; idle channels are retained for reuse.
+	 * Must not exceed the server's limit of sessions per connection. Defaults to
+	 * {@value #DEFAULT_MAX_CHANNELS}. Only applies when {@link #setSharedSession(boolean)
+	 * sharedSession} is true.
+	 * @since 3.0
+	 */
+	public void setMaxChannels(int maxChannels) {
+		Assert.isTrue(maxChannels > 0, "'maxChannels' must be greater than 0");
+		this.maxChannels = maxChannels;
+	}
+
+	/**
+	 * The time (milliseconds) {@link #getSession()} waits for a channel when
+	 * {@link #setMaxChannels(int) maxChannels} are in use on the shared connection.
+	 * Defaults to waiting indefinitely.
+	 * @since 3.0
+	 */
+	public void setChannelWaitTimeout(long channelWaitTimeout) {
+		this.channelWaitTimeout = channelWaitTimeout;
+	}
+
+	/**
+	 * When greater than 0, a keep-alive message is sent on the shared connection
+	 * before a session is created if the connection has not been used for this
+	 * number of milliseconds; if the message cannot be sent, the connection is
+	 * re-established. Connections that are lost while in use are detected by the
+	 * {@link #setServerAliveInterval(Integer) server alive} probes. Defaults to 0 (no probe).
+	 * @since 3.0
+	 */
+	public void setKeepAliveInterval(long keepAliveInterval) {
+		this.keepAliveInterval = keepAliveInterval;
+	}
 
 	public Session<LsEntry> getSession() {
 		Assert.hasText(this.host, "host must not be empty");
@@ -256,6 +330,9 @@ public class DefaultSftpSessionFactory implements SessionFactory<LsEntry> {
 		Assert.isTrue(this.port >= 0, "port must be a positive number");
 		Assert.isTrue(StringUtils.hasText(this.password) || this.privateKey != null,
 				"either a password or a private key is required");
+		if (this.sharedSession) {
+			return this.getSharedSession();
+		}
 		try {
 			com.jcraft.jsch.Session jschSession = this.initJschSession();
 			SftpSession sftpSession = new SftpSession(jschSession);
@@ -267,6 +344,63 @@ public class DefaultSftpSessionFactory implements SessionFactory<LsEntry> {
 		}
 	}
 
+	public void destroy() {
+		synchronized (this.sharedConnectionMonitor) {
+			if (this.sharedConnection != null) {
+				this.sharedConnection.close();
+				this.sharedConnection = null;
+			}
+		}
+	}
+
+	private Session<LsEntry> getSharedSession() {
+		SharedConnection connection = null;
+		try {
+			connection = this.obtainSharedConnection();
+			return new SftpSession(connection.channels.getItem(), connection.channels);
+		}
+		catch (RuntimeException e) {
+			if (connection == null || connection.isConnected()) {
+				throw new IllegalStateException("failed to create SFTP Session", e);
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Shared connection lost while opening a channel; reconnecting", e);
+			}
+		}
+		try {
+			connection = this.obtainSharedConnection();
+			return new SftpSession(connection.channels.getItem(), connection.channels);
+		}
+		catch (RuntimeException e) {
+			throw new IllegalStateException("failed to create SFTP Session", e);
+		}
+	}
+
+	private SharedConnection obtainSharedConnection() {
+		synchronized (this.sharedConnectionMonitor) {
+			SharedConnection connection = this.sharedConnection;
+			if (connection != null && !connection.isAlive()) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Shared connection to " + this.host + " lost; reconnecting");
+				}
+				connection.close();
+				connection = null;
+			}
+			if (connection == null) {
+				try {
+					com.jcraft.jsch.Session jschSession = this.initJschSession();
+					jschSession.connect();
+					connection = new SharedConnection(jschSession);
+				}
+				catch (Exception e) {
+					throw new IllegalStateException("failed to connect", e);
+				}
+				this.sharedConnection = connection;
+			}
+			return connection;
+		}
+	}
+
 	private com.jcraft.jsch.Session initJschSession() throws Exception {
 		JSch.setLogger(new JschLogger());
 
@@ -328,6 +462,77 @@ public class DefaultSftpSessionFactory implements SessionFactory<LsEntry> {
 	}
 
 
+	/**
+	 * An SSH connection shared by sessions, with its pool of SFTP channels. When the
+	 * connection is replaced, channels in use are returned to the old pool, and
+	 * discarded.
+	 */
+	private class SharedConnection {
+
+		private final com.jcraft.jsch.Session jschSession;
+
+		private final SimplePool<ChannelSftp> channels;
+
+		private volatile long lastUsed = System.currentTimeMillis();
+
+		private SharedConnection(final com.jcraft.jsch.Session jschSession) {
+			this.jschSession = jschSession;
+			this.channels = new SimplePool<ChannelSftp>(maxChannels, new SimplePool.PoolItemCallback<ChannelSftp>() {
+
+				public ChannelSftp createForPool() {
+					try {
+						ChannelSftp channel = (ChannelSftp) jschSession.openChannel("sftp");
+						channel.connect();
+						return channel;
+					}
+					catch (JSchException e) {
+						throw new IllegalStateException("failed to open SFTP channel", e);
+					}
+				}
+
+				public boolean isStale(ChannelSftp channel) {
+					if (!channel.isConnected() || channel.isClosed()) {
+						channel.disconnect();
+						return true;
+					}
+					return false;
+				}
+
+				public void removedFromPool(ChannelSftp channel) {
+					channel.disconnect();
+				}
+			});
+			this.channels.setWaitTimeout(channelWaitTimeout);
+		}
+
+		private boolean isConnected() {
+			return this.jschSession.isConnected();
+		}
+
+		private boolean isAlive() {
+			if (!this.jschSession.isConnected()) {
+				return false;
+			}
+			long now = System.currentTimeMillis();
+			if (keepAliveInterval > 0 && now - this.lastUsed > keepAliveInterval) {
+				try {
+					this.jschSession.sendKeepAliveMsg();
+				}
+				catch (Exception e) {
+					return false;
+				}
+			}
+			this.lastUsed = now;
+			return this.jschSession.isConnected();
+		}
+
+		private void close() {
+			this.channels.removeAllIdleItems();
+			this.jschSession.disconnect();
+		}
+
+	}
+
 	/**
 	 * this is a simple, optimistic implementation of the UserInfo interface.
 	 * It returns in the positive where possible and handles interactive authentication
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,11 +22,14 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.core.NestedIOException;
+import org.springframework.integration.file.remote.session.ResumableSession;
 import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.util.Pool;
 import org.springframework.util.Assert;
 import org.springframework.util.FileCopyUtils;
 
@@ -37,7 +40,8 @@ import com.jcraft.jsch.SftpATTRS;
 import com.jcraft.jsch.SftpException;
 
 /**
- * Default SFTP {@link Session} implementation. Wraps a JSCH session instance.
+ * Default SFTP {@link Session} implementation. Wraps a JSCH session instance or,
+ * when the JSCH session is shared, an SFTP channel leased from a pool.
  *
  * @author Josh Long
  * @author Mario Gray
@@ -46,7 +50,7 @@ import com.jcraft.jsch.SftpException;
  * @author Gary Russell
  * @since 2.0
  */
-class SftpSession implements Session<LsEntry> {
+class SftpSession implements ResumableSession<LsEntry> {
 
 	private final Log logger = LogFactory.getLog(this.getClass());
 
@@ -54,10 +58,28 @@ class SftpSession implements Session<LsEntry> {
 
 	private volatile ChannelSftp channel;
 
+	private final Pool<ChannelSftp> channelPool;
+
+	private final AtomicBoolean released = new AtomicBoolean();
+
 
 	public SftpSession(com.jcraft.jsch.Session jschSession) {
 		Assert.notNull(jschSession, "jschSession must not be null");
 		this.jschSession = jschSession;
+		this.channelPool = null;
+	}
+
+	/**
+	 * Create a session using a connected channel on a shared JSCH session; the
+	 * channel is released to the pool when the session is closed.
+	 * @since 3.0
+	 */
+	SftpSession(ChannelSftp channel, Pool<ChannelSftp> channelPool) {
+		Assert.notNull(channel, "channel must not be null");
+		Assert.notNull(channelPool, "channelPool must not be null");
+		this.jschSession = null;
+		this.channel = channel;
+		this.channelPool = channelPool;
 	}
 
 
@@ -118,6 +140,18 @@ class SftpSession implements Session<LsEntry> {
 		}
 	}
 
+	public void read(String source, OutputStream os, long offset) throws IOException {
+		Assert.state(this.channel != null, "session is not connected");
+		Assert.isTrue(offset >= 0, "offset must not be negative");
+		try {
+			InputStream is = this.channel.get(source, null, offset);
+			FileCopyUtils.copy(is, os);
+		}
+		catch (SftpException e) {
+			throw new NestedIOException("failed to read file", e);
+		}
+	}
+
 	public void write(InputStream inputStream, String destination) throws IOException {
 		Assert.state(this.channel != null, "session is not connected");
 		try {
@@ -129,12 +163,20 @@ class SftpSession implements Session<LsEntry> {
 	}
 
 	public void close() {
-		if (this.jschSession.isConnected()) {
+		if (this.channelPool != null) {
+			if (this.released.compareAndSet(false, true)) {
+				this.channelPool.releaseItem(this.channel);
+			}
+		}
+		else if (this.jschSession.isConnected()) {
 			this.jschSession.disconnect();
 		}
 	}
 
 	public boolean isOpen() {
+		if (this.channelPool != null) {
+			return !this.released.get() && this.channel.isConnected();
+		}
 		return this.jschSession.isConnected();
 	}
 
@@ -191,6 +233,9 @@ class SftpSession implements Session<LsEntry> {
 	}
 	
 	void connect() {
+		if (this.channelPool != null) {
+			return;
+		}
 		try {
 			if (!this.jschSession.isConnected()) {
 				this.jschSession.connect();
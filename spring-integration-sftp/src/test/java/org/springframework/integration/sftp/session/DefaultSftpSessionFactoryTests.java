@@ -0,0 +1,160 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.sftp.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.test.util.TestUtils;
+
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.ChannelSftp.LsEntry;
+import com.jcraft.jsch.JSch;
+
+/**
+ * @since 3.0
+ *
+ */
+public class DefaultSftpSessionFactoryTests {
+
+	private final JSch jsch = mock(JSch.class);
+
+	private final com.jcraft.jsch.Session jschSession1 = mock(com.jcraft.jsch.Session.class);
+
+	private final com.jcraft.jsch.Session jschSession2 = mock(com.jcraft.jsch.Session.class);
+
+	private final DefaultSftpSessionFactory factory = new DefaultSftpSessionFactory();
+
+	@Before
+	public void setup() throws Exception {
+		Answer<Channel> newChannel = new Answer<Channel>() {
+
+			public Channel answer(InvocationOnMock invocation) throws Throwable {
+				ChannelSftp channel = mock(ChannelSftp.class);
+				when(channel.isConnected()).thenReturn(true);
+				return channel;
+			}
+		};
+		when(this.jschSession1.openChannel("sftp")).thenAnswer(newChannel);
+		when(this.jschSession2.openChannel("sftp")).thenAnswer(newChannel);
+		when(this.jschSession1.isConnected()).thenReturn(true);
+		when(this.jschSession2.isConnected()).thenReturn(true);
+		when(this.jsch.getSession(anyString(), anyString(), anyInt())).thenReturn(this.jschSession1, this.jschSession2);
+		new DirectFieldAccessor(this.factory).setPropertyValue("jsch", this.jsch);
+		this.factory.setHost("localhost");
+		this.factory.setUser("foo");
+		this.factory.setPassword("bar");
+		this.factory.setSharedSession(true);
+	}
+
+	@Test
+	public void testChannelsShareConnection() throws Exception {
+		Session<LsEntry> session1 = this.factory.getSession();
+		Session<LsEntry> session2 = this.factory.getSession();
+		ChannelSftp channel1 = TestUtils.getPropertyValue(session1, "channel", ChannelSftp.class);
+		assertNotSame(channel1, TestUtils.getPropertyValue(session2, "channel"));
+		verify(this.jsch).getSession("foo", "localhost", 22);
+		verify(this.jschSession1).connect();
+		verify(this.jschSession1, times(2)).openChannel("sftp");
+		assertTrue(session1.isOpen());
+
+		session1.close();
+		session1.close();
+		assertFalse(session1.isOpen());
+		Session<LsEntry> session3 = this.factory.getSession();
+		assertSame(channel1, TestUtils.getPropertyValue(session3, "channel"));
+		verify(this.jschSession1, times(2)).openChannel("sftp");
+		verify(this.jschSession1, times(0)).disconnect();
+		session2.close();
+		session3.close();
+
+		this.factory.destroy();
+		verify(channel1).disconnect();
+		verify(this.jschSession1).disconnect();
+	}
+
+	@Test
+	public void testChannelLeasesAreBounded() throws Exception {
+		this.factory.setMaxChannels(1);
+		this.factory.setChannelWaitTimeout(10);
+		Session<LsEntry> session1 = this.factory.getSession();
+		try {
+			this.factory.getSession();
+			fail("Expected exception");
+		}
+		catch (IllegalStateException e) {
+			assertEquals("failed to create SFTP Session", e.getMessage());
+		}
+		session1.close();
+		this.factory.getSession().close();
+		verify(this.jschSession1, times(1)).openChannel("sftp");
+	}
+
+	@Test
+	public void testReconnectWhenConnectionLost() throws Exception {
+		Session<LsEntry> session1 = this.factory.getSession();
+		ChannelSftp channel1 = TestUtils.getPropertyValue(session1, "channel", ChannelSftp.class);
+		session1.close();
+		when(this.jschSession1.isConnected()).thenReturn(false);
+		when(channel1.isConnected()).thenReturn(false);
+
+		Session<LsEntry> session2 = this.factory.getSession();
+		assertNotSame(channel1, TestUtils.getPropertyValue(session2, "channel"));
+		verify(this.jsch, times(2)).getSession("foo", "localhost", 22);
+		verify(this.jschSession1).disconnect();
+		verify(channel1).disconnect();
+		verify(this.jschSession2).connect();
+		verify(this.jschSession2).openChannel("sftp");
+		session2.close();
+	}
+
+	@Test
+	public void testKeepAliveProbe() throws Exception {
+		this.factory.setKeepAliveInterval(1);
+		this.factory.getSession().close();
+		Thread.sleep(10);
+		this.factory.getSession().close();
+		verify(this.jschSession1).sendKeepAliveMsg();
+		verify(this.jsch, times(1)).getSession("foo", "localhost", 22);
+
+		doThrow(new RuntimeException("broken pipe")).when(this.jschSession1).sendKeepAliveMsg();
+		Thread.sleep(10);
+		this.factory.getSession().close();
+		verify(this.jsch, times(2)).getSession("foo", "localhost", 22);
+		verify(this.jschSession1).disconnect();
+	}
+
+}
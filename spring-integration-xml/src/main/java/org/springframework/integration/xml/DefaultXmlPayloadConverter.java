@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -42,14 +42,18 @@ public class DefaultXmlPayloadConverter implements XmlPayloadConverter {
 
 	private DocumentBuilderFactory documentBuilderFactory;
 
+	private final DocumentBuilderPool documentBuilderPool;
+
 
 	public DefaultXmlPayloadConverter() {
 		this.documentBuilderFactory = DocumentBuilderFactory.newInstance();
 		this.documentBuilderFactory.setNamespaceAware(true);
+		this.documentBuilderPool = this.createDocumentBuilderPool();
 	}
 
 	public DefaultXmlPayloadConverter(DocumentBuilderFactory documentBuilderFactory) {
 		this.documentBuilderFactory = documentBuilderFactory;
+		this.documentBuilderPool = this.createDocumentBuilderPool();
 	}
 
 
@@ -59,7 +63,7 @@ public class DefaultXmlPayloadConverter implements XmlPayloadConverter {
 		}
 		if (object instanceof File) {
 			try {
-				return getDocumentBuilder().parse((File) object);
+				return this.documentBuilderPool.parse((File) object);
 			}
 			catch (Exception e) {
 				throw new MessagingException("failed to parse File payload '" + object + "'", e);
@@ -67,7 +71,7 @@ public class DefaultXmlPayloadConverter implements XmlPayloadConverter {
 		}
 		if (object instanceof String) {
 			try {
-				return getDocumentBuilder().parse(new InputSource(new StringReader((String) object)));
+				return this.documentBuilderPool.parse(new InputSource(new StringReader((String) object)));
 			}
 			catch (Exception e) {
 				throw new MessagingException("failed to parse String payload '" + object + "'", e);
@@ -107,6 +111,10 @@ public class DefaultXmlPayloadConverter implements XmlPayloadConverter {
 		return source;
 	}
 
+	/**
+	 * Create a new {@link DocumentBuilder}; builders are pooled and reused for
+	 * subsequent conversions.
+	 */
 	protected synchronized DocumentBuilder getDocumentBuilder() {
 		try {
 			return this.documentBuilderFactory.newDocumentBuilder();
@@ -116,4 +124,14 @@ public class DefaultXmlPayloadConverter implements XmlPayloadConverter {
 		}
 	}
 
+	private DocumentBuilderPool createDocumentBuilderPool() {
+		return new DocumentBuilderPool(this.documentBuilderFactory) {
+
+			@Override
+			protected DocumentBuilder createDocumentBuilder() {
+				return getDocumentBuilder();
+			}
+		};
+	}
+
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.xml;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import org.springframework.integration.MessagingException;
+import org.springframework.integration.util.SimplePool;
+import org.springframework.util.Assert;
+
+/**
+ * A pool of {@link DocumentBuilder}s created by a {@link DocumentBuilderFactory};
+ * avoids creating a new builder (and parser) for each document. Builders are
+ * {@link DocumentBuilder#reset() reset} before they are returned to the pool.
+ * <p>
+ * By default the pool is unbounded; it grows to the number of threads concurrently
+ * parsing documents.
+ *
+ * @since 3.0
+ */
+public class DocumentBuilderPool {
+
+	private final DocumentBuilderFactory documentBuilderFactory;
+
+	private final SimplePool<DocumentBuilder> pool;
+
+
+	public DocumentBuilderPool(DocumentBuilderFactory documentBuilderFactory) {
+		this(documentBuilderFactory, 0);
+	}
+
+	/**
+	 * @param documentBuilderFactory the factory.
+	 * @param poolSize the maximum number of builders; callers wait for a builder to be
+	 * returned when the limit is reached. 0 for an unbounded pool.
+	 */
+	public DocumentBuilderPool(DocumentBuilderFactory documentBuilderFactory, int poolSize) {
+		Assert.notNull(documentBuilderFactory, "'documentBuilderFactory' must not be null");
+		this.documentBuilderFactory = documentBuilderFactory;
+		this.pool = new SimplePool<DocumentBuilder>(poolSize, new SimplePool.PoolItemCallback<DocumentBuilder>() {
+
+			public DocumentBuilder createForPool() {
+				try {
+					return createDocumentBuilder();
+				}
+				catch (ParserConfigurationException e) {
+					throw new MessagingException("failed to create a new DocumentBuilder", e);
+				}
+			}
+
+			public boolean isStale(DocumentBuilder item) {
+				return false;
+			}
+
+			public void removedFromPool(DocumentBuilder item) {
+			}
+		});
+	}
+
+
+	public Document parse(InputSource inputSource) throws SAXException, IOException {
+		DocumentBuilder documentBuilder = this.pool.getItem();
+		try {
+			return documentBuilder.parse(inputSource);
+		}
+		finally {
+			this.release(documentBuilder);
+		}
+	}
+
+	public Document parse(File file) throws SAXException, IOException {
+		DocumentBuilder documentBuilder = this.pool.getItem();
+		try {
+			return documentBuilder.parse(file);
+		}
+		finally {
+			this.release(documentBuilder);
+		}
+	}
+
+	public Document newDocument() {
+		DocumentBuilder documentBuilder = this.pool.getItem();
+		try {
+			return documentBuilder.newDocument();
+		}
+		finally {
+			this.release(documentBuilder);
+		}
+	}
+
+	/**
+	 * Create a new {@link DocumentBuilder} for the pool; the default implementation
+	 * uses the factory, which is not thread-safe, while holding its monitor.
+	 */
+	protected DocumentBuilder createDocumentBuilder() throws ParserConfigurationException {
+		synchronized (this.documentBuilderFactory) {
+			return this.documentBuilderFactory.newDocumentBuilder();
+		}
+	}
+
+	private void release(DocumentBuilder documentBuilder) {
+		try {
+			documentBuilder.reset();
+		}
+		catch (UnsupportedOperationException e) {
+			// cannot be reused
+			this.pool.removeItem(documentBuilder);
+			return;
+		}
+		this.pool.releaseItem(documentBuilder);
+	}
+
+}
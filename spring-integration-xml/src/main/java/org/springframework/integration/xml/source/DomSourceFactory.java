@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,9 +19,7 @@ package org.springframework.integration.xml.source;
 import java.io.File;
 import java.io.StringReader;
 
-import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Source;
 import javax.xml.transform.dom.DOMSource;
 
@@ -29,6 +27,7 @@ import org.w3c.dom.Document;
 import org.xml.sax.InputSource;
 
 import org.springframework.integration.MessagingException;
+import org.springframework.integration.xml.DocumentBuilderPool;
 
 /**
  * {@link SourceFactory} implementation which supports creation of a {@link DOMSource}
@@ -39,17 +38,17 @@ import org.springframework.integration.MessagingException;
  */
 public class DomSourceFactory implements SourceFactory {
 
-	private final DocumentBuilderFactory documentBuilderFactory;
+	private final DocumentBuilderPool documentBuilderPool;
 
 
 	public DomSourceFactory() {
 		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 		factory.setNamespaceAware(true);
-		this.documentBuilderFactory = factory;
+		this.documentBuilderPool = new DocumentBuilderPool(factory);
 	}
 
 	public DomSourceFactory(DocumentBuilderFactory documentBuilderFactory) {
-		this.documentBuilderFactory = documentBuilderFactory;
+		this.documentBuilderPool = new DocumentBuilderPool(documentBuilderFactory);
 	}
 
 
@@ -77,7 +76,7 @@ public class DomSourceFactory implements SourceFactory {
 
 	private DOMSource createDomSourceForString(String s) {
 		try {
-			Document document = getNewDocumentBuilder().parse(new InputSource(new StringReader(s)));
+			Document document = this.documentBuilderPool.parse(new InputSource(new StringReader(s)));
 			return new DOMSource(document.getDocumentElement());
 		}
 		catch (Exception e) {
@@ -87,7 +86,7 @@ public class DomSourceFactory implements SourceFactory {
 
 	private DOMSource createDomSourceForFile(File file) {
 		try {
-			Document document = this.getNewDocumentBuilder().parse(file);
+			Document document = this.documentBuilderPool.parse(file);
 			return new DOMSource(document.getDocumentElement());
 		}
 		catch (Exception e) {
@@ -95,10 +94,4 @@ public class DomSourceFactory implements SourceFactory {
 		}
 	}
 
-	private DocumentBuilder getNewDocumentBuilder() throws ParserConfigurationException {
-		synchronized (this.documentBuilderFactory) {
-			return documentBuilderFactory.newDocumentBuilder();
-		}
-	}
-
 }
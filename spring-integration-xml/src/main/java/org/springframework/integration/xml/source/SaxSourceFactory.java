@@ -0,0 +1,63 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.xml.source;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.StringReader;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXSource;
+
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import org.springframework.integration.MessagingException;
+
+/**
+ * {@link SourceFactory} implementation which supports creation of a {@link SAXSource}
+ * from a {@link String}, {@link File} or {@link InputStream} payload. The content is
+ * parsed as it is consumed (for example by an XSLT transformer), rather than being
+ * parsed into a DOM first. {@link Document} payloads are wrapped in a {@link DOMSource}.
+ *
+ * @since 3.0
+ */
+public class SaxSourceFactory implements SourceFactory {
+
+	public Source createSource(Object payload) {
+		Source source = null;
+		if (payload instanceof String) {
+			source = new SAXSource(new InputSource(new StringReader((String) payload)));
+		}
+		else if (payload instanceof File) {
+			source = new SAXSource(new InputSource(((File) payload).toURI().toString()));
+		}
+		else if (payload instanceof InputStream) {
+			source = new SAXSource(new InputSource((InputStream) payload));
+		}
+		else if (payload instanceof Document) {
+			source = new DOMSource((Document) payload);
+		}
+		if (source == null) {
+			throw new MessagingException("failed to create Source for payload type [" +
+					payload.getClass().getName() + "]");
+		}
+		return source;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2013 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,10 +22,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 
@@ -36,7 +36,9 @@ import org.w3c.dom.NodeList;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.splitter.AbstractMessageSplitter;
+import org.springframework.integration.util.SimplePool;
 import org.springframework.integration.xml.DefaultXmlPayloadConverter;
+import org.springframework.integration.xml.DocumentBuilderPool;
 import org.springframework.integration.xml.XmlPayloadConverter;
 import org.springframework.util.Assert;
 import org.springframework.xml.transform.StringResult;
@@ -61,6 +63,32 @@ public class XPathMessageSplitter extends AbstractMessageSplitter {
 
 	private volatile DocumentBuilderFactory documentBuilderFactory;
 
+	private volatile DocumentBuilderPool documentBuilderPool;
+
+	private final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+
+	private final SimplePool<Transformer> transformerPool = new SimplePool<Transformer>(0,
+			new SimplePool.PoolItemCallback<Transformer>() {
+
+				public Transformer createForPool() {
+					try {
+						synchronized (transformerFactory) {
+							return transformerFactory.newTransformer();
+						}
+					}
+					catch (TransformerConfigurationException e) {
+						throw new MessagingException("failed to create a new Transformer", e);
+					}
+				}
+
+				public boolean isStale(Transformer item) {
+					return false;
+				}
+
+				public void removedFromPool(Transformer item) {
+				}
+			});
+
 	private volatile XmlPayloadConverter xmlPayloadConverter = new DefaultXmlPayloadConverter();
 
 
@@ -76,6 +104,7 @@ public class XPathMessageSplitter extends AbstractMessageSplitter {
 		this.xpathExpression = xpathExpression;
 		this.documentBuilderFactory = DocumentBuilderFactory.newInstance();
 		this.documentBuilderFactory.setNamespaceAware(true);
+		this.documentBuilderPool = new DocumentBuilderPool(this.documentBuilderFactory);
 	}
 
 
@@ -90,6 +119,7 @@ public class XPathMessageSplitter extends AbstractMessageSplitter {
 	public void setDocumentBuilder(DocumentBuilderFactory documentBuilderFactory) {
 		Assert.notNull(documentBuilderFactory, "DocumentBuilderFactory must not be null");
 		this.documentBuilderFactory = documentBuilderFactory;
+		this.documentBuilderPool = new DocumentBuilderPool(documentBuilderFactory);
 	}
 
 	public void setXmlPayloadConverter(XmlPayloadConverter xmlPayloadConverter) {
@@ -122,14 +152,20 @@ public class XPathMessageSplitter extends AbstractMessageSplitter {
 
 	private Object splitDocument(Document document) throws Exception {
 		List<Node> nodes = splitNode(document);
-		Transformer transformer = TransformerFactory.newInstance().newTransformer();
-		List<String> splitStrings = new ArrayList<String>(nodes.size());
-		for (Node nodeFromList : nodes) {
-			StringResult result = new StringResult();
-			transformer.transform(new DOMSource(nodeFromList), result);
-			splitStrings.add(result.toString());
+		Transformer transformer = this.transformerPool.getItem();
+		try {
+			List<String> splitStrings = new ArrayList<String>(nodes.size());
+			for (Node nodeFromList : nodes) {
+				StringResult result = new StringResult();
+				transformer.transform(new DOMSource(nodeFromList), result);
+				splitStrings.add(result.toString());
+			}
+			return splitStrings;
+		}
+		finally {
+			transformer.reset();
+			this.transformerPool.releaseItem(transformer);
 		}
-		return splitStrings;
 	}
 
 	private List<Node> splitNode(Node node) throws ParserConfigurationException {
@@ -144,20 +180,13 @@ public class XPathMessageSplitter extends AbstractMessageSplitter {
 	}
 
 	private List<Node> convertNodesToDocuments(List<Node> nodes) throws ParserConfigurationException {
-		DocumentBuilder documentBuilder = this.getNewDocumentBuilder();
 		List<Node> documents = new ArrayList<Node>(nodes.size());
 		for (Node node : nodes) {
-			Document document = documentBuilder.newDocument();
+			Document document = this.documentBuilderPool.newDocument();
 			document.appendChild(document.importNode(node, true));
 			documents.add(document);
 		}
 		return documents;
 	}
 
-	private DocumentBuilder getNewDocumentBuilder() throws ParserConfigurationException {
-		synchronized (this.documentBuilderFactory) {
-			return this.documentBuilderFactory.newDocumentBuilder();
-		}
-	}
-
 }
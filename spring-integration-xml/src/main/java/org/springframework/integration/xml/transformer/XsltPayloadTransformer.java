@@ -24,6 +24,7 @@ import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMResult;
@@ -43,6 +44,7 @@ import org.springframework.integration.Message;
 import org.springframework.integration.MessageHeaders;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.transformer.AbstractTransformer;
+import org.springframework.integration.util.SimplePool;
 import org.springframework.integration.xml.result.DomResultFactory;
 import org.springframework.integration.xml.result.ResultFactory;
 import org.springframework.integration.xml.source.DomSourceFactory;
@@ -72,6 +74,9 @@ import org.springframework.xml.transform.StringSource;
  * payload and the {@link Result} to pass into the transformer. An instance of
  * {@link ResultTransformer} can also be provided to convert the Result prior to
  * returning.
+ * <p>
+ * {@link Transformer}s created from the {@link Templates} are pooled; their parameters
+ * are cleared and they are reset before being returned to the pool.
  *
  * @author Jonas Partner
  * @author Mark Fisher
@@ -99,6 +104,8 @@ public class XsltPayloadTransformer extends AbstractTransformer {
 
 	private volatile String[] xsltParamHeaders;
 
+	private volatile SimplePool<Transformer> transformerPool;
+
 
 	public XsltPayloadTransformer(Templates templates) throws ParserConfigurationException {
 		this(templates, null);
@@ -118,11 +125,13 @@ public class XsltPayloadTransformer extends AbstractTransformer {
 		this.templates = templates;
 		this.resultTransformer = resultTransformer;
 		this.evaluationContext.addPropertyAccessor(new MapAccessor());
+		this.transformerPool = this.createTransformerPool(0);
 	}
 
 
 	/**
-	 * Sets the SourceFactory.
+	 * Sets the SourceFactory. A {@link org.springframework.integration.xml.source.SaxSourceFactory}
+	 * may be used to avoid parsing String and File payloads into a DOM before the transformation.
 	 */
 	public void setSourceFactory(SourceFactory sourceFactory) {
 		Assert.notNull(sourceFactory, "SourceFactory must not be null");
@@ -163,9 +172,31 @@ public class XsltPayloadTransformer extends AbstractTransformer {
 		return "xml:xslt-transformer";
 	}
 
+	/**
+	 * Limit the number of pooled {@link Transformer}s; when all are in use, threads wait
+	 * for one to be returned. Default: unbounded (the pool grows to the number of threads
+	 * concurrently performing transformations).
+	 */
+	public void setTransformerPoolSize(int transformerPoolSize) {
+		this.transformerPool = this.createTransformerPool(transformerPoolSize);
+	}
+
 	@Override
 	protected Object doTransform(Message<?> message) throws Exception {
-		Transformer transformer = buildTransformer(message);
+		SimplePool<Transformer> transformerPool = this.transformerPool;
+		Transformer transformer = transformerPool.getItem();
+		try {
+			this.applyParameters(transformer, message);
+			return this.doTransform(message, transformer);
+		}
+		finally {
+			transformer.clearParameters();
+			transformer.reset();
+			transformerPool.releaseItem(transformer);
+		}
+	}
+
+	private Object doTransform(Message<?> message, Transformer transformer) throws Exception {
 		Object payload;
 		if (this.alwaysUseSourceFactory) {
 			payload = sourceFactory.createSource(message.getPayload());
@@ -253,9 +284,29 @@ public class XsltPayloadTransformer extends AbstractTransformer {
 		return (Document) domResult.getNode();
 	}
 
-	private Transformer buildTransformer(Message<?> message) throws TransformerException {
+	private SimplePool<Transformer> createTransformerPool(int poolSize) {
+		return new SimplePool<Transformer>(poolSize, new SimplePool.PoolItemCallback<Transformer>() {
+
+			public Transformer createForPool() {
+				try {
+					return templates.newTransformer();
+				}
+				catch (TransformerConfigurationException e) {
+					throw new MessagingException("failed to create a new Transformer", e);
+				}
+			}
+
+			public boolean isStale(Transformer item) {
+				return false;
+			}
+
+			public void removedFromPool(Transformer item) {
+			}
+		});
+	}
+
+	private void applyParameters(Transformer transformer, Message<?> message) {
 		// process individual mappings
-		Transformer transformer = this.templates.newTransformer();
 		if (this.xslParameterMappings != null) {
 			for (String parameterName : this.xslParameterMappings.keySet()) {
 				Expression expression = this.xslParameterMappings.get(parameterName);
@@ -282,7 +333,6 @@ public class XsltPayloadTransformer extends AbstractTransformer {
 				}
 			}
 		}
-		return transformer;
 	}
 
 
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.junit.Test;
+import org.w3c.dom.DOMImplementation;
+import org.w3c.dom.Document;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import org.springframework.integration.test.util.TestUtils;
+import org.springframework.integration.util.SimplePool;
+
+/**
+ * @since 3.0
+ */
+public class DocumentBuilderPoolTests {
+
+	@Test
+	public void testBuildersAreReused() throws Exception {
+		DocumentBuilderPool pool = new DocumentBuilderPool(DocumentBuilderFactory.newInstance());
+		for (int i = 0; i < 10; i++) {
+			assertNotNull(pool.parse(new InputSource(new StringReader("<foo/>"))));
+		}
+		assertEquals(1, allocatedCount(pool));
+	}
+
+	@Test
+	public void testBuildersThatCannotBeResetAreRemoved() throws Exception {
+		final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		DocumentBuilderPool pool = new DocumentBuilderPool(factory, 1) {
+
+			@Override
+			protected DocumentBuilder createDocumentBuilder() throws ParserConfigurationException {
+				return new NonResettableDocumentBuilder(factory.newDocumentBuilder());
+			}
+		};
+		for (int i = 0; i < 10; i++) {
+			assertNotNull(pool.parse(new InputSource(new StringReader("<foo/>"))));
+			assertNotNull(pool.newDocument());
+		}
+		assertEquals(0, allocatedCount(pool));
+	}
+
+	private static int allocatedCount(DocumentBuilderPool pool) {
+		return TestUtils.getPropertyValue(pool, "pool", SimplePool.class).getAllocatedCount();
+	}
+
+
+	/**
+	 * Does not override {@link DocumentBuilder#reset()}, which therefore throws
+	 * an {@link UnsupportedOperationException}.
+	 */
+	private static class NonResettableDocumentBuilder extends DocumentBuilder {
+
+		private final DocumentBuilder delegate;
+
+		private NonResettableDocumentBuilder(DocumentBuilder delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Document parse(InputSource is) throws SAXException, IOException {
+			return this.delegate.parse(is);
+		}
+
+		@Override
+		public boolean isNamespaceAware() {
+			return this.delegate.isNamespaceAware();
+		}
+
+		@Override
+		public boolean isValidating() {
+			return this.delegate.isValidating();
+		}
+
+		@Override
+		public void setEntityResolver(EntityResolver er) {
+			this.delegate.setEntityResolver(er);
+		}
+
+		@Override
+		public void setErrorHandler(ErrorHandler eh) {
+			this.delegate.setErrorHandler(eh);
+		}
+
+		@Override
+		public Document newDocument() {
+			return this.delegate.newDocument();
+		}
+
+		@Override
+		public DOMImplementation getDOMImplementation() {
+			return this.delegate.getDOMImplementation();
+		}
+
+	}
+
+}
@@ -16,6 +16,9 @@
 
 package org.springframework.integration.xml.transformer;
 
+import java.io.File;
+import java.io.FileWriter;
+
 import javax.xml.transform.Result;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.dom.DOMResult;
@@ -29,8 +32,10 @@ import org.springframework.integration.Message;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.xml.result.StringResultFactory;
+import org.springframework.integration.xml.source.SaxSourceFactory;
 import org.springframework.integration.xml.util.XmlTestUtil;
 import org.springframework.xml.transform.StringResult;
+import org.springframework.util.FileCopyUtils;
 import org.springframework.xml.transform.StringSource;
 import org.w3c.dom.Document;
 
@@ -38,7 +43,6 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
 
-
 /**
  * @author Jonas Partner
  * @author Oleg Zhurakousky
@@ -166,6 +170,29 @@ public class XsltPayloadTransformerTests {
         assertEquals("Wrong content in string", "hello world", returned.toString());
     }
 
+    @Test
+    public void testPooledTransformerParametersCleared() throws Exception {
+        String xsl = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\"><xsl:output method=\"text\" encoding=\"UTF-8\" /><xsl:param name=\"p\" select=\"'none'\"/><xsl:template match=\"order\"><xsl:value-of select=\"$p\"/></xsl:template></xsl:stylesheet>";
+        transformer = new XsltPayloadTransformer(new ByteArrayResource(xsl.getBytes("UTF-8")));
+        transformer.setTransformerPoolSize(1);
+        transformer.setXsltParamHeaders(new String[] {"p"});
+        Object returned = transformer.doTransform(MessageBuilder.withPayload(docAsString).setHeader("p", "foo").build());
+        assertEquals("foo", returned);
+        returned = transformer.doTransform(buildMessage(docAsString));
+        assertEquals("none", returned);
+    }
+
+    @Test
+    public void testFileWithSaxSourceFactory() throws Exception {
+        File file = File.createTempFile("order", ".xml");
+        file.deleteOnExit();
+        FileCopyUtils.copy(docAsString, new FileWriter(file));
+        transformer.setSourceFactory(new SaxSourceFactory());
+        Object returned = transformer.doTransform(buildMessage(file));
+        assertEquals("Wrong type of return ", DOMResult.class, returned.getClass());
+        assertXMLEqual(XmlTestUtil.getDocumentForString(outputAsString), (Document) ((DOMResult) returned).getNode());
+    }
+
     protected Message<?> buildMessage(Object payload) {
         return MessageBuilder.withPayload(payload).build();
     }